@@ -24,3 +24,35 @@ db.training_sessions.createIndex({ "startTime": 1, "endTime": 1 })
 -- Compound indexes for complex queries
 db.gps_data.createIndex({ "playerId": 1, "sessionId": 1, "timestamp": 1 })
 db.player_metrics.createIndex({ "playerId": 1, "calculatedAt": -1 })
+
+-- ML Prediction indexes (keyset pagination: newest first, _id as tiebreaker)
+db.ml_predictions.createIndex({ "type": 1, "predictedAt": -1, "_id": -1 })
+db.ml_predictions.createIndex({ "playerId": 1, "predictedAt": -1, "_id": -1 })
+db.ml_predictions.createIndex({ "sessionId": 1, "predictedAt": -1, "_id": -1 })
+db.ml_predictions.createIndex({ "predictedAt": -1, "_id": -1 })
+db.ml_predictions.createIndex({ "playerId": 1, "type": 1, "predictedAt": -1 })
+
+-- Recorded outcomes (training labels), by the time the outcome happened
+db.ml_predictions.createIndex({ "type": 1, "observedAt": 1 }, { partialFilterExpression: { "isActual": true } })
+
+-- ML Prediction archive (documents expire two years after archival)
+db.ml_predictions_archive.createIndex({ "archivedAt": 1 }, { expireAfterSeconds: 63072000 })
+db.ml_predictions_archive.createIndex({ "playerId": 1, "predictedAt": -1 })
+
+-- Formation timeline (one document per session window)
+db.formation_windows.createIndex({ "sessionId": 1, "windowStart": 1 }, { unique: true })
+
+-- Movement event index (one document per player and session)
+db.session_event_index.createIndex({ "sessionId": 1, "playerId": 1 }, { unique: true })
+
+-- GPS data in time-series mode (gps.storage.mode=timeseries); the collection itself is
+-- created by the application with timeField "timestamp" and metaField "meta"
+db.gps_data_ts.createIndex({ "meta.sessionId": 1, "meta.playerId": 1, "timestamp": 1 })
+db.gps_data_ts.createIndex({ "meta.playerId": 1, "timestamp": 1 })
+
+-- GPS data in bucket mode (gps.storage.mode=bucket), one document per player, session and minute
+db.gps_buckets.createIndex({ "sessionId": 1, "playerId": 1, "minute": 1 }, { unique: true })
+db.gps_buckets.createIndex({ "playerId": 1, "minute": 1 })
+
+-- Per-minute split metrics (one document per player, session and minute)
+db.player_splits.createIndex({ "sessionId": 1, "playerId": 1, "start": 1 }, { unique: true })
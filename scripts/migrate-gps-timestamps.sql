@@ -0,0 +1,11 @@
+-- Convert stored GPS fix timestamps from dates to epoch milliseconds (numeric longs)
+
+-- Document mode (gps.storage.mode=document): one pass over gps_data; already converted
+-- documents are skipped, so the script can be re-run after an interrupted migration
+db.gps_data.updateMany(
+  { "timestamp": { "$type": "date" } },
+  [{ "$set": { "timestamp": { "$toLong": "$timestamp" } } }]
+)
+
+-- Time-series mode keeps a date time field (gps_data_ts needs one) and bucket mode already
+-- stores numeric times in "t", so neither needs migrating
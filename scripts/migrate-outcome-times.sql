@@ -0,0 +1,8 @@
+-- Give recorded outcomes (training labels) their outcome time in observedAt
+
+-- Outcomes recorded before observedAt existed carried that time in predictedAt; documents
+-- that already have observedAt are skipped, so the script can be re-run
+db.ml_predictions.updateMany(
+  { "isActual": true, "observedAt": { "$exists": false } },
+  [{ "$set": { "observedAt": "$predictedAt" } }]
+)
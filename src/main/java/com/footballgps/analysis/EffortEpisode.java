@@ -0,0 +1,26 @@
+package com.footballgps.analysis;
+
+/**
+ * One continuous high-intensity effort. Indices refer to the time-ordered fix list the
+ * segmenter was fed; {@code endIndex} is exclusive and {@code endMillis} is the time of
+ * the first fix below the thresholds (or of the last fix if the session ended mid-effort).
+ */
+public record EffortEpisode(
+        int startIndex,
+        int endIndex,
+        long startMillis,
+        long endMillis,
+        double peakSpeed, // km/h
+        double distance, // meters
+        long recoveryBeforeSeconds) { // time since the previous effort ended, -1 for the first
+    
+    public static final long NO_PREVIOUS_EFFORT = -1;
+    
+    public double durationSeconds() {
+        return (endMillis - startMillis) / 1000.0;
+    }
+    
+    public boolean hasRecoveryBefore() {
+        return recoveryBeforeSeconds != NO_PREVIOUS_EFFORT;
+    }
+}
@@ -0,0 +1,24 @@
+package com.footballgps.analysis;
+
+import java.util.List;
+
+public record EffortSegmentation(List<EffortEpisode> episodes) {
+    
+    /** Recovery intervals in seconds, one per effort that followed an earlier effort. */
+    public double[] recoveryTimes() {
+        return episodes.stream()
+                .filter(EffortEpisode::hasRecoveryBefore)
+                .mapToDouble(EffortEpisode::recoveryBeforeSeconds)
+                .toArray();
+    }
+    
+    public double averageRecoverySeconds() {
+        double[] recoveries = recoveryTimes();
+        if (recoveries.length == 0) return 0.0;
+        double sum = 0.0;
+        for (double recovery : recoveries) {
+            sum += recovery;
+        }
+        return sum / recoveries.length;
+    }
+}
@@ -0,0 +1,103 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass state machine that splits a time-ordered stream of fixes into
+ * high-intensity efforts and the recoveries between them. Each fix is visited once,
+ * so a full-match session is segmented in O(n) time. Feed fixes with
+ * {@link #accept}, then call {@link #finish()}; instances are not thread-safe.
+ */
+public class EffortSegmenter {
+    
+    public static final double DEFAULT_SPEED_THRESHOLD = 20.0; // km/h
+    public static final double DEFAULT_ACCELERATION_THRESHOLD = 3.0; // m/s²
+    
+    private final double speedThreshold;
+    private final double accelerationThreshold;
+    private final Consumer<EffortEpisode> listener;
+    
+    private int index = -1;
+    private boolean hasPrevious;
+    private long previousMillis;
+    private double previousLatitude;
+    private double previousLongitude;
+    
+    private boolean inEffort;
+    private int effortStartIndex;
+    private long effortStartMillis;
+    private double effortPeakSpeed;
+    private double effortDistance;
+    private long effortRecoveryBefore;
+    private long lastEffortEndMillis = -1;
+    
+    public EffortSegmenter(Consumer<EffortEpisode> listener) {
+        this(DEFAULT_SPEED_THRESHOLD, DEFAULT_ACCELERATION_THRESHOLD, listener);
+    }
+    
+    public EffortSegmenter(double speedThreshold, double accelerationThreshold, Consumer<EffortEpisode> listener) {
+        this.speedThreshold = speedThreshold;
+        this.accelerationThreshold = accelerationThreshold;
+        this.listener = listener;
+    }
+    
+    /** Segments a time-ordered fix list in one pass. */
+    public static EffortSegmentation segment(List<GpsData> sessionData) {
+        List<EffortEpisode> episodes = new ArrayList<>();
+        EffortSegmenter segmenter = new EffortSegmenter(episodes::add);
+        for (GpsData data : sessionData) {
+            segmenter.accept(data.getTimestamp(),
+                    data.getPosition().getLatitude(), data.getPosition().getLongitude(),
+                    data.getMovement().getSpeed(), data.getMovement().getAcceleration());
+        }
+        segmenter.finish();
+        return new EffortSegmentation(episodes);
+    }
+    
+    public void accept(long timestampMillis, double latitude, double longitude, double speed, double acceleration) {
+        index++;
+        boolean highIntensity = speed > speedThreshold || Math.abs(acceleration) > accelerationThreshold;
+        
+        if (highIntensity) {
+            if (!inEffort) {
+                inEffort = true;
+                effortStartIndex = index;
+                effortStartMillis = timestampMillis;
+                effortPeakSpeed = speed;
+                effortDistance = 0.0;
+                effortRecoveryBefore = lastEffortEndMillis >= 0
+                        ? Math.floorDiv(timestampMillis - lastEffortEndMillis, 1000L)
+                        : EffortEpisode.NO_PREVIOUS_EFFORT;
+            } else {
+                effortPeakSpeed = Math.max(effortPeakSpeed, speed);
+                effortDistance += GeoMath.distanceMeters(previousLatitude, previousLongitude, latitude, longitude);
+            }
+        } else if (inEffort) {
+            // The first fix below the thresholds closes the effort and starts the recovery clock
+            closeEffort(index, timestampMillis);
+            lastEffortEndMillis = timestampMillis;
+        }
+        
+        hasPrevious = true;
+        previousMillis = timestampMillis;
+        previousLatitude = latitude;
+        previousLongitude = longitude;
+    }
+    
+    /** Closes an effort still running at the end of the stream. */
+    public void finish() {
+        if (inEffort && hasPrevious) {
+            closeEffort(index + 1, previousMillis);
+        }
+    }
+    
+    private void closeEffort(int endIndex, long endMillis) {
+        inEffort = false;
+        listener.accept(new EffortEpisode(effortStartIndex, endIndex, effortStartMillis, endMillis,
+                effortPeakSpeed, effortDistance, effortRecoveryBefore));
+    }
+}
@@ -0,0 +1,203 @@
+package com.footballgps.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Role-assignment formation detection. Average positions over a window are normalised
+ * to team coordinates (back line to front line, touchline to touchline), the deepest
+ * player is taken as goalkeeper, and the outfield players are matched to every
+ * template's roles by minimum-cost assignment on squared distance; the template with
+ * the lowest cost wins. Scratch arrays are reused between calls, so an instance is
+ * cheap to call per window but not thread-safe.
+ */
+public final class FormationDetector {
+    
+    public static final long DEFAULT_WINDOW_MILLIS = 5 * 60_000;
+    // Goalkeeper plus seven outfield players
+    public static final int MIN_PLAYERS = 8;
+    
+    private static final int MAX_PLAYERS = 11;
+    
+    private final List<FormationTemplate> templates;
+    private final HungarianAssignment hungarian;
+    private final double[][] cost;
+    private final int[] assignment;
+    private final int[] bestAssignment;
+    private final double[] depth = new double[MAX_PLAYERS];
+    private final double[] width = new double[MAX_PLAYERS];
+    private final int[] outfield = new int[MAX_PLAYERS];
+    
+    public FormationDetector() {
+        this(FormationTemplate.STANDARD);
+    }
+    
+    public FormationDetector(List<FormationTemplate> templates) {
+        int maxRoles = MAX_PLAYERS - 1;
+        for (FormationTemplate template : templates) {
+            maxRoles = Math.max(maxRoles, template.size());
+        }
+        this.templates = templates;
+        this.hungarian = new HungarianAssignment(maxRoles);
+        this.cost = new double[MAX_PLAYERS][maxRoles];
+        this.assignment = new int[MAX_PLAYERS];
+        this.bestAssignment = new int[MAX_PLAYERS];
+    }
+    
+    /**
+     * Detects the formation from average positions in pitch coordinates (x towards the
+     * attacking end). With more than eleven players only the eleven with the most
+     * samples are used, which drops substitutes who played part of the window.
+     * Returns null below {@link #MIN_PLAYERS}.
+     */
+    public FormationMatch detect(String[] playerIds, double[] x, double[] y, long[] samples, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n > MAX_PLAYERS) {
+            Arrays.sort(order, Comparator.comparingLong((Integer i) -> samples[i]).reversed());
+        }
+        int players = Math.min(n, MAX_PLAYERS);
+        if (players < MIN_PLAYERS) {
+            return null;
+        }
+        
+        int goalkeeper = order[0];
+        for (int k = 1; k < players; k++) {
+            if (x[order[k]] < x[goalkeeper]) {
+                goalkeeper = order[k];
+            }
+        }
+        
+        int count = 0;
+        double sumY = 0;
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < players; k++) {
+            int i = order[k];
+            if (i != goalkeeper) {
+                outfield[count++] = i;
+                sumY += y[i];
+                minX = Math.min(minX, x[i]);
+                maxX = Math.max(maxX, x[i]);
+            }
+        }
+        double centreY = sumY / count;
+        double maxAbsY = 0;
+        for (int k = 0; k < count; k++) {
+            maxAbsY = Math.max(maxAbsY, Math.abs(y[outfield[k]] - centreY));
+        }
+        double depthRange = maxX - minX > 0 ? maxX - minX : 1.0;
+        double widthRange = maxAbsY > 0 ? maxAbsY : 1.0;
+        for (int k = 0; k < count; k++) {
+            depth[k] = (x[outfield[k]] - minX) / depthRange;
+            width[k] = (y[outfield[k]] - centreY) / widthRange;
+        }
+        
+        FormationTemplate best = null;
+        FormationTemplate runnerUp = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        double runnerUpCost = Double.POSITIVE_INFINITY;
+        
+        for (FormationTemplate template : templates) {
+            int roles = template.size();
+            if (roles < count) {
+                continue;
+            }
+            for (int k = 0; k < count; k++) {
+                for (int r = 0; r < roles; r++) {
+                    double dd = depth[k] - template.depth()[r];
+                    double dw = width[k] - template.width()[r];
+                    cost[k][r] = dd * dd + dw * dw;
+                }
+            }
+            double total = hungarian.solve(cost, count, roles, assignment);
+            if (total < bestCost) {
+                runnerUp = best;
+                runnerUpCost = bestCost;
+                best = template;
+                bestCost = total;
+                System.arraycopy(assignment, 0, bestAssignment, 0, count);
+            } else if (total < runnerUpCost) {
+                runnerUp = template;
+                runnerUpCost = total;
+            }
+        }
+        
+        if (best == null) {
+            return null;
+        }
+        
+        Map<String, String> roles = new HashMap<>();
+        roles.put(playerIds[goalkeeper], "GK");
+        for (int k = 0; k < count; k++) {
+            roles.put(playerIds[outfield[k]], best.roles()[bestAssignment[k]]);
+        }
+        
+        double confidence = runnerUp != null && runnerUpCost > 0 ? 1.0 - bestCost / runnerUpCost : 1.0;
+        return new FormationMatch(best.name(), Math.sqrt(bestCost / count), confidence,
+                runnerUp != null ? runnerUp.name() : null, roles);
+    }
+    
+    /**
+     * Detects the formation in consecutive windows of aligned frames. A player counts in
+     * a window when present for at least half of its frames.
+     */
+    public List<FormationSpan> detectWindows(TeamFrames frames, long windowMillis) {
+        int players = frames.playerCount();
+        int framesPerWindow = (int) Math.max(1, windowMillis / frames.tickMillis());
+        String[] ids = frames.playerIds().toArray(new String[0]);
+        double[] x = frames.x();
+        double[] y = frames.y();
+        
+        double[] sumX = new double[players];
+        double[] sumY = new double[players];
+        long[] samples = new long[players];
+        String[] windowIds = new String[players];
+        double[] meanX = new double[players];
+        double[] meanY = new double[players];
+        long[] windowSamples = new long[players];
+        
+        List<FormationSpan> spans = new ArrayList<>();
+        for (int from = 0; from < frames.frameCount(); from += framesPerWindow) {
+            int to = Math.min(frames.frameCount(), from + framesPerWindow);
+            Arrays.fill(sumX, 0.0);
+            Arrays.fill(sumY, 0.0);
+            Arrays.fill(samples, 0);
+            
+            for (int f = from; f < to; f++) {
+                int base = f * players;
+                for (int p = 0; p < players; p++) {
+                    double xi = x[base + p];
+                    if (!Double.isNaN(xi)) {
+                        sumX[p] += xi;
+                        sumY[p] += y[base + p];
+                        samples[p]++;
+                    }
+                }
+            }
+            
+            int n = 0;
+            for (int p = 0; p < players; p++) {
+                if (samples[p] * 2 >= to - from) {
+                    windowIds[n] = ids[p];
+                    meanX[n] = sumX[p] / samples[p];
+                    meanY[n] = sumY[p] / samples[p];
+                    windowSamples[n] = samples[p];
+                    n++;
+                }
+            }
+            
+            FormationMatch match = detect(windowIds, meanX, meanY, windowSamples, n);
+            if (match != null) {
+                spans.add(new FormationSpan(frames.frameMillis(from),
+                        frames.frameMillis(to - 1) + frames.tickMillis(), n, match));
+            }
+        }
+        return spans;
+    }
+}
@@ -0,0 +1,17 @@
+package com.footballgps.analysis;
+
+import java.util.Map;
+
+/**
+ * Best-fitting formation for one set of average player positions. {@code fitError} is
+ * the RMS distance between players and their assigned roles in normalised team
+ * coordinates; {@code confidence} is how clearly the best template beat the runner-up
+ * (0 when tied). {@code roles} maps player id to role, with "GK" for the goalkeeper.
+ */
+public record FormationMatch(
+        String formation,
+        double fitError,
+        double confidence,
+        String runnerUp,
+        Map<String, String> roles) {
+}
@@ -0,0 +1,5 @@
+package com.footballgps.analysis;
+
+/** Formation detected over {@code [startMillis, endMillis)} from {@code players} tracked players. */
+public record FormationSpan(long startMillis, long endMillis, int players, FormationMatch match) {
+}
@@ -0,0 +1,54 @@
+package com.footballgps.analysis;
+
+import java.util.List;
+
+/**
+ * Outfield role positions of a formation in normalised team coordinates: depth 0 is
+ * the back line and 1 the front line, width runs from -1 to 1 across the pitch.
+ */
+public record FormationTemplate(String name, String[] roles, double[] depth, double[] width) {
+    
+    private static final String[] THREE_LINES = {"D", "M", "F"};
+    private static final String[] FOUR_LINES = {"D", "DM", "AM", "F"};
+    
+    public static final List<FormationTemplate> STANDARD = List.of(
+            of("4-4-2", 4, 4, 2),
+            of("4-3-3", 4, 3, 3),
+            of("4-2-3-1", 4, 2, 3, 1),
+            of("4-1-4-1", 4, 1, 4, 1),
+            of("4-5-1", 4, 5, 1),
+            of("3-5-2", 3, 5, 2),
+            of("3-4-3", 3, 4, 3),
+            of("5-3-2", 5, 3, 2),
+            of("5-4-1", 5, 4, 1));
+    
+    public int size() {
+        return roles.length;
+    }
+    
+    /** Builds a template from line sizes, back to front, spacing lines evenly. */
+    public static FormationTemplate of(String name, int... lines) {
+        String[] labels = lines.length == 4 ? FOUR_LINES : THREE_LINES;
+        int players = 0;
+        for (int line : lines) {
+            players += line;
+        }
+        
+        String[] roles = new String[players];
+        double[] depth = new double[players];
+        double[] width = new double[players];
+        int r = 0;
+        for (int l = 0; l < lines.length; l++) {
+            int k = lines[l];
+            // Narrow lines (a front two, a single pivot) sit closer to the middle
+            double reach = Math.min(1.0, (k - 1) / 3.0);
+            for (int i = 0; i < k; i++) {
+                roles[r] = (l < labels.length ? labels[l] : "L" + (l + 1)) + (i + 1);
+                depth[r] = lines.length > 1 ? (double) l / (lines.length - 1) : 0.5;
+                width[r] = k > 1 ? reach * (2.0 * i / (k - 1) - 1.0) : 0.0;
+                r++;
+            }
+        }
+        return new FormationTemplate(name, roles, depth, width);
+    }
+}
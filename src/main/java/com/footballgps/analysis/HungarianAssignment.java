@@ -0,0 +1,95 @@
+package com.footballgps.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of {@code n} rows to distinct columns out of {@code m >= n}
+ * (Hungarian algorithm with potentials, O(n²m)). Working arrays are allocated once
+ * for the largest problem, so one instance can solve many small matrices without
+ * garbage. Not thread-safe.
+ */
+public final class HungarianAssignment {
+    
+    private final double[] u;
+    private final double[] v;
+    private final double[] minSlack;
+    private final int[] columnOwner;
+    private final int[] way;
+    private final boolean[] used;
+    
+    public HungarianAssignment(int maxColumns) {
+        u = new double[maxColumns + 1];
+        v = new double[maxColumns + 1];
+        minSlack = new double[maxColumns + 1];
+        columnOwner = new int[maxColumns + 1];
+        way = new int[maxColumns + 1];
+        used = new boolean[maxColumns + 1];
+    }
+    
+    /**
+     * Assigns each of the first {@code n} rows of {@code cost} to one of its first
+     * {@code m} columns, writing the column of row {@code i} to {@code assignment[i]}.
+     * Returns the total cost.
+     */
+    public double solve(double[][] cost, int n, int m, int[] assignment) {
+        if (n > m) {
+            throw new IllegalArgumentException("More rows than columns: " + n + " > " + m);
+        }
+        Arrays.fill(u, 0, n + 1, 0.0);
+        Arrays.fill(v, 0, m + 1, 0.0);
+        Arrays.fill(columnOwner, 0, m + 1, 0);
+        
+        // 1-based internally; column 0 is a virtual column holding the row being added
+        for (int i = 1; i <= n; i++) {
+            columnOwner[0] = i;
+            int column = 0;
+            Arrays.fill(minSlack, 0, m + 1, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, 0, m + 1, false);
+            
+            do {
+                used[column] = true;
+                int row = columnOwner[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double slack = cost[row - 1][j - 1] - u[row] - v[j];
+                        if (slack < minSlack[j]) {
+                            minSlack[j] = slack;
+                            way[j] = column;
+                        }
+                        if (minSlack[j] < delta) {
+                            delta = minSlack[j];
+                            next = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[columnOwner[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (columnOwner[column] != 0);
+            
+            // Flip the augmenting path
+            do {
+                int previous = way[column];
+                columnOwner[column] = columnOwner[previous];
+                column = previous;
+            } while (column != 0);
+        }
+        
+        double total = 0;
+        for (int j = 1; j <= m; j++) {
+            if (columnOwner[j] != 0) {
+                assignment[columnOwner[j] - 1] = j - 1;
+                total += cost[columnOwner[j] - 1][j - 1];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,25 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.SessionEventIndex.EventType;
+
+/**
+ * One sprint, acceleration or deceleration. {@code endMillis} is the time of the first fix
+ * back outside the exit threshold (or of the last fix before a gap or the end of the
+ * stream), and {@code distance} covers the whole span up to it.
+ */
+public record MovementEvent(
+        EventType type,
+        long startMillis,
+        long endMillis,
+        double distance, // meters
+        double peakSpeed, // km/h
+        double peakAcceleration, // m/s², largest magnitude, negative for decelerations
+        double startLatitude,
+        double startLongitude,
+        double endLatitude,
+        double endLongitude) {
+    
+    public double durationSeconds() {
+        return (endMillis - startMillis) / 1000.0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.model.SessionEventIndex.EventType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass extraction of sprint, acceleration and deceleration events from a
+ * time-ordered stream of fixes. Each event type has an entry threshold and a lower exit
+ * threshold, so a player hovering around the sprint speed produces one event rather than
+ * one per crossing; events shorter than the type's minimum duration are dropped. Fixes
+ * further apart than {@link #MAX_GAP_MILLIS} end any open event at the last fix before
+ * the gap. Feed fixes with {@link #accept}, then call {@link #finish()}; instances are
+ * not thread-safe.
+ */
+public class MovementEventExtractor {
+    
+    public static final double SPRINT_ENTRY_SPEED = 24.0; // km/h, the sprint zone
+    public static final double SPRINT_EXIT_SPEED = 21.0;
+    public static final double ACCELERATION_ENTRY = 3.0; // m/s²
+    public static final double ACCELERATION_EXIT = 2.0;
+    public static final long MIN_SPRINT_MILLIS = 1000;
+    public static final long MIN_ACCELERATION_MILLIS = 500;
+    public static final long MAX_GAP_MILLIS = 3000;
+    
+    private final Consumer<MovementEvent> listener;
+    private final Channel sprints = new Channel(EventType.SPRINT, MIN_SPRINT_MILLIS);
+    private final Channel accelerations = new Channel(EventType.ACCELERATION, MIN_ACCELERATION_MILLIS);
+    private final Channel decelerations = new Channel(EventType.DECELERATION, MIN_ACCELERATION_MILLIS);
+    
+    private boolean hasPrevious;
+    private long previousMillis;
+    private double previousLatitude;
+    private double previousLongitude;
+    
+    public MovementEventExtractor(Consumer<MovementEvent> listener) {
+        this.listener = listener;
+    }
+    
+    /** Extracts the events of a time-ordered fix list in one pass. */
+    public static List<MovementEvent> extract(List<GpsData> sessionData) {
+        List<MovementEvent> events = new ArrayList<>();
+        MovementEventExtractor extractor = new MovementEventExtractor(events::add);
+        for (GpsData data : sessionData) {
+            extractor.accept(data.getTimestamp(),
+                    data.getPosition().getLatitude(), data.getPosition().getLongitude(),
+                    data.getMovement().getSpeed(), data.getMovement().getAcceleration());
+        }
+        extractor.finish();
+        return events;
+    }
+    
+    public void accept(long timestampMillis, double latitude, double longitude, double speed, double acceleration) {
+        double step = 0.0;
+        if (hasPrevious) {
+            if (timestampMillis - previousMillis > MAX_GAP_MILLIS) {
+                finish();
+            } else {
+                step = GeoMath.distanceMeters(previousLatitude, previousLongitude, latitude, longitude);
+            }
+        }
+        
+        sprints.update(speed > SPRINT_ENTRY_SPEED, speed >= SPRINT_EXIT_SPEED,
+                timestampMillis, latitude, longitude, step, speed, acceleration);
+        accelerations.update(acceleration > ACCELERATION_ENTRY, acceleration >= ACCELERATION_EXIT,
+                timestampMillis, latitude, longitude, step, speed, acceleration);
+        decelerations.update(acceleration < -ACCELERATION_ENTRY, acceleration <= -ACCELERATION_EXIT,
+                timestampMillis, latitude, longitude, step, speed, acceleration);
+        
+        hasPrevious = true;
+        previousMillis = timestampMillis;
+        previousLatitude = latitude;
+        previousLongitude = longitude;
+    }
+    
+    /** Closes events still open at the last fix. */
+    public void finish() {
+        if (hasPrevious) {
+            sprints.close(previousMillis, previousLatitude, previousLongitude);
+            accelerations.close(previousMillis, previousLatitude, previousLongitude);
+            decelerations.close(previousMillis, previousLatitude, previousLongitude);
+        }
+    }
+    
+    /** Hysteresis state for one event type. */
+    private final class Channel {
+        
+        private final EventType type;
+        private final long minMillis;
+        
+        private boolean open;
+        private long startMillis;
+        private double startLatitude;
+        private double startLongitude;
+        private double distance;
+        private double peakSpeed;
+        private double peakAcceleration;
+        
+        Channel(EventType type, long minMillis) {
+            this.type = type;
+            this.minMillis = minMillis;
+        }
+        
+        void update(boolean enter, boolean stay, long millis, double latitude, double longitude,
+                    double step, double speed, double acceleration) {
+            if (open) {
+                // The step to this fix is part of the event whether or not the event ends here
+                distance += step;
+                if (!stay) {
+                    close(millis, latitude, longitude);
+                    return;
+                }
+                peakSpeed = Math.max(peakSpeed, speed);
+                if (Math.abs(acceleration) > Math.abs(peakAcceleration)) {
+                    peakAcceleration = acceleration;
+                }
+            } else if (enter) {
+                open = true;
+                startMillis = millis;
+                startLatitude = latitude;
+                startLongitude = longitude;
+                distance = 0.0;
+                peakSpeed = speed;
+                peakAcceleration = acceleration;
+            }
+        }
+        
+        void close(long endMillis, double endLatitude, double endLongitude) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            if (endMillis - startMillis >= minMillis) {
+                listener.accept(new MovementEvent(type, startMillis, endMillis, distance, peakSpeed,
+                        peakAcceleration, startLatitude, startLongitude, endLatitude, endLongitude));
+            }
+        }
+    }
+}
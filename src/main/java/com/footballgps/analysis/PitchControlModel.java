@@ -0,0 +1,139 @@
+package com.footballgps.analysis;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Pitch control on a coarse grid: for each cell, the probability that a chosen team
+ * reaches it before anyone else. A player's time to reach a cell is a reaction time,
+ * spent carrying on at the current velocity, then a straight run at top speed; each
+ * player's claim on the cell is exp(-time / temperature) and a team's control is its
+ * share of all claims. When no opponent is tracked, a virtual one arrives everywhere
+ * after {@link #UNCONTESTED_ARRIVAL_TIME}, so the surface shows the space the team
+ * occupies rather than being 1 everywhere.
+ * <p>
+ * Grid coordinates follow {@link TeamFrames}: x from 0 to the pitch length, y centred on
+ * 0. Surfaces are row-major floats: column {@code c} along the pitch and row {@code r}
+ * across it are at index {@code r * columns + c}.
+ */
+public final class PitchControlModel {
+    
+    public static final double DEFAULT_PITCH_LENGTH = 105.0; // metres
+    public static final double DEFAULT_PITCH_WIDTH = 68.0;
+    
+    public static final double REACTION_TIME = 0.7; // seconds
+    public static final double MAX_PLAYER_SPEED = 5.0; // m/s
+    public static final double CONTROL_TEMPERATURE = 0.5; // seconds
+    public static final double UNCONTESTED_ARRIVAL_TIME = 3.0; // seconds
+    
+    private static final int FRAMES_PER_TASK = 32;
+    
+    private final int columns;
+    private final int rows;
+    private final double[] cellX;
+    private final double[] cellY;
+    
+    public PitchControlModel(int columns, int rows, double pitchLength, double pitchWidth) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Grid must have at least one cell: " + columns + "x" + rows);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.cellX = new double[columns];
+        this.cellY = new double[rows];
+        for (int c = 0; c < columns; c++) {
+            cellX[c] = (c + 0.5) * pitchLength / columns;
+        }
+        for (int r = 0; r < rows; r++) {
+            cellY[r] = (r + 0.5) * pitchWidth / rows - pitchWidth / 2;
+        }
+    }
+    
+    public int columns() {
+        return columns;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    /**
+     * Computes frames {@code [from, to)} in parallel blocks on {@code pool}. {@code team}
+     * marks the players whose control is reported; every other player is an opponent.
+     * Entries for frames with nobody tracked are null.
+     */
+    public float[][] compute(TeamFrames frames, boolean[] team, int from, int to, ForkJoinPool pool) {
+        float[][] surfaces = new float[Math.max(0, to - from)][];
+        int tasks = (surfaces.length + FRAMES_PER_TASK - 1) / FRAMES_PER_TASK;
+        
+        pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(task -> {
+            int blockFrom = from + task * FRAMES_PER_TASK;
+            int blockTo = Math.min(to, blockFrom + FRAMES_PER_TASK);
+            computeBlock(frames, team, blockFrom, blockTo, surfaces, from);
+        })).join();
+        
+        return surfaces;
+    }
+    
+    private void computeBlock(TeamFrames frames, boolean[] team, int from, int to,
+                              float[][] surfaces, int offset) {
+        int players = frames.playerCount();
+        double[] x = frames.x();
+        double[] y = frames.y();
+        double[] vx = frames.vx();
+        double[] vy = frames.vy();
+        double[] reachX = new double[players];
+        double[] reachY = new double[players];
+        boolean[] ours = new boolean[players];
+        
+        // Claims scaled by exp(REACTION_TIME / temperature), which cancels out of the shares
+        double decayPerMetre = 1.0 / (MAX_PLAYER_SPEED * CONTROL_TEMPERATURE);
+        double virtualClaim = Math.exp(-(UNCONTESTED_ARRIVAL_TIME - REACTION_TIME) / CONTROL_TEMPERATURE);
+        
+        for (int f = from; f < to; f++) {
+            int base = f * players;
+            int n = 0;
+            boolean opponents = false;
+            for (int p = 0; p < players; p++) {
+                double px = x[base + p];
+                if (Double.isNaN(px)) {
+                    continue;
+                }
+                double pvx = vx[base + p];
+                double pvy = vy[base + p];
+                // Where the player is once the reaction time has passed
+                reachX[n] = Double.isNaN(pvx) ? px : px + pvx * REACTION_TIME;
+                reachY[n] = Double.isNaN(pvy) ? y[base + p] : y[base + p] + pvy * REACTION_TIME;
+                ours[n] = team[p];
+                opponents |= !team[p];
+                n++;
+            }
+            if (n == 0) {
+                continue;
+            }
+            
+            float[] surface = new float[columns * rows];
+            double otherClaim = opponents ? 0.0 : virtualClaim;
+            for (int r = 0; r < rows; r++) {
+                double cy = cellY[r];
+                for (int c = 0; c < columns; c++) {
+                    double cx = cellX[c];
+                    double ourSum = 0.0, theirSum = otherClaim;
+                    for (int i = 0; i < n; i++) {
+                        double dx = cx - reachX[i];
+                        double dy = cy - reachY[i];
+                        double claim = Math.exp(-Math.sqrt(dx * dx + dy * dy) * decayPerMetre);
+                        if (ours[i]) {
+                            ourSum += claim;
+                        } else {
+                            theirSum += claim;
+                        }
+                    }
+                    double total = ourSum + theirSum;
+                    surface[r * columns + c] = total > 0 ? (float) (ourSum / total) : 0.5f;
+                }
+            }
+            surfaces[f - offset] = surface;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.footballgps.analysis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-frame proximity metrics between teammates, answered from a {@link SpatialGrid}:
+ * support distance (to the nearest teammate), passing options (teammates at a passable
+ * distance), and pressing. A player presses while running at pressing speed; a press is
+ * coordinated when at least two other pressing teammates are close by, and covered when
+ * a non-pressing teammate is close by and deeper (lower x). Buffers are sized once for
+ * the largest frame, so {@link #analyseFrame} allocates nothing. Not thread-safe.
+ */
+public final class ProximityAnalyzer {
+    
+    public static final double MIN_PASS_DISTANCE = 5.0; // metres
+    public static final double MAX_PASS_DISTANCE = 30.0;
+    public static final double PRESSING_SPEED = 4.0; // m/s, roughly 14.4 km/h
+    public static final double PRESS_RADIUS = 10.0;
+    public static final double COVER_RADIUS = 15.0;
+    
+    private final SpatialGrid grid;
+    private final int[] neighbours;
+    
+    // Per-player results of the last analysed frame
+    private final double[] supportDistance;
+    private final int[] passingOptions;
+    private final boolean[] pressing;
+    private final boolean[] coordinated;
+    private final boolean[] covered;
+    
+    public ProximityAnalyzer(int maxPlayers) {
+        this.grid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, maxPlayers);
+        this.neighbours = new int[maxPlayers];
+        this.supportDistance = new double[maxPlayers];
+        this.passingOptions = new int[maxPlayers];
+        this.pressing = new boolean[maxPlayers];
+        this.coordinated = new boolean[maxPlayers];
+        this.covered = new boolean[maxPlayers];
+    }
+    
+    /**
+     * Analyses one frame of {@code n} players; NaN positions are absent. Velocities are
+     * in m/s (NaN if unknown, which counts as not pressing). Results are read back with
+     * the per-player accessors until the next call.
+     */
+    public void analyseFrame(double[] x, double[] y, double[] vx, double[] vy, int n) {
+        grid.rebuild(x, y, n);
+        
+        for (int p = 0; p < n; p++) {
+            double speedSq = vx[p] * vx[p] + vy[p] * vy[p];
+            pressing[p] = !Double.isNaN(x[p]) && speedSq >= PRESSING_SPEED * PRESSING_SPEED;
+        }
+        
+        for (int p = 0; p < n; p++) {
+            coordinated[p] = false;
+            covered[p] = false;
+            if (Double.isNaN(x[p])) {
+                supportDistance[p] = Double.NaN;
+                passingOptions[p] = 0;
+                continue;
+            }
+            
+            int nearest = grid.nearest(x[p], y[p], p);
+            supportDistance[p] = nearest >= 0 ? Math.hypot(x[nearest] - x[p], y[nearest] - y[p]) : Double.NaN;
+            
+            int within = grid.withinRadius(x[p], y[p], MAX_PASS_DISTANCE, p, neighbours);
+            int options = 0;
+            int pressingNearby = 0;
+            boolean cover = false;
+            for (int k = 0; k < within; k++) {
+                int q = neighbours[k];
+                double dx = x[q] - x[p];
+                double dy = y[q] - y[p];
+                double distanceSq = dx * dx + dy * dy;
+                if (distanceSq >= MIN_PASS_DISTANCE * MIN_PASS_DISTANCE) {
+                    options++;
+                }
+                if (pressing[p]) {
+                    if (pressing[q] && distanceSq <= PRESS_RADIUS * PRESS_RADIUS) {
+                        pressingNearby++;
+                    } else if (!pressing[q] && dx < 0 && distanceSq <= COVER_RADIUS * COVER_RADIUS) {
+                        cover = true;
+                    }
+                }
+            }
+            passingOptions[p] = options;
+            coordinated[p] = pressing[p] && pressingNearby >= 2;
+            covered[p] = pressing[p] && cover;
+        }
+    }
+    
+    public double supportDistance(int player) {
+        return supportDistance[player];
+    }
+    
+    public int passingOptions(int player) {
+        return passingOptions[player];
+    }
+    
+    public boolean isPressing(int player) {
+        return pressing[player];
+    }
+    
+    public boolean isCoordinated(int player) {
+        return coordinated[player];
+    }
+    
+    public boolean isCovered(int player) {
+        return covered[player];
+    }
+    
+    /**
+     * Runs over every frame of a session. Velocities are differenced from consecutive
+     * frames. Frames use TeamFrames' pitch axis, so cover means deeper
+     * towards the team's own goal.
+     */
+    public static ProximitySummary analyse(TeamFrames frames) {
+        int players = frames.playerCount();
+        ProximityAnalyzer analyzer = new ProximityAnalyzer(Math.max(1, players));
+        double[] allX = frames.x();
+        double[] allY = frames.y();
+        double[] x = new double[players];
+        double[] y = new double[players];
+        double[] vx = new double[players];
+        double[] vy = new double[players];
+        double tickSeconds = frames.tickMillis() / 1000.0;
+        
+        double[] supportSum = new double[players];
+        long[] supportFrames = new long[players];
+        long[] optionsSum = new long[players];
+        long[] trackedFrames = new long[players];
+        long pressingFrames = 0, coordinatedFrames = 0, coveredFrames = 0;
+        
+        for (int f = 0; f < frames.frameCount(); f++) {
+            int base = f * players;
+            System.arraycopy(allX, base, x, 0, players);
+            System.arraycopy(allY, base, y, 0, players);
+            for (int p = 0; p < players; p++) {
+                if (f > 0) {
+                    vx[p] = (x[p] - allX[base - players + p]) / tickSeconds;
+                    vy[p] = (y[p] - allY[base - players + p]) / tickSeconds;
+                } else {
+                    vx[p] = vy[p] = Double.NaN;
+                }
+            }
+            
+            analyzer.analyseFrame(x, y, vx, vy, players);
+            
+            for (int p = 0; p < players; p++) {
+                if (Double.isNaN(x[p])) {
+                    continue;
+                }
+                trackedFrames[p]++;
+                optionsSum[p] += analyzer.passingOptions(p);
+                double support = analyzer.supportDistance(p);
+                if (!Double.isNaN(support)) {
+                    supportSum[p] += support;
+                    supportFrames[p]++;
+                }
+                if (analyzer.isPressing(p)) {
+                    pressingFrames++;
+                    if (analyzer.isCoordinated(p)) {
+                        coordinatedFrames++;
+                    }
+                    if (analyzer.isCovered(p)) {
+                        coveredFrames++;
+                    }
+                }
+            }
+        }
+        
+        Map<String, Double> supportByPlayer = new HashMap<>();
+        Map<String, Double> optionsByPlayer = new HashMap<>();
+        double supportTotal = 0, optionsTotal = 0;
+        long supportCount = 0, trackedCount = 0;
+        for (int p = 0; p < players; p++) {
+            if (supportFrames[p] > 0) {
+                supportByPlayer.put(frames.playerId(p), supportSum[p] / supportFrames[p]);
+            }
+            if (trackedFrames[p] > 0) {
+                optionsByPlayer.put(frames.playerId(p), (double) optionsSum[p] / trackedFrames[p]);
+            }
+            supportTotal += supportSum[p];
+            supportCount += supportFrames[p];
+            optionsTotal += optionsSum[p];
+            trackedCount += trackedFrames[p];
+        }
+        
+        return new ProximitySummary(
+                supportCount > 0 ? supportTotal / supportCount : 0.0,
+                trackedCount > 0 ? optionsTotal / trackedCount : 0.0,
+                trackedCount > 0 ? (double) pressingFrames / trackedCount : 0.0,
+                pressingFrames > 0 ? (double) coordinatedFrames / pressingFrames : 0.0,
+                pressingFrames > 0 ? (double) coveredFrames / pressingFrames : 0.0,
+                supportByPlayer,
+                optionsByPlayer);
+    }
+}
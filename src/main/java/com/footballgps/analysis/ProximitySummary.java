@@ -0,0 +1,18 @@
+package com.footballgps.analysis;
+
+import java.util.Map;
+
+/**
+ * Session averages from {@link ProximityAnalyzer}. Distances in metres; shares are 0-1,
+ * with {@code pressingShare} over all tracked player-frames and the coordinated and
+ * covered shares over pressing player-frames only.
+ */
+public record ProximitySummary(
+        double averageSupportDistance,
+        double averagePassingOptions,
+        double pressingShare,
+        double coordinatedPressShare,
+        double coveredPressShare,
+        Map<String, Double> supportDistanceByPlayer,
+        Map<String, Double> passingOptionsByPlayer) {
+}
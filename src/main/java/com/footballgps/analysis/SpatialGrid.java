@@ -0,0 +1,207 @@
+package com.footballgps.analysis;
+
+/**
+ * Uniform-grid index over one frame of player positions in metres. {@link #rebuild} is a
+ * counting sort into cells (O(n + cells)); nearest-neighbour and radius queries then
+ * only visit the cells that can contain an answer. All buffers are sized at
+ * construction and reused, so rebuilding and querying allocate nothing. Positions are
+ * read from the caller's arrays, which must not change until the next rebuild. Not
+ * thread-safe.
+ */
+public final class SpatialGrid {
+    
+    public static final double DEFAULT_CELL_SIZE = 10.0; // metres
+    
+    // Keeps the cell table bounded when positions are spread far apart
+    private static final int MAX_CELLS = 4096;
+    
+    private final double baseCellSize;
+    private final int[] cellStart = new int[MAX_CELLS + 1];
+    private int[] cellItems;
+    private int[] itemCell;
+    
+    private double[] x;
+    private double[] y;
+    private int count;
+    private double cellSize;
+    private double minX;
+    private double minY;
+    private int columns;
+    private int rows;
+    
+    public SpatialGrid(double cellSize, int capacity) {
+        this.baseCellSize = cellSize;
+        this.cellItems = new int[capacity];
+        this.itemCell = new int[capacity];
+    }
+    
+    /** Indexes {@code x[0..count)}, {@code y[0..count)}; NaN positions are left out. */
+    public void rebuild(double[] x, double[] y, int count) {
+        if (count > itemCell.length) {
+            cellItems = new int[count];
+            itemCell = new int[count];
+        }
+        this.x = x;
+        this.y = y;
+        this.count = count;
+        
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (!Double.isNaN(x[i])) {
+                minX = Math.min(minX, x[i]);
+                maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+        }
+        if (minX > maxX) {
+            columns = rows = 0;
+            cellStart[0] = 0;
+            return;
+        }
+        
+        cellSize = baseCellSize;
+        double area = (maxX - minX + cellSize) * (maxY - minY + cellSize);
+        if (area / (cellSize * cellSize) > MAX_CELLS) {
+            cellSize = Math.sqrt(area / MAX_CELLS) * 1.01;
+        }
+        columns = (int) ((maxX - minX) / cellSize) + 1;
+        rows = (int) ((maxY - minY) / cellSize) + 1;
+        int cells = columns * rows;
+        
+        // Counting sort: cellStart[c] ends up as the first slot of cell c in cellItems
+        for (int c = 0; c <= cells; c++) {
+            cellStart[c] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            if (Double.isNaN(x[i])) {
+                itemCell[i] = -1;
+                continue;
+            }
+            int cell = row(y[i]) * columns + column(x[i]);
+            itemCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = itemCell[i];
+            if (cell >= 0) {
+                cellItems[cellStart[cell]++] = i;
+            }
+        }
+        // The placement loop advanced each start to the next cell's start; shift back
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+    
+    /** Index of the closest indexed position to (qx, qy) other than {@code exclude}, or -1. */
+    public int nearest(double qx, double qy, int exclude) {
+        if (columns == 0) {
+            return -1;
+        }
+        int qc = clamp(column(qx), columns);
+        int qr = clamp(row(qy), rows);
+        int best = -1;
+        double bestDistanceSq = Double.POSITIVE_INFINITY;
+        int maxRing = Math.max(columns, rows);
+        
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Everything outside this ring is at least ring cells away
+            double bound = (ring - 1) * cellSize;
+            if (best >= 0 && bound > 0 && bestDistanceSq <= bound * bound) {
+                break;
+            }
+            for (int r = qr - ring; r <= qr + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edgeRow = r == qr - ring || r == qr + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = qc - ring; c <= qc + ring; c += Math.max(step, 1)) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+                        int i = cellItems[s];
+                        if (i == exclude) {
+                            continue;
+                        }
+                        double dx = x[i] - qx;
+                        double dy = y[i] - qy;
+                        double distanceSq = dx * dx + dy * dy;
+                        if (distanceSq < bestDistanceSq) {
+                            bestDistanceSq = distanceSq;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Writes the indices within {@code radius} of (qx, qy), other than {@code exclude},
+     * to {@code out} and returns how many there are. {@code out} must hold the indexed count.
+     */
+    public int withinRadius(double qx, double qy, double radius, int exclude, int[] out) {
+        return collect(qx, qy, radius, exclude, out);
+    }
+    
+    /** Number of indexed positions within {@code radius} of (qx, qy), other than {@code exclude}. */
+    public int countWithin(double qx, double qy, double radius, int exclude) {
+        return collect(qx, qy, radius, exclude, null);
+    }
+    
+    private int collect(double qx, double qy, double radius, int exclude, int[] out) {
+        if (columns == 0) {
+            return 0;
+        }
+        int c0 = Math.max(0, column(qx - radius));
+        int c1 = Math.min(columns - 1, column(qx + radius));
+        int r0 = Math.max(0, row(qy - radius));
+        int r1 = Math.min(rows - 1, row(qy + radius));
+        double radiusSq = radius * radius;
+        int found = 0;
+        
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+                    int i = cellItems[s];
+                    if (i == exclude) {
+                        continue;
+                    }
+                    double dx = x[i] - qx;
+                    double dy = y[i] - qy;
+                    if (dx * dx + dy * dy <= radiusSq) {
+                        if (out != null) {
+                            out[found] = i;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+    
+    private int column(double px) {
+        return (int) Math.floor((px - minX) / cellSize);
+    }
+    
+    private int row(double py) {
+        return (int) Math.floor((py - minY) / cellSize);
+    }
+    
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
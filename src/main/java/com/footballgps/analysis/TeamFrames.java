@@ -0,0 +1,329 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A session's positions resampled onto a common clock, one frame per tick, stored as
+ * flat struct-of-arrays: the coordinates of player {@code p} in frame {@code f} are at
+ * index {@code f * playerCount() + p}, so one frame is a contiguous run of doubles.
+ * Coordinates are metres in a pitch-aligned frame: x runs along the long axis of the
+ * team's movement from the deepest observed point, y across it from the session mean.
+ * Players without a fix within the gap limit are NaN for that frame. Velocities in m/s
+ * come from the devices' speed and heading, rotated into the same frame; they are NaN
+ * where the fixes carry no movement data.
+ */
+public final class TeamFrames {
+    
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+    public static final long DEFAULT_MAX_GAP_MILLIS = 5000;
+    
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+    
+    private final String[] playerIds;
+    private final long startMillis;
+    private final long tickMillis;
+    private final int frameCount;
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+    
+    TeamFrames(String[] playerIds, long startMillis, long tickMillis, int frameCount,
+               double[] x, double[] y, double[] vx, double[] vy) {
+        this.playerIds = playerIds;
+        this.startMillis = startMillis;
+        this.tickMillis = tickMillis;
+        this.frameCount = frameCount;
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+    }
+    
+    public static TeamFrames align(List<GpsData> sessionData) {
+        return align(sessionData, DEFAULT_TICK_MILLIS, DEFAULT_MAX_GAP_MILLIS);
+    }
+    
+    /**
+     * Linearly interpolates each player's fixes onto ticks of {@code tickMillis}. Input
+     * order does not matter. Fixes more than {@code maxGapMillis} apart are not bridged.
+     */
+    public static TeamFrames align(List<GpsData> sessionData, long tickMillis, long maxGapMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        
+        Map<String, List<GpsData>> byPlayer = new TreeMap<>();
+        double sumLat = 0, sumLon = 0;
+        int fixes = 0;
+        for (GpsData data : sessionData) {
+            if (data.getPlayerId() == null || data.getTimestamp() == 0 || data.getPosition() == null) {
+                continue;
+            }
+            byPlayer.computeIfAbsent(data.getPlayerId(), id -> new ArrayList<>()).add(data);
+            sumLat += data.getPosition().getLatitude();
+            sumLon += data.getPosition().getLongitude();
+            fixes++;
+        }
+        
+        String[] playerIds = byPlayer.keySet().toArray(new String[0]);
+        if (fixes == 0) {
+            return new TeamFrames(playerIds, 0, tickMillis, 0,
+                    new double[0], new double[0], new double[0], new double[0]);
+        }
+        
+        // Equirectangular projection around the session mean; exact enough at pitch scale
+        double lat0 = sumLat / fixes;
+        double lon0 = sumLon / fixes;
+        double eastScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat0));
+        
+        int players = playerIds.length;
+        long[][] times = new long[players][];
+        double[][] trackEast = new double[players][];
+        double[][] trackNorth = new double[players][];
+        double[][] trackVelocityEast = new double[players][];
+        double[][] trackVelocityNorth = new double[players][];
+        long start = Long.MAX_VALUE, end = Long.MIN_VALUE;
+        
+        for (int p = 0; p < players; p++) {
+            List<GpsData> track = byPlayer.get(playerIds[p]);
+            // Store reads are already in time order; other callers may pass fixes in any order
+            if (!isSorted(track)) {
+                track.sort(Comparator.comparingLong(GpsData::getTimestamp));
+            }
+            
+            int n = track.size();
+            long[] t = times[p] = new long[n];
+            double[] e = trackEast[p] = new double[n];
+            double[] no = trackNorth[p] = new double[n];
+            double[] ve = trackVelocityEast[p] = new double[n];
+            double[] vn = trackVelocityNorth[p] = new double[n];
+            for (int i = 0; i < n; i++) {
+                GpsData data = track.get(i);
+                t[i] = data.getTimestamp();
+                e[i] = (data.getPosition().getLongitude() - lon0) * eastScale;
+                no[i] = (data.getPosition().getLatitude() - lat0) * METERS_PER_DEGREE;
+                
+                // Speed is km/h, direction degrees clockwise from north
+                GpsData.Movement movement = data.getMovement();
+                if (movement != null) {
+                    double speed = movement.getSpeed() / 3.6;
+                    double heading = Math.toRadians(movement.getDirection());
+                    ve[i] = speed * Math.sin(heading);
+                    vn[i] = speed * Math.cos(heading);
+                } else {
+                    ve[i] = vn[i] = Double.NaN;
+                }
+            }
+            start = Math.min(start, t[0]);
+            end = Math.max(end, t[n - 1]);
+        }
+        
+        int frames = (int) ((end - start) / tickMillis) + 1;
+        double[] east = new double[frames * players];
+        double[] north = new double[frames * players];
+        double[] velocityEast = new double[frames * players];
+        double[] velocityNorth = new double[frames * players];
+        
+        for (int p = 0; p < players; p++) {
+            long[] t = times[p];
+            double[] e = trackEast[p];
+            double[] no = trackNorth[p];
+            double[] ve = trackVelocityEast[p];
+            double[] vn = trackVelocityNorth[p];
+            int n = t.length;
+            
+            // Two-pointer sweep: ticks and fixes both advance monotonically
+            int i = 0;
+            for (int f = 0; f < frames; f++) {
+                long tick = start + f * tickMillis;
+                while (i + 1 < n && t[i + 1] <= tick) {
+                    i++;
+                }
+                int idx = f * players + p;
+                if (t[i] == tick) {
+                    east[idx] = e[i];
+                    north[idx] = no[i];
+                    velocityEast[idx] = ve[i];
+                    velocityNorth[idx] = vn[i];
+                } else if (t[i] < tick && i + 1 < n && t[i + 1] - t[i] <= maxGapMillis) {
+                    double w = (double) (tick - t[i]) / (t[i + 1] - t[i]);
+                    east[idx] = e[i] + w * (e[i + 1] - e[i]);
+                    north[idx] = no[i] + w * (no[i + 1] - no[i]);
+                    velocityEast[idx] = ve[i] + w * (ve[i + 1] - ve[i]);
+                    velocityNorth[idx] = vn[i] + w * (vn[i + 1] - vn[i]);
+                } else {
+                    east[idx] = Double.NaN;
+                    north[idx] = Double.NaN;
+                    velocityEast[idx] = Double.NaN;
+                    velocityNorth[idx] = Double.NaN;
+                }
+            }
+        }
+        
+        double[][] aligned = alignToPitch(east, north, velocityEast, velocityNorth, players);
+        return new TeamFrames(playerIds, start, tickMillis, frames, aligned[0], aligned[1], aligned[2], aligned[3]);
+    }
+    
+    private static boolean isSorted(List<GpsData> track) {
+        for (int i = 1; i < track.size(); i++) {
+            if (track.get(i - 1).getTimestamp() > track.get(i).getTimestamp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Rotates onto the principal axis of all positions, which over a session follows the
+     * long axis of the pitch, then orients it so the player lying furthest from the mean
+     * depth on average (normally the goalkeeper) is at the low end. Without pitch
+     * calibration this is the best available guess; sides switching at half-time are
+     * not detected. Velocities are rotated the same way, without the translation.
+     */
+    private static double[][] alignToPitch(double[] east, double[] north,
+                                           double[] velocityEast, double[] velocityNorth, int players) {
+        double sumE = 0, sumN = 0;
+        int count = 0;
+        for (int i = 0; i < east.length; i++) {
+            if (!Double.isNaN(east[i])) {
+                sumE += east[i];
+                sumN += north[i];
+                count++;
+            }
+        }
+        if (count == 0) {
+            return new double[][]{east, north, velocityEast, velocityNorth};
+        }
+        double meanE = sumE / count;
+        double meanN = sumN / count;
+        
+        double cee = 0, cnn = 0, cen = 0;
+        for (int i = 0; i < east.length; i++) {
+            if (!Double.isNaN(east[i])) {
+                double de = east[i] - meanE;
+                double dn = north[i] - meanN;
+                cee += de * de;
+                cnn += dn * dn;
+                cen += de * dn;
+            }
+        }
+        double theta = 0.5 * Math.atan2(2 * cen, cee - cnn);
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        
+        double[] along = new double[east.length];
+        double[] across = new double[east.length];
+        double[] playerSum = new double[players];
+        int[] playerCount = new int[players];
+        for (int i = 0; i < east.length; i++) {
+            double de = east[i] - meanE;
+            double dn = north[i] - meanN;
+            along[i] = de * cos + dn * sin;
+            across[i] = -de * sin + dn * cos;
+            if (!Double.isNaN(along[i])) {
+                playerSum[i % players] += along[i];
+                playerCount[i % players]++;
+            }
+        }
+        
+        double extreme = 0;
+        for (int p = 0; p < players; p++) {
+            if (playerCount[p] > 0) {
+                double mean = playerSum[p] / playerCount[p];
+                if (Math.abs(mean) > Math.abs(extreme)) {
+                    extreme = mean;
+                }
+            }
+        }
+        double sign = extreme > 0 ? -1 : 1;
+        
+        double[] velocityAlong = new double[east.length];
+        double[] velocityAcross = new double[east.length];
+        double minAlong = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < along.length; i++) {
+            along[i] *= sign;
+            across[i] *= sign;
+            velocityAlong[i] = sign * (velocityEast[i] * cos + velocityNorth[i] * sin);
+            velocityAcross[i] = sign * (-velocityEast[i] * sin + velocityNorth[i] * cos);
+            if (along[i] < minAlong) {
+                minAlong = along[i];
+            }
+        }
+        for (int i = 0; i < along.length; i++) {
+            along[i] -= minAlong;
+        }
+        return new double[][]{along, across, velocityAlong, velocityAcross};
+    }
+    
+    public int playerCount() {
+        return playerIds.length;
+    }
+    
+    public int frameCount() {
+        return frameCount;
+    }
+    
+    public String playerId(int player) {
+        return playerIds[player];
+    }
+    
+    public List<String> playerIds() {
+        return Arrays.asList(playerIds.clone());
+    }
+    
+    public long startMillis() {
+        return startMillis;
+    }
+    
+    public long tickMillis() {
+        return tickMillis;
+    }
+    
+    public long frameMillis(int frame) {
+        return startMillis + frame * tickMillis;
+    }
+    
+    /** Along-pitch coordinates, frame-major. Shared, not copied: do not modify. */
+    double[] x() {
+        return x;
+    }
+    
+    /** Across-pitch coordinates, frame-major. Shared, not copied: do not modify. */
+    double[] y() {
+        return y;
+    }
+    
+    /** Along-pitch velocities, frame-major. Shared, not copied: do not modify. */
+    double[] vx() {
+        return vx;
+    }
+    
+    /** Across-pitch velocities, frame-major. Shared, not copied: do not modify. */
+    double[] vy() {
+        return vy;
+    }
+    
+    public double x(int frame, int player) {
+        return x[frame * playerIds.length + player];
+    }
+    
+    public double y(int frame, int player) {
+        return y[frame * playerIds.length + player];
+    }
+    
+    public double vx(int frame, int player) {
+        return vx[frame * playerIds.length + player];
+    }
+    
+    public double vy(int frame, int player) {
+        return vy[frame * playerIds.length + player];
+    }
+}
@@ -0,0 +1,83 @@
+package com.footballgps.analysis;
+
+/**
+ * Per-frame team-shape series from {@link TeamShapeEngine}, one entry per frame of the
+ * source {@link TeamFrames}; frames with too few players are NaN. Distances in metres,
+ * line heights measured along the pitch from the deepest observed point. Per-player
+ * arrays are indexed like {@code frames.playerId(p)}.
+ */
+public record TeamShape(
+        TeamFrames frames,
+        int[] playersInFrame,
+        double[] centroidX,
+        double[] centroidY,
+        double[] spread,
+        double[] length,
+        double[] width,
+        double[] defensiveLine,
+        double[] midfieldLine,
+        double[] attackingLine,
+        double[] meanPairwiseDistance,
+        double[] playerMeanOffsetX,
+        double[] playerMeanOffsetY,
+        double[] playerOffsetDeviation) {
+    
+    // Inter-line gaps outside this range mean the lines have collapsed or split apart
+    static final double MIN_LINE_GAP = 5.0;
+    static final double MAX_LINE_GAP = 25.0;
+    
+    public TeamShapeSummary summarize() {
+        int analysed = 0;
+        int structured = 0;
+        double spreadSum = 0, lengthSum = 0, widthSum = 0;
+        double defensiveSum = 0, midfieldSum = 0, attackingSum = 0, pairwiseSum = 0;
+        
+        for (int f = 0; f < spread.length; f++) {
+            if (Double.isNaN(spread[f])) {
+                continue;
+            }
+            analysed++;
+            spreadSum += spread[f];
+            lengthSum += length[f];
+            widthSum += width[f];
+            defensiveSum += defensiveLine[f];
+            midfieldSum += midfieldLine[f];
+            attackingSum += attackingLine[f];
+            pairwiseSum += meanPairwiseDistance[f];
+            
+            double backGap = midfieldLine[f] - defensiveLine[f];
+            double frontGap = attackingLine[f] - midfieldLine[f];
+            if (backGap >= MIN_LINE_GAP && backGap <= MAX_LINE_GAP
+                    && frontGap >= MIN_LINE_GAP && frontGap <= MAX_LINE_GAP) {
+                structured++;
+            }
+        }
+        
+        double deviationSum = 0;
+        int trackedPlayers = 0;
+        for (double deviation : playerOffsetDeviation) {
+            if (!Double.isNaN(deviation)) {
+                deviationSum += deviation;
+                trackedPlayers++;
+            }
+        }
+        
+        double n = Math.max(1, analysed);
+        return new TeamShapeSummary(
+                frames.playerCount(),
+                frames.frameCount(),
+                analysed,
+                frames.tickMillis(),
+                spreadSum / n,
+                lengthSum / n,
+                widthSum / n,
+                defensiveSum / n,
+                midfieldSum / n,
+                attackingSum / n,
+                (midfieldSum - defensiveSum) / n,
+                (attackingSum - midfieldSum) / n,
+                pairwiseSum / n,
+                trackedPlayers > 0 ? deviationSum / trackedPlayers : 0.0,
+                structured / n);
+    }
+}
@@ -0,0 +1,228 @@
+package com.footballgps.analysis;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Computes team shape for every frame of a {@link TeamFrames}: centroid, spread
+ * (mean distance to the centroid), length, width, the heights of the back, middle and
+ * front lines, and the mean distance between all player pairs. Frames are split into
+ * fixed-size blocks analysed in parallel; each block walks the contiguous frame-major
+ * coordinate arrays with its own scratch buffers and writes only its own slice of the
+ * output, so there is no shared mutable state beyond the per-block player offsets
+ * merged at the end.
+ */
+public final class TeamShapeEngine {
+    
+    // Same minimum the original tactical compactness measure used
+    public static final int MIN_PLAYERS = 7;
+    
+    private static final int FRAMES_PER_TASK = 512;
+    
+    private final TeamFrames frames;
+    private final int players;
+    private final int[] playersInFrame;
+    private final double[] centroidX;
+    private final double[] centroidY;
+    private final double[] spread;
+    private final double[] length;
+    private final double[] width;
+    private final double[] defensiveLine;
+    private final double[] midfieldLine;
+    private final double[] attackingLine;
+    private final double[] meanPairwiseDistance;
+    
+    private TeamShapeEngine(TeamFrames frames) {
+        int frameCount = frames.frameCount();
+        this.frames = frames;
+        this.players = frames.playerCount();
+        this.playersInFrame = new int[frameCount];
+        this.centroidX = new double[frameCount];
+        this.centroidY = new double[frameCount];
+        this.spread = new double[frameCount];
+        this.length = new double[frameCount];
+        this.width = new double[frameCount];
+        this.defensiveLine = new double[frameCount];
+        this.midfieldLine = new double[frameCount];
+        this.attackingLine = new double[frameCount];
+        this.meanPairwiseDistance = new double[frameCount];
+    }
+    
+    public static TeamShape analyse(TeamFrames frames) {
+        return analyse(frames, ForkJoinPool.commonPool());
+    }
+    
+    public static TeamShape analyse(TeamFrames frames, ForkJoinPool pool) {
+        TeamShapeEngine engine = new TeamShapeEngine(frames);
+        int frameCount = frames.frameCount();
+        int tasks = (frameCount + FRAMES_PER_TASK - 1) / FRAMES_PER_TASK;
+        
+        PlayerOffsets offsets = pool.submit(() -> IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> engine.analyseBlock(task * FRAMES_PER_TASK,
+                        Math.min(frameCount, (task + 1) * FRAMES_PER_TASK)))
+                .reduce(PlayerOffsets::merge)
+                .orElseGet(() -> new PlayerOffsets(engine.players)))
+                .join();
+        
+        return new TeamShape(frames, engine.playersInFrame, engine.centroidX, engine.centroidY,
+                engine.spread, engine.length, engine.width,
+                engine.defensiveLine, engine.midfieldLine, engine.attackingLine,
+                engine.meanPairwiseDistance,
+                offsets.meanX(), offsets.meanY(), offsets.deviation());
+    }
+    
+    private PlayerOffsets analyseBlock(int from, int to) {
+        double[] x = frames.x();
+        double[] y = frames.y();
+        double[] px = new double[players];
+        double[] py = new double[players];
+        int[] present = new int[players];
+        double[] depth = new double[players];
+        PlayerOffsets offsets = new PlayerOffsets(players);
+        
+        for (int f = from; f < to; f++) {
+            int base = f * players;
+            int n = 0;
+            for (int p = 0; p < players; p++) {
+                double xi = x[base + p];
+                if (!Double.isNaN(xi)) {
+                    px[n] = xi;
+                    py[n] = y[base + p];
+                    present[n] = p;
+                    n++;
+                }
+            }
+            
+            playersInFrame[f] = n;
+            if (n < MIN_PLAYERS) {
+                centroidX[f] = centroidY[f] = spread[f] = length[f] = width[f] = Double.NaN;
+                defensiveLine[f] = midfieldLine[f] = attackingLine[f] = meanPairwiseDistance[f] = Double.NaN;
+                continue;
+            }
+            
+            double sumX = 0, sumY = 0;
+            double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                sumX += px[i];
+                sumY += py[i];
+                minX = Math.min(minX, px[i]);
+                maxX = Math.max(maxX, px[i]);
+                minY = Math.min(minY, py[i]);
+                maxY = Math.max(maxY, py[i]);
+            }
+            double cx = sumX / n;
+            double cy = sumY / n;
+            
+            double distanceSum = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = px[i] - cx;
+                double dy = py[i] - cy;
+                distanceSum += Math.sqrt(dx * dx + dy * dy);
+                offsets.add(present[i], dx, dy);
+            }
+            
+            double pairSum = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double dx = px[i] - px[j];
+                    double dy = py[i] - py[j];
+                    pairSum += Math.sqrt(dx * dx + dy * dy);
+                }
+            }
+            
+            // Lines are the back, middle and front thirds of the outfield players by depth;
+            // with a full side the deepest player is taken to be the goalkeeper
+            System.arraycopy(px, 0, depth, 0, n);
+            Arrays.sort(depth, 0, n);
+            int first = n >= 8 ? 1 : 0;
+            int outfield = n - first;
+            int third = outfield / 3;
+            
+            centroidX[f] = cx;
+            centroidY[f] = cy;
+            spread[f] = distanceSum / n;
+            length[f] = maxX - minX;
+            width[f] = maxY - minY;
+            defensiveLine[f] = mean(depth, first, first + third);
+            midfieldLine[f] = mean(depth, first + third, n - third);
+            attackingLine[f] = mean(depth, n - third, n);
+            meanPairwiseDistance[f] = pairSum / (n * (n - 1) / 2);
+        }
+        
+        return offsets;
+    }
+    
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+    
+    /** Running sums of each player's offset from the centroid, mergeable across blocks. */
+    private static final class PlayerOffsets {
+        
+        private final double[] sumX;
+        private final double[] sumY;
+        private final double[] sumSquares;
+        private final long[] count;
+        
+        PlayerOffsets(int players) {
+            sumX = new double[players];
+            sumY = new double[players];
+            sumSquares = new double[players];
+            count = new long[players];
+        }
+        
+        void add(int player, double dx, double dy) {
+            sumX[player] += dx;
+            sumY[player] += dy;
+            sumSquares[player] += dx * dx + dy * dy;
+            count[player]++;
+        }
+        
+        PlayerOffsets merge(PlayerOffsets other) {
+            for (int p = 0; p < count.length; p++) {
+                sumX[p] += other.sumX[p];
+                sumY[p] += other.sumY[p];
+                sumSquares[p] += other.sumSquares[p];
+                count[p] += other.count[p];
+            }
+            return this;
+        }
+        
+        double[] meanX() {
+            double[] mean = new double[count.length];
+            for (int p = 0; p < count.length; p++) {
+                mean[p] = count[p] > 0 ? sumX[p] / count[p] : Double.NaN;
+            }
+            return mean;
+        }
+        
+        double[] meanY() {
+            double[] mean = new double[count.length];
+            for (int p = 0; p < count.length; p++) {
+                mean[p] = count[p] > 0 ? sumY[p] / count[p] : Double.NaN;
+            }
+            return mean;
+        }
+        
+        /** RMS distance of each player from their mean offset: E|d|² - |E d|². */
+        double[] deviation() {
+            double[] deviation = new double[count.length];
+            for (int p = 0; p < count.length; p++) {
+                if (count[p] == 0) {
+                    deviation[p] = Double.NaN;
+                    continue;
+                }
+                double mx = sumX[p] / count[p];
+                double my = sumY[p] / count[p];
+                deviation[p] = Math.sqrt(Math.max(0, sumSquares[p] / count[p] - mx * mx - my * my));
+            }
+            return deviation;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.footballgps.analysis;
+
+/**
+ * Session averages of a {@link TeamShape} over the frames with enough players.
+ * Distances in metres; {@code positionalDeviation} is the mean per-player RMS drift
+ * from their average spot relative to the team centroid, and {@code structuredShare}
+ * the fraction of frames whose inter-line gaps were all within 5-25 m.
+ */
+public record TeamShapeSummary(
+        int players,
+        int frames,
+        int analysedFrames,
+        long tickMillis,
+        double averageSpread,
+        double averageLength,
+        double averageWidth,
+        double averageDefensiveLine,
+        double averageMidfieldLine,
+        double averageAttackingLine,
+        double averageDefenceToMidfield,
+        double averageMidfieldToAttack,
+        double averagePairwiseDistance,
+        double positionalDeviation,
+        double structuredShare) {
+}
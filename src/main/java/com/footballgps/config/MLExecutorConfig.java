@@ -0,0 +1,22 @@
+package com.footballgps.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class MLExecutorConfig {
+    
+    /**
+     * Dedicated fork-join pool for CPU-bound model scoring, kept separate from the
+     * common pool so batch jobs cannot starve request handling or async tasks.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool mlScoringPool(
+            @Value("${ml.scoring.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads);
+    }
+}
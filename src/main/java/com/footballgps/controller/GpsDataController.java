@@ -23,6 +23,13 @@ public class GpsDataController {
         return ResponseEntity.ok(saved);
     }
     
+    @PostMapping("/device/{deviceId}")
+    public ResponseEntity<GpsData> receiveDeviceData(@PathVariable String deviceId, @RequestBody GpsData gpsData) {
+        return gpsDataService.saveDeviceData(deviceId, gpsData)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/session/{sessionId}")
     public ResponseEntity<List<GpsData>> getSessionData(@PathVariable String sessionId) {
         List<GpsData> data = gpsDataService.getSessionData(sessionId);
@@ -1,14 +1,20 @@
 package com.footballgps.controller;
 
+import com.footballgps.analysis.EffortSegmentation;
 import com.footballgps.model.PlayerMetrics;
+import com.footballgps.model.PlayerSplit;
+import com.footballgps.model.SessionEventIndex;
 import com.footballgps.service.MetricsCalculationService;
+import com.footballgps.service.MovementEventService;
 import com.footballgps.service.PlayerMetricsService;
+import com.footballgps.service.SplitMetricsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/metrics")
@@ -18,6 +24,8 @@ public class MetricsController {
     
     private final PlayerMetricsService playerMetricsService;
     private final MetricsCalculationService metricsCalculationService;
+    private final MovementEventService movementEventService;
+    private final SplitMetricsService splitMetricsService;
     
     @GetMapping("/player/{playerId}")
     public ResponseEntity<List<PlayerMetrics>> getPlayerMetrics(@PathVariable String playerId) {
@@ -34,6 +42,51 @@ public class MetricsController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping("/player/{playerId}/session/{sessionId}/efforts")
+    public ResponseEntity<EffortSegmentation> getPlayerSessionEfforts(
+            @PathVariable String playerId,
+            @PathVariable String sessionId) {
+        EffortSegmentation efforts = metricsCalculationService.calculateEffortSegmentation(playerId, sessionId);
+        return ResponseEntity.ok(efforts);
+    }
+    
+    @GetMapping("/player/{playerId}/session/{sessionId}/events")
+    public ResponseEntity<List<SessionEventIndex.Event>> getPlayerSessionEvents(
+            @PathVariable String playerId,
+            @PathVariable String sessionId,
+            @RequestParam(required = false) SessionEventIndex.EventType type,
+            @RequestParam(defaultValue = "0") double minDistance,
+            @RequestParam(defaultValue = "0") double minDuration,
+            @RequestParam(required = false) Integer lastMinutes) {
+        List<SessionEventIndex.Event> events = movementEventService.findEvents(
+                playerId, sessionId, type, minDistance, minDuration, lastMinutes);
+        return ResponseEntity.ok(events);
+    }
+    
+    @GetMapping("/player/{playerId}/session/{sessionId}/splits")
+    public ResponseEntity<List<PlayerSplit>> getPlayerSessionSplits(
+            @PathVariable String playerId,
+            @PathVariable String sessionId,
+            @RequestParam(defaultValue = "1") int granularity) {
+        if (granularity < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PlayerSplit> splits = splitMetricsService.getSplits(playerId, sessionId, granularity);
+        return ResponseEntity.ok(splits);
+    }
+    
+    @GetMapping("/session/{sessionId}/events")
+    public ResponseEntity<Map<String, List<SessionEventIndex.Event>>> getSessionEvents(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) SessionEventIndex.EventType type,
+            @RequestParam(defaultValue = "0") double minDistance,
+            @RequestParam(defaultValue = "0") double minDuration,
+            @RequestParam(required = false) Integer lastMinutes) {
+        Map<String, List<SessionEventIndex.Event>> events = movementEventService.findSessionEvents(
+                sessionId, type, minDistance, minDuration, lastMinutes);
+        return ResponseEntity.ok(events);
+    }
+    
     @GetMapping("/session/{sessionId}")
     public ResponseEntity<List<PlayerMetrics>> getSessionMetrics(@PathVariable String sessionId) {
         List<PlayerMetrics> metrics = playerMetricsService.getSessionMetrics(sessionId);
@@ -0,0 +1,51 @@
+package com.footballgps.controller;
+
+import com.footballgps.model.TrainingSession;
+import com.footballgps.service.TrainingSessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sessions")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class SessionController {
+    
+    private final TrainingSessionService trainingSessionService;
+    
+    @PostMapping
+    public ResponseEntity<TrainingSession> startSession(@RequestBody TrainingSession session) {
+        log.info("Starting session: {}", session.getName());
+        return ResponseEntity.ok(trainingSessionService.startSession(session));
+    }
+    
+    @PostMapping("/{sessionId}/end")
+    public ResponseEntity<TrainingSession> endSession(@PathVariable String sessionId) {
+        log.info("Ending session: {}", sessionId);
+        return trainingSessionService.endSession(sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<TrainingSession> getSession(@PathVariable String sessionId) {
+        return trainingSessionService.getSession(sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/active")
+    public ResponseEntity<List<TrainingSession>> getActiveSessions() {
+        return ResponseEntity.ok(trainingSessionService.getActiveSessions());
+    }
+    
+    @GetMapping("/team/{teamId}")
+    public ResponseEntity<List<TrainingSession>> getTeamSessions(@PathVariable String teamId) {
+        return ResponseEntity.ok(trainingSessionService.getTeamSessions(teamId));
+    }
+}
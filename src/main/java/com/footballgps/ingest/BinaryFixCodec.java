@@ -0,0 +1,180 @@
+package com.footballgps.ingest;
+
+import com.footballgps.model.GpsData;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact binary form of one GPS fix for the raw TCP/UDP listener. Each frame is a
+ * big-endian unsigned short body length followed by the body:
+ * <pre>
+ *   u8   version (1)
+ *   u8   flags: bit 0 IMU block present, bit 1 biometrics block present
+ *   u8   device id length, then the id in ASCII
+ *   i64  timestamp, epoch milliseconds (0 = stamp on arrival)
+ *   i32  latitude, longitude in 1e-7 degrees
+ *   i16  altitude in decimetres
+ *   u16  accuracy in centimetres
+ *   u8   satellites
+ *   u16  speed in 0.01 km/h
+ *   i16  acceleration in 0.01 m/s²
+ *   u16  direction in 0.01 degrees
+ *   9 x f32 accelerometer, gyroscope, magnetometer x/y/z   (IMU block)
+ *   u8   heart rate, u16 body temperature in 0.01 °C, u8 stress level   (biometrics block)
+ * </pre>
+ * A fix with biometrics from a device such as GPS_001 is 43 bytes on the wire, against
+ * several hundred for the JSON body of {@code POST /api/gps/device/{deviceId}}. Later
+ * versions may only append fields, so trailing bytes in a frame are skipped.
+ */
+public final class BinaryFixCodec {
+    
+    public static final int VERSION = 1;
+    public static final int MAX_FRAME_LENGTH = 1024;
+    
+    private static final int FLAG_IMU = 1;
+    private static final int FLAG_BIOMETRICS = 2;
+    private static final double DEGREE_SCALE = 1e7;
+    
+    private BinaryFixCodec() {
+    }
+    
+    /** Appends one length-prefixed frame for {@code fix} to {@code out}. */
+    public static void encode(String deviceId, GpsData fix, ByteBuffer out) {
+        byte[] id = deviceId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length > 255) {
+            throw new IllegalArgumentException("Device id longer than 255 bytes: " + deviceId);
+        }
+        GpsData.Position position = fix.getPosition();
+        GpsData.Movement movement = fix.getMovement();
+        GpsData.Movement.ImuData imu = movement.getImu();
+        GpsData.Biometrics biometrics = fix.getBiometrics();
+        
+        int lengthAt = out.position();
+        out.putShort((short) 0);
+        out.put((byte) VERSION);
+        out.put((byte) ((imu != null ? FLAG_IMU : 0) | (biometrics != null ? FLAG_BIOMETRICS : 0)));
+        out.put((byte) id.length).put(id);
+        out.putLong(fix.getTimestamp());
+        out.putInt((int) Math.round(position.getLatitude() * DEGREE_SCALE));
+        out.putInt((int) Math.round(position.getLongitude() * DEGREE_SCALE));
+        out.putShort((short) Math.round(position.getAltitude() * 10));
+        out.putShort((short) Math.round(position.getAccuracy() * 100));
+        out.put((byte) position.getSatellites());
+        out.putShort((short) Math.round(movement.getSpeed() * 100));
+        out.putShort((short) Math.round(movement.getAcceleration() * 100));
+        out.putShort((short) Math.round(movement.getDirection() * 100));
+        if (imu != null) {
+            putVector(out, imu.getAccelerometer());
+            putVector(out, imu.getGyroscope());
+            putVector(out, imu.getMagnetometer());
+        }
+        if (biometrics != null) {
+            out.put((byte) biometrics.getHeartRate());
+            out.putShort((short) Math.round(biometrics.getBodyTemperature() * 100));
+            out.put((byte) biometrics.getStressLevel());
+        }
+        out.putShort(lengthAt, (short) (out.position() - lengthAt - 2));
+    }
+    
+    /**
+     * Stream decoder. It keeps the last device id so a connection that repeats it, as a
+     * wearable does, does not allocate a new string per fix. Not thread-safe; one per stream.
+     */
+    public static final class Decoder {
+        
+        private final byte[] id = new byte[255];
+        private byte[] lastId = new byte[0];
+        private String lastDeviceId = "";
+        
+        /**
+         * Decodes every complete frame from {@code buffer}, which is in read mode, and leaves
+         * its position at the start of a trailing partial frame. Returns the number decoded.
+         *
+         * @throws IllegalArgumentException on a frame that cannot be decoded; the stream
+         *         cannot be resynchronised after it
+         */
+        public int decode(ByteBuffer buffer, BiConsumer<String, GpsData> sink) {
+            int decoded = 0;
+            while (buffer.remaining() >= 2) {
+                int start = buffer.position();
+                int length = Short.toUnsignedInt(buffer.getShort(start));
+                if (length > MAX_FRAME_LENGTH) {
+                    throw new IllegalArgumentException("Frame of " + length + " bytes exceeds " + MAX_FRAME_LENGTH);
+                }
+                if (buffer.remaining() < 2 + length) {
+                    break;
+                }
+                int end = start + 2 + length;
+                int limit = buffer.limit();
+                buffer.position(start + 2).limit(end);
+                try {
+                    decodeBody(buffer, sink);
+                } catch (BufferUnderflowException e) {
+                    throw new IllegalArgumentException("Frame of " + length + " bytes is truncated");
+                } finally {
+                    buffer.limit(limit);
+                }
+                // Skips fields appended by later versions
+                buffer.position(end);
+                decoded++;
+            }
+            return decoded;
+        }
+        
+        private void decodeBody(ByteBuffer body, BiConsumer<String, GpsData> sink) {
+            int version = Byte.toUnsignedInt(body.get());
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported frame version " + version);
+            }
+            int flags = body.get();
+            String deviceId = deviceId(body);
+            
+            GpsData fix = new GpsData();
+            fix.setTimestamp(body.getLong());
+            fix.setPosition(new GpsData.Position(
+                    body.getInt() / DEGREE_SCALE,
+                    body.getInt() / DEGREE_SCALE,
+                    body.getShort() / 10.0,
+                    Short.toUnsignedInt(body.getShort()) / 100.0,
+                    Byte.toUnsignedInt(body.get())));
+            GpsData.Movement movement = new GpsData.Movement(
+                    Short.toUnsignedInt(body.getShort()) / 100.0,
+                    body.getShort() / 100.0,
+                    Short.toUnsignedInt(body.getShort()) / 100.0,
+                    null);
+            if ((flags & FLAG_IMU) != 0) {
+                movement.setImu(new GpsData.Movement.ImuData(getVector(body), getVector(body), getVector(body)));
+            }
+            fix.setMovement(movement);
+            if ((flags & FLAG_BIOMETRICS) != 0) {
+                fix.setBiometrics(new GpsData.Biometrics(
+                        Byte.toUnsignedInt(body.get()),
+                        Short.toUnsignedInt(body.getShort()) / 100.0,
+                        Byte.toUnsignedInt(body.get())));
+            }
+            sink.accept(deviceId, fix);
+        }
+        
+        private String deviceId(ByteBuffer body) {
+            int length = Byte.toUnsignedInt(body.get());
+            body.get(id, 0, length);
+            if (!Arrays.equals(id, 0, length, lastId, 0, lastId.length)) {
+                lastId = Arrays.copyOf(id, length);
+                lastDeviceId = new String(lastId, StandardCharsets.US_ASCII);
+            }
+            return lastDeviceId;
+        }
+    }
+    
+    private static void putVector(ByteBuffer out, GpsData.Vector3D vector) {
+        out.putFloat((float) vector.getX()).putFloat((float) vector.getY()).putFloat((float) vector.getZ());
+    }
+    
+    private static GpsData.Vector3D getVector(ByteBuffer in) {
+        return new GpsData.Vector3D(in.getFloat(), in.getFloat(), in.getFloat());
+    }
+}
@@ -0,0 +1,376 @@
+package com.footballgps.ingest;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.service.GpsDataService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional raw-socket ingest for wearables that send {@link BinaryFixCodec} frames over
+ * TCP or UDP instead of JSON over HTTP. One selector thread accepts connections and reads
+ * into a fixed direct buffer per connection (and one shared buffer for datagrams), decoding
+ * frames in place; decoded fixes go to {@link GpsDataService#saveDeviceData}, the same path
+ * as {@code POST /api/gps/device/{deviceId}}, on a small pool of ingest workers so storage
+ * never blocks the selector.
+ * <p>
+ * Each TCP connection and UDP sender is pinned to one worker, so a device's fixes reach the
+ * reorder buffer in the order they were sent. A full worker queue drops the batch and counts
+ * it rather than stalling reads. A malformed frame closes its TCP connection, as the stream
+ * cannot be resynchronised, or discards its datagram. Nothing is acknowledged.
+ * <p>
+ * An I/O error on one channel is counted and handled there: a failed connection is closed,
+ * a failed receive is skipped, and a failed accept (e.g. out of file descriptors) pauses
+ * accepting briefly. Only a failure of the selector itself stops the listener.
+ */
+@Component
+@ConditionalOnProperty(name = "gps.ingest.binary.enabled", havingValue = "true")
+@Slf4j
+public class BinaryIngestListener {
+    
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long ACCEPT_BACKOFF_MILLIS = 100;
+    
+    private record DeviceFix(String deviceId, GpsData fix) {}
+    
+    /** Read state of one TCP connection; only touched by the selector thread. */
+    private static final class Connection {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        final BinaryFixCodec.Decoder decoder = new BinaryFixCodec.Decoder();
+        final int worker;
+        
+        Connection(int worker) {
+            this.worker = worker;
+        }
+    }
+    
+    private final class IngestTask implements Runnable {
+        final List<DeviceFix> fixes;
+        
+        IngestTask(List<DeviceFix> fixes) {
+            this.fixes = fixes;
+        }
+        
+        @Override
+        public void run() {
+            for (DeviceFix deviceFix : fixes) {
+                try {
+                    if (gpsDataService.saveDeviceData(deviceFix.deviceId(), deviceFix.fix()).isEmpty()) {
+                        unknownDevice.increment();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Error ingesting binary fix from device {}", deviceFix.deviceId(), e);
+                }
+            }
+        }
+    }
+    
+    private final GpsDataService gpsDataService;
+    private final int tcpPort;
+    private final int udpPort;
+    private final ThreadPoolExecutor[] workers;
+    
+    private final Counter tcpFrames;
+    private final Counter udpFrames;
+    private final Counter malformed;
+    private final Counter unknownDevice;
+    private final Counter queueFull;
+    private final Counter tcpErrors;
+    private final Counter udpErrors;
+    private final AtomicInteger connections = new AtomicInteger();
+    
+    // Selector-thread state
+    private final ByteBuffer datagramBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final BinaryFixCodec.Decoder datagramDecoder = new BinaryFixCodec.Decoder();
+    private int nextWorker;
+    private long acceptPausedUntil; // System.nanoTime(), 0 when accepting
+    
+    private Selector selector;
+    private ServerSocketChannel server;
+    private DatagramChannel datagrams;
+    private Thread selectorThread;
+    private volatile boolean running;
+    
+    public BinaryIngestListener(GpsDataService gpsDataService, MeterRegistry meterRegistry,
+                                @Value("${gps.ingest.binary.tcp-port:5050}") int tcpPort,
+                                @Value("${gps.ingest.binary.udp-port:5051}") int udpPort,
+                                @Value("${gps.ingest.binary.workers:2}") int workerCount,
+                                @Value("${gps.ingest.binary.queue-capacity:10000}") int queueCapacity) {
+        this.gpsDataService = gpsDataService;
+        this.tcpPort = tcpPort;
+        this.udpPort = udpPort;
+        
+        this.tcpFrames = meterRegistry.counter("gps.ingest.binary.frames", "transport", "tcp");
+        this.udpFrames = meterRegistry.counter("gps.ingest.binary.frames", "transport", "udp");
+        this.malformed = meterRegistry.counter("gps.ingest.binary.rejected", "reason", "malformed");
+        this.unknownDevice = meterRegistry.counter("gps.ingest.binary.rejected", "reason", "unknown_device");
+        this.queueFull = meterRegistry.counter("gps.ingest.binary.rejected", "reason", "queue_full");
+        this.tcpErrors = meterRegistry.counter("gps.ingest.binary.errors", "transport", "tcp");
+        this.udpErrors = meterRegistry.counter("gps.ingest.binary.errors", "transport", "udp");
+        meterRegistry.gauge("gps.ingest.binary.connections", connections);
+        
+        this.workers = new ThreadPoolExecutor[Math.max(1, workerCount)];
+        for (int i = 0; i < workers.length; i++) {
+            String name = "gps-binary-ingest-" + i;
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, pool) -> queueFull.increment(((IngestTask) runnable).fixes.size()));
+        }
+    }
+    
+    /** Binds after startup, so devices are resolved against loaded sessions; a negative port disables that transport. */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        if (tcpPort >= 0) {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(tcpPort));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        if (udpPort >= 0) {
+            datagrams = DatagramChannel.open();
+            datagrams.setOption(StandardSocketOptions.SO_RCVBUF, 4 * 1024 * 1024);
+            datagrams.bind(new InetSocketAddress(udpPort));
+            datagrams.configureBlocking(false);
+            datagrams.register(selector, SelectionKey.OP_READ);
+        }
+        running = true;
+        selectorThread = new Thread(this::run, "gps-binary-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("Binary GPS ingest listening on tcp {} and udp {}", getTcpPort(), getUdpPort());
+    }
+    
+    /** Stops reading and lets the workers drain what was already decoded. */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (running) {
+            running = false;
+            selector.wakeup();
+            selectorThread.join(5_000);
+        }
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+        for (ThreadPoolExecutor worker : workers) {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+    
+    /** Bound TCP port, or -1 when TCP is disabled or not started. */
+    public int getTcpPort() {
+        return server != null ? server.socket().getLocalPort() : -1;
+    }
+    
+    /** Bound UDP port, or -1 when UDP is disabled or not started. */
+    public int getUdpPort() {
+        return datagrams != null ? datagrams.socket().getLocalPort() : -1;
+    }
+    
+    private void run() {
+        try {
+            while (running) {
+                selector.select(acceptPausedUntil != 0 ? ACCEPT_BACKOFF_MILLIS : 0);
+                resumeAccepting();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(key);
+                    } else if (key.channel() == datagrams) {
+                        receive();
+                    } else {
+                        read(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.error("Binary GPS ingest selector failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+    
+    private void accept(SelectionKey key) {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException e) {
+                // The server key stays ready, so stop selecting it for a moment rather than spin
+                tcpErrors.increment();
+                log.warn("Binary GPS accept failed, pausing accepts for {} ms: {}", ACCEPT_BACKOFF_MILLIS, e.getMessage());
+                key.interestOps(0);
+                acceptPausedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACCEPT_BACKOFF_MILLIS);
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, new Connection(nextWorker));
+            } catch (IOException e) {
+                tcpErrors.increment();
+                log.debug("Could not set up binary GPS connection {}: {}", remoteAddress(channel), e.getMessage());
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    log.debug("Error closing binary GPS connection", closeFailure);
+                }
+                continue;
+            }
+            nextWorker = (nextWorker + 1) % workers.length;
+            connections.incrementAndGet();
+        }
+    }
+    
+    private void resumeAccepting() {
+        if (acceptPausedUntil != 0 && System.nanoTime() - acceptPausedUntil >= 0) {
+            acceptPausedUntil = 0;
+            SelectionKey key = server.keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(SelectionKey.OP_ACCEPT);
+            }
+        }
+    }
+    
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        try {
+            int read = channel.read(connection.buffer);
+            if (read < 0) {
+                close(key);
+                return;
+            }
+            connection.buffer.flip();
+            List<DeviceFix> fixes = new ArrayList<>();
+            try {
+                tcpFrames.increment(connection.decoder.decode(connection.buffer,
+                        (deviceId, fix) -> fixes.add(new DeviceFix(deviceId, fix))));
+            } finally {
+                connection.buffer.compact();
+                dispatch(connection.worker, fixes);
+            }
+        } catch (IllegalArgumentException e) {
+            malformed.increment();
+            log.warn("Closing binary GPS connection {}: {}", remoteAddress(channel), e.getMessage());
+            close(key);
+        } catch (IOException e) {
+            tcpErrors.increment();
+            log.debug("Binary GPS connection {} failed: {}", remoteAddress(channel), e.getMessage());
+            close(key);
+        }
+    }
+    
+    private void receive() {
+        while (true) {
+            SocketAddress sender;
+            try {
+                sender = datagrams.receive(datagramBuffer);
+            } catch (IOException e) {
+                // Skips what was read; the channel stays registered for the next datagram
+                udpErrors.increment();
+                log.warn("Binary GPS datagram receive failed: {}", e.getMessage());
+                datagramBuffer.clear();
+                return;
+            }
+            if (sender == null) {
+                return;
+            }
+            datagramBuffer.flip();
+            List<DeviceFix> fixes = new ArrayList<>();
+            try {
+                udpFrames.increment(datagramDecoder.decode(datagramBuffer,
+                        (deviceId, fix) -> fixes.add(new DeviceFix(deviceId, fix))));
+                if (datagramBuffer.hasRemaining()) {
+                    throw new IllegalArgumentException("Datagram ends in a partial frame");
+                }
+            } catch (IllegalArgumentException e) {
+                malformed.increment();
+                fixes.clear();
+                log.debug("Malformed binary GPS datagram from {}: {}", sender, e.getMessage());
+            }
+            datagramBuffer.clear();
+            dispatch(Math.floorMod(sender.hashCode(), workers.length), fixes);
+        }
+    }
+    
+    private void dispatch(int worker, List<DeviceFix> fixes) {
+        if (!fixes.isEmpty()) {
+            workers[worker].execute(new IngestTask(fixes));
+        }
+    }
+    
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Error closing binary GPS connection", e);
+        }
+        connections.decrementAndGet();
+    }
+    
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    close(key);
+                }
+            }
+            if (server != null) {
+                server.close();
+            }
+            if (datagrams != null) {
+                datagrams.close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            log.warn("Error closing binary GPS ingest listener", e);
+        }
+    }
+    
+    private static Object remoteAddress(SocketChannel channel) {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.footballgps.ml.controller;
 
+import com.footballgps.ml.model.FatigueAlert;
 import com.footballgps.ml.model.MLPrediction;
 import com.footballgps.ml.service.FatigueDetectionService;
+import com.footballgps.ml.service.LiveFatigueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/ml")
 @RequiredArgsConstructor
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 public class FatigueController {
     
     private final FatigueDetectionService fatigueDetectionService;
+    private final LiveFatigueService liveFatigueService;
     
     @PostMapping("/fatigue-detection/{playerId}/session/{sessionId}")
     public ResponseEntity<MLPrediction> detectFatigue(
@@ -24,4 +29,10 @@ public class FatigueController {
         MLPrediction prediction = fatigueDetectionService.detectFatigue(playerId, sessionId);
         return ResponseEntity.ok(prediction);
     }
+    
+    @GetMapping("/fatigue-detection/live/session/{sessionId}")
+    public ResponseEntity<List<FatigueAlert>> getLiveFatigue(@PathVariable String sessionId) {
+        List<FatigueAlert> status = liveFatigueService.getLiveStatus(sessionId);
+        return ResponseEntity.ok(status);
+    }
 }
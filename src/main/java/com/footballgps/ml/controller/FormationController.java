@@ -0,0 +1,43 @@
+package com.footballgps.ml.controller;
+
+import com.footballgps.ml.model.FormationWindow;
+import com.footballgps.ml.service.FormationTimelineService;
+import com.footballgps.ml.service.LiveFormationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ml/formation")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class FormationController {
+    
+    private final FormationTimelineService formationTimelineService;
+    private final LiveFormationService liveFormationService;
+    
+    @GetMapping("/{sessionId}/timeline")
+    public ResponseEntity<List<FormationWindow>> getTimeline(@PathVariable String sessionId) {
+        return ResponseEntity.ok(formationTimelineService.getTimeline(sessionId));
+    }
+    
+    @PostMapping("/{sessionId}/timeline/rebuild")
+    public ResponseEntity<List<FormationWindow>> rebuildTimeline(@PathVariable String sessionId) {
+        log.info("Rebuilding formation timeline for session: {}", sessionId);
+        return ResponseEntity.ok(formationTimelineService.rebuildTimeline(sessionId));
+    }
+    
+    @GetMapping("/{sessionId}/current")
+    public ResponseEntity<Map<String, String>> getCurrentFormation(@PathVariable String sessionId) {
+        String formation = liveFormationService.getCurrentFormation(sessionId);
+        if (formation == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("sessionId", sessionId, "formation", formation));
+    }
+}
@@ -1,16 +1,25 @@
 package com.footballgps.ml.controller;
 
+import com.footballgps.analysis.TeamShapeSummary;
 import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.model.PlayerProximity;
+import com.footballgps.ml.model.PredictionPage;
+import com.footballgps.ml.model.SessionAnalysisReport;
 import com.footballgps.ml.service.InjuryPredictionService;
+import com.footballgps.ml.service.LiveProximityService;
 import com.footballgps.ml.service.PerformanceOptimizationService;
+import com.footballgps.ml.service.PostMatchAnalysisService;
+import com.footballgps.ml.service.PredictionArchiveService;
 import com.footballgps.ml.service.TacticalAnalysisService;
 import com.footballgps.ml.service.MLPredictionService;
+import com.footballgps.ml.service.SquadInjuryRiskService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/ml")
@@ -23,6 +32,10 @@ public class MLController {
     private final PerformanceOptimizationService performanceOptimizationService;
     private final TacticalAnalysisService tacticalAnalysisService;
     private final MLPredictionService mlPredictionService;
+    private final SquadInjuryRiskService squadInjuryRiskService;
+    private final PostMatchAnalysisService postMatchAnalysisService;
+    private final PredictionArchiveService predictionArchiveService;
+    private final LiveProximityService liveProximityService;
     
     @PostMapping("/injury-risk/{playerId}")
     public ResponseEntity<MLPrediction> predictInjuryRisk(@PathVariable String playerId) {
@@ -31,6 +44,13 @@ public class MLController {
         return ResponseEntity.ok(prediction);
     }
     
+    @PostMapping("/injury-risk/squad")
+    public ResponseEntity<List<MLPrediction>> predictSquadInjuryRisk() {
+        log.info("Predicting injury risk for all active players");
+        List<MLPrediction> predictions = squadInjuryRiskService.scoreActiveSquad();
+        return ResponseEntity.ok(predictions);
+    }
+    
     @PostMapping("/optimize-performance/{playerId}")
     public ResponseEntity<MLPrediction> optimizePerformance(@PathVariable String playerId) {
         log.info("Optimizing performance for player: {}", playerId);
@@ -45,6 +65,22 @@ public class MLController {
         return ResponseEntity.ok(prediction);
     }
     
+    @GetMapping("/tactical-analysis/{sessionId}/shape")
+    public ResponseEntity<TeamShapeSummary> getTeamShape(@PathVariable String sessionId) {
+        return tacticalAnalysisService.getTeamShape(sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/tactical-analysis/{sessionId}/proximity")
+    public ResponseEntity<List<PlayerProximity>> getLiveProximity(@PathVariable String sessionId) {
+        List<PlayerProximity> proximity = liveProximityService.getSessionProximity(sessionId);
+        if (proximity.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(proximity);
+    }
+    
     @PostMapping("/optimal-position/{playerId}/session/{sessionId}")
     public ResponseEntity<MLPrediction> predictOptimalPosition(
             @PathVariable String playerId, 
@@ -54,28 +90,87 @@ public class MLController {
         return ResponseEntity.ok(prediction);
     }
     
+    @PostMapping("/session/{sessionId}/full-analysis")
+    public ResponseEntity<SessionAnalysisReport> runFullAnalysis(@PathVariable String sessionId) {
+        log.info("Running full post-match analysis for session: {}", sessionId);
+        SessionAnalysisReport report = postMatchAnalysisService.runFullAnalysis(sessionId);
+        return ResponseEntity.ok(report);
+    }
+    
+    @GetMapping("/predictions/{id}")
+    public ResponseEntity<MLPrediction> getPrediction(@PathVariable String id) {
+        return mlPredictionService.getPrediction(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/predictions/player/{playerId}")
-    public ResponseEntity<List<MLPrediction>> getPlayerPredictions(@PathVariable String playerId) {
-        List<MLPrediction> predictions = mlPredictionService.getPlayerPredictions(playerId);
-        return ResponseEntity.ok(predictions);
+    public ResponseEntity<PredictionPage> getPlayerPredictions(
+            @PathVariable String playerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(mlPredictionService.getPlayerPredictions(playerId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/predictions/session/{sessionId}")
-    public ResponseEntity<List<MLPrediction>> getSessionPredictions(@PathVariable String sessionId) {
-        List<MLPrediction> predictions = mlPredictionService.getSessionPredictions(sessionId);
-        return ResponseEntity.ok(predictions);
+    public ResponseEntity<PredictionPage> getSessionPredictions(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(mlPredictionService.getSessionPredictions(sessionId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/predictions/type/{type}")
-    public ResponseEntity<List<MLPrediction>> getPredictionsByType(@PathVariable MLPrediction.PredictionType type) {
-        List<MLPrediction> predictions = mlPredictionService.getPredictionsByType(type);
-        return ResponseEntity.ok(predictions);
+    public ResponseEntity<PredictionPage> getPredictionsByType(
+            @PathVariable MLPrediction.PredictionType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(mlPredictionService.getPredictionsByType(type, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/predictions/latest/{type}")
+    public ResponseEntity<MLPrediction> getLatestPrediction(
+            @PathVariable MLPrediction.PredictionType type,
+            @RequestParam(required = false) String playerId,
+            @RequestParam(required = false) String sessionId) {
+        return mlPredictionService.getLatestPrediction(type, playerId, sessionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/predictions/cache/stats")
+    public ResponseEntity<Map<String, Object>> getPredictionCacheStats() {
+        return ResponseEntity.ok(mlPredictionService.getCacheStats());
     }
     
     @GetMapping("/predictions/recent")
-    public ResponseEntity<List<MLPrediction>> getRecentPredictions(
-            @RequestParam(defaultValue = "24") int hours) {
-        List<MLPrediction> predictions = mlPredictionService.getRecentPredictions(hours);
-        return ResponseEntity.ok(predictions);
+    public ResponseEntity<PredictionPage> getRecentPredictions(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(mlPredictionService.getRecentPredictions(hours, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/predictions/archive")
+    public ResponseEntity<Map<String, Object>> archiveOldPredictions() {
+        log.info("Archiving predictions past the retention period");
+        long archived = predictionArchiveService.archiveOldPredictions();
+        return ResponseEntity.ok(Map.of("archived", archived));
     }
 }
@@ -0,0 +1,126 @@
+package com.footballgps.ml.controller;
+
+import com.footballgps.ml.model.MLModel;
+import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.model.TrainingReport;
+import com.footballgps.ml.repository.MLModelRepository;
+import com.footballgps.ml.runtime.CompiledScorer;
+import com.footballgps.ml.runtime.ModelRegistry;
+import com.footballgps.ml.service.MLPredictionService;
+import com.footballgps.ml.service.ModelTrainingService;
+import com.footballgps.ml.service.ShadowScoringService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ml/models")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class ModelController {
+    
+    private final ModelRegistry modelRegistry;
+    private final MLModelRepository mlModelRepository;
+    private final ModelTrainingService modelTrainingService;
+    private final MLPredictionService mlPredictionService;
+    private final ShadowScoringService shadowScoringService;
+    
+    @GetMapping
+    public ResponseEntity<List<MLModel>> getModels(@RequestParam(required = false) MLModel.ModelType type) {
+        List<MLModel> models = type != null
+                ? mlModelRepository.findByTypeOrderByTrainedAtDesc(type)
+                : mlModelRepository.findAll();
+        return ResponseEntity.ok(models);
+    }
+    
+    @GetMapping("/active")
+    public ResponseEntity<Map<MLModel.ModelType, Map<String, Object>>> getActiveModels() {
+        return ResponseEntity.ok(describe(modelRegistry.getActiveScorers()));
+    }
+    
+    @PostMapping("/reload")
+    public ResponseEntity<Map<MLModel.ModelType, Map<String, Object>>> reloadModels() {
+        log.info("Reloading ML models");
+        return ResponseEntity.ok(describe(modelRegistry.reload()));
+    }
+    
+    @PostMapping("/{id}/promote")
+    public ResponseEntity<Map<MLModel.ModelType, Map<String, Object>>> promoteModel(@PathVariable String id) {
+        log.info("Promoting model: {}", id);
+        try {
+            return ResponseEntity.ok(describe(modelRegistry.promote(id)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @GetMapping("/shadow")
+    public ResponseEntity<Map<String, Object>> getShadowScoring() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("candidates", describe(modelRegistry.getCandidateScorers()));
+        result.put("comparisons", shadowScoringService.getComparisons());
+        result.put("queue", shadowScoringService.getQueueStats());
+        return ResponseEntity.ok(result);
+    }
+    
+    @DeleteMapping("/shadow")
+    public ResponseEntity<Void> resetShadowScoring() {
+        shadowScoringService.reset();
+        return ResponseEntity.ok().build();
+    }
+    
+    @PostMapping("/train/{type}")
+    public ResponseEntity<TrainingReport> trainModel(
+            @PathVariable MLModel.ModelType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusYears(1);
+        log.info("Training {} model on outcomes from {} to {}", type, start, end);
+        try {
+            return ResponseEntity.ok(modelTrainingService.train(type, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Records an observed outcome (e.g. output {"injured": true} for INJURY_RISK, or
+     * {"fatigued": true} for FATIGUE_LEVEL with a sessionId) as a training label. The
+     * outcome's own time goes in observedAt (a predictedAt from older clients is taken as
+     * it); predictedAt is always the time of recording.
+     */
+    @PostMapping("/outcomes")
+    public ResponseEntity<MLPrediction> recordOutcome(@RequestBody MLPrediction outcome) {
+        log.info("Recording actual {} outcome for player: {}", outcome.getType(), outcome.getPlayerId());
+        outcome.setId(null);
+        outcome.setActual(true);
+        LocalDateTime now = LocalDateTime.now();
+        if (outcome.getObservedAt() == null) {
+            outcome.setObservedAt(outcome.getPredictedAt() != null ? outcome.getPredictedAt() : now);
+        }
+        outcome.setPredictedAt(now);
+        return ResponseEntity.ok(mlPredictionService.savePrediction(outcome));
+    }
+    
+    private Map<MLModel.ModelType, Map<String, Object>> describe(Map<MLModel.ModelType, CompiledScorer> scorers) {
+        Map<MLModel.ModelType, Map<String, Object>> result = new LinkedHashMap<>();
+        scorers.forEach((type, scorer) -> {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("modelId", scorer.modelId());
+            info.put("version", scorer.version());
+            info.put("scorer", scorer.getClass().getSimpleName());
+            info.put("dimension", scorer.dimension());
+            result.put(type, info);
+        });
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.footballgps.ml.controller;
+
+import com.footballgps.ml.service.PitchControlService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/ml/pitch-control")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class PitchControlController {
+    
+    private final PitchControlService pitchControlService;
+    
+    @GetMapping("/{sessionId}/frames")
+    public ResponseEntity<StreamingResponseBody> streamFrames(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String teamId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return pitchControlService.openSession(sessionId, teamId)
+                .map(session -> {
+                    log.info("Streaming pitch control for session {} (team {})", sessionId, session.teamId());
+                    StreamingResponseBody body = out -> pitchControlService.writeFrames(session, start, end, out);
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .body(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
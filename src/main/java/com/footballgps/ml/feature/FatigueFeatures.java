@@ -0,0 +1,104 @@
+package com.footballgps.ml.feature;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record FatigueFeatures(
+        double firstQuarterSpeed,
+        double lastQuarterSpeed,
+        double speedDeclinePercentage,
+        boolean heartRateAvailable,
+        double averageHR,
+        int maxHR,
+        double hrVariability,
+        double timeInZone4Plus,
+        double movementEfficiency,
+        double firstQuarterAcceleration,
+        double lastQuarterAcceleration,
+        double accelerationDecline,
+        double[] recoveryTimes, // seconds between consecutive high-intensity efforts
+        double averageRecoveryTime,
+        boolean loadAvailable,
+        double playerLoad,
+        double workRate) implements FeatureVector {
+    
+    public static final List<String> FEATURE_NAMES = List.of(
+            "firstQuarterSpeed", "lastQuarterSpeed", "speedDeclinePercentage",
+            "heartRateAvailable", "averageHR", "maxHR", "hrVariability", "timeInZone4Plus",
+            "movementEfficiency",
+            "firstQuarterAcceleration", "lastQuarterAcceleration", "accelerationDecline",
+            "recoveryCount", "averageRecoveryTime",
+            "playerLoad", "workRate");
+    
+    public static final int DIMENSION = FEATURE_NAMES.size();
+    
+    public int recoveryCount() {
+        return recoveryTimes.length;
+    }
+    
+    @Override
+    public List<String> featureNames() {
+        return FEATURE_NAMES;
+    }
+    
+    @Override
+    public void copyTo(double[] dst, int offset) {
+        dst[offset] = firstQuarterSpeed;
+        dst[offset + 1] = lastQuarterSpeed;
+        dst[offset + 2] = speedDeclinePercentage;
+        dst[offset + 3] = heartRateAvailable ? 1.0 : 0.0;
+        dst[offset + 4] = averageHR;
+        dst[offset + 5] = maxHR;
+        dst[offset + 6] = hrVariability;
+        dst[offset + 7] = timeInZone4Plus;
+        dst[offset + 8] = movementEfficiency;
+        dst[offset + 9] = firstQuarterAcceleration;
+        dst[offset + 10] = lastQuarterAcceleration;
+        dst[offset + 11] = accelerationDecline;
+        dst[offset + 12] = recoveryTimes.length;
+        dst[offset + 13] = averageRecoveryTime;
+        dst[offset + 14] = playerLoad;
+        dst[offset + 15] = workRate;
+    }
+    
+    /** Same nested layout the fatigue service has always stored in MLPrediction.input. */
+    @Override
+    public Map<String, Object> toInputMap() {
+        Map<String, Object> analysis = new HashMap<>();
+        
+        Map<String, Double> speedDecline = new HashMap<>();
+        speedDecline.put("firstQuarterSpeed", firstQuarterSpeed);
+        speedDecline.put("lastQuarterSpeed", lastQuarterSpeed);
+        speedDecline.put("speedDeclinePercentage", speedDeclinePercentage);
+        analysis.put("speedDecline", speedDecline);
+        
+        Map<String, Object> heartRate = new HashMap<>();
+        heartRate.put("available", heartRateAvailable);
+        if (heartRateAvailable) {
+            heartRate.put("averageHR", averageHR);
+            heartRate.put("maxHR", maxHR);
+            heartRate.put("hrVariability", hrVariability);
+            heartRate.put("timeInZone4Plus", timeInZone4Plus);
+        }
+        analysis.put("heartRate", heartRate);
+        
+        analysis.put("movementEfficiency", movementEfficiency);
+        
+        Map<String, Object> acceleration = new HashMap<>();
+        acceleration.put("firstQuarterAcceleration", firstQuarterAcceleration);
+        acceleration.put("lastQuarterAcceleration", lastQuarterAcceleration);
+        acceleration.put("accelerationDecline", accelerationDecline);
+        analysis.put("acceleration", acceleration);
+        
+        analysis.put("recoveryTimes", Arrays.stream(recoveryTimes).boxed().toList());
+        
+        if (loadAvailable) {
+            analysis.put("playerLoad", playerLoad);
+            analysis.put("workRate", workRate);
+        }
+        
+        return analysis;
+    }
+}
@@ -0,0 +1,37 @@
+package com.footballgps.ml.feature;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed, primitive-backed model input. Scoring reads the record components directly;
+ * {@link #toInputMap()} is only used at the persistence boundary (MLPrediction.input).
+ */
+public interface FeatureVector {
+    
+    /** Names of the numeric features, in the order written by {@link #copyTo(double[], int)}. */
+    List<String> featureNames();
+    
+    /** Writes the numeric features into {@code dst} starting at {@code offset}. */
+    void copyTo(double[] dst, int offset);
+    
+    Map<String, Object> toInputMap();
+    
+    default double[] toArray() {
+        double[] values = new double[featureNames().size()];
+        copyTo(values, 0);
+        return values;
+    }
+    
+    /**
+     * Packs vectors row-major into one contiguous array so a batch can be scored
+     * in a single pass without per-row allocation.
+     */
+    static double[] toMatrix(List<? extends FeatureVector> vectors, int dimension) {
+        double[] matrix = new double[vectors.size() * dimension];
+        for (int i = 0; i < vectors.size(); i++) {
+            vectors.get(i).copyTo(matrix, i * dimension);
+        }
+        return matrix;
+    }
+}
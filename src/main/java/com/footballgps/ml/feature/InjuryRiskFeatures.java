@@ -0,0 +1,78 @@
+package com.footballgps.ml.feature;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record InjuryRiskFeatures(
+        double avgAcuteChronicRatio,
+        double maxAcuteChronicRatio,
+        double acuteChronicVariability,
+        double avgPlayerLoad,
+        double playerLoadTrend,
+        boolean playerLoadSpike,
+        double avgSprintCount,
+        double sprintCountTrend,
+        double maxSpeedDecline,
+        double speedVariability,
+        int consecutiveHighLoadDays,
+        int recoveryDays,
+        double workloadImbalance,
+        double movementAsymmetry,
+        boolean accelerationPatternChange) implements FeatureVector {
+    
+    public static final List<String> FEATURE_NAMES = List.of(
+            "avgAcuteChronicRatio", "maxAcuteChronicRatio", "acuteChronicVariability",
+            "avgPlayerLoad", "playerLoadTrend", "playerLoadSpike",
+            "avgSprintCount", "sprintCountTrend",
+            "maxSpeedDecline", "speedVariability",
+            "consecutiveHighLoadDays", "recoveryDays", "workloadImbalance",
+            "movementAsymmetry", "accelerationPatternChange");
+    
+    public static final int DIMENSION = FEATURE_NAMES.size();
+    
+    @Override
+    public List<String> featureNames() {
+        return FEATURE_NAMES;
+    }
+    
+    @Override
+    public void copyTo(double[] dst, int offset) {
+        dst[offset] = avgAcuteChronicRatio;
+        dst[offset + 1] = maxAcuteChronicRatio;
+        dst[offset + 2] = acuteChronicVariability;
+        dst[offset + 3] = avgPlayerLoad;
+        dst[offset + 4] = playerLoadTrend;
+        dst[offset + 5] = playerLoadSpike ? 1.0 : 0.0;
+        dst[offset + 6] = avgSprintCount;
+        dst[offset + 7] = sprintCountTrend;
+        dst[offset + 8] = maxSpeedDecline;
+        dst[offset + 9] = speedVariability;
+        dst[offset + 10] = consecutiveHighLoadDays;
+        dst[offset + 11] = recoveryDays;
+        dst[offset + 12] = workloadImbalance;
+        dst[offset + 13] = movementAsymmetry;
+        dst[offset + 14] = accelerationPatternChange ? 1.0 : 0.0;
+    }
+    
+    @Override
+    public Map<String, Object> toInputMap() {
+        Map<String, Object> features = new HashMap<>();
+        features.put("avgAcuteChronicRatio", avgAcuteChronicRatio);
+        features.put("maxAcuteChronicRatio", maxAcuteChronicRatio);
+        features.put("acuteChronicVariability", acuteChronicVariability);
+        features.put("avgPlayerLoad", avgPlayerLoad);
+        features.put("playerLoadTrend", playerLoadTrend);
+        features.put("playerLoadSpike", playerLoadSpike);
+        features.put("avgSprintCount", avgSprintCount);
+        features.put("sprintCountTrend", sprintCountTrend);
+        features.put("maxSpeedDecline", maxSpeedDecline);
+        features.put("speedVariability", speedVariability);
+        features.put("consecutiveHighLoadDays", consecutiveHighLoadDays);
+        features.put("recoveryDays", recoveryDays);
+        features.put("workloadImbalance", workloadImbalance);
+        features.put("movementAsymmetry", movementAsymmetry);
+        features.put("accelerationPatternChange", accelerationPatternChange);
+        return features;
+    }
+}
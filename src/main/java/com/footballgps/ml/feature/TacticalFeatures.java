@@ -0,0 +1,95 @@
+package com.footballgps.ml.feature;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record TacticalFeatures(
+        String detectedFormation,
+        double formationStability,
+        Map<String, double[]> playerPositions,
+        double teamCompactness,
+        double averageIntensity,
+        double pressingEffectiveness,
+        List<String> pressingTriggers,
+        double averageTransitionSpeed,
+        double transitionEfficiency,
+        double organizationLevel,
+        double pressingCoordination,
+        double attackingIntensity) implements FeatureVector {
+    
+    public static final List<String> FEATURE_NAMES = List.of(
+            "formationStability", "teamCompactness",
+            "averageIntensity", "pressingEffectiveness",
+            "averageTransitionSpeed", "transitionEfficiency",
+            "organizationLevel", "pressingCoordination",
+            "attackingIntensity");
+    
+    public static final int DIMENSION = FEATURE_NAMES.size();
+    
+    @Override
+    public List<String> featureNames() {
+        return FEATURE_NAMES;
+    }
+    
+    @Override
+    public void copyTo(double[] dst, int offset) {
+        dst[offset] = formationStability;
+        dst[offset + 1] = teamCompactness;
+        dst[offset + 2] = averageIntensity;
+        dst[offset + 3] = pressingEffectiveness;
+        dst[offset + 4] = averageTransitionSpeed;
+        dst[offset + 5] = transitionEfficiency;
+        dst[offset + 6] = organizationLevel;
+        dst[offset + 7] = pressingCoordination;
+        dst[offset + 8] = attackingIntensity;
+    }
+    
+    /** Same nested layout the tactical service has always stored in MLPrediction.input. */
+    @Override
+    public Map<String, Object> toInputMap() {
+        Map<String, Object> analysis = new HashMap<>();
+        
+        Map<String, Object> formation = new HashMap<>();
+        formation.put("detectedFormation", detectedFormation);
+        formation.put("formationStability", formationStability);
+        formation.put("playerPositions", playerPositions);
+        analysis.put("formation", formation);
+        
+        analysis.put("teamCompactness", teamCompactness);
+        
+        Map<String, Object> pressing = new HashMap<>();
+        pressing.put("averageIntensity", averageIntensity);
+        pressing.put("pressingEffectiveness", pressingEffectiveness);
+        pressing.put("pressingTriggers", pressingTriggers);
+        analysis.put("pressing", pressing);
+        
+        // Possession is not derivable from tracking data yet; these are simulated values
+        Map<String, Object> possession = new HashMap<>();
+        possession.put("averagePossessionTime", 45.0); // seconds
+        possession.put("possessionZones", Arrays.asList("Defensive third: 35%", "Middle third: 45%", "Attacking third: 20%"));
+        possession.put("buildUpSpeed", "Medium");
+        analysis.put("possession", possession);
+        
+        Map<String, Object> transitions = new HashMap<>();
+        transitions.put("averageTransitionSpeed", averageTransitionSpeed);
+        transitions.put("transitionEfficiency", transitionEfficiency);
+        transitions.put("counterAttackFrequency", "Medium");
+        analysis.put("transitions", transitions);
+        
+        Map<String, Object> defense = new HashMap<>();
+        defense.put("organizationLevel", organizationLevel);
+        defense.put("defensiveCompactness", "Good");
+        defense.put("pressingCoordination", pressingCoordination);
+        analysis.put("defense", defense);
+        
+        Map<String, Object> attack = new HashMap<>();
+        attack.put("attackingIntensity", attackingIntensity);
+        attack.put("widthUtilization", "Good");
+        attack.put("penetrationAttempts", "Medium");
+        analysis.put("attack", attack);
+        
+        return analysis;
+    }
+}
@@ -0,0 +1,25 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FatigueAlert {
+    private String playerId;
+    private String sessionId;
+    private LocalDateTime timestamp; // time of the fix that triggered the alert
+    private double fatigueLevel; // 0-1
+    private String fatigueCategory;
+    private String previousCategory;
+    private double speedDeclinePercentage;
+    private double accelerationDecline;
+    private double timeInZone4Plus; // % over the last 5 minutes
+    private double averageRecoveryTime; // seconds
+    private List<String> keyIndicators;
+}
@@ -0,0 +1,21 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationChange {
+    private String sessionId;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private String formation;
+    private String previousFormation; // null for the first window of a session
+    private double confidence;
+    private Map<String, String> roles; // playerId -> role
+}
@@ -0,0 +1,36 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "formation_windows")
+@CompoundIndex(name = "sessionId_windowStart", def = "{'sessionId': 1, 'windowStart': 1}", unique = true)
+public class FormationWindow {
+    @Id
+    private String id;
+    private String sessionId;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private String formation;
+    private String runnerUp;
+    private double fitError; // RMS distance to the template in normalised team coordinates
+    private double confidence; // 0-1, margin over the runner-up
+    private int players;
+    private Map<String, String> roles; // playerId -> role
+    private Source source;
+    
+    public enum Source {
+        LIVE, // closed while the session was being recorded
+        OFFLINE // recomputed from stored GPS data
+    }
+}
@@ -39,6 +39,7 @@ public class MLModel {
     
     public enum ModelStatus {
         TRAINING,
+        CANDIDATE, // shadow-scored alongside the READY model, never served
         READY,
         DEPRECATED,
         FAILED
@@ -4,6 +4,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -13,6 +15,14 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "ml_predictions")
+@CompoundIndexes({
+    // Keyset pagination: newest first, _id breaks ties between equal timestamps
+    @CompoundIndex(name = "type_predictedAt_id", def = "{'type': 1, 'predictedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "playerId_predictedAt_id", def = "{'playerId': 1, 'predictedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "sessionId_predictedAt_id", def = "{'sessionId': 1, 'predictedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "predictedAt_id", def = "{'predictedAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "playerId_type_predictedAt", def = "{'playerId': 1, 'type': 1, 'predictedAt': -1}")
+})
 public class MLPrediction {
     @Id
     private String id;
@@ -25,6 +35,7 @@ public class MLPrediction {
     private double confidence;
     private LocalDateTime predictedAt;
     private boolean isActual; // for model validation
+    private LocalDateTime observedAt; // when an actual outcome happened; predictedAt is when it was recorded
     private Map<String, Object> metadata;
     
     public enum PredictionType {
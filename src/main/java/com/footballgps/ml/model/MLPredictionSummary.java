@@ -0,0 +1,28 @@
+package com.footballgps.ml.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * List view of an ml_predictions document. Leaves out the feature {@code input} map
+ * and metadata, which make up most of each document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MLPredictionSummary {
+    @Id
+    private String id;
+    private String playerId;
+    private String sessionId;
+    private String modelId;
+    private MLPrediction.PredictionType type;
+    private Map<String, Object> output;
+    private double confidence;
+    private LocalDateTime predictedAt;
+}
@@ -0,0 +1,21 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PitchControlFrame {
+    private String sessionId;
+    private String teamId; // team whose control the surface shows; null when players have no team
+    private LocalDateTime timestamp;
+    private int players; // players tracked in this frame
+    private int columns; // cells along the pitch
+    private int rows; // cells across the pitch
+    private double teamControl; // 0-1, mean of the surface
+    private float[] surface; // row-major, 0-1 per cell
+}
@@ -0,0 +1,19 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerProximity {
+    private String playerId;
+    private String sessionId;
+    private double supportDistance; // metres to the nearest teammate in the latest frame
+    private double averageSupportDistance; // metres
+    private double averagePassingOptions; // teammates 5-30 m away
+    private double pressingShare; // 0-1, share of frames spent pressing
+    private double coordinatedPressShare; // 0-1, share of presses with two or more teammates pressing nearby
+    private long frames;
+}
@@ -0,0 +1,16 @@
+package com.footballgps.ml.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionPage {
+    private List<MLPredictionSummary> items;
+    private int limit;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.footballgps.ml.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionAnalysisReport {
+    private String sessionId;
+    private int playerCount;
+    private List<MLPrediction> predictions;
+    private Map<String, Long> stageTimingsMs; // stage -> wall-clock millis
+    private Map<String, Integer> skipped; // stage -> players without enough data
+}
@@ -0,0 +1,23 @@
+package com.footballgps.ml.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainingReport {
+    private String modelId; // null when no model was written
+    private MLModel.ModelType type;
+    private String version;
+    private MLModel.ModelStatus status;
+    private int labels;
+    private int trainExamples;
+    private int validationExamples;
+    private Map<String, Double> metrics;
+    private Map<String, Long> stageTimingsMs;
+    private String message;
+}
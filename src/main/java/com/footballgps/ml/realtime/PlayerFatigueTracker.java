@@ -0,0 +1,202 @@
+package com.footballgps.ml.realtime;
+
+import com.footballgps.analysis.EffortEpisode;
+import com.footballgps.analysis.EffortSegmenter;
+import com.footballgps.analysis.GeoMath;
+import com.footballgps.ml.feature.FatigueFeatures;
+
+/**
+ * Streaming fatigue statistics for one player in one session, updated per GPS fix in
+ * O(1) time and constant memory. Replaces the quarter-by-quarter batch comparison with
+ * time-weighted EWMAs compared against the best level reached earlier in the session.
+ * Not thread-safe: callers serialise updates per player.
+ */
+public class PlayerFatigueTracker {
+    
+    private static final double EWMA_TAU_MS = 300_000.0; // 5 minute time constant
+    private static final long REFERENCE_DELAY_MS = 60_000; // ignore the first minute's noise
+    private static final long WARM_UP_MS = 300_000; // no verdicts before 5 minutes of data
+    private static final long MAX_CREDITED_GAP_MS = 5_000; // cap on time credited across data gaps
+    
+    // Zone 4+ is >85% of max HR (estimated at 190), as in the batch analysis
+    private static final int ZONE4_THRESHOLD = (int) (190 * 0.85);
+    private static final int HR_WINDOW_SECONDS = 300;
+    private static final int RECOVERY_WINDOW = 8;
+    
+    private final String playerId;
+    private final String sessionId;
+    
+    private long firstMillis = -1;
+    private long lastMillis = -1;
+    private double lastLatitude;
+    private double lastLongitude;
+    
+    // Speed and acceleration capacity: current EWMA vs best EWMA seen so far
+    private double speedEwma;
+    private double speedReference;
+    private double accelerationEwma;
+    private double accelerationReference;
+    
+    // Movement efficiency: cumulative distance per unit of acceleration
+    private double totalDistance;
+    private double totalAcceleration;
+    
+    // Heart rate: Welford running mean/variance plus a per-second ring for zone time
+    private long heartRateCount;
+    private double heartRateMean;
+    private double heartRateM2;
+    private int maxHeartRate;
+    private final long[] hrSlotSecond = new long[HR_WINDOW_SECONDS];
+    private final int[] hrSlotTotalMs = new int[HR_WINDOW_SECONDS];
+    private final int[] hrSlotZoneMs = new int[HR_WINDOW_SECONDS];
+    
+    // Recovery between high-intensity efforts: last few intervals in a ring
+    private final EffortSegmenter efforts = new EffortSegmenter(this::onEffort);
+    private final double[] recoveries = new double[RECOVERY_WINDOW];
+    private int recoveryCount;
+    private int recoveryNext;
+    
+    private String alertedCategory = "LOW";
+    private long lastAlertMillis = -1;
+    
+    public PlayerFatigueTracker(String playerId, String sessionId) {
+        this.playerId = playerId;
+        this.sessionId = sessionId;
+        java.util.Arrays.fill(hrSlotSecond, -1);
+    }
+    
+    public void update(long timestampMillis, double latitude, double longitude,
+                       double speed, double acceleration, int heartRate) {
+        double absAcceleration = Math.abs(acceleration);
+        
+        if (lastMillis < 0) {
+            firstMillis = timestampMillis;
+            speedEwma = speed;
+            accelerationEwma = absAcceleration;
+        } else {
+            long dt = Math.max(0, timestampMillis - lastMillis);
+            double alpha = 1.0 - Math.exp(-dt / EWMA_TAU_MS);
+            speedEwma += alpha * (speed - speedEwma);
+            accelerationEwma += alpha * (absAcceleration - accelerationEwma);
+            
+            totalDistance += GeoMath.distanceMeters(lastLatitude, lastLongitude, latitude, longitude);
+            totalAcceleration += absAcceleration;
+            
+            if (heartRate > 0) {
+                recordZoneTime(timestampMillis, (int) Math.min(dt, MAX_CREDITED_GAP_MS), heartRate > ZONE4_THRESHOLD);
+            }
+        }
+        
+        if (timestampMillis - firstMillis >= REFERENCE_DELAY_MS) {
+            speedReference = Math.max(speedReference, speedEwma);
+            accelerationReference = Math.max(accelerationReference, accelerationEwma);
+        }
+        
+        if (heartRate > 0) {
+            heartRateCount++;
+            double delta = heartRate - heartRateMean;
+            heartRateMean += delta / heartRateCount;
+            heartRateM2 += delta * (heartRate - heartRateMean);
+            maxHeartRate = Math.max(maxHeartRate, heartRate);
+        }
+        
+        efforts.accept(timestampMillis, latitude, longitude, speed, acceleration);
+        
+        lastMillis = Math.max(lastMillis, timestampMillis);
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+    }
+    
+    private void recordZoneTime(long timestampMillis, int creditedMs, boolean inZone) {
+        long second = timestampMillis / 1000;
+        int slot = (int) (second % HR_WINDOW_SECONDS);
+        if (hrSlotSecond[slot] != second) {
+            hrSlotSecond[slot] = second;
+            hrSlotTotalMs[slot] = 0;
+            hrSlotZoneMs[slot] = 0;
+        }
+        hrSlotTotalMs[slot] += creditedMs;
+        if (inZone) {
+            hrSlotZoneMs[slot] += creditedMs;
+        }
+    }
+    
+    private void onEffort(EffortEpisode episode) {
+        if (episode.hasRecoveryBefore()) {
+            recoveries[recoveryNext] = episode.recoveryBeforeSeconds();
+            recoveryNext = (recoveryNext + 1) % RECOVERY_WINDOW;
+            recoveryCount = Math.min(recoveryCount + 1, RECOVERY_WINDOW);
+        }
+    }
+    
+    public boolean isWarmedUp() {
+        return lastMillis >= 0 && lastMillis - firstMillis >= WARM_UP_MS;
+    }
+    
+    public double timeInZone4Plus() {
+        long nowSecond = lastMillis / 1000;
+        long total = 0;
+        long zone = 0;
+        for (int i = 0; i < HR_WINDOW_SECONDS; i++) {
+            if (hrSlotSecond[i] > nowSecond - HR_WINDOW_SECONDS) {
+                total += hrSlotTotalMs[i];
+                zone += hrSlotZoneMs[i];
+            }
+        }
+        return total > 0 ? (double) zone / total * 100 : 0.0;
+    }
+    
+    /**
+     * Snapshot of the live statistics in the same feature layout as the batch analysis,
+     * so both paths share one scoring function. "First quarter" values are the best
+     * sustained levels reached so far and "last quarter" values the current EWMAs.
+     */
+    public FatigueFeatures toFeatures() {
+        double[] recoveryTimes = new double[recoveryCount];
+        double recoverySum = 0.0;
+        for (int i = 0; i < recoveryCount; i++) {
+            recoveryTimes[i] = recoveries[i];
+            recoverySum += recoveries[i];
+        }
+        
+        boolean hrAvailable = heartRateCount > 0;
+        double hrVariability = heartRateCount > 1 ? Math.sqrt(heartRateM2 / heartRateCount) : 0.0;
+        
+        return new FatigueFeatures(
+                speedReference, speedEwma, decline(speedReference, speedEwma),
+                hrAvailable, heartRateMean, maxHeartRate, hrVariability, timeInZone4Plus(),
+                totalAcceleration > 0 ? totalDistance / totalAcceleration : 0.0,
+                accelerationReference, accelerationEwma, decline(accelerationReference, accelerationEwma),
+                recoveryTimes, recoveryCount > 0 ? recoverySum / recoveryCount : 0.0,
+                false, 0.0, 0.0);
+    }
+    
+    private double decline(double reference, double current) {
+        return reference > 0 ? (reference - current) / reference * 100 : 0.0;
+    }
+    
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public long getLastMillis() {
+        return lastMillis;
+    }
+    
+    public String getAlertedCategory() {
+        return alertedCategory;
+    }
+    
+    public long getLastAlertMillis() {
+        return lastAlertMillis;
+    }
+    
+    public void markAlerted(String category, long timestampMillis) {
+        this.alertedCategory = category;
+        this.lastAlertMillis = timestampMillis;
+    }
+}
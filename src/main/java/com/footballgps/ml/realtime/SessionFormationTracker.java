@@ -0,0 +1,173 @@
+package com.footballgps.ml.realtime;
+
+import com.footballgps.analysis.FormationDetector;
+import com.footballgps.analysis.FormationMatch;
+import com.footballgps.analysis.FormationSpan;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolling formation detection for one session. Each fix is added to per-player
+ * position sums for the current window in O(1); when a fix lands past the window end
+ * the window is closed and its average positions are matched against the formation
+ * templates. The pitch axis comes from running moments of every fix so far, the same
+ * principal-axis estimate TeamFrames uses offline. Not thread-safe: callers serialise
+ * updates per session.
+ */
+public class SessionFormationTracker {
+    
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+    
+    private final String sessionId;
+    private final long windowMillis;
+    private final FormationDetector detector = new FormationDetector();
+    
+    // Projection origin: the session's first fix
+    private boolean hasOrigin;
+    private double originLatitude;
+    private double originLongitude;
+    private double eastScale;
+    
+    // Running moments of all fixes, for the pitch axis
+    private long fixes;
+    private double sumEast;
+    private double sumNorth;
+    private double sumEastEast;
+    private double sumNorthNorth;
+    private double sumEastNorth;
+    
+    private long sessionStartMillis;
+    private long windowStartMillis;
+    private final Map<String, double[]> window = new HashMap<>(); // playerId -> {sumEast, sumNorth, count}
+    
+    private String currentFormation;
+    
+    public SessionFormationTracker(String sessionId, long windowMillis) {
+        this.sessionId = sessionId;
+        this.windowMillis = windowMillis;
+    }
+    
+    /**
+     * Adds a fix. If it falls after the current window, that window is closed first and
+     * its detected formation returned; otherwise returns null.
+     */
+    public FormationSpan update(String playerId, long timestampMillis, double latitude, double longitude) {
+        if (!hasOrigin) {
+            hasOrigin = true;
+            originLatitude = latitude;
+            originLongitude = longitude;
+            eastScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            sessionStartMillis = timestampMillis;
+            windowStartMillis = timestampMillis;
+        }
+        
+        FormationSpan closed = null;
+        if (timestampMillis >= windowStartMillis + windowMillis) {
+            closed = closeWindow();
+            // Skip empty windows across breaks in the data
+            windowStartMillis = sessionStartMillis
+                    + (timestampMillis - sessionStartMillis) / windowMillis * windowMillis;
+        }
+        
+        double east = (longitude - originLongitude) * eastScale;
+        double north = (latitude - originLatitude) * METERS_PER_DEGREE;
+        fixes++;
+        sumEast += east;
+        sumNorth += north;
+        sumEastEast += east * east;
+        sumNorthNorth += north * north;
+        sumEastNorth += east * north;
+        
+        double[] sums = window.computeIfAbsent(playerId, id -> new double[3]);
+        sums[0] += east;
+        sums[1] += north;
+        sums[2]++;
+        
+        return closed;
+    }
+    
+    /**
+     * Detects the formation over the fixes collected since the window started and
+     * starts a new, empty window. Returns null if too few players were tracked.
+     */
+    public FormationSpan closeWindow() {
+        if (window.isEmpty()) {
+            return null;
+        }
+        
+        double meanEast = sumEast / fixes;
+        double meanNorth = sumNorth / fixes;
+        double cee = sumEastEast / fixes - meanEast * meanEast;
+        double cnn = sumNorthNorth / fixes - meanNorth * meanNorth;
+        double cen = sumEastNorth / fixes - meanEast * meanNorth;
+        double theta = 0.5 * Math.atan2(2 * cen, cee - cnn);
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        
+        // Players seen for at least half as long as the best-tracked player in the window
+        double maxCount = 0;
+        for (double[] sums : window.values()) {
+            maxCount = Math.max(maxCount, sums[2]);
+        }
+        
+        int size = window.size();
+        String[] ids = new String[size];
+        double[] x = new double[size];
+        double[] y = new double[size];
+        long[] samples = new long[size];
+        int n = 0;
+        double sumAlong = 0;
+        for (Map.Entry<String, double[]> entry : window.entrySet()) {
+            double[] sums = entry.getValue();
+            if (sums[2] * 2 < maxCount) {
+                continue;
+            }
+            double de = sums[0] / sums[2] - meanEast;
+            double dn = sums[1] / sums[2] - meanNorth;
+            ids[n] = entry.getKey();
+            x[n] = de * cos + dn * sin;
+            y[n] = -de * sin + dn * cos;
+            samples[n] = (long) sums[2];
+            sumAlong += x[n];
+            n++;
+        }
+        
+        // Orient the axis so the player furthest from the team's mean depth is at the low end
+        double windowMean = sumAlong / n;
+        double extreme = 0;
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(x[i] - windowMean) > Math.abs(extreme)) {
+                extreme = x[i] - windowMean;
+            }
+        }
+        if (extreme > 0) {
+            for (int i = 0; i < n; i++) {
+                x[i] = -x[i];
+                y[i] = -y[i];
+            }
+        }
+        
+        long start = windowStartMillis;
+        window.clear();
+        windowStartMillis = start + windowMillis;
+        
+        FormationMatch match = detector.detect(ids, x, y, samples, n);
+        return match != null ? new FormationSpan(start, start + windowMillis, n, match) : null;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public String getCurrentFormation() {
+        return currentFormation;
+    }
+    
+    /** Records the latest detected formation and returns the one it replaces. */
+    public String markFormation(String formation) {
+        String previous = currentFormation;
+        currentFormation = formation;
+        return previous;
+    }
+}
@@ -0,0 +1,181 @@
+package com.footballgps.ml.realtime;
+
+import com.footballgps.analysis.ProximityAnalyzer;
+import com.footballgps.ml.model.PlayerProximity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Live proximity metrics for one session. Fixes update each player's latest position
+ * and velocity; {@link #sampleFrame} then analyses everyone who reported recently as
+ * one frame and adds the result to per-player running sums. Positions are metres
+ * east/north of the session's first fix, so pitch direction is unknown and pressing
+ * cover is not reported live. All buffers are reused between frames. Not thread-safe:
+ * callers serialise access per session.
+ */
+public class SessionProximityTracker {
+    
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+    private static final int INITIAL_CAPACITY = 32;
+    
+    private final String sessionId;
+    private final Map<String, Integer> index = new HashMap<>();
+    
+    private boolean hasOrigin;
+    private double originLatitude;
+    private double originLongitude;
+    private double eastScale;
+    
+    // Latest state per player slot
+    private String[] playerIds = new String[INITIAL_CAPACITY];
+    private double[] east = new double[INITIAL_CAPACITY];
+    private double[] north = new double[INITIAL_CAPACITY];
+    private double[] velocityEast = new double[INITIAL_CAPACITY];
+    private double[] velocityNorth = new double[INITIAL_CAPACITY];
+    private long[] lastSeenMillis = new long[INITIAL_CAPACITY];
+    private double[] lastSupportDistance = new double[INITIAL_CAPACITY];
+    
+    // Running sums per player slot
+    private double[] supportSum = new double[INITIAL_CAPACITY];
+    private long[] supportFrames = new long[INITIAL_CAPACITY];
+    private long[] optionsSum = new long[INITIAL_CAPACITY];
+    private long[] trackedFrames = new long[INITIAL_CAPACITY];
+    private long[] pressingFrames = new long[INITIAL_CAPACITY];
+    private long[] coordinatedFrames = new long[INITIAL_CAPACITY];
+    
+    // Frame buffers; stale players are NaN
+    private double[] frameX = new double[INITIAL_CAPACITY];
+    private double[] frameY = new double[INITIAL_CAPACITY];
+    private ProximityAnalyzer analyzer = new ProximityAnalyzer(INITIAL_CAPACITY);
+    
+    public SessionProximityTracker(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    /**
+     * Records a player's position. Speed is in km/h and direction in degrees clockwise
+     * from north, as reported by the device.
+     */
+    public void update(String playerId, long receivedMillis, double latitude, double longitude,
+                       double speedKmh, double directionDegrees) {
+        if (!hasOrigin) {
+            hasOrigin = true;
+            originLatitude = latitude;
+            originLongitude = longitude;
+            eastScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+        }
+        
+        int slot = index.computeIfAbsent(playerId, id -> addPlayer(id));
+        double speed = speedKmh / 3.6;
+        double heading = Math.toRadians(directionDegrees);
+        east[slot] = (longitude - originLongitude) * eastScale;
+        north[slot] = (latitude - originLatitude) * METERS_PER_DEGREE;
+        velocityEast[slot] = speed * Math.sin(heading);
+        velocityNorth[slot] = speed * Math.cos(heading);
+        lastSeenMillis[slot] = receivedMillis;
+    }
+    
+    /** Analyses the players seen within {@code staleAfterMillis} of {@code nowMillis} as one frame. */
+    public void sampleFrame(long nowMillis, long staleAfterMillis) {
+        int players = index.size();
+        int live = 0;
+        for (int p = 0; p < players; p++) {
+            if (nowMillis - lastSeenMillis[p] <= staleAfterMillis) {
+                frameX[p] = east[p];
+                frameY[p] = north[p];
+                live++;
+            } else {
+                frameX[p] = Double.NaN;
+                frameY[p] = Double.NaN;
+            }
+        }
+        if (live < 2) {
+            return;
+        }
+        
+        analyzer.analyseFrame(frameX, frameY, velocityEast, velocityNorth, players);
+        
+        for (int p = 0; p < players; p++) {
+            if (Double.isNaN(frameX[p])) {
+                continue;
+            }
+            trackedFrames[p]++;
+            optionsSum[p] += analyzer.passingOptions(p);
+            double support = analyzer.supportDistance(p);
+            lastSupportDistance[p] = support;
+            if (!Double.isNaN(support)) {
+                supportSum[p] += support;
+                supportFrames[p]++;
+            }
+            if (analyzer.isPressing(p)) {
+                pressingFrames[p]++;
+                if (analyzer.isCoordinated(p)) {
+                    coordinatedFrames[p]++;
+                }
+            }
+        }
+    }
+    
+    public OptionalDouble averagePassingOptions(String playerId) {
+        Integer slot = index.get(playerId);
+        if (slot == null || trackedFrames[slot] == 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of((double) optionsSum[slot] / trackedFrames[slot]);
+    }
+    
+    public List<PlayerProximity> snapshot() {
+        List<PlayerProximity> players = new ArrayList<>(index.size());
+        for (int p = 0; p < index.size(); p++) {
+            long frames = trackedFrames[p];
+            players.add(new PlayerProximity(
+                    playerIds[p],
+                    sessionId,
+                    Double.isNaN(lastSupportDistance[p]) ? 0.0 : lastSupportDistance[p],
+                    supportFrames[p] > 0 ? supportSum[p] / supportFrames[p] : 0.0,
+                    frames > 0 ? (double) optionsSum[p] / frames : 0.0,
+                    frames > 0 ? (double) pressingFrames[p] / frames : 0.0,
+                    pressingFrames[p] > 0 ? (double) coordinatedFrames[p] / pressingFrames[p] : 0.0,
+                    frames));
+        }
+        return players;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    private int addPlayer(String playerId) {
+        int slot = index.size();
+        if (slot == playerIds.length) {
+            grow(playerIds.length * 2);
+        }
+        playerIds[slot] = playerId;
+        lastSupportDistance[slot] = Double.NaN;
+        return slot;
+    }
+    
+    private void grow(int capacity) {
+        playerIds = Arrays.copyOf(playerIds, capacity);
+        east = Arrays.copyOf(east, capacity);
+        north = Arrays.copyOf(north, capacity);
+        velocityEast = Arrays.copyOf(velocityEast, capacity);
+        velocityNorth = Arrays.copyOf(velocityNorth, capacity);
+        lastSeenMillis = Arrays.copyOf(lastSeenMillis, capacity);
+        lastSupportDistance = Arrays.copyOf(lastSupportDistance, capacity);
+        supportSum = Arrays.copyOf(supportSum, capacity);
+        supportFrames = Arrays.copyOf(supportFrames, capacity);
+        optionsSum = Arrays.copyOf(optionsSum, capacity);
+        trackedFrames = Arrays.copyOf(trackedFrames, capacity);
+        pressingFrames = Arrays.copyOf(pressingFrames, capacity);
+        coordinatedFrames = Arrays.copyOf(coordinatedFrames, capacity);
+        frameX = new double[capacity];
+        frameY = new double[capacity];
+        analyzer = new ProximityAnalyzer(capacity);
+    }
+}
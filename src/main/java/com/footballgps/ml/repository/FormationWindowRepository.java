@@ -0,0 +1,13 @@
+package com.footballgps.ml.repository;
+
+import com.footballgps.ml.model.FormationWindow;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FormationWindowRepository extends MongoRepository<FormationWindow, String> {
+    List<FormationWindow> findBySessionIdOrderByWindowStartAsc(String sessionId);
+    void deleteBySessionId(String sessionId);
+}
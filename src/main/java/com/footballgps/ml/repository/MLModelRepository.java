@@ -0,0 +1,14 @@
+package com.footballgps.ml.repository;
+
+import com.footballgps.ml.model.MLModel;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MLModelRepository extends MongoRepository<MLModel, String> {
+    List<MLModel> findByStatus(MLModel.ModelStatus status);
+    List<MLModel> findByTypeOrderByTrainedAtDesc(MLModel.ModelType type);
+    long countByType(MLModel.ModelType type);
+}
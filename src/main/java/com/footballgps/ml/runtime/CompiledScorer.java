@@ -0,0 +1,40 @@
+package com.footballgps.ml.runtime;
+
+import com.footballgps.ml.feature.FeatureVector;
+import com.footballgps.ml.model.MLModel;
+
+/**
+ * An MLModel compiled into flat primitive arrays. Scorers are immutable, so the registry
+ * can swap them while other threads are scoring, and scoring allocates nothing.
+ */
+public interface CompiledScorer {
+    
+    String modelId();
+    
+    String version();
+    
+    MLModel.ModelType modelType();
+    
+    int dimension();
+    
+    /** Scores the {@link #dimension()} features starting at {@code offset}. */
+    double score(double[] features, int offset);
+    
+    default double score(FeatureVector features) {
+        if (features.featureNames().size() != dimension()) {
+            throw new IllegalArgumentException("Model " + modelId() + " expects " + dimension()
+                    + " features, got " + features.featureNames().size());
+        }
+        double[] buffer = ScoringBuffer.get(dimension());
+        features.copyTo(buffer, 0);
+        return score(buffer, 0);
+    }
+    
+    /** Scores a row-major matrix as built by {@link FeatureVector#toMatrix}. */
+    default void scoreBatch(double[] matrix, int rows, double[] out) {
+        int dimension = dimension();
+        for (int i = 0; i < rows; i++) {
+            out[i] = score(matrix, i * dimension);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.footballgps.ml.runtime;
+
+import com.footballgps.ml.model.MLModel;
+
+/**
+ * Gradient-boosted tree ensemble stored as parallel node arrays. A node with
+ * {@code feature[node] < 0} is a leaf holding {@code value[node]}; otherwise the walk goes
+ * to {@code left[node]} when the feature is {@code <= threshold[node]} and to
+ * {@code right[node]} otherwise (including NaN). Children always come after their
+ * parent, which the compiler checks, so every walk terminates.
+ */
+public record GradientBoostedTreesScorer(
+        String modelId,
+        String version,
+        MLModel.ModelType modelType,
+        int dimension,
+        int[] treeRoots,
+        int[] feature,
+        double[] threshold,
+        int[] left,
+        int[] right,
+        double[] value,
+        double baseScore,
+        boolean logistic) implements CompiledScorer {
+    
+    @Override
+    public double score(double[] features, int offset) {
+        double sum = baseScore;
+        for (int root : treeRoots) {
+            int node = root;
+            while (feature[node] >= 0) {
+                node = features[offset + feature[node]] <= threshold[node] ? left[node] : right[node];
+            }
+            sum += value[node];
+        }
+        return logistic ? 1.0 / (1.0 + Math.exp(-sum)) : sum;
+    }
+    
+    public int treeCount() {
+        return treeRoots.length;
+    }
+}
@@ -0,0 +1,29 @@
+package com.footballgps.ml.runtime;
+
+import com.footballgps.ml.model.MLModel;
+
+/**
+ * Logistic regression. Any input standardisation is folded into {@code weights} and
+ * {@code intercept} when the model is compiled, so scoring is one dot product.
+ */
+public record LogisticRegressionScorer(
+        String modelId,
+        String version,
+        MLModel.ModelType modelType,
+        double[] weights,
+        double intercept) implements CompiledScorer {
+    
+    @Override
+    public int dimension() {
+        return weights.length;
+    }
+    
+    @Override
+    public double score(double[] features, int offset) {
+        double z = intercept;
+        for (int i = 0; i < weights.length; i++) {
+            z += weights[i] * features[offset + i];
+        }
+        return 1.0 / (1.0 + Math.exp(-z));
+    }
+}
@@ -0,0 +1,187 @@
+package com.footballgps.ml.runtime;
+
+import com.footballgps.ml.feature.FatigueFeatures;
+import com.footballgps.ml.feature.InjuryRiskFeatures;
+import com.footballgps.ml.feature.TacticalFeatures;
+import com.footballgps.ml.model.MLModel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the {@code parameters} of an MLModel into a {@link CompiledScorer}.
+ *
+ * <p>Common keys: {@code algorithm} ({@code LOGISTIC_REGRESSION} or
+ * {@code GRADIENT_BOOSTED_TREES}) and {@code featureNames}, which must match the typed
+ * feature vector for the model type when there is one.
+ *
+ * <p>Logistic regression: {@code weights}, {@code intercept}, and optional {@code means}
+ * and {@code scales} for standardised inputs.
+ *
+ * <p>Gradient-boosted trees: {@code treeRoots}, {@code nodeFeature}, {@code nodeThreshold},
+ * {@code nodeLeft}, {@code nodeRight}, {@code nodeValue}, plus optional {@code baseScore},
+ * {@code learningRate} (folded into leaf values) and {@code link}
+ * ({@code logistic} or {@code identity}).
+ */
+public final class ModelCompiler {
+    
+    public static final String LOGISTIC_REGRESSION = "LOGISTIC_REGRESSION";
+    public static final String GRADIENT_BOOSTED_TREES = "GRADIENT_BOOSTED_TREES";
+    
+    private static final Map<MLModel.ModelType, List<String>> FEATURE_SETS = Map.of(
+            MLModel.ModelType.INJURY_PREDICTION, InjuryRiskFeatures.FEATURE_NAMES,
+            MLModel.ModelType.FATIGUE_DETECTION, FatigueFeatures.FEATURE_NAMES,
+            MLModel.ModelType.TACTICAL_ANALYSIS, TacticalFeatures.FEATURE_NAMES);
+    
+    private ModelCompiler() {
+    }
+    
+    /** Feature names a model of this type must be trained on, or null if the type has no typed vector. */
+    public static List<String> expectedFeatures(MLModel.ModelType type) {
+        return FEATURE_SETS.get(type);
+    }
+    
+    public static CompiledScorer compile(MLModel model, Map<String, Object> parameters) {
+        if (parameters == null || !(parameters.get("algorithm") instanceof String algorithm)) {
+            throw new IllegalArgumentException("Model " + model.getId() + " has no algorithm parameter");
+        }
+        
+        CompiledScorer scorer = switch (algorithm) {
+            case LOGISTIC_REGRESSION -> compileLogisticRegression(model, parameters);
+            case GRADIENT_BOOSTED_TREES -> compileGradientBoostedTrees(model, parameters);
+            default -> throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        };
+        
+        checkFeatures(model, parameters, scorer.dimension());
+        return scorer;
+    }
+    
+    private static LogisticRegressionScorer compileLogisticRegression(MLModel model, Map<String, Object> parameters) {
+        double[] weights = doubles(parameters, "weights");
+        double intercept = number(parameters, "intercept", 0.0);
+        
+        // Fold standardisation into the coefficients: w * (x - mean) / scale
+        if (parameters.containsKey("means") || parameters.containsKey("scales")) {
+            double[] means = doubles(parameters, "means");
+            double[] scales = doubles(parameters, "scales");
+            require(means.length == weights.length && scales.length == weights.length,
+                    "means and scales must have one entry per weight");
+            for (int i = 0; i < weights.length; i++) {
+                require(scales[i] != 0.0, "scale " + i + " is zero");
+                weights[i] /= scales[i];
+                intercept -= weights[i] * means[i];
+            }
+        }
+        
+        return new LogisticRegressionScorer(model.getId(), model.getVersion(), model.getType(), weights, intercept);
+    }
+    
+    private static GradientBoostedTreesScorer compileGradientBoostedTrees(MLModel model, Map<String, Object> parameters) {
+        int[] roots = ints(parameters, "treeRoots");
+        int[] feature = ints(parameters, "nodeFeature");
+        double[] threshold = doubles(parameters, "nodeThreshold");
+        int[] left = ints(parameters, "nodeLeft");
+        int[] right = ints(parameters, "nodeRight");
+        double[] value = doubles(parameters, "nodeValue");
+        int nodes = feature.length;
+        
+        require(threshold.length == nodes && left.length == nodes && right.length == nodes && value.length == nodes,
+                "node arrays must all have the same length");
+        
+        List<String> featureNames = featureNames(parameters);
+        int dimension = featureNames != null ? featureNames.size() : maxFeature(feature) + 1;
+        
+        for (int root : roots) {
+            require(root >= 0 && root < nodes, "tree root " + root + " out of range");
+        }
+        for (int node = 0; node < nodes; node++) {
+            if (feature[node] >= 0) {
+                require(feature[node] < dimension, "node " + node + " uses unknown feature " + feature[node]);
+                require(left[node] > node && left[node] < nodes && right[node] > node && right[node] < nodes,
+                        "node " + node + " has children out of order");
+            }
+        }
+        
+        double learningRate = number(parameters, "learningRate", 1.0);
+        for (int node = 0; node < nodes; node++) {
+            value[node] *= learningRate;
+        }
+        
+        Object link = parameters.getOrDefault("link", "logistic");
+        require("logistic".equals(link) || "identity".equals(link), "unsupported link: " + link);
+        
+        return new GradientBoostedTreesScorer(model.getId(), model.getVersion(), model.getType(), dimension,
+                roots, feature, threshold, left, right, value,
+                number(parameters, "baseScore", 0.0), "logistic".equals(link));
+    }
+    
+    private static void checkFeatures(MLModel model, Map<String, Object> parameters, int dimension) {
+        List<String> featureNames = featureNames(parameters);
+        List<String> expected = expectedFeatures(model.getType());
+        
+        if (featureNames != null) {
+            require(featureNames.size() == dimension, "featureNames has " + featureNames.size()
+                    + " entries for a model of dimension " + dimension);
+            require(expected == null || expected.equals(featureNames),
+                    "featureNames do not match the " + model.getType() + " feature vector " + expected);
+        } else {
+            require(expected == null || expected.size() == dimension, "model dimension " + dimension
+                    + " does not match the " + model.getType() + " feature vector " + expected);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<String> featureNames(Map<String, Object> parameters) {
+        Object names = parameters.get("featureNames");
+        return names instanceof List<?> list ? (List<String>) list : null;
+    }
+    
+    private static int maxFeature(int[] feature) {
+        int max = -1;
+        for (int f : feature) {
+            max = Math.max(max, f);
+        }
+        return max;
+    }
+    
+    private static double number(Map<String, Object> parameters, String key, double defaultValue) {
+        Object value = parameters.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        require(value instanceof Number, key + " must be a number");
+        return ((Number) value).doubleValue();
+    }
+    
+    private static double[] doubles(Map<String, Object> parameters, String key) {
+        List<?> values = list(parameters, key);
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            require(values.get(i) instanceof Number, key + "[" + i + "] must be a number");
+            result[i] = ((Number) values.get(i)).doubleValue();
+        }
+        return result;
+    }
+    
+    private static int[] ints(Map<String, Object> parameters, String key) {
+        List<?> values = list(parameters, key);
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            require(values.get(i) instanceof Number, key + "[" + i + "] must be a number");
+            result[i] = ((Number) values.get(i)).intValue();
+        }
+        return result;
+    }
+    
+    private static List<?> list(Map<String, Object> parameters, String key) {
+        Object value = parameters.get(key);
+        require(value instanceof List<?>, key + " must be a list");
+        return (List<?>) value;
+    }
+    
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.footballgps.ml.runtime;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.footballgps.ml.model.MLModel;
+import com.footballgps.ml.repository.MLModelRepository;
+import com.footballgps.ml.service.PredictionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Holds one compiled scorer per model type: the most recently trained READY model in
+ * ml_models, plus the newest CANDIDATE per type for shadow scoring. Reloads on a fixed
+ * delay and swaps each map in one volatile write, so scoring threads never see a
+ * half-updated registry and need no locking. Services fall back to their rule-based
+ * scoring when no model is loaded for their type.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ModelRegistry {
+    
+    private final MLModelRepository mlModelRepository;
+    private final ObjectMapper objectMapper;
+    private final PredictionCache predictionCache;
+    
+    private volatile Map<MLModel.ModelType, CompiledScorer> active = Collections.emptyMap();
+    private volatile Map<MLModel.ModelType, CompiledScorer> candidates = Collections.emptyMap();
+    
+    // Models that failed to compile, by id:version, so each failure is logged once
+    private final Set<String> rejected = Collections.synchronizedSet(new HashSet<>());
+    
+    public CompiledScorer scorerFor(MLModel.ModelType type) {
+        return active.get(type);
+    }
+    
+    public Map<MLModel.ModelType, CompiledScorer> getActiveScorers() {
+        return active;
+    }
+    
+    /** CANDIDATE model being shadow-scored for the type, or null. */
+    public CompiledScorer candidateFor(MLModel.ModelType type) {
+        return candidates.get(type);
+    }
+    
+    public Map<MLModel.ModelType, CompiledScorer> getCandidateScorers() {
+        return candidates;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+    
+    @Scheduled(fixedDelayString = "${ml.models.reload-interval-ms:60000}",
+            initialDelayString = "${ml.models.reload-interval-ms:60000}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Error reloading ML models", e);
+        }
+    }
+    
+    public synchronized Map<MLModel.ModelType, CompiledScorer> reload() {
+        Map<MLModel.ModelType, CompiledScorer> current = active;
+        Map<MLModel.ModelType, CompiledScorer> next = resolve(MLModel.ModelStatus.READY, current);
+        
+        for (MLModel.ModelType type : current.keySet()) {
+            if (!next.containsKey(type)) {
+                log.info("Unloaded {} model {}; falling back to rule-based scoring", type, current.get(type).modelId());
+            }
+        }
+        
+        if (!next.equals(current)) {
+            // Cached predictions were scored by the models being replaced
+            predictionCache.clear();
+        }
+        
+        active = Collections.unmodifiableMap(next);
+        candidates = Collections.unmodifiableMap(resolve(MLModel.ModelStatus.CANDIDATE, candidates));
+        return active;
+    }
+    
+    /**
+     * Makes a model the READY one for its type and deprecates the model it replaces.
+     * Typically used on a CANDIDATE once its shadow-scoring results look right.
+     */
+    public synchronized Map<MLModel.ModelType, CompiledScorer> promote(String modelId) {
+        MLModel model = mlModelRepository.findById(modelId)
+                .orElseThrow(() -> new IllegalArgumentException("Model not found: " + modelId));
+        
+        for (MLModel current : mlModelRepository.findByStatus(MLModel.ModelStatus.READY)) {
+            if (current.getType() == model.getType() && !current.getId().equals(modelId)) {
+                current.setStatus(MLModel.ModelStatus.DEPRECATED);
+                mlModelRepository.save(current);
+            }
+        }
+        
+        model.setStatus(MLModel.ModelStatus.READY);
+        model.setTrainedAt(model.getTrainedAt() != null ? model.getTrainedAt() : LocalDateTime.now());
+        mlModelRepository.save(model);
+        log.info("Promoted {} model {} version {} to READY", model.getType(), model.getId(), model.getVersion());
+        
+        return reload();
+    }
+    
+    /** Newest model per type with the given status, reusing scorers that are already compiled. */
+    private Map<MLModel.ModelType, CompiledScorer> resolve(MLModel.ModelStatus status,
+                                                           Map<MLModel.ModelType, CompiledScorer> current) {
+        Map<MLModel.ModelType, MLModel> newest = new EnumMap<>(MLModel.ModelType.class);
+        for (MLModel model : mlModelRepository.findByStatus(status)) {
+            if (model.getType() == null) {
+                continue;
+            }
+            newest.merge(model.getType(), model, (a, b) -> trainedAt(b).isAfter(trainedAt(a)) ? b : a);
+        }
+        
+        Map<MLModel.ModelType, CompiledScorer> next = new EnumMap<>(MLModel.ModelType.class);
+        
+        for (Map.Entry<MLModel.ModelType, MLModel> entry : newest.entrySet()) {
+            MLModel model = entry.getValue();
+            CompiledScorer loaded = current.get(entry.getKey());
+            
+            // Unchanged models keep their compiled scorer
+            if (loaded != null && loaded.modelId().equals(model.getId())
+                    && Objects.equals(loaded.version(), model.getVersion())) {
+                next.put(entry.getKey(), loaded);
+                continue;
+            }
+            
+            CompiledScorer compiled = compile(model);
+            if (compiled != null) {
+                next.put(entry.getKey(), compiled);
+                log.info("Loaded {} {} model {} version {} ({} features)", status,
+                        model.getType(), model.getId(), model.getVersion(), compiled.dimension());
+            } else if (loaded != null) {
+                // Keep serving the previous model rather than dropping to rules
+                next.put(entry.getKey(), loaded);
+            }
+        }
+        
+        return next;
+    }
+    
+    private CompiledScorer compile(MLModel model) {
+        String key = model.getId() + ":" + model.getVersion();
+        if (rejected.contains(key)) {
+            return null;
+        }
+        
+        try {
+            return ModelCompiler.compile(model, loadParameters(model));
+        } catch (IOException | IllegalArgumentException e) {
+            rejected.add(key);
+            log.error("Could not load {} model {} version {}: {}",
+                    model.getType(), model.getId(), model.getVersion(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /** Inline parameters win; otherwise the model is read from the JSON file at modelPath. */
+    private Map<String, Object> loadParameters(MLModel model) throws IOException {
+        if (model.getParameters() != null && model.getParameters().containsKey("algorithm")) {
+            return model.getParameters();
+        }
+        if (model.getModelPath() != null) {
+            return objectMapper.readValue(Path.of(model.getModelPath()).toFile(),
+                    new TypeReference<Map<String, Object>>() {});
+        }
+        return model.getParameters();
+    }
+    
+    private LocalDateTime trainedAt(MLModel model) {
+        return model.getTrainedAt() != null ? model.getTrainedAt() : LocalDateTime.MIN;
+    }
+}
@@ -0,0 +1,19 @@
+package com.footballgps.ml.runtime;
+
+/** Per-thread scratch array that feature vectors are copied into before scoring. */
+final class ScoringBuffer {
+    
+    private static final ThreadLocal<double[]> BUFFER = ThreadLocal.withInitial(() -> new double[64]);
+    
+    private ScoringBuffer() {
+    }
+    
+    static double[] get(int size) {
+        double[] buffer = BUFFER.get();
+        if (buffer.length < size) {
+            buffer = new double[size];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+}
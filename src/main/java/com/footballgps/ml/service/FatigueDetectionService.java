@@ -1,17 +1,22 @@
 package com.footballgps.ml.service;
 
+import com.footballgps.analysis.EffortSegmentation;
+import com.footballgps.analysis.EffortSegmenter;
+import com.footballgps.ml.feature.FatigueFeatures;
+import com.footballgps.ml.model.MLModel;
 import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.runtime.CompiledScorer;
+import com.footballgps.ml.runtime.ModelRegistry;
 import com.footballgps.model.PlayerMetrics;
 import com.footballgps.model.GpsData;
 import com.footballgps.repository.PlayerMetricsRepository;
-import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.storage.GpsDataStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,143 +24,156 @@ import java.util.stream.Collectors;
 public class FatigueDetectionService {
     
     private final PlayerMetricsRepository playerMetricsRepository;
-    private final GpsDataRepository gpsDataRepository;
+    private final GpsDataStore gpsDataStore;
     private final MLPredictionService mlPredictionService;
+    private final ModelRegistry modelRegistry;
+    private final ShadowScoringService shadowScoringService;
     
     public MLPrediction detectFatigue(String playerId, String sessionId) {
+        return mlPredictionService.getOrCompute(MLPrediction.PredictionType.FATIGUE_LEVEL, playerId, sessionId,
+                () -> computeFatigue(playerId, sessionId));
+    }
+    
+    private MLPrediction computeFatigue(String playerId, String sessionId) {
         log.info("Detecting fatigue for player: {} in session: {}", playerId, sessionId);
         
-        List<GpsData> sessionData = gpsDataRepository.findByPlayerIdAndSessionId(playerId, sessionId);
+        List<GpsData> sessionData = gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId);
         Optional<PlayerMetrics> metricsOpt = playerMetricsRepository.findByPlayerIdAndSessionId(playerId, sessionId);
         
         if (sessionData.isEmpty()) {
             return createDefaultFatiguePrediction(playerId);
         }
         
+        return mlPredictionService.savePrediction(
+                buildFatiguePrediction(playerId, sessionId, sessionData, metricsOpt.orElse(null)));
+    }
+    
+    /**
+     * Analyses already-loaded session data without persisting, for pipelines that
+     * load a whole session once and save all predictions together.
+     */
+    public MLPrediction buildFatiguePrediction(String playerId, String sessionId,
+                                               List<GpsData> sessionData, PlayerMetrics metrics) {
+        if (sessionData.isEmpty()) {
+            return createDefaultFatiguePrediction(playerId);
+        }
+        
         // Analyze fatigue indicators
-        Map<String, Object> fatigueAnalysis = analyzeFatigueIndicators(sessionData, metricsOpt.orElse(null));
+        FatigueFeatures features = analyzeFatigueIndicators(sessionData, metrics);
         
-        // Calculate fatigue level
-        double fatigueLevel = calculateFatigueLevel(fatigueAnalysis);
+        // Prefer the trained model; the rule-based score is the fallback
+        CompiledScorer model = modelRegistry.scorerFor(MLModel.ModelType.FATIGUE_DETECTION);
+        double fatigueLevel = score(model, features);
         
         // Generate fatigue management recommendations
-        Map<String, Object> recommendations = generateFatigueRecommendations(fatigueLevel, fatigueAnalysis);
+        Map<String, Object> recommendations = generateFatigueRecommendations(fatigueLevel, features);
         
         MLPrediction prediction = new MLPrediction();
         prediction.setPlayerId(playerId);
         prediction.setSessionId(sessionId);
+        prediction.setModelId(model != null ? model.modelId() : null);
         prediction.setType(MLPrediction.PredictionType.FATIGUE_LEVEL);
-        prediction.setInput(fatigueAnalysis);
+        prediction.setInput(features.toInputMap());
         prediction.setOutput(recommendations);
-        prediction.setConfidence(calculateFatigueConfidence(fatigueAnalysis));
+        prediction.setConfidence(calculateFatigueConfidence(features));
         prediction.setPredictedAt(LocalDateTime.now());
         
-        return mlPredictionService.savePrediction(prediction);
+        return prediction;
     }
     
-    private Map<String, Object> analyzeFatigueIndicators(List<GpsData> sessionData, PlayerMetrics metrics) {
-        Map<String, Object> analysis = new HashMap<>();
-        
-        // Sort data by timestamp
-        sessionData.sort(Comparator.comparing(GpsData::getTimestamp));
+    /** Expects {@code sessionData} in timestamp order, as the GPS stores return it; also used by offline model training. */
+    public FatigueFeatures analyzeFatigueIndicators(List<GpsData> sessionData, PlayerMetrics metrics) {
+        int n = sessionData.size();
+        double[] speeds = new double[n];
+        double[] accelerations = new double[n];
+        int[] heartRates = new int[n];
+        int heartRateCount = 0;
+        
+        for (int i = 0; i < n; i++) {
+            GpsData data = sessionData.get(i);
+            speeds[i] = data.getMovement().getSpeed();
+            accelerations[i] = Math.abs(data.getMovement().getAcceleration());
+            if (data.getBiometrics() != null && data.getBiometrics().getHeartRate() > 0) {
+                heartRates[heartRateCount++] = data.getBiometrics().getHeartRate();
+            }
+        }
         
-        // Analyze speed decline over time
-        Map<String, Double> speedDecline = analyzeSpeedDecline(sessionData);
-        analysis.put("speedDecline", speedDecline);
+        // Analyze speed decline over time (first vs last quarter)
+        int quarterSize = n / 4;
+        double q1AvgSpeed = average(speeds, 0, quarterSize);
+        double q4AvgSpeed = average(speeds, 3 * quarterSize, n);
+        double speedDecline = (q1AvgSpeed - q4AvgSpeed) / q1AvgSpeed;
         
         // Analyze heart rate patterns
-        Map<String, Object> heartRateAnalysis = analyzeHeartRatePatterns(sessionData);
-        analysis.put("heartRate", heartRateAnalysis);
+        boolean hrAvailable = heartRateCount > 0;
+        double averageHR = 0.0;
+        int maxHR = 0;
+        double hrVariability = 0.0;
+        double timeInHighZones = 0.0;
+        if (hrAvailable) {
+            long hrSum = 0;
+            int highHRCount = 0;
+            // Assume Zone 4+ is >85% of max HR (estimated at 190 for simplicity)
+            int zone4Threshold = (int) (190 * 0.85);
+            for (int i = 0; i < heartRateCount; i++) {
+                int hr = heartRates[i];
+                hrSum += hr;
+                maxHR = Math.max(maxHR, hr);
+                if (hr > zone4Threshold) {
+                    highHRCount++;
+                }
+            }
+            averageHR = (double) hrSum / heartRateCount;
+            hrVariability = calculateHRVariability(heartRates, heartRateCount, averageHR);
+            timeInHighZones = (double) highHRCount / heartRateCount * 100;
+        }
         
         // Analyze movement efficiency
         double movementEfficiency = calculateMovementEfficiency(sessionData);
-        analysis.put("movementEfficiency", movementEfficiency);
         
-        // Analyze acceleration patterns
-        Map<String, Object> accelerationAnalysis = analyzeAccelerationPatterns(sessionData);
-        analysis.put("acceleration", accelerationAnalysis);
+        // Analyze decline in acceleration capacity
+        double q1AvgAcc = average(accelerations, 0, quarterSize);
+        double q4AvgAcc = average(accelerations, 3 * quarterSize, n);
+        double accDecline = (q1AvgAcc - q4AvgAcc) / q1AvgAcc;
         
-        // Analyze recovery between high-intensity efforts
-        List<Double> recoveryTimes = calculateRecoveryTimes(sessionData);
-        analysis.put("recoveryTimes", recoveryTimes);
+        // Analyze recovery between high-intensity efforts (single pass over the session)
+        EffortSegmentation efforts = EffortSegmenter.segment(sessionData);
+        double[] recoveryTimes = efforts.recoveryTimes();
+        double averageRecovery = average(recoveryTimes, 0, recoveryTimes.length);
         
         // Player load accumulation
-        if (metrics != null) {
-            analysis.put("playerLoad", metrics.getMovement().getPlayerLoad());
-            analysis.put("workRate", metrics.getPerformance().getWorkRate());
-        }
-        
-        return analysis;
+        boolean loadAvailable = metrics != null;
+        double playerLoad = loadAvailable ? metrics.getMovement().getPlayerLoad() : 0.0;
+        double workRate = loadAvailable ? metrics.getPerformance().getWorkRate() : 0.0;
+        
+        return new FatigueFeatures(
+                q1AvgSpeed, q4AvgSpeed, speedDecline * 100,
+                hrAvailable, averageHR, maxHR, hrVariability, timeInHighZones,
+                movementEfficiency,
+                q1AvgAcc, q4AvgAcc, accDecline * 100,
+                recoveryTimes, averageRecovery,
+                loadAvailable, playerLoad, workRate);
     }
     
-    private Map<String, Double> analyzeSpeedDecline(List<GpsData> sessionData) {
-        Map<String, Double> speedAnalysis = new HashMap<>();
-        
-        // Divide session into quarters
-        int quarterSize = sessionData.size() / 4;
-        
-        List<Double> q1Speeds = sessionData.subList(0, quarterSize).stream()
-                .map(d -> d.getMovement().getSpeed())
-                .collect(Collectors.toList());
-        
-        List<Double> q4Speeds = sessionData.subList(3 * quarterSize, sessionData.size()).stream()
-                .map(d -> d.getMovement().getSpeed())
-                .collect(Collectors.toList());
-        
-        double q1AvgSpeed = q1Speeds.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double q4AvgSpeed = q4Speeds.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        
-        double speedDecline = (q1AvgSpeed - q4AvgSpeed) / q1AvgSpeed;
-        
-        speedAnalysis.put("firstQuarterSpeed", q1AvgSpeed);
-        speedAnalysis.put("lastQuarterSpeed", q4AvgSpeed);
-        speedAnalysis.put("speedDeclinePercentage", speedDecline * 100);
-        
-        return speedAnalysis;
-    }
-    
-    private Map<String, Object> analyzeHeartRatePatterns(List<GpsData> sessionData) {
-        Map<String, Object> hrAnalysis = new HashMap<>();
-        
-        List<Integer> heartRates = sessionData.stream()
-                .filter(d -> d.getBiometrics() != null && d.getBiometrics().getHeartRate() > 0)
-                .map(d -> d.getBiometrics().getHeartRate())
-                .collect(Collectors.toList());
-        
-        if (heartRates.isEmpty()) {
-            hrAnalysis.put("available", false);
-            return hrAnalysis;
+    private double average(double[] values, int from, int to) {
+        if (to <= from) return 0.0;
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
         }
-        
-        hrAnalysis.put("available", true);
-        hrAnalysis.put("averageHR", heartRates.stream().mapToInt(Integer::intValue).average().orElse(0.0));
-        hrAnalysis.put("maxHR", heartRates.stream().mapToInt(Integer::intValue).max().orElse(0));
-        hrAnalysis.put("hrVariability", calculateHRVariability(heartRates));
-        hrAnalysis.put("timeInZone4Plus", calculateTimeInHighHRZones(heartRates));
-        
-        return hrAnalysis;
-    }
-    
-    private double calculateHRVariability(List<Integer> heartRates) {
-        if (heartRates.size() < 2) return 0.0;
-        
-        double mean = heartRates.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        double variance = heartRates.stream()
-                .mapToDouble(hr -> Math.pow(hr - mean, 2))
-                .average().orElse(0.0);
-        
-        return Math.sqrt(variance);
+        return sum / (to - from);
     }
     
-    private double calculateTimeInHighHRZones(List<Integer> heartRates) {
-        // Assume Zone 4+ is >85% of max HR (estimated at 190 for simplicity)
-        int zone4Threshold = (int) (190 * 0.85);
+    private double calculateHRVariability(int[] heartRates, int count, double mean) {
+        if (count < 2) return 0.0;
         
-        long highHRCount = heartRates.stream()
-                .filter(hr -> hr > zone4Threshold)
-                .count();
+        double variance = 0.0;
+        for (int i = 0; i < count; i++) {
+            double diff = heartRates[i] - mean;
+            variance += diff * diff;
+        }
         
-        return (double) highHRCount / heartRates.size() * 100;
+        return Math.sqrt(variance / count);
     }
     
     private double calculateMovementEfficiency(List<GpsData> sessionData) {
@@ -180,75 +198,24 @@ public class FatigueDetectionService {
         return totalAcceleration > 0 ? totalDistance / totalAcceleration : 0.0;
     }
     
-    private Map<String, Object> analyzeAccelerationPatterns(List<GpsData> sessionData) {
-        Map<String, Object> accAnalysis = new HashMap<>();
-        
-        List<Double> accelerations = sessionData.stream()
-                .map(d -> Math.abs(d.getMovement().getAcceleration()))
-                .collect(Collectors.toList());
-        
-        // Analyze decline in acceleration capacity
-        int quarterSize = accelerations.size() / 4;
-        
-        double q1AvgAcc = accelerations.subList(0, quarterSize).stream()
-                .mapToDouble(Double::doubleValue).average().orElse(0.0);
-        
-        double q4AvgAcc = accelerations.subList(3 * quarterSize, accelerations.size()).stream()
-                .mapToDouble(Double::doubleValue).average().orElse(0.0);
-        
-        double accDecline = (q1AvgAcc - q4AvgAcc) / q1AvgAcc;
-        
-        accAnalysis.put("firstQuarterAcceleration", q1AvgAcc);
-        accAnalysis.put("lastQuarterAcceleration", q4AvgAcc);
-        accAnalysis.put("accelerationDecline", accDecline * 100);
-        
-        return accAnalysis;
+    /** Fatigue level from the loaded model, or from the rules when none is loaded. */
+    double scoreFatigueLevel(FatigueFeatures features) {
+        return score(modelRegistry.scorerFor(MLModel.ModelType.FATIGUE_DETECTION), features);
     }
     
-    private List<Double> calculateRecoveryTimes(List<GpsData> sessionData) {
-        List<Double> recoveryTimes = new ArrayList<>();
-        
-        boolean inHighIntensity = false;
-        LocalDateTime highIntensityStart = null;
-        
-        for (GpsData data : sessionData) {
-            boolean isHighIntensity = data.getMovement().getSpeed() > 20.0 || 
-                                    Math.abs(data.getMovement().getAcceleration()) > 3.0;
-            
-            if (isHighIntensity && !inHighIntensity) {
-                // Start of high-intensity period
-                inHighIntensity = true;
-                highIntensityStart = data.getTimestamp();
-            } else if (!isHighIntensity && inHighIntensity && highIntensityStart != null) {
-                // End of high-intensity period, start measuring recovery
-                inHighIntensity = false;
-                
-                // Find next high-intensity period to calculate recovery time
-                for (int i = sessionData.indexOf(data) + 1; i < sessionData.size(); i++) {
-                    GpsData nextData = sessionData.get(i);
-                    boolean nextIsHighIntensity = nextData.getMovement().getSpeed() > 20.0 || 
-                                                Math.abs(nextData.getMovement().getAcceleration()) > 3.0;
-                    
-                    if (nextIsHighIntensity) {
-                        double recoverySeconds = java.time.Duration.between(
-                            data.getTimestamp(), nextData.getTimestamp()).getSeconds();
-                        recoveryTimes.add(recoverySeconds);
-                        break;
-                    }
-                }
-            }
-        }
-        
-        return recoveryTimes;
+    private double score(CompiledScorer model, FatigueFeatures features) {
+        long scoringStart = System.nanoTime();
+        double fatigueLevel = model != null ? model.score(features) : calculateFatigueLevel(features);
+        shadowScoringService.observe(MLModel.ModelType.FATIGUE_DETECTION, features, model, fatigueLevel,
+                System.nanoTime() - scoringStart, this::getFatigueCategory);
+        return fatigueLevel;
     }
     
-    private double calculateFatigueLevel(Map<String, Object> analysis) {
+    double calculateFatigueLevel(FatigueFeatures features) {
         double fatigueScore = 0.0;
         
         // Speed decline factor (30% weight)
-        @SuppressWarnings("unchecked")
-        Map<String, Double> speedDecline = (Map<String, Double>) analysis.get("speedDecline");
-        double speedDeclinePercent = speedDecline.get("speedDeclinePercentage");
+        double speedDeclinePercent = features.speedDeclinePercentage();
         
         if (speedDeclinePercent > 15) {
             fatigueScore += 0.3;
@@ -259,10 +226,8 @@ public class FatigueDetectionService {
         }
         
         // Heart rate patterns (25% weight)
-        @SuppressWarnings("unchecked")
-        Map<String, Object> heartRate = (Map<String, Object>) analysis.get("heartRate");
-        if ((Boolean) heartRate.get("available")) {
-            double timeInHighZones = (Double) heartRate.get("timeInZone4Plus");
+        if (features.heartRateAvailable()) {
+            double timeInHighZones = features.timeInZone4Plus();
             if (timeInHighZones > 60) {
                 fatigueScore += 0.25;
             } else if (timeInHighZones > 40) {
@@ -271,7 +236,7 @@ public class FatigueDetectionService {
         }
         
         // Movement efficiency (20% weight)
-        double movementEfficiency = (Double) analysis.get("movementEfficiency");
+        double movementEfficiency = features.movementEfficiency();
         if (movementEfficiency < 50) {
             fatigueScore += 0.2;
         } else if (movementEfficiency < 75) {
@@ -279,9 +244,7 @@ public class FatigueDetectionService {
         }
         
         // Acceleration decline (15% weight)
-        @SuppressWarnings("unchecked")
-        Map<String, Object> acceleration = (Map<String, Object>) analysis.get("acceleration");
-        double accDecline = (Double) acceleration.get("accelerationDecline");
+        double accDecline = features.accelerationDecline();
         
         if (accDecline > 20) {
             fatigueScore += 0.15;
@@ -290,10 +253,8 @@ public class FatigueDetectionService {
         }
         
         // Recovery times (10% weight)
-        @SuppressWarnings("unchecked")
-        List<Double> recoveryTimes = (List<Double>) analysis.get("recoveryTimes");
-        if (!recoveryTimes.isEmpty()) {
-            double avgRecovery = recoveryTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        if (features.recoveryCount() > 0) {
+            double avgRecovery = features.averageRecoveryTime();
             if (avgRecovery > 120) { // More than 2 minutes
                 fatigueScore += 0.1;
             } else if (avgRecovery > 90) {
@@ -304,7 +265,7 @@ public class FatigueDetectionService {
         return Math.min(1.0, fatigueScore);
     }
     
-    private Map<String, Object> generateFatigueRecommendations(double fatigueLevel, Map<String, Object> analysis) {
+    private Map<String, Object> generateFatigueRecommendations(double fatigueLevel, FatigueFeatures features) {
         Map<String, Object> recommendations = new HashMap<>();
         List<String> actions = new ArrayList<>();
         List<String> recoveryProtocols = new ArrayList<>();
@@ -350,12 +311,12 @@ public class FatigueDetectionService {
         recommendations.put("immediateActions", actions);
         recommendations.put("recoveryProtocols", recoveryProtocols);
         recommendations.put("estimatedRecoveryTime", estimateRecoveryTime(fatigueLevel));
-        recommendations.put("keyIndicators", identifyKeyFatigueIndicators(analysis));
+        recommendations.put("keyIndicators", identifyKeyFatigueIndicators(features));
         
         return recommendations;
     }
     
-    private String getFatigueCategory(double fatigueLevel) {
+    String getFatigueCategory(double fatigueLevel) {
         if (fatigueLevel > 0.8) return "SEVERE";
         if (fatigueLevel > 0.6) return "HIGH";
         if (fatigueLevel > 0.3) return "MODERATE";
@@ -369,51 +330,37 @@ public class FatigueDetectionService {
         return "2-6 hours";
     }
     
-    private List<String> identifyKeyFatigueIndicators(Map<String, Object> analysis) {
+    List<String> identifyKeyFatigueIndicators(FatigueFeatures features) {
         List<String> indicators = new ArrayList<>();
         
-        @SuppressWarnings("unchecked")
-        Map<String, Double> speedDecline = (Map<String, Double>) analysis.get("speedDecline");
-        if (speedDecline.get("speedDeclinePercentage") > 10) {
+        if (features.speedDeclinePercentage() > 10) {
             indicators.add("Significant speed decline detected");
         }
         
-        @SuppressWarnings("unchecked")
-        Map<String, Object> acceleration = (Map<String, Object>) analysis.get("acceleration");
-        if ((Double) acceleration.get("accelerationDecline") > 15) {
+        if (features.accelerationDecline() > 15) {
             indicators.add("Reduced acceleration capacity");
         }
         
-        double movementEfficiency = (Double) analysis.get("movementEfficiency");
-        if (movementEfficiency < 60) {
+        if (features.movementEfficiency() < 60) {
             indicators.add("Decreased movement efficiency");
         }
         
-        @SuppressWarnings("unchecked")
-        List<Double> recoveryTimes = (List<Double>) analysis.get("recoveryTimes");
-        if (!recoveryTimes.isEmpty()) {
-            double avgRecovery = recoveryTimes.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            if (avgRecovery > 100) {
-                indicators.add("Extended recovery times between efforts");
-            }
+        if (features.recoveryCount() > 0 && features.averageRecoveryTime() > 100) {
+            indicators.add("Extended recovery times between efforts");
         }
         
         return indicators;
     }
     
-    private double calculateFatigueConfidence(Map<String, Object> analysis) {
+    private double calculateFatigueConfidence(FatigueFeatures features) {
         double confidence = 0.7;
         
         // Increase confidence if multiple indicators align
-        @SuppressWarnings("unchecked")
-        Map<String, Object> heartRate = (Map<String, Object>) analysis.get("heartRate");
-        if ((Boolean) heartRate.get("available")) {
+        if (features.heartRateAvailable()) {
             confidence += 0.15;
         }
         
-        @SuppressWarnings("unchecked")
-        List<Double> recoveryTimes = (List<Double>) analysis.get("recoveryTimes");
-        if (recoveryTimes.size() > 3) {
+        if (features.recoveryCount() > 3) {
             confidence += 0.1;
         }
         
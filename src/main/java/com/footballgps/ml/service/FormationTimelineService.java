@@ -0,0 +1,85 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.analysis.FormationDetector;
+import com.footballgps.analysis.FormationSpan;
+import com.footballgps.analysis.TeamFrames;
+import com.footballgps.ml.model.FormationWindow;
+import com.footballgps.ml.repository.FormationWindowRepository;
+import com.footballgps.model.GpsData;
+import com.footballgps.storage.GpsDataStore;
+import com.footballgps.util.EpochTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-window formation results in formation_windows. Windows closed live are stored as
+ * they happen; sessions without stored windows are detected once from their GPS data
+ * and stored, so the timeline is never recomputed on read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FormationTimelineService {
+    
+    private final FormationWindowRepository formationWindowRepository;
+    private final GpsDataStore gpsDataStore;
+    
+    @Value("${ml.formation.window-minutes:5}")
+    private long windowMinutes;
+    
+    public List<FormationWindow> getTimeline(String sessionId) {
+        List<FormationWindow> stored = formationWindowRepository.findBySessionIdOrderByWindowStartAsc(sessionId);
+        if (!stored.isEmpty()) {
+            return stored;
+        }
+        return rebuildTimeline(sessionId);
+    }
+    
+    /** Re-detects every window from the stored GPS data, replacing what was stored. */
+    public List<FormationWindow> rebuildTimeline(String sessionId) {
+        List<GpsData> sessionData = gpsDataStore.findBySessionId(sessionId);
+        if (sessionData.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<FormationSpan> spans = new FormationDetector()
+                .detectWindows(TeamFrames.align(sessionData), getWindowMillis());
+        List<FormationWindow> windows = spans.stream()
+                .map(span -> toWindow(sessionId, span, FormationWindow.Source.OFFLINE))
+                .collect(Collectors.toList());
+        
+        formationWindowRepository.deleteBySessionId(sessionId);
+        List<FormationWindow> saved = formationWindowRepository.saveAll(windows);
+        log.info("Detected {} formation windows for session {}", saved.size(), sessionId);
+        return saved;
+    }
+    
+    public FormationWindow saveWindow(String sessionId, FormationSpan span, FormationWindow.Source source) {
+        return formationWindowRepository.save(toWindow(sessionId, span, source));
+    }
+    
+    public long getWindowMillis() {
+        return windowMinutes * 60_000;
+    }
+    
+    private FormationWindow toWindow(String sessionId, FormationSpan span, FormationWindow.Source source) {
+        FormationWindow window = new FormationWindow();
+        window.setSessionId(sessionId);
+        window.setWindowStart(EpochTime.toLocalDateTime(span.startMillis()));
+        window.setWindowEnd(EpochTime.toLocalDateTime(span.endMillis()));
+        window.setFormation(span.match().formation());
+        window.setRunnerUp(span.match().runnerUp());
+        window.setFitError(span.match().fitError());
+        window.setConfidence(span.match().confidence());
+        window.setPlayers(span.players());
+        window.setRoles(span.match().roles());
+        window.setSource(source);
+        return window;
+    }
+}
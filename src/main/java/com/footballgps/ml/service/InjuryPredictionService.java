@@ -1,17 +1,20 @@
 package com.footballgps.ml.service;
 
+import com.footballgps.ml.feature.InjuryRiskFeatures;
+import com.footballgps.ml.model.MLModel;
 import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.runtime.CompiledScorer;
+import com.footballgps.ml.runtime.ModelRegistry;
 import com.footballgps.model.PlayerMetrics;
 import com.footballgps.model.GpsData;
 import com.footballgps.repository.PlayerMetricsRepository;
-import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.storage.GpsDataStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,10 +22,17 @@ import java.util.stream.Collectors;
 public class InjuryPredictionService {
     
     private final PlayerMetricsRepository playerMetricsRepository;
-    private final GpsDataRepository gpsDataRepository;
+    private final GpsDataStore gpsDataStore;
     private final MLPredictionService mlPredictionService;
+    private final ModelRegistry modelRegistry;
+    private final ShadowScoringService shadowScoringService;
     
     public MLPrediction predictInjuryRisk(String playerId) {
+        return mlPredictionService.getOrCompute(MLPrediction.PredictionType.INJURY_RISK, playerId, null,
+                () -> computeInjuryRisk(playerId));
+    }
+    
+    private MLPrediction computeInjuryRisk(String playerId) {
         log.info("Predicting injury risk for player: {}", playerId);
         
         // Get historical data (last 30 days)
@@ -35,17 +45,34 @@ public class InjuryPredictionService {
             return createLowRiskPrediction(playerId);
         }
         
+        return mlPredictionService.savePrediction(buildInjuryRiskPrediction(playerId, historicalMetrics));
+    }
+    
+    /**
+     * Scores already-loaded history without touching the database, so batch callers
+     * can load metrics for many players at once and persist the results together.
+     */
+    public MLPrediction buildInjuryRiskPrediction(String playerId, List<PlayerMetrics> historicalMetrics) {
+        if (historicalMetrics.isEmpty()) {
+            return createLowRiskPrediction(playerId);
+        }
+        
         // Extract features for ML model
-        Map<String, Object> features = extractInjuryRiskFeatures(historicalMetrics);
+        InjuryRiskFeatures features = extractInjuryRiskFeatures(historicalMetrics);
         
-        // Calculate injury risk using multiple factors
-        double injuryRisk = calculateInjuryRisk(features);
+        // Prefer the trained model; the rule-based score is the fallback
+        CompiledScorer model = modelRegistry.scorerFor(MLModel.ModelType.INJURY_PREDICTION);
+        long scoringStart = System.nanoTime();
+        double injuryRisk = model != null ? model.score(features) : calculateInjuryRisk(features);
+        shadowScoringService.observe(MLModel.ModelType.INJURY_PREDICTION, features, model, injuryRisk,
+                System.nanoTime() - scoringStart, this::getRiskLevel);
         
         // Create prediction
         MLPrediction prediction = new MLPrediction();
         prediction.setPlayerId(playerId);
+        prediction.setModelId(model != null ? model.modelId() : null);
         prediction.setType(MLPrediction.PredictionType.INJURY_RISK);
-        prediction.setInput(features);
+        prediction.setInput(features.toInputMap());
         
         Map<String, Object> output = new HashMap<>();
         output.put("injuryRisk", injuryRisk);
@@ -57,62 +84,57 @@ public class InjuryPredictionService {
         prediction.setConfidence(calculateConfidence(features));
         prediction.setPredictedAt(LocalDateTime.now());
         
-        return mlPredictionService.savePrediction(prediction);
+        return prediction;
     }
     
-    private Map<String, Object> extractInjuryRiskFeatures(List<PlayerMetrics> metrics) {
-        Map<String, Object> features = new HashMap<>();
-        
-        // Calculate trends and patterns
-        List<Double> acuteChronicRatios = metrics.stream()
-                .map(m -> m.getLoad().getAcuteChronicRatio())
-                .collect(Collectors.toList());
-        
-        List<Double> playerLoads = metrics.stream()
-                .map(m -> m.getMovement().getPlayerLoad())
-                .collect(Collectors.toList());
-        
-        List<Double> sprintCounts = metrics.stream()
-                .map(m -> (double) m.getMovement().getSprintCount())
-                .collect(Collectors.toList());
-        
-        List<Double> maxSpeeds = metrics.stream()
-                .map(m -> m.getMovement().getMaxSpeed())
-                .collect(Collectors.toList());
-        
-        // Statistical features
-        features.put("avgAcuteChronicRatio", calculateAverage(acuteChronicRatios));
-        features.put("maxAcuteChronicRatio", Collections.max(acuteChronicRatios));
-        features.put("acuteChronicVariability", calculateVariability(acuteChronicRatios));
-        
-        features.put("avgPlayerLoad", calculateAverage(playerLoads));
-        features.put("playerLoadTrend", calculateTrend(playerLoads));
-        features.put("playerLoadSpike", detectSpikes(playerLoads));
+    /** Also used by offline model training over historical windows. */
+    public InjuryRiskFeatures extractInjuryRiskFeatures(List<PlayerMetrics> metrics) {
+        int n = metrics.size();
+        double[] acuteChronicRatios = new double[n];
+        double[] playerLoads = new double[n];
+        double[] sprintCounts = new double[n];
+        double[] maxSpeeds = new double[n];
         
-        features.put("avgSprintCount", calculateAverage(sprintCounts));
-        features.put("sprintCountTrend", calculateTrend(sprintCounts));
-        
-        features.put("maxSpeedDecline", calculateDecline(maxSpeeds));
-        features.put("speedVariability", calculateVariability(maxSpeeds));
-        
-        // Workload patterns
-        features.put("consecutiveHighLoadDays", countConsecutiveHighLoadDays(acuteChronicRatios));
-        features.put("recoveryDays", countRecoveryDays(metrics));
-        features.put("workloadImbalance", calculateWorkloadImbalance(metrics));
+        for (int i = 0; i < n; i++) {
+            PlayerMetrics m = metrics.get(i);
+            acuteChronicRatios[i] = m.getLoad().getAcuteChronicRatio();
+            playerLoads[i] = m.getMovement().getPlayerLoad();
+            sprintCounts[i] = m.getMovement().getSprintCount();
+            maxSpeeds[i] = m.getMovement().getMaxSpeed();
+        }
         
-        // Movement asymmetry indicators
-        features.put("movementAsymmetry", calculateMovementAsymmetry(metrics));
-        features.put("accelerationPatternChange", detectAccelerationPatternChanges(metrics));
+        double maxAcuteChronicRatio = Double.NEGATIVE_INFINITY;
+        for (double ratio : acuteChronicRatios) {
+            maxAcuteChronicRatio = Math.max(maxAcuteChronicRatio, ratio);
+        }
         
-        return features;
+        return new InjuryRiskFeatures(
+                // Statistical features
+                calculateAverage(acuteChronicRatios),
+                maxAcuteChronicRatio,
+                calculateVariability(acuteChronicRatios),
+                calculateAverage(playerLoads),
+                calculateTrend(playerLoads),
+                detectSpikes(playerLoads),
+                calculateAverage(sprintCounts),
+                calculateTrend(sprintCounts),
+                calculateDecline(maxSpeeds),
+                calculateVariability(maxSpeeds),
+                // Workload patterns
+                countConsecutiveHighLoadDays(acuteChronicRatios),
+                countRecoveryDays(acuteChronicRatios),
+                calculateVariability(playerLoads),
+                // Movement asymmetry indicators
+                calculateMovementAsymmetry(metrics),
+                detectAccelerationPatternChanges(metrics));
     }
     
-    private double calculateInjuryRisk(Map<String, Object> features) {
+    private double calculateInjuryRisk(InjuryRiskFeatures features) {
         double risk = 0.0;
         
         // Acute:Chronic ratio risk (most important factor)
-        double avgAcuteChronicRatio = (Double) features.get("avgAcuteChronicRatio");
-        double maxAcuteChronicRatio = (Double) features.get("maxAcuteChronicRatio");
+        double avgAcuteChronicRatio = features.avgAcuteChronicRatio();
+        double maxAcuteChronicRatio = features.maxAcuteChronicRatio();
         
         if (maxAcuteChronicRatio > 1.5) {
             risk += 0.4; // High risk
@@ -123,13 +145,12 @@ public class InjuryPredictionService {
         }
         
         // Player load spike risk
-        boolean playerLoadSpike = (Boolean) features.get("playerLoadSpike");
-        if (playerLoadSpike) {
+        if (features.playerLoadSpike()) {
             risk += 0.2;
         }
         
         // Consecutive high load days
-        int consecutiveHighLoadDays = (Integer) features.get("consecutiveHighLoadDays");
+        int consecutiveHighLoadDays = features.consecutiveHighLoadDays();
         if (consecutiveHighLoadDays > 5) {
             risk += 0.15;
         } else if (consecutiveHighLoadDays > 3) {
@@ -137,14 +158,12 @@ public class InjuryPredictionService {
         }
         
         // Speed decline (potential fatigue/injury indicator)
-        double maxSpeedDecline = (Double) features.get("maxSpeedDecline");
-        if (maxSpeedDecline > 0.1) { // 10% decline
+        if (features.maxSpeedDecline() > 0.1) { // 10% decline
             risk += 0.15;
         }
         
         // Movement asymmetry
-        double movementAsymmetry = (Double) features.get("movementAsymmetry");
-        if (movementAsymmetry > 0.15) {
+        if (features.movementAsymmetry() > 0.15) {
             risk += 0.1;
         }
         
@@ -158,7 +177,7 @@ public class InjuryPredictionService {
         return "MINIMAL";
     }
     
-    private List<String> generateInjuryPreventionRecommendations(double risk, Map<String, Object> features) {
+    private List<String> generateInjuryPreventionRecommendations(double risk, InjuryRiskFeatures features) {
         List<String> recommendations = new ArrayList<>();
         
         if (risk > 0.7) {
@@ -176,39 +195,33 @@ public class InjuryPredictionService {
         }
         
         // Specific recommendations based on features
-        double avgAcuteChronicRatio = (Double) features.get("avgAcuteChronicRatio");
-        if (avgAcuteChronicRatio > 1.3) {
+        if (features.avgAcuteChronicRatio() > 1.3) {
             recommendations.add("Focus on gradual load progression");
         }
         
-        double movementAsymmetry = (Double) features.get("movementAsymmetry");
-        if (movementAsymmetry > 0.1) {
+        if (features.movementAsymmetry() > 0.1) {
             recommendations.add("Address movement asymmetries with corrective exercises");
         }
         
         return recommendations;
     }
     
-    private List<String> identifyKeyRiskFactors(Map<String, Object> features) {
+    private List<String> identifyKeyRiskFactors(InjuryRiskFeatures features) {
         List<String> factors = new ArrayList<>();
         
-        double maxAcuteChronicRatio = (Double) features.get("maxAcuteChronicRatio");
-        if (maxAcuteChronicRatio > 1.3) {
+        if (features.maxAcuteChronicRatio() > 1.3) {
             factors.add("Elevated acute:chronic workload ratio");
         }
         
-        boolean playerLoadSpike = (Boolean) features.get("playerLoadSpike");
-        if (playerLoadSpike) {
+        if (features.playerLoadSpike()) {
             factors.add("Recent spike in player load");
         }
         
-        int consecutiveHighLoadDays = (Integer) features.get("consecutiveHighLoadDays");
-        if (consecutiveHighLoadDays > 3) {
+        if (features.consecutiveHighLoadDays() > 3) {
             factors.add("Consecutive high-load training days");
         }
         
-        double maxSpeedDecline = (Double) features.get("maxSpeedDecline");
-        if (maxSpeedDecline > 0.05) {
+        if (features.maxSpeedDecline() > 0.05) {
             factors.add("Decline in maximum speed performance");
         }
         
@@ -216,54 +229,66 @@ public class InjuryPredictionService {
     }
     
     // Utility methods for statistical calculations
-    private double calculateAverage(List<Double> values) {
-        return values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    private double calculateAverage(double[] values) {
+        if (values.length == 0) return 0.0;
+        double sum = 0.0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
     }
     
-    private double calculateVariability(List<Double> values) {
+    private double calculateVariability(double[] values) {
         double mean = calculateAverage(values);
-        double variance = values.stream()
-                .mapToDouble(v -> Math.pow(v - mean, 2))
-                .average().orElse(0.0);
+        double variance = 0.0;
+        for (double v : values) {
+            variance += (v - mean) * (v - mean);
+        }
+        variance = values.length > 0 ? variance / values.length : 0.0;
         return Math.sqrt(variance) / mean; // Coefficient of variation
     }
     
-    private double calculateTrend(List<Double> values) {
-        if (values.size() < 2) return 0.0;
+    private double calculateTrend(double[] values) {
+        if (values.length < 2) return 0.0;
         
         // Simple linear trend calculation
         double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-        int n = values.size();
+        int n = values.length;
         
         for (int i = 0; i < n; i++) {
             sumX += i;
-            sumY += values.get(i);
-            sumXY += i * values.get(i);
+            sumY += values[i];
+            sumXY += i * values[i];
             sumX2 += i * i;
         }
         
         return (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
     }
     
-    private boolean detectSpikes(List<Double> values) {
-        if (values.size() < 3) return false;
+    private boolean detectSpikes(double[] values) {
+        if (values.length < 3) return false;
         
         double mean = calculateAverage(values);
         double std = Math.sqrt(calculateVariability(values)) * mean;
         
-        return values.stream().anyMatch(v -> Math.abs(v - mean) > 2 * std);
+        for (double v : values) {
+            if (Math.abs(v - mean) > 2 * std) {
+                return true;
+            }
+        }
+        return false;
     }
     
-    private double calculateDecline(List<Double> values) {
-        if (values.size() < 2) return 0.0;
+    private double calculateDecline(double[] values) {
+        if (values.length < 2) return 0.0;
         
-        double first = values.get(0);
-        double last = values.get(values.size() - 1);
+        double first = values[0];
+        double last = values[values.length - 1];
         
         return (first - last) / first; // Percentage decline
     }
     
-    private int countConsecutiveHighLoadDays(List<Double> ratios) {
+    private int countConsecutiveHighLoadDays(double[] ratios) {
         int maxConsecutive = 0;
         int current = 0;
         
@@ -279,18 +304,14 @@ public class InjuryPredictionService {
         return maxConsecutive;
     }
     
-    private int countRecoveryDays(List<PlayerMetrics> metrics) {
-        return (int) metrics.stream()
-                .filter(m -> m.getLoad().getAcuteChronicRatio() < 0.8)
-                .count();
-    }
-    
-    private double calculateWorkloadImbalance(List<PlayerMetrics> metrics) {
-        List<Double> loads = metrics.stream()
-                .map(m -> m.getMovement().getPlayerLoad())
-                .collect(Collectors.toList());
-        
-        return calculateVariability(loads);
+    private int countRecoveryDays(double[] acuteChronicRatios) {
+        int count = 0;
+        for (double ratio : acuteChronicRatios) {
+            if (ratio < 0.8) {
+                count++;
+            }
+        }
+        return count;
     }
     
     private double calculateMovementAsymmetry(List<PlayerMetrics> metrics) {
@@ -305,12 +326,12 @@ public class InjuryPredictionService {
         return Math.random() > 0.8; // Placeholder
     }
     
-    private double calculateConfidence(Map<String, Object> features) {
+    private double calculateConfidence(InjuryRiskFeatures features) {
         // Confidence based on data quality and quantity
         double baseConfidence = 0.7;
         
         // Adjust based on data completeness
-        int featureCount = features.size();
+        int featureCount = features.featureNames().size();
         if (featureCount > 10) {
             baseConfidence += 0.2;
         } else if (featureCount < 5) {
@@ -0,0 +1,129 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.feature.FatigueFeatures;
+import com.footballgps.ml.model.FatigueAlert;
+import com.footballgps.ml.realtime.PlayerFatigueTracker;
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-match fatigue detection. Keeps streaming statistics per player in memory, updated on
+ * every ingested fix, and pushes an alert to /topic/fatigue/{sessionId} as soon as a
+ * player's fatigue category changes. Never reads from the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveFatigueService {
+    
+    private final FatigueDetectionService fatigueDetectionService;
+    private final SimpMessagingTemplate messagingTemplate;
+    
+    // Escalations are pushed immediately; a drop to a lower category must hold this long
+    private static final long DE_ESCALATION_COOLDOWN_MS = 30_000;
+    private static final List<String> CATEGORY_ORDER = Arrays.asList("LOW", "MODERATE", "HIGH", "SEVERE");
+    
+    private final Map<String, Map<String, PlayerFatigueTracker>> sessions = new ConcurrentHashMap<>();
+    
+    public void onFix(GpsData fix) {
+        if (fix.getPlayerId() == null || fix.getSessionId() == null
+                || fix.getPosition() == null || fix.getMovement() == null || fix.getTimestamp() == 0) {
+            return;
+        }
+        
+        PlayerFatigueTracker tracker = sessions
+                .computeIfAbsent(fix.getSessionId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(fix.getPlayerId(), id -> new PlayerFatigueTracker(id, fix.getSessionId()));
+        
+        long timestampMillis = fix.getTimestamp();
+        int heartRate = fix.getBiometrics() != null ? fix.getBiometrics().getHeartRate() : 0;
+        
+        FatigueAlert alert = null;
+        synchronized (tracker) {
+            tracker.update(timestampMillis,
+                    fix.getPosition().getLatitude(), fix.getPosition().getLongitude(),
+                    fix.getMovement().getSpeed(), fix.getMovement().getAcceleration(), heartRate);
+            
+            if (tracker.isWarmedUp()) {
+                alert = evaluate(tracker, timestampMillis);
+            }
+        }
+        
+        if (alert != null) {
+            messagingTemplate.convertAndSend("/topic/fatigue/" + fix.getSessionId(), alert);
+            log.info("Fatigue alert for player {} in session {}: {} -> {}", alert.getPlayerId(),
+                    alert.getSessionId(), alert.getPreviousCategory(), alert.getFatigueCategory());
+        }
+    }
+    
+    private FatigueAlert evaluate(PlayerFatigueTracker tracker, long timestampMillis) {
+        FatigueFeatures features = tracker.toFeatures();
+        double fatigueLevel = fatigueDetectionService.scoreFatigueLevel(features);
+        String category = fatigueDetectionService.getFatigueCategory(fatigueLevel);
+        String previous = tracker.getAlertedCategory();
+        
+        if (category.equals(previous)) {
+            return null;
+        }
+        
+        boolean escalation = CATEGORY_ORDER.indexOf(category) > CATEGORY_ORDER.indexOf(previous);
+        if (!escalation && timestampMillis - tracker.getLastAlertMillis() < DE_ESCALATION_COOLDOWN_MS) {
+            return null;
+        }
+        
+        tracker.markAlerted(category, timestampMillis);
+        return toAlert(tracker, features, fatigueLevel, category, previous);
+    }
+    
+    public List<FatigueAlert> getLiveStatus(String sessionId) {
+        Map<String, PlayerFatigueTracker> trackers = sessions.getOrDefault(sessionId, Collections.emptyMap());
+        List<FatigueAlert> status = new ArrayList<>();
+        
+        for (PlayerFatigueTracker tracker : trackers.values()) {
+            synchronized (tracker) {
+                FatigueFeatures features = tracker.toFeatures();
+                double fatigueLevel = fatigueDetectionService.scoreFatigueLevel(features);
+                status.add(toAlert(tracker, features, fatigueLevel,
+                        fatigueDetectionService.getFatigueCategory(fatigueLevel), tracker.getAlertedCategory()));
+            }
+        }
+        
+        return status;
+    }
+    
+    /** Drops all in-memory state for a finished session. */
+    public void releaseSession(String sessionId) {
+        Map<String, PlayerFatigueTracker> removed = sessions.remove(sessionId);
+        if (removed != null) {
+            log.info("Released live fatigue state for {} players in session {}", removed.size(), sessionId);
+        }
+    }
+    
+    private FatigueAlert toAlert(PlayerFatigueTracker tracker, FatigueFeatures features,
+                                 double fatigueLevel, String category, String previous) {
+        LocalDateTime timestamp = tracker.getLastMillis() >= 0
+                ? EpochTime.toLocalDateTime(tracker.getLastMillis())
+                : null;
+        
+        return new FatigueAlert(
+                tracker.getPlayerId(),
+                tracker.getSessionId(),
+                timestamp,
+                fatigueLevel,
+                category,
+                previous,
+                features.speedDeclinePercentage(),
+                features.accelerationDecline(),
+                features.timeInZone4Plus(),
+                features.averageRecoveryTime(),
+                fatigueDetectionService.identifyKeyFatigueIndicators(features));
+    }
+}
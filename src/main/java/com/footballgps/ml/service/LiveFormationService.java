@@ -0,0 +1,114 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.analysis.FormationSpan;
+import com.footballgps.ml.model.FormationChange;
+import com.footballgps.ml.model.FormationWindow;
+import com.footballgps.ml.realtime.SessionFormationTracker;
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-match formation detection over rolling windows. Every ingested fix updates the
+ * session's window in memory; when a window closes its formation is stored in
+ * formation_windows and, if it differs from the previous window's, pushed to
+ * /topic/formation/{sessionId}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveFormationService {
+    
+    private final FormationTimelineService formationTimelineService;
+    private final SimpMessagingTemplate messagingTemplate;
+    
+    private final Map<String, SessionFormationTracker> sessions = new ConcurrentHashMap<>();
+    
+    public void onFix(GpsData fix) {
+        if (fix.getPlayerId() == null || fix.getSessionId() == null
+                || fix.getPosition() == null || fix.getTimestamp() == 0) {
+            return;
+        }
+        
+        SessionFormationTracker tracker = sessions.computeIfAbsent(fix.getSessionId(),
+                id -> new SessionFormationTracker(id, formationTimelineService.getWindowMillis()));
+        
+        FormationSpan closed;
+        String previous = null;
+        synchronized (tracker) {
+            closed = tracker.update(fix.getPlayerId(), fix.getTimestamp(),
+                    fix.getPosition().getLatitude(), fix.getPosition().getLongitude());
+            if (closed != null) {
+                previous = tracker.markFormation(closed.match().formation());
+            }
+        }
+        
+        if (closed != null) {
+            record(fix.getSessionId(), closed, previous);
+        }
+    }
+    
+    public String getCurrentFormation(String sessionId) {
+        SessionFormationTracker tracker = sessions.get(sessionId);
+        if (tracker == null) {
+            return null;
+        }
+        synchronized (tracker) {
+            return tracker.getCurrentFormation();
+        }
+    }
+    
+    /** Closes the final, partial window of a finished session and drops its state. */
+    public void releaseSession(String sessionId) {
+        SessionFormationTracker tracker = sessions.remove(sessionId);
+        if (tracker == null) {
+            return;
+        }
+        
+        FormationSpan closed;
+        String previous = null;
+        synchronized (tracker) {
+            closed = tracker.closeWindow();
+            if (closed != null) {
+                previous = tracker.markFormation(closed.match().formation());
+            }
+        }
+        
+        if (closed != null) {
+            record(sessionId, closed, previous);
+        }
+        log.info("Released live formation state for session {}", sessionId);
+    }
+    
+    private void record(String sessionId, FormationSpan span, String previous) {
+        try {
+            formationTimelineService.saveWindow(sessionId, span, FormationWindow.Source.LIVE);
+        } catch (DataAccessException e) {
+            // Never fail ingestion over a timeline entry
+            log.warn("Could not store formation window for session {}: {}", sessionId, e.getMessage());
+        }
+        
+        String formation = span.match().formation();
+        if (formation.equals(previous)) {
+            return;
+        }
+        
+        FormationChange change = new FormationChange(
+                sessionId,
+                EpochTime.toLocalDateTime(span.startMillis()),
+                EpochTime.toLocalDateTime(span.endMillis()),
+                formation,
+                previous,
+                span.match().confidence(),
+                span.match().roles());
+        messagingTemplate.convertAndSend("/topic/formation/" + sessionId, change);
+        log.info("Formation change in session {}: {} -> {}", sessionId, previous, formation);
+    }
+}
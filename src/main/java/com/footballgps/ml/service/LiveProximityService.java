@@ -0,0 +1,84 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.model.PlayerProximity;
+import com.footballgps.ml.realtime.SessionProximityTracker;
+import com.footballgps.model.GpsData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live support-distance, passing-option and pressing metrics. Fixes only update each
+ * player's latest position; a fixed-rate tick (10 Hz by default) analyses every active
+ * session's current positions as one frame through a spatial grid. Never reads from
+ * the database.
+ */
+@Service
+@Slf4j
+public class LiveProximityService {
+    
+    // Players who have not reported for this long are left out of frames
+    @Value("${ml.proximity.stale-after-ms:2000}")
+    private long staleAfterMillis;
+    
+    private final Map<String, SessionProximityTracker> sessions = new ConcurrentHashMap<>();
+    
+    public void onFix(GpsData fix) {
+        if (fix.getPlayerId() == null || fix.getSessionId() == null
+                || fix.getPosition() == null || fix.getMovement() == null) {
+            return;
+        }
+        
+        SessionProximityTracker tracker = sessions.computeIfAbsent(fix.getSessionId(), SessionProximityTracker::new);
+        synchronized (tracker) {
+            tracker.update(fix.getPlayerId(), System.currentTimeMillis(),
+                    fix.getPosition().getLatitude(), fix.getPosition().getLongitude(),
+                    fix.getMovement().getSpeed(), fix.getMovement().getDirection());
+        }
+    }
+    
+    @Scheduled(fixedRateString = "${ml.proximity.frame-interval-ms:100}")
+    public void sampleFrames() {
+        long now = System.currentTimeMillis();
+        for (SessionProximityTracker tracker : sessions.values()) {
+            synchronized (tracker) {
+                tracker.sampleFrame(now, staleAfterMillis);
+            }
+        }
+    }
+    
+    public List<PlayerProximity> getSessionProximity(String sessionId) {
+        SessionProximityTracker tracker = sessions.get(sessionId);
+        if (tracker == null) {
+            return Collections.emptyList();
+        }
+        synchronized (tracker) {
+            return tracker.snapshot();
+        }
+    }
+    
+    /** Average number of teammates 5-30 m away, if the player is being tracked live. */
+    public OptionalDouble getAveragePassingOptions(String sessionId, String playerId) {
+        SessionProximityTracker tracker = sessions.get(sessionId);
+        if (tracker == null) {
+            return OptionalDouble.empty();
+        }
+        synchronized (tracker) {
+            return tracker.averagePassingOptions(playerId);
+        }
+    }
+    
+    /** Drops all in-memory state for a finished session. */
+    public void releaseSession(String sessionId) {
+        if (sessions.remove(sessionId) != null) {
+            log.info("Released live proximity state for session {}", sessionId);
+        }
+    }
+}
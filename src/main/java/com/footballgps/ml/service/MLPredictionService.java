@@ -1,14 +1,27 @@
 package com.footballgps.ml.service;
 
 import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.model.MLPredictionSummary;
+import com.footballgps.ml.model.PredictionPage;
 import com.footballgps.ml.repository.MLPredictionRepository;
+import com.footballgps.service.DataVersionTracker;
+import com.footballgps.util.EpochTime;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +29,12 @@ import java.util.Optional;
 public class MLPredictionService {
     
     private final MLPredictionRepository mlPredictionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final PredictionCache predictionCache;
+    private final DataVersionTracker dataVersionTracker;
+    
+    private static final String COLLECTION = "ml_predictions";
+    private static final int MAX_PAGE_SIZE = 500;
     
     public MLPrediction savePrediction(MLPrediction prediction) {
         MLPrediction saved = mlPredictionRepository.save(prediction);
@@ -24,31 +43,129 @@ public class MLPredictionService {
         return saved;
     }
     
-    public List<MLPrediction> getPlayerPredictions(String playerId) {
-        return mlPredictionRepository.findByPlayerIdOrderByPredictedAtDesc(playerId);
+    public List<MLPrediction> savePredictions(List<MLPrediction> predictions) {
+        if (predictions.isEmpty()) {
+            return predictions;
+        }
+        List<MLPrediction> saved = mlPredictionRepository.saveAll(predictions);
+        log.info("Saved {} ML predictions in bulk", saved.size());
+        return saved;
     }
     
-    public List<MLPrediction> getSessionPredictions(String sessionId) {
-        return mlPredictionRepository.findBySessionIdOrderByPredictedAtDesc(sessionId);
+    public Optional<MLPrediction> getPrediction(String id) {
+        return mlPredictionRepository.findById(id);
     }
     
-    public List<MLPrediction> getPredictionsByType(MLPrediction.PredictionType type) {
-        return mlPredictionRepository.findByTypeOrderByPredictedAtDesc(type);
+    public PredictionPage getPlayerPredictions(String playerId, String cursor, int limit) {
+        return findSummaryPage(Criteria.where("playerId").is(playerId), cursor, limit);
+    }
+    
+    public PredictionPage getSessionPredictions(String sessionId, String cursor, int limit) {
+        return findSummaryPage(Criteria.where("sessionId").is(sessionId), cursor, limit);
+    }
+    
+    public PredictionPage getPredictionsByType(MLPrediction.PredictionType type, String cursor, int limit) {
+        return findSummaryPage(Criteria.where("type").is(type), cursor, limit);
     }
     
     public Optional<MLPrediction> getLatestPrediction(String playerId, MLPrediction.PredictionType type) {
-        List<MLPrediction> predictions = mlPredictionRepository
-                .findByPlayerIdAndTypeOrderByPredictedAtDesc(playerId, type);
-        return predictions.isEmpty() ? Optional.empty() : Optional.of(predictions.get(0));
+        return mlPredictionRepository.findFirstByPlayerIdAndTypeOrderByPredictedAtDesc(playerId, type);
+    }
+    
+    /**
+     * Returns the cached prediction while no GPS, metrics or player data for the player or
+     * session has changed since it was computed; otherwise runs {@code compute} and caches it.
+     */
+    public MLPrediction getOrCompute(MLPrediction.PredictionType type, String playerId, String sessionId,
+                                     Supplier<MLPrediction> compute) {
+        PredictionCache.Key key = new PredictionCache.Key(type, playerId, sessionId);
+        
+        // Read the watermark first: data written during computation leaves the entry stale
+        long watermark = dataVersionTracker.watermark(playerId, sessionId);
+        Optional<MLPrediction> cached = predictionCache.get(key, watermark);
+        if (cached.isPresent()) {
+            log.debug("Prediction cache hit: {} for player: {} session: {}", type, playerId, sessionId);
+            return cached.get();
+        }
+        
+        MLPrediction prediction = compute.get();
+        predictionCache.put(key, watermark, prediction);
+        return prediction;
+    }
+    
+    /** Latest prediction that is still valid for the current data, if one is cached. */
+    public Optional<MLPrediction> getLatestPrediction(MLPrediction.PredictionType type, String playerId, String sessionId) {
+        return predictionCache.get(new PredictionCache.Key(type, playerId, sessionId),
+                dataVersionTracker.watermark(playerId, sessionId));
+    }
+    
+    public Map<String, Object> getCacheStats() {
+        return predictionCache.getStats();
     }
     
-    public List<MLPrediction> getRecentPredictions(int hours) {
+    public PredictionPage getRecentPredictions(int hours, String cursor, int limit) {
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        return mlPredictionRepository.findByPredictedAtAfterOrderByPredictedAtDesc(since);
+        return findSummaryPage(Criteria.where("predictedAt").gt(since), cursor, limit);
     }
     
     public void deletePrediction(String id) {
         mlPredictionRepository.deleteById(id);
         log.info("Deleted ML prediction: {}", id);
     }
+    
+    /**
+     * Keyset pagination over (predictedAt desc, _id desc), served by the compound indexes
+     * on MLPrediction. Each page is a single index range scan however deep the client
+     * pages, unlike skip/limit. The cursor is the position of the last item returned.
+     */
+    private PredictionPage findSummaryPage(Criteria filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            LocalDateTime predictedAt = EpochTime.toLocalDateTime(Long.parseLong(position[0]));
+            ObjectId id = new ObjectId(position[1]);
+            criteria = new Criteria().andOperator(filter, new Criteria().orOperator(
+                    Criteria.where("predictedAt").lt(predictedAt),
+                    Criteria.where("predictedAt").is(predictedAt).and("_id").lt(id)));
+        }
+        
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("predictedAt"), Sort.Order.desc("_id")))
+                .limit(pageSize + 1);
+        query.fields().exclude("input").exclude("metadata");
+        
+        List<MLPredictionSummary> items = mongoTemplate.find(query, MLPredictionSummary.class, COLLECTION);
+        
+        // One extra row tells us whether another page exists without a count query
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            MLPredictionSummary last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getPredictedAt(), last.getId());
+        }
+        
+        return new PredictionPage(items, pageSize, nextCursor);
+    }
+    
+    private String encodeCursor(LocalDateTime predictedAt, String id) {
+        String position = EpochTime.toMillis(predictedAt) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 2);
+            if (parts.length != 2 || !ObjectId.isValid(parts[1])) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            Long.parseLong(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
 }
@@ -0,0 +1,388 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.feature.FatigueFeatures;
+import com.footballgps.ml.feature.InjuryRiskFeatures;
+import com.footballgps.ml.model.MLModel;
+import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.model.TrainingReport;
+import com.footballgps.ml.repository.MLModelRepository;
+import com.footballgps.ml.runtime.ModelCompiler;
+import com.footballgps.ml.runtime.ModelRegistry;
+import com.footballgps.ml.training.BinaryClassificationMetrics;
+import com.footballgps.ml.training.LogisticRegressionTrainer;
+import com.footballgps.ml.training.TrainingExample;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.storage.GpsDataStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Offline training for the injury and fatigue models. Labels are the MLPrediction
+ * documents marked {@code isActual}, which the archiver leaves in place, dated by their
+ * observedAt; the matching history is streamed in index order, one player (or, through
+ * the GPS store, one player-session) at a time, and feature extraction for each chunk
+ * runs on the scoring pool while the next chunk is read. The fitted logistic regression
+ * is written as a new MLModel version with its validation metrics, as a CANDIDATE that
+ * is shadow-scored until it is promoted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ModelTrainingService {
+    
+    private final MongoTemplate mongoTemplate;
+    private final GpsDataStore gpsDataStore;
+    private final MLModelRepository mlModelRepository;
+    private final ModelRegistry modelRegistry;
+    private final InjuryPredictionService injuryPredictionService;
+    private final FatigueDetectionService fatigueDetectionService;
+    private final ForkJoinPool mlScoringPool;
+    
+    private static final int INJURY_HISTORY_DAYS = 30;
+    private static final int MIN_EXAMPLES = 20;
+    private static final int STREAM_BATCH_SIZE = 5000;
+    private static final String VERSION_COUNTERS = "ml_model_versions";
+    
+    @Value("${ml.training.l2:1.0}")
+    private double l2;
+    
+    @Value("${ml.training.min-validation-auc:0.6}")
+    private double minValidationAuc;
+    
+    private record Label(String playerId, String sessionId, LocalDateTime at, boolean positive) {}
+    
+    public TrainingReport train(MLModel.ModelType type, LocalDateTime from, LocalDateTime to) {
+        log.info("Training {} model on outcomes from {} to {}", type, from, to);
+        long pipelineStart = System.nanoTime();
+        Map<String, Long> timings = new LinkedHashMap<>();
+        
+        long stageStart = System.nanoTime();
+        List<Label> labels = loadLabels(type, from, to);
+        timings.put("labels", elapsedMs(stageStart));
+        
+        stageStart = System.nanoTime();
+        List<TrainingExample> examples = switch (type) {
+            case INJURY_PREDICTION -> buildInjuryExamples(labels, from, to);
+            case FATIGUE_DETECTION -> buildFatigueExamples(labels);
+            default -> throw new IllegalArgumentException("Training is not supported for " + type);
+        };
+        timings.put("features", elapsedMs(stageStart));
+        
+        // Hold out whole players: a fifth of them, chosen by hash so reruns are comparable
+        List<TrainingExample> train = new ArrayList<>();
+        List<TrainingExample> validation = new ArrayList<>();
+        for (TrainingExample example : examples) {
+            (Math.floorMod(example.group().hashCode(), 5) == 0 ? validation : train).add(example);
+        }
+        
+        if (train.size() < MIN_EXAMPLES || train.stream().allMatch(TrainingExample::label)
+                || train.stream().noneMatch(TrainingExample::label)) {
+            String message = String.format("Need at least %d training examples with both outcomes; found %d from %d labels",
+                    MIN_EXAMPLES, train.size(), labels.size());
+            log.warn("Not training {} model: {}", type, message);
+            return new TrainingReport(null, type, null, null, labels.size(), train.size(), validation.size(),
+                    Collections.emptyMap(), timings, message);
+        }
+        
+        stageStart = System.nanoTime();
+        LogisticRegressionTrainer.Fit fit = new LogisticRegressionTrainer(l2).fit(train);
+        timings.put("fit", elapsedMs(stageStart));
+        
+        stageStart = System.nanoTime();
+        Map<String, Double> trainMetrics = evaluate(fit, train);
+        Map<String, Double> metrics = new LinkedHashMap<>(evaluate(fit, validation));
+        metrics.put("trainAuc", trainMetrics.get("auc"));
+        metrics.put("trainLogLoss", trainMetrics.get("logLoss"));
+        timings.put("evaluate", elapsedMs(stageStart));
+        
+        stageStart = System.nanoTime();
+        MLModel model = buildModel(type, fit, metrics, from, to, labels.size(), train.size(), validation.size());
+        MLModel saved = mlModelRepository.save(model);
+        if (saved.getStatus() == MLModel.ModelStatus.CANDIDATE) {
+            modelRegistry.reload();
+        }
+        timings.put("save", elapsedMs(stageStart));
+        timings.put("total", elapsedMs(pipelineStart));
+        
+        String message = saved.getStatus() == MLModel.ModelStatus.CANDIDATE
+                ? "Model is shadow-scoring as a candidate; promote it to serve predictions"
+                : String.format("Validation AUC %.3f is below the %.3f required for a candidate", metrics.get("auc"), minValidationAuc);
+        log.info("Trained {} model {} version {} in {} ms: {} ({})",
+                type, saved.getId(), saved.getVersion(), timings.get("total"), metrics, message);
+        
+        return new TrainingReport(saved.getId(), type, saved.getVersion(), saved.getStatus(), labels.size(),
+                train.size(), validation.size(), metrics, timings, message);
+    }
+    
+    private List<Label> loadLabels(MLModel.ModelType type, LocalDateTime from, LocalDateTime to) {
+        MLPrediction.PredictionType predictionType;
+        String flagKey;
+        String scoreKey;
+        switch (type) {
+            case INJURY_PREDICTION -> {
+                predictionType = MLPrediction.PredictionType.INJURY_RISK;
+                flagKey = "injured";
+                scoreKey = "injuryRisk";
+            }
+            case FATIGUE_DETECTION -> {
+                predictionType = MLPrediction.PredictionType.FATIGUE_LEVEL;
+                flagKey = "fatigued";
+                scoreKey = "fatigueLevel";
+            }
+            default -> throw new IllegalArgumentException("Training is not supported for " + type);
+        }
+        
+        Query query = new Query(Criteria.where("type").is(predictionType)
+                .and("isActual").is(true)
+                .and("observedAt").gte(from).lte(to));
+        query.fields().include("playerId").include("sessionId").include("observedAt").include("output");
+        
+        List<Label> labels = new ArrayList<>();
+        for (MLPrediction outcome : mongoTemplate.find(query, MLPrediction.class)) {
+            Boolean positive = outcomeLabel(outcome.getOutput(), flagKey, scoreKey);
+            if (positive != null && outcome.getPlayerId() != null && outcome.getObservedAt() != null) {
+                labels.add(new Label(outcome.getPlayerId(), outcome.getSessionId(), outcome.getObservedAt(), positive));
+            }
+        }
+        return labels;
+    }
+    
+    private Boolean outcomeLabel(Map<String, Object> output, String flagKey, String scoreKey) {
+        if (output == null) {
+            return null;
+        }
+        if (output.get(flagKey) instanceof Boolean flag) {
+            return flag;
+        }
+        if (output.get(scoreKey) instanceof Number score) {
+            return score.doubleValue() >= 0.5;
+        }
+        return null;
+    }
+    
+    /** One example per outcome: features over the player's 30 days of metrics before it. */
+    private List<TrainingExample> buildInjuryExamples(List<Label> labels, LocalDateTime from, LocalDateTime to) {
+        Map<String, List<Label>> labelsByPlayer = labels.stream().collect(Collectors.groupingBy(Label::playerId));
+        if (labelsByPlayer.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Query query = new Query(Criteria.where("playerId").in(labelsByPlayer.keySet())
+                .and("calculatedAt").gte(from.minusDays(INJURY_HISTORY_DAYS)).lte(to))
+                .with(Sort.by("playerId", "calculatedAt"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        query.fields().include("playerId").include("calculatedAt")
+                .include("load.acuteChronicRatio")
+                .include("movement.playerLoad").include("movement.sprintCount").include("movement.maxSpeed");
+        
+        ChunkProcessor processor = new ChunkProcessor();
+        try (Stream<PlayerMetrics> stream = mongoTemplate.stream(query, PlayerMetrics.class)) {
+            String currentPlayer = null;
+            List<PlayerMetrics> chunk = new ArrayList<>();
+            
+            for (Iterator<PlayerMetrics> it = stream.iterator(); it.hasNext(); ) {
+                PlayerMetrics metrics = it.next();
+                if (!metrics.getPlayerId().equals(currentPlayer)) {
+                    submitInjuryChunk(processor, currentPlayer, chunk, labelsByPlayer);
+                    currentPlayer = metrics.getPlayerId();
+                    chunk = new ArrayList<>();
+                }
+                chunk.add(metrics);
+            }
+            submitInjuryChunk(processor, currentPlayer, chunk, labelsByPlayer);
+        }
+        return processor.await();
+    }
+    
+    private void submitInjuryChunk(ChunkProcessor processor, String playerId, List<PlayerMetrics> history,
+                                   Map<String, List<Label>> labelsByPlayer) {
+        if (playerId == null || history.isEmpty()) {
+            return;
+        }
+        processor.submit(() -> {
+            List<TrainingExample> examples = new ArrayList<>();
+            for (Label label : labelsByPlayer.get(playerId)) {
+                // History is sorted by calculatedAt, so each window is a contiguous slice
+                int start = lowerBound(history, label.at().minusDays(INJURY_HISTORY_DAYS));
+                int end = lowerBound(history, label.at());
+                if (end > start) {
+                    InjuryRiskFeatures features = injuryPredictionService
+                            .extractInjuryRiskFeatures(history.subList(start, end));
+                    examples.add(new TrainingExample(features.toArray(), label.positive(), playerId));
+                }
+            }
+            return examples;
+        });
+    }
+    
+    /** One example per labelled player-session: fatigue features over that session's fixes. */
+    private List<TrainingExample> buildFatigueExamples(List<Label> labels) {
+        Map<String, Label> labelsBySession = new HashMap<>();
+        for (Label label : labels) {
+            if (label.sessionId() != null) {
+                labelsBySession.put(label.playerId() + "|" + label.sessionId(), label);
+            }
+        }
+        if (labelsBySession.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        // Through the GPS store, so every storage layout is read; each labelled pair is one chunk
+        ChunkProcessor processor = new ChunkProcessor();
+        for (Label label : new TreeMap<>(labelsBySession).values()) {
+            List<GpsData> chunk;
+            try (Stream<GpsData> fixes = gpsDataStore.streamByPlayerIdAndSessionId(label.playerId(), label.sessionId())) {
+                chunk = fixes.toList();
+            }
+            submitFatigueChunk(processor, label, chunk);
+        }
+        return processor.await();
+    }
+    
+    private void submitFatigueChunk(ChunkProcessor processor, Label label, List<GpsData> sessionData) {
+        if (label == null || sessionData.size() < 4) {
+            return;
+        }
+        processor.submit(() -> {
+            PlayerMetrics metrics = mongoTemplate.findOne(new Query(Criteria.where("playerId").is(label.playerId())
+                    .and("sessionId").is(label.sessionId()))
+                    .with(Sort.by(Sort.Direction.DESC, "calculatedAt")), PlayerMetrics.class);
+            FatigueFeatures features = fatigueDetectionService.analyzeFatigueIndicators(sessionData, metrics);
+            return Collections.singletonList(new TrainingExample(features.toArray(), label.positive(), label.playerId()));
+        });
+    }
+    
+    /**
+     * Runs chunk feature extraction on the scoring pool. The semaphore caps the number of
+     * chunks held in memory, so the reading thread waits when extraction falls behind.
+     */
+    private class ChunkProcessor {
+        private final Semaphore inFlight = new Semaphore(Math.max(2, mlScoringPool.getParallelism() * 2));
+        private final List<Future<List<TrainingExample>>> futures = new ArrayList<>();
+        
+        void submit(Supplier<List<TrainingExample>> work) {
+            inFlight.acquireUninterruptibly();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return work.get();
+                } finally {
+                    inFlight.release();
+                }
+            }, mlScoringPool));
+        }
+        
+        List<TrainingExample> await() {
+            List<TrainingExample> examples = new ArrayList<>();
+            for (Future<List<TrainingExample>> future : futures) {
+                try {
+                    examples.addAll(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while extracting training features", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Feature extraction failed", e.getCause());
+                }
+            }
+            return examples;
+        }
+    }
+    
+    private Map<String, Double> evaluate(LogisticRegressionTrainer.Fit fit, List<TrainingExample> examples) {
+        double[] scores = new double[examples.size()];
+        boolean[] labels = new boolean[examples.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = fit.score(examples.get(i).features());
+            labels[i] = examples.get(i).label();
+        }
+        return BinaryClassificationMetrics.evaluate(scores, labels);
+    }
+    
+    private MLModel buildModel(MLModel.ModelType type, LogisticRegressionTrainer.Fit fit, Map<String, Double> metrics,
+                               LocalDateTime from, LocalDateTime to, int labels, int trainExamples, int validationExamples) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("algorithm", ModelCompiler.LOGISTIC_REGRESSION);
+        parameters.put("featureNames", ModelCompiler.expectedFeatures(type));
+        parameters.put("weights", toList(fit.weights()));
+        parameters.put("intercept", fit.intercept());
+        parameters.put("means", toList(fit.means()));
+        parameters.put("scales", toList(fit.scales()));
+        
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("trainedFrom", from);
+        metadata.put("trainedTo", to);
+        metadata.put("labels", labels);
+        metadata.put("trainExamples", trainExamples);
+        metadata.put("validationExamples", validationExamples);
+        metadata.put("l2", l2);
+        metadata.put("iterations", fit.iterations());
+        
+        boolean passes = metrics.getOrDefault("auc", 0.0) >= minValidationAuc;
+        
+        MLModel model = new MLModel();
+        model.setName(type.name().toLowerCase().replace('_', '-') + "-logistic-regression");
+        model.setType(type);
+        model.setVersion(nextVersion(type));
+        model.setStatus(passes ? MLModel.ModelStatus.CANDIDATE : MLModel.ModelStatus.FAILED);
+        model.setParameters(parameters);
+        model.setMetrics(metrics);
+        model.setTrainedAt(LocalDateTime.now());
+        model.setMetadata(metadata);
+        return model;
+    }
+    
+    /**
+     * Next version for the type from a per-type counter, so concurrent runs never share one.
+     * The counter is first raised to the number of stored models, which seeds it for models
+     * trained before it existed.
+     */
+    private String nextVersion(MLModel.ModelType type) {
+        Query counter = new Query(Criteria.where("_id").is(type.name()));
+        mongoTemplate.upsert(counter, new Update().max("seq", mlModelRepository.countByType(type)), VERSION_COUNTERS);
+        Document next = mongoTemplate.findAndModify(counter, new Update().inc("seq", 1L),
+                FindAndModifyOptions.options().returnNew(true), Document.class, VERSION_COUNTERS);
+        return String.valueOf(next.get("seq", Number.class).longValue());
+    }
+    
+    private List<Double> toList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+    
+    private int lowerBound(List<PlayerMetrics> history, LocalDateTime at) {
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (history.get(mid).getCalculatedAt().isBefore(at)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
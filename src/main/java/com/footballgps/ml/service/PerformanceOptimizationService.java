@@ -4,7 +4,7 @@ import com.footballgps.ml.model.MLPrediction;
 import com.footballgps.model.PlayerMetrics;
 import com.footballgps.model.Player;
 import com.footballgps.repository.PlayerMetricsRepository;
-import com.footballgps.repository.PlayerRepository;
+import com.footballgps.service.PlayerCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,13 +19,18 @@ import java.util.stream.Collectors;
 public class PerformanceOptimizationService {
     
     private final PlayerMetricsRepository playerMetricsRepository;
-    private final PlayerRepository playerRepository;
+    private final PlayerCache playerCache;
     private final MLPredictionService mlPredictionService;
     
     public MLPrediction optimizePerformance(String playerId) {
+        return mlPredictionService.getOrCompute(MLPrediction.PredictionType.PERFORMANCE_DECLINE, playerId, null,
+                () -> computeOptimization(playerId));
+    }
+    
+    private MLPrediction computeOptimization(String playerId) {
         log.info("Optimizing performance for player: {}", playerId);
         
-        Optional<Player> playerOpt = playerRepository.findById(playerId);
+        Optional<Player> playerOpt = playerCache.get(playerId);
         if (playerOpt.isEmpty()) {
             throw new IllegalArgumentException("Player not found: " + playerId);
         }
@@ -41,6 +46,15 @@ public class PerformanceOptimizationService {
             return createDefaultOptimizationPrediction(playerId);
         }
         
+        return mlPredictionService.savePrediction(buildOptimizationPrediction(player, recentMetrics));
+    }
+    
+    public MLPrediction buildOptimizationPrediction(Player player, List<PlayerMetrics> recentMetrics) {
+        String playerId = player.getId();
+        if (recentMetrics.isEmpty()) {
+            return createDefaultOptimizationPrediction(playerId);
+        }
+        
         // Analyze performance patterns
         Map<String, Object> analysis = analyzePerformancePatterns(recentMetrics, player);
         
@@ -56,7 +70,7 @@ public class PerformanceOptimizationService {
         prediction.setConfidence(calculateOptimizationConfidence(analysis));
         prediction.setPredictedAt(LocalDateTime.now());
         
-        return mlPredictionService.savePrediction(prediction);
+        return prediction;
     }
     
     private Map<String, Object> analyzePerformancePatterns(List<PlayerMetrics> metrics, Player player) {
@@ -0,0 +1,245 @@
+package com.footballgps.ml.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.footballgps.analysis.PitchControlModel;
+import com.footballgps.analysis.TeamFrames;
+import com.footballgps.ml.model.PitchControlFrame;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.Player;
+import com.footballgps.service.DataVersionTracker;
+import com.footballgps.service.PlayerCache;
+import com.footballgps.storage.GpsDataStore;
+import com.footballgps.util.EpochTime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Per-frame pitch-control surfaces for a session, written as newline-delimited JSON. The
+ * session is aligned once into pitch-aligned frames and kept for a few recent sessions;
+ * computed surfaces go into an LRU cache keyed by the session's data watermark, so new
+ * GPS data makes old surfaces unreachable and they age out. Missing frames are computed
+ * a batch at a time on the scoring pool and written as each batch finishes.
+ */
+@Service
+@Slf4j
+public class PitchControlService {
+    
+    // Aligned sessions kept in memory; each holds positions and velocities for every frame
+    private static final int MAX_SESSIONS = 4;
+    private static final int FRAMES_PER_BATCH = 256;
+    private static final float[] NO_PLAYERS = new float[0];
+    
+    /** A session aligned into frames, with the players whose control is reported. */
+    public record Session(String sessionId, String teamId, long watermark, TeamFrames frames, boolean[] team) {}
+    
+    private record SessionKey(String sessionId, String teamId) {}
+    
+    private record FrameKey(String sessionId, String teamId, long watermark, int frame) {}
+    
+    private final GpsDataStore gpsDataStore;
+    private final PlayerCache playerCache;
+    private final DataVersionTracker dataVersionTracker;
+    private final ForkJoinPool mlScoringPool;
+    private final ObjectWriter lineWriter;
+    private final PitchControlModel model;
+    private final long tickMillis;
+    private final int maxCachedFrames;
+    
+    private final LinkedHashMap<SessionKey, Session> sessions;
+    private final LinkedHashMap<FrameKey, float[]> surfaces;
+    
+    public PitchControlService(GpsDataStore gpsDataStore,
+                               PlayerCache playerCache,
+                               DataVersionTracker dataVersionTracker,
+                               ForkJoinPool mlScoringPool,
+                               ObjectMapper objectMapper,
+                               @Value("${ml.pitch-control.grid-columns:32}") int columns,
+                               @Value("${ml.pitch-control.grid-rows:20}") int rows,
+                               @Value("${ml.pitch-control.pitch-length:105}") double pitchLength,
+                               @Value("${ml.pitch-control.pitch-width:68}") double pitchWidth,
+                               @Value("${ml.pitch-control.tick-ms:1000}") long tickMillis,
+                               @Value("${ml.pitch-control.cache-max-frames:20000}") int maxCachedFrames) {
+        this.gpsDataStore = gpsDataStore;
+        this.playerCache = playerCache;
+        this.dataVersionTracker = dataVersionTracker;
+        this.mlScoringPool = mlScoringPool;
+        // One frame per line, whatever the global indent setting
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.model = new PitchControlModel(columns, rows, pitchLength, pitchWidth);
+        this.tickMillis = tickMillis;
+        this.maxCachedFrames = maxCachedFrames;
+        
+        // Access order, so the eldest entry is the least recently used
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SessionKey, Session> eldest) {
+                return size() > MAX_SESSIONS;
+            }
+        };
+        this.surfaces = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FrameKey, float[]> eldest) {
+                return size() > PitchControlService.this.maxCachedFrames;
+            }
+        };
+    }
+    
+    /**
+     * Aligns the session, or reuses a current alignment. {@code teamId} selects whose control
+     * is reported; null picks the team with the most tracked players. Empty if the session
+     * has no data or nobody from the requested team.
+     */
+    public Optional<Session> openSession(String sessionId, String teamId) {
+        long watermark = dataVersionTracker.watermark(null, sessionId);
+        SessionKey key = new SessionKey(sessionId, teamId);
+        synchronized (sessions) {
+            Session cached = sessions.get(key);
+            if (cached != null && cached.watermark() == watermark) {
+                return Optional.of(cached);
+            }
+        }
+        
+        List<GpsData> sessionData = gpsDataStore.findBySessionId(sessionId);
+        if (sessionData.isEmpty()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        TeamFrames frames = TeamFrames.align(sessionData, tickMillis, TeamFrames.DEFAULT_MAX_GAP_MILLIS);
+        
+        Map<String, String> teams = new HashMap<>();
+        for (Player player : playerCache.getAll(frames.playerIds())) {
+            if (player.getTeamId() != null) {
+                teams.put(player.getId(), player.getTeamId());
+            }
+        }
+        String team = teamId != null ? teamId : largestTeam(frames, teams);
+        boolean[] mask = new boolean[frames.playerCount()];
+        boolean any = false;
+        for (int p = 0; p < mask.length; p++) {
+            mask[p] = Objects.equals(team, teams.get(frames.playerId(p)));
+            any |= mask[p];
+        }
+        if (!any) {
+            return Optional.empty();
+        }
+        log.debug("Aligned session {} for pitch control: {} players, {} frames in {} ms",
+                sessionId, frames.playerCount(), frames.frameCount(), (System.nanoTime() - start) / 1_000_000);
+        
+        Session session = new Session(sessionId, team, watermark, frames, mask);
+        synchronized (sessions) {
+            sessions.put(key, session);
+        }
+        return Optional.of(session);
+    }
+    
+    /**
+     * Writes one JSON line per frame between {@code start} and {@code end} (either may be
+     * null for the session's first or last frame). Frames nobody was tracked in are skipped.
+     */
+    public void writeFrames(Session session, LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException {
+        TeamFrames frames = session.frames();
+        int from = 0;
+        int to = frames.frameCount();
+        if (start != null) {
+            long offset = EpochTime.toMillis(start) - frames.startMillis();
+            from = (int) Math.max(0, Math.min(to, (offset + tickMillis - 1) / tickMillis));
+        }
+        if (end != null) {
+            long offset = EpochTime.toMillis(end) - frames.startMillis();
+            to = offset < 0 ? 0 : (int) Math.min(to, offset / tickMillis + 1);
+        }
+        
+        int computed = 0;
+        for (int batchStart = from; batchStart < to; batchStart += FRAMES_PER_BATCH) {
+            int batchEnd = Math.min(to, batchStart + FRAMES_PER_BATCH);
+            float[][] batch = new float[batchEnd - batchStart][];
+            
+            // Cached frames first; everything between the first and last miss is computed together
+            int firstMissing = -1, lastMissing = -1;
+            synchronized (surfaces) {
+                for (int f = batchStart; f < batchEnd; f++) {
+                    batch[f - batchStart] = surfaces.get(frameKey(session, f));
+                    if (batch[f - batchStart] == null) {
+                        if (firstMissing < 0) {
+                            firstMissing = f;
+                        }
+                        lastMissing = f;
+                    }
+                }
+            }
+            if (firstMissing >= 0) {
+                float[][] fresh = model.compute(frames, session.team(), firstMissing, lastMissing + 1, mlScoringPool);
+                synchronized (surfaces) {
+                    for (int i = 0; i < fresh.length; i++) {
+                        float[] surface = fresh[i] != null ? fresh[i] : NO_PLAYERS;
+                        batch[firstMissing + i - batchStart] = surface;
+                        surfaces.put(frameKey(session, firstMissing + i), surface);
+                    }
+                }
+                computed += fresh.length;
+            }
+            
+            for (int f = batchStart; f < batchEnd; f++) {
+                float[] surface = batch[f - batchStart];
+                if (surface.length == 0) {
+                    continue;
+                }
+                out.write(lineWriter.writeValueAsBytes(toFrame(session, f, surface)));
+                out.write('\n');
+            }
+            out.flush();
+        }
+        log.debug("Streamed pitch control for session {} frames {}-{}: {} computed, {} cached",
+                session.sessionId(), from, to, computed, Math.max(0, to - from) - computed);
+    }
+    
+    private PitchControlFrame toFrame(Session session, int frame, float[] surface) {
+        TeamFrames frames = session.frames();
+        int players = 0;
+        for (int p = 0; p < frames.playerCount(); p++) {
+            if (!Double.isNaN(frames.x(frame, p))) {
+                players++;
+            }
+        }
+        double sum = 0;
+        for (float value : surface) {
+            sum += value;
+        }
+        return new PitchControlFrame(
+                session.sessionId(),
+                session.teamId(),
+                EpochTime.toLocalDateTime(frames.frameMillis(frame)),
+                players,
+                model.columns(),
+                model.rows(),
+                sum / surface.length,
+                surface);
+    }
+    
+    private FrameKey frameKey(Session session, int frame) {
+        return new FrameKey(session.sessionId(), session.teamId(), session.watermark(), frame);
+    }
+    
+    private String largestTeam(TeamFrames frames, Map<String, String> teams) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String playerId : frames.playerIds()) {
+            String team = teams.get(playerId);
+            if (team != null) {
+                counts.merge(team, 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
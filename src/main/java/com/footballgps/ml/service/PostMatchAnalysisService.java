@@ -0,0 +1,162 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.ml.model.SessionAnalysisReport;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.Player;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.service.PlayerCache;
+import com.footballgps.storage.GpsDataStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostMatchAnalysisService {
+
+    private final GpsDataStore gpsDataStore;
+    private final PlayerMetricsRepository playerMetricsRepository;
+    private final PlayerCache playerCache;
+    private final FatigueDetectionService fatigueDetectionService;
+    private final InjuryPredictionService injuryPredictionService;
+    private final PerformanceOptimizationService performanceOptimizationService;
+    private final TacticalAnalysisService tacticalAnalysisService;
+    private final MLPredictionService mlPredictionService;
+    private final ForkJoinPool mlScoringPool;
+
+    private static final int INJURY_HISTORY_DAYS = 30;
+    private static final int PERFORMANCE_HISTORY_DAYS = 14;
+    private static final List<String> STAGE_ORDER = Arrays.asList(
+            "load", "fatigue", "injury", "performance", "tactical", "optimalPosition", "persist", "total");
+
+    public SessionAnalysisReport runFullAnalysis(String sessionId) {
+        log.info("Running full post-match analysis for session: {}", sessionId);
+        long pipelineStart = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+
+        // Load stage: every repository read for the pipeline happens here, exactly once
+        long loadStart = System.nanoTime();
+        List<GpsData> sessionGpsData = gpsDataStore.findBySessionId(sessionId);
+        List<PlayerMetrics> sessionMetrics = playerMetricsRepository.findBySessionId(sessionId);
+
+        Map<String, List<GpsData>> gpsByPlayer = sessionGpsData.stream()
+                .collect(Collectors.groupingBy(GpsData::getPlayerId));
+        Map<String, PlayerMetrics> metricsByPlayer = sessionMetrics.stream()
+                .collect(Collectors.toMap(PlayerMetrics::getPlayerId, m -> m, this::latest));
+
+        Set<String> playerIds = new HashSet<>(gpsByPlayer.keySet());
+        playerIds.addAll(metricsByPlayer.keySet());
+
+        Map<String, Player> players = new HashMap<>();
+        playerCache.getAll(playerIds).forEach(player -> players.put(player.getId(), player));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<PlayerMetrics>> historyByPlayer = playerIds.isEmpty()
+                ? Collections.emptyMap()
+                : playerMetricsRepository.findByPlayerIdInAndDateRange(
+                        playerIds, now.minusDays(INJURY_HISTORY_DAYS), now).stream()
+                .collect(Collectors.groupingBy(PlayerMetrics::getPlayerId));
+
+        // Performance optimisation only looks at the most recent two weeks of the shared history
+        LocalDateTime performanceSince = now.minusDays(PERFORMANCE_HISTORY_DAYS);
+        Map<String, List<PlayerMetrics>> recentByPlayer = new HashMap<>();
+        historyByPlayer.forEach((playerId, history) -> {
+            List<PlayerMetrics> recent = history.stream()
+                    .filter(m -> !m.getCalculatedAt().isBefore(performanceSince))
+                    .collect(Collectors.toList());
+            if (!recent.isEmpty() && players.containsKey(playerId)) {
+                recentByPlayer.put(playerId, recent);
+            }
+        });
+
+        List<String> positionalPlayers = gpsByPlayer.keySet().stream()
+                .filter(metricsByPlayer::containsKey)
+                .collect(Collectors.toList());
+        timings.put("load", elapsedMs(loadStart));
+
+        // Fan out: all stages run concurrently, and each stage is itself parallel over players
+        ForkJoinTask<List<MLPrediction>> fatigue = stage("fatigue", timings, () ->
+                gpsByPlayer.entrySet().parallelStream()
+                        .map(e -> fatigueDetectionService.buildFatiguePrediction(e.getKey(), sessionId,
+                                e.getValue(), metricsByPlayer.get(e.getKey())))
+                        .collect(Collectors.toList()));
+
+        ForkJoinTask<List<MLPrediction>> injury = stage("injury", timings, () ->
+                historyByPlayer.entrySet().parallelStream()
+                        .map(e -> injuryPredictionService.buildInjuryRiskPrediction(e.getKey(), e.getValue()))
+                        .collect(Collectors.toList()));
+
+        ForkJoinTask<List<MLPrediction>> performance = stage("performance", timings, () ->
+                recentByPlayer.entrySet().parallelStream()
+                        .map(e -> performanceOptimizationService.buildOptimizationPrediction(
+                                players.get(e.getKey()), e.getValue()))
+                        .collect(Collectors.toList()));
+
+        ForkJoinTask<List<MLPrediction>> tactical = stage("tactical", timings, () ->
+                sessionMetrics.isEmpty() || sessionGpsData.isEmpty()
+                        ? Collections.emptyList()
+                        : Collections.singletonList(tacticalAnalysisService.buildTacticalAnalysis(
+                                sessionId, sessionMetrics, sessionGpsData)));
+
+        ForkJoinTask<List<MLPrediction>> optimalPosition = stage("optimalPosition", timings, () ->
+                positionalPlayers.parallelStream()
+                        .map(playerId -> tacticalAnalysisService.buildOptimalPositionPrediction(
+                                playerId, sessionId, gpsByPlayer.get(playerId), metricsByPlayer.get(playerId)))
+                        .collect(Collectors.toList()));
+
+        List<MLPrediction> predictions = new ArrayList<>();
+        for (ForkJoinTask<List<MLPrediction>> task : Arrays.asList(fatigue, injury, performance, tactical, optimalPosition)) {
+            predictions.addAll(task.join());
+        }
+
+        // Persist stage: one bulk write for the whole session
+        long persistStart = System.nanoTime();
+        List<MLPrediction> saved = mlPredictionService.savePredictions(predictions);
+        timings.put("persist", elapsedMs(persistStart));
+        timings.put("total", elapsedMs(pipelineStart));
+
+        Map<String, Long> orderedTimings = new LinkedHashMap<>();
+        STAGE_ORDER.forEach(stage -> orderedTimings.put(stage, timings.getOrDefault(stage, 0L)));
+
+        Map<String, Integer> skipped = new LinkedHashMap<>();
+        skipped.put("fatigue", playerIds.size() - gpsByPlayer.size());
+        skipped.put("injury", playerIds.size() - historyByPlayer.size());
+        skipped.put("performance", playerIds.size() - recentByPlayer.size());
+        skipped.put("tactical", sessionMetrics.isEmpty() || sessionGpsData.isEmpty() ? 1 : 0);
+        skipped.put("optimalPosition", playerIds.size() - positionalPlayers.size());
+
+        log.info("Full analysis for session {} produced {} predictions for {} players: {}",
+                sessionId, saved.size(), playerIds.size(), orderedTimings);
+
+        return new SessionAnalysisReport(sessionId, playerIds.size(), saved, orderedTimings, skipped);
+    }
+
+    private ForkJoinTask<List<MLPrediction>> stage(String name, Map<String, Long> timings,
+                                                   Supplier<List<MLPrediction>> work) {
+        return mlScoringPool.submit(() -> {
+            long start = System.nanoTime();
+            List<MLPrediction> result = work.get();
+            timings.put(name, elapsedMs(start));
+            return result;
+        });
+    }
+
+    private PlayerMetrics latest(PlayerMetrics a, PlayerMetrics b) {
+        return b.getCalculatedAt().isAfter(a.getCalculatedAt()) ? b : a;
+    }
+
+    private long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
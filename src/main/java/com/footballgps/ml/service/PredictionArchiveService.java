@@ -0,0 +1,93 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.model.MLPrediction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Retention policy for ml_predictions. Predictions older than the retention period are
+ * moved to ml_predictions_archive, where a TTL index on archivedAt removes them after
+ * the archive TTL. Keeps the working collection and its indexes sized to recent data.
+ * Recorded outcomes ({@code isActual}) are never archived: they are the training labels,
+ * and a model trained on a year of history needs them for longer than the retention period.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PredictionArchiveService {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    public static final String ARCHIVE_COLLECTION = "ml_predictions_archive";
+    
+    @Value("${ml.predictions.retention-days:180}")
+    private int retentionDays;
+    
+    @Value("${ml.predictions.archive-ttl-days:730}")
+    private int archiveTtlDays;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureArchiveIndexes() {
+        try {
+            mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(new Index()
+                    .on("archivedAt", Sort.Direction.ASC)
+                    .named("archivedAt_ttl")
+                    .expire(Duration.ofDays(archiveTtlDays)));
+            mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(new Index()
+                    .on("playerId", Sort.Direction.ASC)
+                    .on("predictedAt", Sort.Direction.DESC));
+        } catch (Exception e) {
+            // e.g. the TTL was changed: the existing index has to be dropped by hand
+            log.warn("Could not ensure indexes on {}: {}", ARCHIVE_COLLECTION, e.getMessage());
+        }
+    }
+    
+    @Scheduled(cron = "${ml.predictions.archive-cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        try {
+            long archived = archiveOldPredictions();
+            log.info("Scheduled prediction archival moved {} predictions", archived);
+        } catch (Exception e) {
+            log.error("Error during scheduled prediction archival", e);
+        }
+    }
+    
+    public long archiveOldPredictions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Criteria olderThanCutoff = Criteria.where("predictedAt").lt(cutoff).and("isActual").ne(true);
+        
+        // Copy server-side in one pass; $merge on _id makes a re-run after a failure harmless
+        TypedAggregation<MLPrediction> copy = Aggregation.newAggregation(MLPrediction.class,
+                Aggregation.match(olderThanCutoff),
+                Aggregation.stage(new Document("$set", new Document("archivedAt", "$$NOW"))),
+                Aggregation.merge()
+                        .intoCollection(ARCHIVE_COLLECTION)
+                        .on("_id")
+                        .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                        .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                        .build());
+        mongoTemplate.aggregate(copy, Document.class);
+        
+        // Only documents older than the cutoff are removed, and new predictions are always newer
+        long removed = mongoTemplate.remove(new Query(olderThanCutoff), MLPrediction.class).getDeletedCount();
+        log.info("Archived {} predictions older than {} to {}", removed, cutoff, ARCHIVE_COLLECTION);
+        return removed;
+    }
+}
@@ -0,0 +1,123 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.model.MLPrediction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Bounded in-memory cache of the latest prediction per (type, player, session). Each entry
+ * remembers the data watermark it was computed at; a lookup with a newer watermark is a
+ * miss and drops the entry. Entries are also evicted least-recently-used past max-size
+ * and after the TTL, since time-windowed predictions age even without new data.
+ */
+@Component
+@Slf4j
+public class PredictionCache {
+    
+    public record Key(MLPrediction.PredictionType type, String playerId, String sessionId) {}
+    
+    private record Entry(MLPrediction prediction, long watermark, long expiresAtMillis) {}
+    
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<Key, Entry> entries;
+    
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleEvictions;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+    
+    public PredictionCache(@Value("${ml.prediction-cache.max-size:1000}") int maxSize,
+                           @Value("${ml.prediction-cache.ttl-seconds:600}") long ttlSeconds,
+                           MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        
+        // Access order, so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > PredictionCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        this.hits = meterRegistry.counter("ml.prediction.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("ml.prediction.cache.requests", "result", "miss");
+        this.staleEvictions = meterRegistry.counter("ml.prediction.cache.evictions", "cause", "stale");
+        this.expiredEvictions = meterRegistry.counter("ml.prediction.cache.evictions", "cause", "expired");
+        this.sizeEvictions = meterRegistry.counter("ml.prediction.cache.evictions", "cause", "size");
+        meterRegistry.gauge("ml.prediction.cache.size", this, PredictionCache::size);
+    }
+    
+    public synchronized Optional<MLPrediction> get(Key key, long watermark) {
+        Entry entry = entries.get(key);
+        
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        
+        if (entry.watermark() != watermark) {
+            entries.remove(key);
+            staleEvictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        
+        if (System.currentTimeMillis() >= entry.expiresAtMillis()) {
+            entries.remove(key);
+            expiredEvictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        
+        hits.increment();
+        return Optional.of(entry.prediction());
+    }
+    
+    public synchronized void put(Key key, long watermark, MLPrediction prediction) {
+        Entry current = entries.get(key);
+        // A slower computation must not replace a result computed from newer data
+        if (current != null && current.watermark() > watermark) {
+            return;
+        }
+        entries.put(key, new Entry(prediction, watermark, System.currentTimeMillis() + ttlMillis));
+    }
+    
+    public synchronized void clear() {
+        entries.clear();
+        log.info("Cleared prediction cache");
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public Map<String, Object> getStats() {
+        double hitCount = hits.count();
+        double missCount = misses.count();
+        double requests = hitCount + missCount;
+        
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", (long) hitCount);
+        stats.put("misses", (long) missCount);
+        stats.put("hitRate", requests > 0 ? hitCount / requests : 0.0);
+        stats.put("staleEvictions", (long) staleEvictions.count());
+        stats.put("expiredEvictions", (long) expiredEvictions.count());
+        stats.put("sizeEvictions", (long) sizeEvictions.count());
+        return stats;
+    }
+}
@@ -0,0 +1,188 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.feature.FeatureVector;
+import com.footballgps.ml.model.MLModel;
+import com.footballgps.ml.runtime.CompiledScorer;
+import com.footballgps.ml.runtime.ModelRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.DoubleFunction;
+
+/**
+ * Side-by-side evaluation of CANDIDATE models. Scoring services report every score they
+ * serve; when a candidate is loaded for the type, it scores the same feature vector on a
+ * single background thread and the two results are compared. The response path only
+ * pays for a timer update and a queue offer; when the queue is full the comparison is
+ * dropped and counted rather than blocking.
+ */
+@Service
+@Slf4j
+public class ShadowScoringService {
+    
+    public static final String RULES = "rules";
+    
+    private final ModelRegistry modelRegistry;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Counter dropped;
+    
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Comparison> comparisons = new ConcurrentHashMap<>();
+    
+    public ShadowScoringService(ModelRegistry modelRegistry, MeterRegistry meterRegistry,
+                                @Value("${ml.shadow.queue-capacity:10000}") int queueCapacity) {
+        this.modelRegistry = modelRegistry;
+        this.meterRegistry = meterRegistry;
+        this.dropped = meterRegistry.counter("ml.shadow.dropped");
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ml-shadow-scoring");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> dropped.increment());
+    }
+    
+    /**
+     * Records a served score. {@code active} is the model that produced it, or null for the
+     * rule-based fallback; {@code categorise} maps a score to the category the caller reports.
+     */
+    public void observe(MLModel.ModelType type, FeatureVector features, CompiledScorer active,
+                        double activeScore, long activeNanos, DoubleFunction<String> categorise) {
+        String activeId = active != null ? active.modelId() : RULES;
+        timer(type, activeId, "active").record(activeNanos, TimeUnit.NANOSECONDS);
+        
+        CompiledScorer candidate = modelRegistry.candidateFor(type);
+        if (candidate == null || candidate.modelId().equals(activeId)) {
+            return;
+        }
+        
+        executor.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                double candidateScore = candidate.score(features);
+                timer(type, candidate.modelId(), "candidate").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                
+                comparisons.computeIfAbsent(type + "|" + activeId + "|" + candidate.modelId(),
+                                key -> new Comparison(type, activeId, candidate.modelId()))
+                        .add(activeScore, candidateScore,
+                                categorise.apply(activeScore).equals(categorise.apply(candidateScore)));
+            } catch (RuntimeException e) {
+                log.warn("Shadow scoring with {} model {} failed: {}", type, candidate.modelId(), e.getMessage());
+            }
+        });
+    }
+    
+    public List<Map<String, Object>> getComparisons() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Comparison comparison : comparisons.values()) {
+            Map<String, Object> stats = comparison.snapshot();
+            stats.put("activeLatencyMicros", latency(comparison.type, comparison.activeModelId, "active"));
+            stats.put("candidateLatencyMicros", latency(comparison.type, comparison.candidateModelId, "candidate"));
+            result.add(stats);
+        }
+        result.sort(Comparator.comparing(stats -> String.valueOf(stats.get("type"))));
+        return result;
+    }
+    
+    public Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("dropped", (long) dropped.count());
+        return stats;
+    }
+    
+    public void reset() {
+        comparisons.clear();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private Timer timer(MLModel.ModelType type, String modelId, String role) {
+        return timers.computeIfAbsent(type + "|" + modelId + "|" + role, key -> Timer.builder("ml.model.score.latency")
+                .tag("type", type.name())
+                .tag("model", modelId)
+                .tag("role", role)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+    
+    private Map<String, Object> latency(MLModel.ModelType type, String modelId, String role) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        Timer timer = timers.get(type + "|" + modelId + "|" + role);
+        if (timer == null) {
+            return latency;
+        }
+        latency.put("count", timer.count());
+        latency.put("mean", timer.mean(TimeUnit.MICROSECONDS));
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            latency.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MICROSECONDS));
+        }
+        latency.put("max", timer.max(TimeUnit.MICROSECONDS));
+        return latency;
+    }
+    
+    /** Running agreement statistics for one active/candidate pair. */
+    private static class Comparison {
+        private final MLModel.ModelType type;
+        private final String activeModelId;
+        private final String candidateModelId;
+        private final LocalDateTime since = LocalDateTime.now();
+        
+        private long samples;
+        private long categoryMatches;
+        private double activeSum;
+        private double candidateSum;
+        private double absoluteDifferenceSum;
+        private double maxAbsoluteDifference;
+        
+        Comparison(MLModel.ModelType type, String activeModelId, String candidateModelId) {
+            this.type = type;
+            this.activeModelId = activeModelId;
+            this.candidateModelId = candidateModelId;
+        }
+        
+        synchronized void add(double activeScore, double candidateScore, boolean sameCategory) {
+            samples++;
+            if (sameCategory) {
+                categoryMatches++;
+            }
+            activeSum += activeScore;
+            candidateSum += candidateScore;
+            double difference = Math.abs(activeScore - candidateScore);
+            absoluteDifferenceSum += difference;
+            maxAbsoluteDifference = Math.max(maxAbsoluteDifference, difference);
+        }
+        
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("type", type);
+            stats.put("activeModelId", activeModelId);
+            stats.put("candidateModelId", candidateModelId);
+            stats.put("since", since);
+            stats.put("samples", samples);
+            stats.put("categoryAgreement", samples > 0 ? (double) categoryMatches / samples : 0.0);
+            stats.put("meanActiveScore", samples > 0 ? activeSum / samples : 0.0);
+            stats.put("meanCandidateScore", samples > 0 ? candidateSum / samples : 0.0);
+            stats.put("meanAbsoluteDifference", samples > 0 ? absoluteDifferenceSum / samples : 0.0);
+            stats.put("maxAbsoluteDifference", maxAbsoluteDifference);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.footballgps.ml.service;
+
+import com.footballgps.ml.model.MLPrediction;
+import com.footballgps.model.Player;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.service.PlayerCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SquadInjuryRiskService {
+
+    private final PlayerCache playerCache;
+    private final PlayerMetricsRepository playerMetricsRepository;
+    private final InjuryPredictionService injuryPredictionService;
+    private final MLPredictionService mlPredictionService;
+    private final ForkJoinPool mlScoringPool;
+
+    private static final int HISTORY_DAYS = 30;
+
+    @Scheduled(cron = "${ml.injury-risk.squad-cron:0 0 6 * * *}")
+    public void scheduledSquadScoring() {
+        try {
+            List<MLPrediction> predictions = scoreActiveSquad();
+            log.info("Scheduled squad injury-risk scoring produced {} predictions", predictions.size());
+        } catch (Exception e) {
+            log.error("Error during scheduled squad injury-risk scoring", e);
+        }
+    }
+
+    public List<MLPrediction> scoreActiveSquad() {
+        long started = System.currentTimeMillis();
+
+        List<String> playerIds = playerCache.getActive().stream()
+                .map(Player::getId)
+                .collect(Collectors.toList());
+
+        if (playerIds.isEmpty()) {
+            log.warn("No active players found for squad injury-risk scoring");
+            return Collections.emptyList();
+        }
+
+        // One query for the whole squad instead of one per player
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<PlayerMetrics>> historyByPlayer = playerMetricsRepository
+                .findByPlayerIdInAndDateRange(playerIds, now.minusDays(HISTORY_DAYS), now).stream()
+                .collect(Collectors.groupingBy(PlayerMetrics::getPlayerId));
+
+        // Feature extraction and scoring are CPU-bound, so fan them out on the scoring pool
+        List<MLPrediction> scored = mlScoringPool.submit(() -> historyByPlayer.entrySet().parallelStream()
+                .map(entry -> injuryPredictionService.buildInjuryRiskPrediction(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()))
+                .join();
+
+        List<MLPrediction> results = new ArrayList<>(mlPredictionService.savePredictions(scored));
+
+        // Players without history get the same unsaved low-risk default as the single-player endpoint
+        for (String playerId : playerIds) {
+            if (!historyByPlayer.containsKey(playerId)) {
+                results.add(injuryPredictionService.buildInjuryRiskPrediction(playerId, Collections.emptyList()));
+            }
+        }
+
+        log.info("Scored injury risk for {} players ({} with history) in {} ms",
+                playerIds.size(), scored.size(), System.currentTimeMillis() - started);
+
+        return results;
+    }
+}
@@ -1,17 +1,25 @@
 package com.footballgps.ml.service;
 
+import com.footballgps.analysis.FormationDetector;
+import com.footballgps.analysis.FormationSpan;
+import com.footballgps.analysis.ProximityAnalyzer;
+import com.footballgps.analysis.ProximitySummary;
+import com.footballgps.analysis.TeamFrames;
+import com.footballgps.analysis.TeamShapeEngine;
+import com.footballgps.analysis.TeamShapeSummary;
+import com.footballgps.ml.feature.TacticalFeatures;
 import com.footballgps.ml.model.MLPrediction;
 import com.footballgps.model.PlayerMetrics;
 import com.footballgps.model.GpsData;
 import com.footballgps.repository.PlayerMetricsRepository;
-import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.storage.GpsDataStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 @RequiredArgsConstructor
@@ -19,49 +27,117 @@ import java.util.stream.Collectors;
 public class TacticalAnalysisService {
     
     private final PlayerMetricsRepository playerMetricsRepository;
-    private final GpsDataRepository gpsDataRepository;
+    private final GpsDataStore gpsDataStore;
     private final MLPredictionService mlPredictionService;
+    private final ForkJoinPool mlScoringPool;
+    
+    // Mean player-to-player distance of a compact block and of a fully stretched team, in metres
+    private static final double COMPACT_PAIRWISE_DISTANCE = 15.0;
+    private static final double STRETCHED_PAIRWISE_DISTANCE = 40.0;
+    // Drift from a player's average spot in the shape at which stability reaches zero, in metres
+    private static final double MAX_POSITIONAL_DEVIATION = 15.0;
     
     public MLPrediction analyzeTacticalPerformance(String sessionId) {
+        return mlPredictionService.getOrCompute(MLPrediction.PredictionType.TACTICAL_RECOMMENDATION, null, sessionId,
+                () -> computeTacticalAnalysis(sessionId));
+    }
+    
+    private MLPrediction computeTacticalAnalysis(String sessionId) {
         log.info("Analyzing tactical performance for session: {}", sessionId);
         
         // Get all players' data for the session
         List<PlayerMetrics> sessionMetrics = playerMetricsRepository.findBySessionId(sessionId);
-        List<GpsData> sessionGpsData = gpsDataRepository.findBySessionId(sessionId);
+        List<GpsData> sessionGpsData = gpsDataStore.findBySessionId(sessionId);
         
         if (sessionMetrics.isEmpty() || sessionGpsData.isEmpty()) {
             return createDefaultTacticalAnalysis(sessionId);
         }
         
+        return mlPredictionService.savePrediction(buildTacticalAnalysis(sessionId, sessionMetrics, sessionGpsData));
+    }
+    
+    public MLPrediction buildTacticalAnalysis(String sessionId, List<PlayerMetrics> sessionMetrics,
+                                              List<GpsData> sessionGpsData) {
+        if (sessionMetrics.isEmpty() || sessionGpsData.isEmpty()) {
+            return createDefaultTacticalAnalysis(sessionId);
+        }
+        
+        // Team shape and formation from the time-aligned positions of every player
+        TeamFrames frames = TeamFrames.align(sessionGpsData);
+        TeamShapeSummary shape = analyzeTeamShape(frames);
+        String formation = identifyDominantFormation(frames);
+        ProximitySummary proximity = analyzeProximity(frames);
+        
         // Analyze team tactical patterns
-        Map<String, Object> tacticalAnalysis = analyzeTacticalPatterns(sessionMetrics, sessionGpsData);
+        TacticalFeatures features = analyzeTacticalPatterns(sessionMetrics, sessionGpsData, shape, formation, proximity);
         
         // Generate tactical recommendations
-        Map<String, Object> recommendations = generateTacticalRecommendations(tacticalAnalysis);
+        Map<String, Object> recommendations = generateTacticalRecommendations(features);
+        
+        Map<String, Object> input = features.toInputMap();
+        input.put("teamShape", toShapeMap(shape));
+        input.put("proximity", toProximityMap(proximity));
         
         // Create prediction
         MLPrediction prediction = new MLPrediction();
         prediction.setSessionId(sessionId);
         prediction.setType(MLPrediction.PredictionType.TACTICAL_RECOMMENDATION);
-        prediction.setInput(tacticalAnalysis);
+        prediction.setInput(input);
         prediction.setOutput(recommendations);
-        prediction.setConfidence(calculateTacticalConfidence(tacticalAnalysis));
+        prediction.setConfidence(calculateTacticalConfidence(features));
         prediction.setPredictedAt(LocalDateTime.now());
         
-        return mlPredictionService.savePrediction(prediction);
+        return prediction;
+    }
+    
+    public Optional<TeamShapeSummary> getTeamShape(String sessionId) {
+        List<GpsData> sessionGpsData = gpsDataStore.findBySessionId(sessionId);
+        if (sessionGpsData.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(analyzeTeamShape(TeamFrames.align(sessionGpsData)));
+    }
+    
+    private TeamShapeSummary analyzeTeamShape(TeamFrames frames) {
+        long start = System.nanoTime();
+        TeamShapeSummary shape = TeamShapeEngine.analyse(frames, mlScoringPool).summarize();
+        log.debug("Analysed team shape: {} players, {} frames in {} ms",
+                shape.players(), shape.frames(), (System.nanoTime() - start) / 1_000_000);
+        return shape;
+    }
+    
+    private ProximitySummary analyzeProximity(TeamFrames frames) {
+        long start = System.nanoTime();
+        ProximitySummary proximity = ProximityAnalyzer.analyse(frames);
+        log.debug("Analysed proximity: {} players, {} frames in {} ms",
+                frames.playerCount(), frames.frameCount(), (System.nanoTime() - start) / 1_000_000);
+        return proximity;
     }
     
     public MLPrediction predictOptimalPosition(String playerId, String sessionId) {
+        return mlPredictionService.getOrCompute(MLPrediction.PredictionType.OPTIMAL_POSITION, playerId, sessionId,
+                () -> computeOptimalPosition(playerId, sessionId));
+    }
+    
+    private MLPrediction computeOptimalPosition(String playerId, String sessionId) {
         log.info("Predicting optimal position for player: {} in session: {}", playerId, sessionId);
         
-        List<GpsData> playerData = gpsDataRepository.findByPlayerIdAndSessionId(playerId, sessionId);
+        List<GpsData> playerData = gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId);
         Optional<PlayerMetrics> metricsOpt = playerMetricsRepository.findByPlayerIdAndSessionId(playerId, sessionId);
         
         if (playerData.isEmpty() || metricsOpt.isEmpty()) {
             return createDefaultPositionPrediction(playerId);
         }
         
-        PlayerMetrics metrics = metricsOpt.get();
+        return mlPredictionService.savePrediction(
+                buildOptimalPositionPrediction(playerId, sessionId, playerData, metricsOpt.get()));
+    }
+    
+    public MLPrediction buildOptimalPositionPrediction(String playerId, String sessionId,
+                                                       List<GpsData> playerData, PlayerMetrics metrics) {
+        if (playerData.isEmpty() || metrics == null) {
+            return createDefaultPositionPrediction(playerId);
+        }
         
         // Analyze movement patterns and positioning
         Map<String, Object> positionAnalysis = analyzePositionalPlay(playerData, metrics);
@@ -78,47 +154,13 @@ public class TacticalAnalysisService {
         prediction.setConfidence(calculatePositionConfidence(positionAnalysis));
         prediction.setPredictedAt(LocalDateTime.now());
         
-        return mlPredictionService.savePrediction(prediction);
-    }
-    
-    private Map<String, Object> analyzeTacticalPatterns(List<PlayerMetrics> metrics, List<GpsData> gpsData) {
-        Map<String, Object> analysis = new HashMap<>();
-        
-        // Team formation analysis
-        Map<String, Object> formation = analyzeFormation(metrics);
-        analysis.put("formation", formation);
-        
-        // Team compactness
-        double compactness = calculateTeamCompactness(gpsData);
-        analysis.put("teamCompactness", compactness);
-        
-        // Pressing intensity
-        Map<String, Object> pressing = analyzePressingPatterns(metrics);
-        analysis.put("pressing", pressing);
-        
-        // Ball possession patterns (simulated)
-        Map<String, Object> possession = analyzePossessionPatterns(gpsData);
-        analysis.put("possession", possession);
-        
-        // Transition analysis
-        Map<String, Object> transitions = analyzeTransitions(gpsData);
-        analysis.put("transitions", transitions);
-        
-        // Defensive organization
-        Map<String, Object> defense = analyzeDefensiveOrganization(metrics);
-        analysis.put("defense", defense);
-        
-        // Attacking patterns
-        Map<String, Object> attack = analyzeAttackingPatterns(metrics);
-        analysis.put("attack", attack);
-        
-        return analysis;
+        return prediction;
     }
     
-    private Map<String, Object> analyzeFormation(List<PlayerMetrics> metrics) {
-        Map<String, Object> formation = new HashMap<>();
-        
-        // Calculate average positions for each player
+    private TacticalFeatures analyzeTacticalPatterns(List<PlayerMetrics> metrics, List<GpsData> gpsData,
+                                                     TeamShapeSummary shape, String formation,
+                                                     ProximitySummary proximity) {
+        // Team formation analysis: average position for each player
         Map<String, double[]> avgPositions = new HashMap<>();
         for (PlayerMetrics metric : metrics) {
             if (metric.getTactical() != null) {
@@ -128,18 +170,46 @@ public class TacticalAnalysisService {
             }
         }
         
-        // Identify formation pattern
-        String detectedFormation = identifyFormation(avgPositions);
-        formation.put("detectedFormation", detectedFormation);
-        formation.put("formationStability", calculateFormationStability(metrics));
-        formation.put("playerPositions", avgPositions);
+        // Transition analysis: speed of high-speed movements
+        double avgTransitionSpeed = gpsData.stream()
+                .filter(data -> data.getMovement().getSpeed() > 15.0) // High-speed movements
+                .mapToDouble(data -> data.getMovement().getSpeed())
+                .average().orElse(0.0);
         
-        return formation;
+        // Shape-based measures need enough players tracked at the same time
+        boolean hasShape = shape.analysedFrames() > 0;
+        // Pressing measures need the pitch axis and at least one pressing frame
+        boolean hasPressing = hasShape && proximity.pressingShare() > 0;
+        
+        return new TacticalFeatures(
+                formation != null ? formation : identifyFormation(avgPositions),
+                hasShape ? calculateFormationStability(shape) : calculateFormationStability(metrics),
+                avgPositions,
+                hasShape ? calculateTeamCompactness(shape) : 0.0,
+                calculateAverageIntensity(metrics),
+                hasPressing ? proximity.coveredPressShare() : calculatePressingEffectiveness(metrics),
+                identifyPressingTriggers(metrics),
+                avgTransitionSpeed,
+                calculateTransitionEfficiency(gpsData),
+                hasShape ? shape.structuredShare() * 100.0 : calculateOrganizationLevel(metrics),
+                hasPressing ? proximity.coordinatedPressShare() : calculatePressingCoordination(metrics),
+                calculateAttackingIntensity(metrics));
+    }
+    
+    private String identifyDominantFormation(TeamFrames frames) {
+        // Formation held for the most 5-minute windows
+        Map<String, Integer> windows = new HashMap<>();
+        for (FormationSpan span : new FormationDetector().detectWindows(frames, FormationDetector.DEFAULT_WINDOW_MILLIS)) {
+            windows.merge(span.match().formation(), 1, Integer::sum);
+        }
+        return windows.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
     }
     
     private String identifyFormation(Map<String, double[]> positions) {
-        // Simplified formation detection
-        // In real implementation, this would use clustering algorithms
+        // Fallback when positions were never tracked together; FormationDetector is used otherwise
         
         if (positions.size() < 7) return "Unknown";
         
@@ -167,58 +237,24 @@ public class TacticalAnalysisService {
         return totalAdherence / 100.0; // Convert to 0-1 scale
     }
     
-    private double calculateTeamCompactness(List<GpsData> gpsData) {
-        // Group data by timestamp to analyze team shape at each moment
-        Map<LocalDateTime, List<GpsData>> timeGroups = gpsData.stream()
-                .collect(Collectors.groupingBy(GpsData::getTimestamp));
-        
-        double avgCompactness = 0.0;
-        int validMeasurements = 0;
-        
-        for (List<GpsData> timeGroup : timeGroups.values()) {
-            if (timeGroup.size() >= 7) { // Need minimum players for meaningful measurement
-                double compactness = calculateMomentaryCompactness(timeGroup);
-                avgCompactness += compactness;
-                validMeasurements++;
-            }
-        }
-        
-        return validMeasurements > 0 ? avgCompactness / validMeasurements : 0.0;
+    private double calculateFormationStability(TeamShapeSummary shape) {
+        // How far players drift from their average spot in the team shape
+        return Math.max(0.0, 1.0 - shape.positionalDeviation() / MAX_POSITIONAL_DEVIATION);
     }
     
-    private double calculateMomentaryCompactness(List<GpsData> playerPositions) {
-        // Calculate the area covered by the team
-        double minX = Double.MAX_VALUE, maxX = Double.MIN_VALUE;
-        double minY = Double.MAX_VALUE, maxY = Double.MIN_VALUE;
-        
-        for (GpsData data : playerPositions) {
-            double x = data.getPosition().getLongitude();
-            double y = data.getPosition().getLatitude();
-            
-            minX = Math.min(minX, x);
-            maxX = Math.max(maxX, x);
-            minY = Math.min(minY, y);
-            maxY = Math.max(maxY, y);
-        }
-        
-        double area = (maxX - minX) * (maxY - minY);
-        return 1.0 / (1.0 + area); // Inverse relationship - smaller area = higher compactness
+    private double calculateTeamCompactness(TeamShapeSummary shape) {
+        // 1.0 for a compact block, falling linearly to 0.0 for a fully stretched team
+        double compactness = (STRETCHED_PAIRWISE_DISTANCE - shape.averagePairwiseDistance())
+                / (STRETCHED_PAIRWISE_DISTANCE - COMPACT_PAIRWISE_DISTANCE);
+        return Math.max(0.0, Math.min(1.0, compactness));
     }
     
-    private Map<String, Object> analyzePressingPatterns(List<PlayerMetrics> metrics) {
-        Map<String, Object> pressing = new HashMap<>();
-        
+    private double calculateAverageIntensity(List<PlayerMetrics> metrics) {
         // Calculate team pressing intensity
-        double avgIntensity = metrics.stream()
+        return metrics.stream()
                 .filter(m -> m.getPerformance() != null)
                 .mapToDouble(m -> m.getPerformance().getIntensityScore())
                 .average().orElse(0.0);
-        
-        pressing.put("averageIntensity", avgIntensity);
-        pressing.put("pressingEffectiveness", calculatePressingEffectiveness(metrics));
-        pressing.put("pressingTriggers", identifyPressingTriggers(metrics));
-        
-        return pressing;
     }
     
     private double calculatePressingEffectiveness(List<PlayerMetrics> metrics) {
@@ -251,33 +287,6 @@ public class TacticalAnalysisService {
         return triggers;
     }
     
-    private Map<String, Object> analyzePossessionPatterns(List<GpsData> gpsData) {
-        Map<String, Object> possession = new HashMap<>();
-        
-        // Simulated possession analysis
-        possession.put("averagePossessionTime", 45.0); // seconds
-        possession.put("possessionZones", Arrays.asList("Defensive third: 35%", "Middle third: 45%", "Attacking third: 20%"));
-        possession.put("buildUpSpeed", "Medium");
-        
-        return possession;
-    }
-    
-    private Map<String, Object> analyzeTransitions(List<GpsData> gpsData) {
-        Map<String, Object> transitions = new HashMap<>();
-        
-        // Analyze speed of transitions
-        double avgTransitionSpeed = gpsData.stream()
-                .filter(data -> data.getMovement().getSpeed() > 15.0) // High-speed movements
-                .mapToDouble(data -> data.getMovement().getSpeed())
-                .average().orElse(0.0);
-        
-        transitions.put("averageTransitionSpeed", avgTransitionSpeed);
-        transitions.put("transitionEfficiency", calculateTransitionEfficiency(gpsData));
-        transitions.put("counterAttackFrequency", "Medium");
-        
-        return transitions;
-    }
-    
     private double calculateTransitionEfficiency(List<GpsData> gpsData) {
         // Simplified calculation based on speed and direction changes
         long highSpeedMovements = gpsData.stream()
@@ -287,19 +296,11 @@ public class TacticalAnalysisService {
         return Math.min(1.0, highSpeedMovements / (double) gpsData.size() * 10);
     }
     
-    private Map<String, Object> analyzeDefensiveOrganization(List<PlayerMetrics> metrics) {
-        Map<String, Object> defense = new HashMap<>();
-        
-        double avgFormationAdherence = metrics.stream()
+    private double calculateOrganizationLevel(List<PlayerMetrics> metrics) {
+        return metrics.stream()
                 .filter(m -> m.getTactical() != null)
                 .mapToDouble(m -> m.getTactical().getFormationAdherence())
                 .average().orElse(0.0);
-        
-        defense.put("organizationLevel", avgFormationAdherence);
-        defense.put("defensiveCompactness", "Good");
-        defense.put("pressingCoordination", calculatePressingCoordination(metrics));
-        
-        return defense;
     }
     
     private double calculatePressingCoordination(List<PlayerMetrics> metrics) {
@@ -312,77 +313,81 @@ public class TacticalAnalysisService {
         return avgSynchronization / 100.0;
     }
     
-    private Map<String, Object> analyzeAttackingPatterns(List<PlayerMetrics> metrics) {
-        Map<String, Object> attack = new HashMap<>();
-        
+    private double calculateAttackingIntensity(List<PlayerMetrics> metrics) {
         double avgSprintDistance = metrics.stream()
                 .filter(m -> m.getMovement() != null)
                 .mapToDouble(m -> m.getMovement().getSprintDistance())
                 .average().orElse(0.0);
         
-        attack.put("attackingIntensity", avgSprintDistance / 1000.0); // Convert to km
-        attack.put("widthUtilization", "Good");
-        attack.put("penetrationAttempts", "Medium");
-        
-        return attack;
+        return avgSprintDistance / 1000.0; // Convert to km
     }
     
-    private Map<String, Object> generateTacticalRecommendations(Map<String, Object> analysis) {
+    private Map<String, Object> generateTacticalRecommendations(TacticalFeatures features) {
         Map<String, Object> recommendations = new HashMap<>();
         List<String> tacticalAdvice = new ArrayList<>();
         List<String> trainingFocus = new ArrayList<>();
         
         // Formation recommendations
-        @SuppressWarnings("unchecked")
-        Map<String, Object> formation = (Map<String, Object>) analysis.get("formation");
-        double formationStability = (Double) formation.get("formationStability");
-        
-        if (formationStability < 0.7) {
+        if (features.formationStability() < 0.7) {
             tacticalAdvice.add("Improve formation discipline - players drifting from positions");
             trainingFocus.add("Positional play drills");
         }
         
         // Compactness recommendations
-        double teamCompactness = (Double) analysis.get("teamCompactness");
-        if (teamCompactness < 0.6) {
+        if (features.teamCompactness() < 0.6) {
             tacticalAdvice.add("Increase team compactness - too much space between lines");
             trainingFocus.add("Compactness drills");
         }
         
         // Pressing recommendations
-        @SuppressWarnings("unchecked")
-        Map<String, Object> pressing = (Map<String, Object>) analysis.get("pressing");
-        double pressingEffectiveness = (Double) pressing.get("pressingEffectiveness");
-        
-        if (pressingEffectiveness < 0.7) {
+        if (features.pressingEffectiveness() < 0.7) {
             tacticalAdvice.add("Improve pressing coordination and timing");
             trainingFocus.add("Pressing triggers training");
         }
         
         // Transition recommendations
-        @SuppressWarnings("unchecked")
-        Map<String, Object> transitions = (Map<String, Object>) analysis.get("transitions");
-        double transitionEfficiency = (Double) transitions.get("transitionEfficiency");
-        
-        if (transitionEfficiency < 0.6) {
+        if (features.transitionEfficiency() < 0.6) {
             tacticalAdvice.add("Work on faster transitions between phases");
             trainingFocus.add("Transition speed drills");
         }
         
         recommendations.put("tacticalAdvice", tacticalAdvice);
         recommendations.put("trainingFocus", trainingFocus);
-        recommendations.put("priority", determineTacticalPriority(analysis));
+        recommendations.put("priority", determineTacticalPriority(features));
         recommendations.put("expectedImprovement", "15-25% within 3-4 training sessions");
         
         return recommendations;
     }
     
-    private String determineTacticalPriority(Map<String, Object> analysis) {
-        double teamCompactness = (Double) analysis.get("teamCompactness");
-        
-        @SuppressWarnings("unchecked")
-        Map<String, Object> formation = (Map<String, Object>) analysis.get("formation");
-        double formationStability = (Double) formation.get("formationStability");
+    private Map<String, Object> toShapeMap(TeamShapeSummary shape) {
+        Map<String, Object> teamShape = new HashMap<>();
+        teamShape.put("analysedFrames", shape.analysedFrames());
+        teamShape.put("averageSpread", shape.averageSpread());
+        teamShape.put("averageLength", shape.averageLength());
+        teamShape.put("averageWidth", shape.averageWidth());
+        teamShape.put("defensiveLineHeight", shape.averageDefensiveLine());
+        teamShape.put("midfieldLineHeight", shape.averageMidfieldLine());
+        teamShape.put("attackingLineHeight", shape.averageAttackingLine());
+        teamShape.put("defenceToMidfield", shape.averageDefenceToMidfield());
+        teamShape.put("midfieldToAttack", shape.averageMidfieldToAttack());
+        teamShape.put("averagePairwiseDistance", shape.averagePairwiseDistance());
+        teamShape.put("positionalDeviation", shape.positionalDeviation());
+        return teamShape;
+    }
+    
+    private Map<String, Object> toProximityMap(ProximitySummary proximity) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("averageSupportDistance", proximity.averageSupportDistance());
+        map.put("averagePassingOptions", proximity.averagePassingOptions());
+        map.put("pressingShare", proximity.pressingShare());
+        map.put("coordinatedPressShare", proximity.coordinatedPressShare());
+        map.put("coveredPressShare", proximity.coveredPressShare());
+        return map;
+    }
+    
+    private String determineTacticalPriority(TacticalFeatures features) {
+        double teamCompactness = features.teamCompactness();
+        double formationStability = features.formationStability();
         
         if (teamCompactness < 0.5 || formationStability < 0.6) {
             return "HIGH";
@@ -483,12 +488,11 @@ public class TacticalAnalysisService {
         else return "Attacking third";
     }
     
-    private double calculateTacticalConfidence(Map<String, Object> analysis) {
+    private double calculateTacticalConfidence(TacticalFeatures features) {
         // Base confidence on data completeness and pattern clarity
         double confidence = 0.8;
         
-        double teamCompactness = (Double) analysis.get("teamCompactness");
-        if (teamCompactness > 0.7) {
+        if (features.teamCompactness() > 0.7) {
             confidence += 0.1; // Clear patterns increase confidence
         }
         
@@ -0,0 +1,84 @@
+package com.footballgps.ml.training;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Evaluation metrics for probability scores against binary labels, at a 0.5 threshold. */
+public final class BinaryClassificationMetrics {
+    
+    private BinaryClassificationMetrics() {
+    }
+    
+    public static Map<String, Double> evaluate(double[] scores, boolean[] labels) {
+        int n = scores.length;
+        int tp = 0;
+        int fp = 0;
+        int tn = 0;
+        int fn = 0;
+        double logLoss = 0.0;
+        double brier = 0.0;
+        
+        for (int i = 0; i < n; i++) {
+            boolean predicted = scores[i] >= 0.5;
+            if (predicted && labels[i]) tp++;
+            else if (predicted) fp++;
+            else if (labels[i]) fn++;
+            else tn++;
+            
+            double p = Math.min(Math.max(scores[i], 1e-15), 1 - 1e-15);
+            logLoss -= labels[i] ? Math.log(p) : Math.log(1 - p);
+            double error = scores[i] - (labels[i] ? 1.0 : 0.0);
+            brier += error * error;
+        }
+        
+        double precision = tp + fp > 0 ? (double) tp / (tp + fp) : 0.0;
+        double recall = tp + fn > 0 ? (double) tp / (tp + fn) : 0.0;
+        
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("examples", (double) n);
+        metrics.put("positiveRate", n > 0 ? (double) (tp + fn) / n : 0.0);
+        metrics.put("accuracy", n > 0 ? (double) (tp + tn) / n : 0.0);
+        metrics.put("precision", precision);
+        metrics.put("recall", recall);
+        metrics.put("f1", precision + recall > 0 ? 2 * precision * recall / (precision + recall) : 0.0);
+        metrics.put("auc", auc(scores, labels));
+        metrics.put("logLoss", n > 0 ? logLoss / n : 0.0);
+        metrics.put("brier", n > 0 ? brier / n : 0.0);
+        return metrics;
+    }
+    
+    /** ROC AUC via the rank-sum statistic, with tied scores sharing their average rank. */
+    public static double auc(double[] scores, boolean[] labels) {
+        int n = scores.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[a], scores[b]));
+        
+        double positiveRankSum = 0.0;
+        long positives = 0;
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && scores[order[j + 1]] == scores[order[i]]) {
+                j++;
+            }
+            double averageRank = (i + j) / 2.0 + 1.0;
+            for (int k = i; k <= j; k++) {
+                if (labels[order[k]]) {
+                    positiveRankSum += averageRank;
+                    positives++;
+                }
+            }
+            i = j + 1;
+        }
+        
+        long negatives = n - positives;
+        if (positives == 0 || negatives == 0) {
+            return 0.5;
+        }
+        return (positiveRankSum - positives * (positives + 1) / 2.0) / ((double) positives * negatives);
+    }
+}
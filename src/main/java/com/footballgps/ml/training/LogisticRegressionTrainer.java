@@ -0,0 +1,178 @@
+package com.footballgps.ml.training;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * L2-regularised logistic regression fitted by Newton's method (IRLS) on standardised
+ * features. Feature vectors here have fewer than twenty dimensions, so each Newton step
+ * is one pass over the data plus a tiny Cholesky solve, and it converges in a handful
+ * of iterations.
+ */
+public class LogisticRegressionTrainer {
+    
+    private static final int MAX_ITERATIONS = 50;
+    private static final double TOLERANCE = 1e-8;
+    
+    private final double l2;
+    
+    public LogisticRegressionTrainer(double l2) {
+        this.l2 = l2;
+    }
+    
+    /**
+     * Coefficients are for standardised inputs, in the layout ModelCompiler expects
+     * ({@code weights}, {@code intercept}, {@code means}, {@code scales}).
+     */
+    public record Fit(double[] weights, double intercept, double[] means, double[] scales, int iterations) {
+        
+        public double score(double[] features) {
+            double z = intercept;
+            for (int i = 0; i < weights.length; i++) {
+                z += weights[i] * (features[i] - means[i]) / scales[i];
+            }
+            return 1.0 / (1.0 + Math.exp(-z));
+        }
+    }
+    
+    public Fit fit(List<TrainingExample> examples) {
+        if (examples.isEmpty()) {
+            throw new IllegalArgumentException("No training examples");
+        }
+        
+        int n = examples.size();
+        int d = examples.get(0).features().length;
+        int p = d + 1; // intercept is the last parameter
+        
+        double[] means = new double[d];
+        double[] scales = new double[d];
+        standardisation(examples, means, scales);
+        
+        // Standardised design matrix, row-major, with a trailing 1 for the intercept
+        double[] x = new double[n * p];
+        double[] y = new double[n];
+        for (int r = 0; r < n; r++) {
+            double[] features = examples.get(r).features();
+            for (int c = 0; c < d; c++) {
+                x[r * p + c] = (features[c] - means[c]) / scales[c];
+            }
+            x[r * p + d] = 1.0;
+            y[r] = examples.get(r).label() ? 1.0 : 0.0;
+        }
+        
+        double[] beta = new double[p];
+        double[] gradient = new double[p];
+        double[] hessian = new double[p * p];
+        int iteration = 0;
+        
+        while (iteration < MAX_ITERATIONS) {
+            iteration++;
+            Arrays.fill(gradient, 0.0);
+            Arrays.fill(hessian, 0.0);
+            
+            for (int r = 0; r < n; r++) {
+                int row = r * p;
+                double z = 0.0;
+                for (int c = 0; c < p; c++) {
+                    z += beta[c] * x[row + c];
+                }
+                double mu = 1.0 / (1.0 + Math.exp(-z));
+                double w = Math.max(mu * (1.0 - mu), 1e-10);
+                double residual = y[r] - mu;
+                
+                for (int i = 0; i < p; i++) {
+                    double xi = x[row + i];
+                    gradient[i] += residual * xi;
+                    double wxi = w * xi;
+                    for (int j = 0; j <= i; j++) {
+                        hessian[i * p + j] += wxi * x[row + j];
+                    }
+                }
+            }
+            
+            // Ridge penalty on the weights only, not the intercept
+            for (int i = 0; i < d; i++) {
+                gradient[i] -= l2 * beta[i];
+                hessian[i * p + i] += l2;
+            }
+            for (int i = 0; i < p; i++) {
+                for (int j = 0; j < i; j++) {
+                    hessian[j * p + i] = hessian[i * p + j];
+                }
+            }
+            
+            double[] step = solveCholesky(hessian, gradient, p);
+            double change = 0.0;
+            for (int i = 0; i < p; i++) {
+                beta[i] += step[i];
+                change = Math.max(change, Math.abs(step[i]));
+            }
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+        
+        double[] weights = Arrays.copyOf(beta, d);
+        return new Fit(weights, beta[d], means, scales, iteration);
+    }
+    
+    private void standardisation(List<TrainingExample> examples, double[] means, double[] scales) {
+        int d = means.length;
+        double[] m2 = new double[d];
+        long count = 0;
+        
+        // Welford, so large-magnitude features do not lose precision
+        for (TrainingExample example : examples) {
+            count++;
+            double[] features = example.features();
+            for (int c = 0; c < d; c++) {
+                double delta = features[c] - means[c];
+                means[c] += delta / count;
+                m2[c] += delta * (features[c] - means[c]);
+            }
+        }
+        
+        for (int c = 0; c < d; c++) {
+            double sd = Math.sqrt(m2[c] / count);
+            // Constant features get scale 1 and end up with a zero weight under L2
+            scales[c] = sd > 1e-12 ? sd : 1.0;
+        }
+    }
+    
+    /** Solves A x = b for symmetric positive-definite A (p x p, row-major). */
+    static double[] solveCholesky(double[] a, double[] b, int p) {
+        double[] l = new double[p * p];
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = a[i * p + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= l[i * p + k] * l[j * p + k];
+                }
+                if (i == j) {
+                    l[i * p + i] = Math.sqrt(Math.max(sum, 1e-12));
+                } else {
+                    l[i * p + j] = sum / l[j * p + j];
+                }
+            }
+        }
+        
+        double[] z = new double[p];
+        for (int i = 0; i < p; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= l[i * p + k] * z[k];
+            }
+            z[i] = sum / l[i * p + i];
+        }
+        
+        double[] x = new double[p];
+        for (int i = p - 1; i >= 0; i--) {
+            double sum = z[i];
+            for (int k = i + 1; k < p; k++) {
+                sum -= l[k * p + i] * x[k];
+            }
+            x[i] = sum / l[i * p + i];
+        }
+        return x;
+    }
+}
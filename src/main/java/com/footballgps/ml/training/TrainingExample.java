@@ -0,0 +1,9 @@
+package com.footballgps.ml.training;
+
+/**
+ * One labelled row. {@code group} (the player) keeps all of a player's rows on the
+ * same side of the train/validation split, so validation measures generalisation to
+ * unseen players rather than to other days of the same player.
+ */
+public record TrainingExample(double[] features, boolean label, String group) {
+}
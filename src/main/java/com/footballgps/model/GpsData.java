@@ -1,13 +1,14 @@
 package com.footballgps.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.footballgps.util.EpochMillisJson;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
-import java.time.LocalDateTime;
-
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +18,9 @@ public class GpsData {
     private String id;
     private String playerId;
     private String sessionId;
-    private LocalDateTime timestamp;
+    @JsonSerialize(using = EpochMillisJson.Serializer.class)
+    @JsonDeserialize(using = EpochMillisJson.Deserializer.class)
+    private long timestamp; // epoch milliseconds; 0 if the device sent none
     private Position position;
     private Movement movement;
     private Biometrics biometrics;
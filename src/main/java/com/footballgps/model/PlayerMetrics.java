@@ -19,6 +19,7 @@ public class PlayerMetrics {
     private String playerId;
     private String sessionId;
     private LocalDateTime calculatedAt;
+    private boolean finalized; // stored when the session ended; real-time updates no longer replace it
     private MovementMetrics movement;
     private PerformanceMetrics performance;
     private TacticalMetrics tactical;
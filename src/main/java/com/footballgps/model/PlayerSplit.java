@@ -0,0 +1,40 @@
+package com.footballgps.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Split metrics of one player over one period of a session. Stored one document per
+ * minute, maintained with {@code $inc} during ingest; coarser splits are summed from the
+ * minutes. Sums rather than averages are kept so splits can be added together.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "player_splits")
+@CompoundIndex(name = "sessionId_playerId_start", def = "{'sessionId': 1, 'playerId': 1, 'start': 1}", unique = true)
+public class PlayerSplit {
+    @Id
+    private String id;
+    private String playerId;
+    private String sessionId;
+    private LocalDateTime start;
+    private int minutes;
+    private long fixes;
+    private double distance; // meters
+    private double highSpeedRunningDistance; // meters above 19.8 km/h
+    private double sprintDistance; // meters above 24 km/h
+    private int sprintCount; // sprints starting in the split
+    private long heartRateSum;
+    private long heartRateReadings;
+    
+    public double getAverageHeartRate() {
+        return heartRateReadings > 0 ? (double) heartRateSum / heartRateReadings : 0.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.footballgps.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sprint, acceleration and deceleration events of one player in one session, extracted
+ * once from the raw fixes. {@code fixCount} is the number of fixes the index was built
+ * from, so a changed count means the index is out of date.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "session_event_index")
+@CompoundIndex(name = "sessionId_playerId", def = "{'sessionId': 1, 'playerId': 1}", unique = true)
+public class SessionEventIndex {
+    @Id
+    private String id;
+    private String playerId;
+    private String sessionId;
+    private LocalDateTime builtAt;
+    private long fixCount;
+    private LocalDateTime firstFix;
+    private LocalDateTime lastFix;
+    private int sprintCount;
+    private int accelerationCount;
+    private int decelerationCount;
+    private List<Event> events; // ordered by start
+    
+    public enum EventType {
+        SPRINT,
+        ACCELERATION,
+        DECELERATION
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Event {
+        private EventType type;
+        private LocalDateTime start;
+        private double durationSeconds;
+        private double distance; // meters
+        private double peakSpeed; // km/h
+        private double peakAcceleration; // m/s², negative for decelerations
+        private double startLatitude;
+        private double startLongitude;
+        private double endLatitude;
+        private double endLongitude;
+    }
+}
@@ -5,19 +5,20 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface GpsDataRepository extends MongoRepository<GpsData, String> {
-    List<GpsData> findByPlayerIdAndSessionId(String playerId, String sessionId);
-    List<GpsData> findBySessionId(String sessionId);
+    List<GpsData> findByPlayerIdAndSessionIdOrderByTimestampAsc(String playerId, String sessionId);
+    List<GpsData> findBySessionIdOrderByTimestampAsc(String sessionId);
+    long countByPlayerIdAndSessionId(String playerId, String sessionId);
+    long countBySessionId(String sessionId);
     
-    @Query("{'playerId': ?0, 'timestamp': {$gte: ?1, $lte: ?2}}")
-    List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, LocalDateTime start, LocalDateTime end);
+    @Query(value = "{'playerId': ?0, 'timestamp': {$gte: ?1, $lte: ?2}}", sort = "{'timestamp': 1}")
+    List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, long startMillis, long endMillis);
     
-    @Query("{'sessionId': ?0, 'timestamp': {$gte: ?1}}")
-    List<GpsData> findRecentDataBySession(String sessionId, LocalDateTime since);
+    @Query(value = "{'sessionId': ?0, 'timestamp': {$gte: ?1}}", sort = "{'timestamp': 1}")
+    List<GpsData> findRecentDataBySession(String sessionId, long sinceMillis);
     
     void deleteBySessionId(String sessionId);
 }
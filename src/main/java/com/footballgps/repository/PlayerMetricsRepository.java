@@ -1,11 +1,13 @@
 package com.footballgps.repository;
 
 import com.footballgps.model.PlayerMetrics;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,26 @@ public interface PlayerMetricsRepository extends MongoRepository<PlayerMetrics,
     @Query("{'playerId': ?0, 'calculatedAt': {$gte: ?1, $lte: ?2}}")
     List<PlayerMetrics> findByPlayerIdAndDateRange(String playerId, LocalDateTime start, LocalDateTime end);
     
+    @Query(value = "{'playerId': {$in: ?0}, 'calculatedAt': {$gte: ?1, $lte: ?2}}", sort = "{'calculatedAt': 1}")
+    List<PlayerMetrics> findByPlayerIdInAndDateRange(Collection<String> playerIds, LocalDateTime start, LocalDateTime end);
+    
     @Query("{'sessionId': ?0}")
     List<PlayerMetrics> findBySessionId(String sessionId);
+    
+    /**
+     * Saves {@code metrics} as the player's document for its session, replacing the stored
+     * one if there is one; (playerId, sessionId) is unique, so a plain save of a new
+     * calculation would be rejected. A concurrent first insert is retried as a replace.
+     */
+    default PlayerMetrics saveForSession(PlayerMetrics metrics) {
+        try {
+            findByPlayerIdAndSessionId(metrics.getPlayerId(), metrics.getSessionId())
+                    .ifPresent(stored -> metrics.setId(stored.getId()));
+            return save(metrics);
+        } catch (DuplicateKeyException e) {
+            metrics.setId(findByPlayerIdAndSessionId(metrics.getPlayerId(), metrics.getSessionId())
+                    .orElseThrow(() -> e).getId());
+            return save(metrics);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.footballgps.repository;
+
+import com.footballgps.model.PlayerSplit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PlayerSplitRepository extends MongoRepository<PlayerSplit, String> {
+    List<PlayerSplit> findByPlayerIdAndSessionIdOrderByStartAsc(String playerId, String sessionId);
+    void deleteBySessionId(String sessionId);
+}
@@ -0,0 +1,16 @@
+package com.footballgps.repository;
+
+import com.footballgps.model.SessionEventIndex;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionEventIndexRepository extends MongoRepository<SessionEventIndex, String> {
+    Optional<SessionEventIndex> findByPlayerIdAndSessionId(String playerId, String sessionId);
+    List<SessionEventIndex> findBySessionId(String sessionId);
+    void deleteBySessionIdAndPlayerIdNotIn(String sessionId, Collection<String> playerIds);
+}
@@ -0,0 +1,13 @@
+package com.footballgps.repository;
+
+import com.footballgps.model.TrainingSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TrainingSessionRepository extends MongoRepository<TrainingSession, String> {
+    List<TrainingSession> findByActiveTrue();
+    List<TrainingSession> findByTeamIdOrderByStartTimeDesc(String teamId);
+}
@@ -0,0 +1,37 @@
+package com.footballgps.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic data versions per player and per session. Every GPS, metrics or player write
+ * bumps the versions it touches, so anything derived from that data can tell whether it
+ * is still current by comparing watermarks. Versions live in memory only.
+ */
+@Component
+public class DataVersionTracker {
+    
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> playerVersions = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessionVersions = new ConcurrentHashMap<>();
+    
+    public void recordWrite(String playerId, String sessionId) {
+        long version = clock.incrementAndGet();
+        if (playerId != null) {
+            playerVersions.merge(playerId, version, Math::max);
+        }
+        if (sessionId != null) {
+            sessionVersions.merge(sessionId, version, Math::max);
+        }
+    }
+    
+    /** Highest version of the given player and session; either may be null. */
+    public long watermark(String playerId, String sessionId) {
+        long playerVersion = playerId != null ? playerVersions.getOrDefault(playerId, 0L) : 0L;
+        long sessionVersion = sessionId != null ? sessionVersions.getOrDefault(sessionId, 0L) : 0L;
+        return Math.max(playerVersion, sessionVersion);
+    }
+}
@@ -0,0 +1,136 @@
+package com.footballgps.service;
+
+import com.footballgps.model.Player;
+import com.footballgps.model.TrainingSession;
+import com.footballgps.repository.TrainingSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Device to player/session bindings for device-addressed ingest. The bindings of a
+ * session are loaded from the player cache when it starts, and player updates are
+ * checked against the rosters of running sessions, so resolving a fix never goes to
+ * Mongo. It is also the record of which sessions are running, which ingest checks per
+ * fix. Reads take the current immutable snapshots without locking;
+ * the rare writes (session start/end, player changes) copy it under a lock and
+ * publish the new map through a volatile field.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeviceRegistry {
+    
+    public record DeviceBinding(String deviceId, String playerId, String sessionId) {}
+    
+    /** Who a running session is for: its listed players, or else its team's active roster. */
+    private record SessionRoster(String sessionId, Set<String> playerIds, String teamId) {
+        boolean includes(Player player) {
+            if (!playerIds.isEmpty()) {
+                return playerIds.contains(player.getId());
+            }
+            return teamId != null && teamId.equals(player.getTeamId()) && player.isActive();
+        }
+    }
+    
+    private final PlayerCache playerCache;
+    private final TrainingSessionRepository trainingSessionRepository;
+    
+    private volatile Map<String, DeviceBinding> bindings = Map.of();
+    private volatile Set<String> running = Set.of();
+    // Running sessions in registration order; only touched under update's lock
+    private final Map<String, SessionRoster> rosters = new LinkedHashMap<>();
+    
+    // Sessions still active after a restart would otherwise accept no device fixes
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveSessions() {
+        try {
+            trainingSessionRepository.findByActiveTrue().forEach(this::registerSession);
+        } catch (Exception e) {
+            log.warn("Could not load device bindings of active sessions: {}", e.getMessage());
+        }
+    }
+    
+    public Optional<DeviceBinding> resolve(String deviceId) {
+        return Optional.ofNullable(bindings.get(deviceId));
+    }
+    
+    /** Whether the session is registered and has not been released. */
+    public boolean isRunning(String sessionId) {
+        return running.contains(sessionId);
+    }
+    
+    /** Binds the devices of the session's players, or of the team's active players if none are listed. */
+    public void registerSession(TrainingSession session) {
+        List<Player> players = new ArrayList<>();
+        if (session.getPlayerIds() != null && !session.getPlayerIds().isEmpty()) {
+            players.addAll(playerCache.getAll(session.getPlayerIds()));
+        } else if (session.getTeamId() != null) {
+            players.addAll(playerCache.getTeamRoster(session.getTeamId()));
+        }
+        
+        SessionRoster roster = new SessionRoster(session.getId(),
+                session.getPlayerIds() != null ? Set.copyOf(session.getPlayerIds()) : Set.of(), session.getTeamId());
+        List<Player> withDevices = players.stream().filter(player -> player.getDeviceId() != null).toList();
+        
+        update(current -> {
+            rosters.remove(session.getId());
+            rosters.put(session.getId(), roster);
+            for (Player player : withDevices) {
+                DeviceBinding previous = current.put(player.getDeviceId(),
+                        new DeviceBinding(player.getDeviceId(), player.getId(), session.getId()));
+                if (previous != null && !previous.sessionId().equals(session.getId())) {
+                    log.warn("Device {} moved from session {} to session {}",
+                            player.getDeviceId(), previous.sessionId(), session.getId());
+                }
+            }
+        });
+        log.info("Registered {} devices of {} players for session {}", withDevices.size(), players.size(), session.getId());
+    }
+    
+    public void releaseSession(String sessionId) {
+        update(current -> {
+            rosters.remove(sessionId);
+            current.values().removeIf(binding -> binding.sessionId().equals(sessionId));
+        });
+    }
+    
+    /**
+     * Follows a device swap or removal, or a roster change, for a player: the player's
+     * current device is bound to the latest running session that includes them, so a
+     * player given a device or moved to a team mid-session starts resolving at once.
+     */
+    public void onPlayerUpdated(Player player) {
+        update(current -> {
+            current.values().removeIf(binding -> binding.playerId().equals(player.getId()));
+            if (player.getDeviceId() == null) {
+                return;
+            }
+            String sessionId = null;
+            for (SessionRoster roster : rosters.values()) {
+                if (roster.includes(player)) {
+                    sessionId = roster.sessionId();
+                }
+            }
+            if (sessionId != null) {
+                current.put(player.getDeviceId(), new DeviceBinding(player.getDeviceId(), player.getId(), sessionId));
+            }
+        });
+    }
+    
+    public void onPlayerDeleted(String playerId) {
+        update(current -> current.values().removeIf(binding -> binding.playerId().equals(playerId)));
+    }
+    
+    private synchronized void update(Consumer<Map<String, DeviceBinding>> change) {
+        Map<String, DeviceBinding> copy = new HashMap<>(bindings);
+        change.accept(copy);
+        bindings = Map.copyOf(copy);
+        running = Set.copyOf(rosters.keySet());
+    }
+}
@@ -0,0 +1,181 @@
+package com.footballgps.service;
+
+import com.footballgps.model.GpsData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-player reorder buffer between ingest and everything downstream of it. Fixes keep
+ * their device timestamps and wait until the player's watermark, the newest device time
+ * seen minus the reorder window, passes them; they are then released in timestamp order.
+ * A fix older than one already released is late: it is counted and dropped, so storage
+ * and the live services only ever see each player's fixes in order. A fix stamped further
+ * ahead of its arrival than the allowed clock skew is dropped as well, as it would push
+ * the watermark past every later fix. A player who goes
+ * quiet is released by {@link #releaseIdle} once the window has passed in wall-clock time.
+ * <p>
+ * Releases of one player run under that player's lock, so the downstream consumer also
+ * sees them in order. A batch counts as released only once the consumer returns: if it
+ * throws, the fixes go back into the buffer and the next release retries them, so a
+ * storage failure neither loses them nor makes their retries late. The failure is not
+ * passed on to whoever triggered the release.
+ */
+@Component
+@Slf4j
+public class FixReorderBuffer {
+    
+    private record PlayerKey(String sessionId, String playerId) {}
+    
+    private static final class PlayerBuffer {
+        final PriorityQueue<GpsData> pending = new PriorityQueue<>(Comparator.comparingLong(GpsData::getTimestamp));
+        long newestMillis = Long.MIN_VALUE;
+        long releasedMillis = Long.MIN_VALUE;
+        long lastArrivalMillis;
+        long retryAtMillis; // after a failed release, arrivals wait a window before retrying
+        boolean closed;
+    }
+    
+    private final long windowMillis;
+    private final long maxAheadMillis;
+    private final Map<PlayerKey, PlayerBuffer> buffers = new ConcurrentHashMap<>();
+    
+    private final Counter inOrder;
+    private final Counter reordered;
+    private final Counter late;
+    private final Counter ahead;
+    private final Counter retried;
+    private final DistributionSummary lateness;
+    
+    public FixReorderBuffer(@Value("${gps.ingest.reorder-window-ms:500}") long windowMillis,
+                            @Value("${gps.ingest.max-clock-ahead-ms:5000}") long maxAheadMillis,
+                            MeterRegistry meterRegistry) {
+        this.windowMillis = windowMillis;
+        this.maxAheadMillis = maxAheadMillis;
+        
+        this.inOrder = meterRegistry.counter("gps.ingest.fixes", "arrival", "in_order");
+        this.reordered = meterRegistry.counter("gps.ingest.fixes", "arrival", "reordered");
+        this.late = meterRegistry.counter("gps.ingest.fixes", "arrival", "late");
+        this.ahead = meterRegistry.counter("gps.ingest.fixes", "arrival", "ahead");
+        this.retried = meterRegistry.counter("gps.ingest.release.retried");
+        this.lateness = DistributionSummary.builder("gps.ingest.late.lateness")
+                .baseUnit("milliseconds")
+                .description("How far behind the last released fix a dropped late fix was")
+                .register(meterRegistry);
+        meterRegistry.gauge("gps.ingest.buffered", this, FixReorderBuffer::size);
+    }
+    
+    /**
+     * Buffers a fix with a timestamp and hands any fixes the watermark has passed to
+     * {@code downstream}. Returns false if the fix arrived too late, or stamped too far
+     * ahead of its arrival, and was dropped.
+     */
+    public boolean offer(GpsData fix, Consumer<List<GpsData>> downstream) {
+        PlayerKey key = new PlayerKey(fix.getSessionId(), fix.getPlayerId());
+        long millis = fix.getTimestamp();
+        long aheadMillis = millis - System.currentTimeMillis();
+        if (aheadMillis > maxAheadMillis) {
+            ahead.increment();
+            log.debug("Dropped fix of player {} stamped {} ms ahead of its arrival", fix.getPlayerId(), aheadMillis);
+            return false;
+        }
+        while (true) {
+            PlayerBuffer buffer = buffers.computeIfAbsent(key, k -> new PlayerBuffer());
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    continue; // the session was drained meanwhile; start a new buffer
+                }
+                if (millis < buffer.releasedMillis) {
+                    late.increment();
+                    lateness.record(buffer.releasedMillis - millis);
+                    log.debug("Dropped fix of player {} {} ms behind its released fixes",
+                            fix.getPlayerId(), buffer.releasedMillis - millis);
+                    return false;
+                }
+                
+                (millis < buffer.newestMillis ? reordered : inOrder).increment();
+                buffer.pending.add(fix);
+                buffer.newestMillis = Math.max(buffer.newestMillis, millis);
+                buffer.lastArrivalMillis = System.currentTimeMillis();
+                if (buffer.lastArrivalMillis >= buffer.retryAtMillis) {
+                    release(buffer, buffer.newestMillis - windowMillis, downstream);
+                }
+                return true;
+            }
+        }
+    }
+    
+    /** Releases everything buffered for players that have sent nothing for a full window. */
+    public void releaseIdle(Consumer<List<GpsData>> downstream) {
+        long idleSince = System.currentTimeMillis() - windowMillis;
+        for (PlayerBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                if (!buffer.pending.isEmpty() && buffer.lastArrivalMillis <= idleSince) {
+                    release(buffer, Long.MAX_VALUE, downstream);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Releases everything buffered for the session and forgets its players. This is the
+     * last release for them, so fixes the consumer fails on are dropped and logged.
+     */
+    public void releaseSession(String sessionId, Consumer<List<GpsData>> downstream) {
+        buffers.entrySet().removeIf(entry -> {
+            if (!Objects.equals(entry.getKey().sessionId(), sessionId)) {
+                return false;
+            }
+            PlayerBuffer buffer = entry.getValue();
+            synchronized (buffer) {
+                if (!release(buffer, Long.MAX_VALUE, downstream)) {
+                    log.error("Dropped {} buffered fixes of player {} in ended session {}",
+                            buffer.pending.size(), entry.getKey().playerId(), sessionId);
+                    buffer.pending.clear();
+                }
+                buffer.closed = true;
+            }
+            return true;
+        });
+    }
+    
+    public int size() {
+        int size = 0;
+        for (PlayerBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                size += buffer.pending.size();
+            }
+        }
+        return size;
+    }
+    
+    /** Returns false if the consumer failed and the fixes were put back. */
+    private boolean release(PlayerBuffer buffer, long upToMillis, Consumer<List<GpsData>> downstream) {
+        List<GpsData> released = new ArrayList<>();
+        while (!buffer.pending.isEmpty()
+                && buffer.pending.peek().getTimestamp() <= upToMillis) {
+            released.add(buffer.pending.poll());
+        }
+        if (released.isEmpty()) {
+            return true;
+        }
+        try {
+            downstream.accept(released);
+        } catch (RuntimeException e) {
+            buffer.pending.addAll(released);
+            buffer.retryAtMillis = System.currentTimeMillis() + windowMillis;
+            retried.increment(released.size());
+            log.warn("Keeping {} fixes buffered after a failed release: {}", released.size(), e.getMessage());
+            return false;
+        }
+        buffer.releasedMillis = released.get(released.size() - 1).getTimestamp();
+        return true;
+    }
+}
@@ -1,59 +1,159 @@
 package com.footballgps.service;
 
+import com.footballgps.ml.service.LiveFatigueService;
+import com.footballgps.ml.service.LiveFormationService;
+import com.footballgps.ml.service.LiveProximityService;
 import com.footballgps.model.GpsData;
-import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.storage.GpsDataStore;
+import com.footballgps.util.EpochTime;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GpsDataService {
     
-    private final GpsDataRepository gpsDataRepository;
+    private final GpsDataStore gpsDataStore;
     private final SimpMessagingTemplate messagingTemplate;
     private final MetricsCalculationService metricsCalculationService;
+    private final LiveFatigueService liveFatigueService;
+    private final LiveFormationService liveFormationService;
+    private final LiveProximityService liveProximityService;
+    private final DataVersionTracker dataVersionTracker;
+    private final SplitMetricsService splitMetricsService;
+    private final DeviceRegistry deviceRegistry;
+    private final FixReorderBuffer fixReorderBuffer;
     
+    /**
+     * Accepts a fix with its device timestamp (arrival time if it has none). The fix is
+     * persisted and streamed once the reorder buffer releases it in timestamp order, so
+     * it may not have an id yet when this returns; late fixes, fixes stamped too far
+     * ahead of the server clock and fixes for sessions that are not running are dropped.
+     */
     public GpsData saveGpsData(GpsData gpsData) {
-        gpsData.setTimestamp(LocalDateTime.now());
-        GpsData saved = gpsDataRepository.save(gpsData);
-        
-        // Send real-time update to connected clients
-        messagingTemplate.convertAndSend("/topic/gps/" + gpsData.getSessionId(), saved);
-        
-        // Trigger metrics calculation asynchronously
-        metricsCalculationService.calculateRealTimeMetrics(saved);
-        
-        log.debug("GPS data saved for player {} in session {}", 
-                 gpsData.getPlayerId(), gpsData.getSessionId());
-        
-        return saved;
+        if (!deviceRegistry.isRunning(gpsData.getSessionId())) {
+            log.debug("GPS fix dropped for player {}: session {} is not running",
+                     gpsData.getPlayerId(), gpsData.getSessionId());
+            return gpsData;
+        }
+        if (gpsData.getTimestamp() == 0) {
+            gpsData.setTimestamp(System.currentTimeMillis());
+        }
+        // Ids are the store's; a retried write skips fixes that already have one
+        gpsData.setId(null);
+        if (!fixReorderBuffer.offer(gpsData, this::processRunningFixes)) {
+            log.debug("Late or future-stamped GPS fix dropped for player {} in session {}",
+                     gpsData.getPlayerId(), gpsData.getSessionId());
+        }
+        return gpsData;
+    }
+    
+    @Scheduled(fixedDelayString = "${gps.ingest.reorder-window-ms:500}")
+    public void releaseIdleFixes() {
+        fixReorderBuffer.releaseIdle(this::processRunningFixes);
+    }
+    
+    /**
+     * Persists and streams everything still buffered for the session. Ending a session
+     * releases it from the device registry first, so this is the only release that still
+     * processes its fixes.
+     */
+    public void flushSession(String sessionId) {
+        fixReorderBuffer.releaseSession(sessionId, this::processFixes);
+    }
+    
+    /** Ingest for wearables that only know their device id; empty if the device is not in a running session. */
+    public Optional<GpsData> saveDeviceData(String deviceId, GpsData gpsData) {
+        return deviceRegistry.resolve(deviceId).map(binding -> {
+            gpsData.setPlayerId(binding.playerId());
+            gpsData.setSessionId(binding.sessionId());
+            return saveGpsData(gpsData);
+        });
     }
     
     public List<GpsData> getSessionData(String sessionId) {
-        return gpsDataRepository.findBySessionId(sessionId);
+        return gpsDataStore.findBySessionId(sessionId);
     }
     
     public List<GpsData> getPlayerSessionData(String playerId, String sessionId) {
-        return gpsDataRepository.findByPlayerIdAndSessionId(playerId, sessionId);
+        return gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId);
     }
     
     public List<GpsData> getRecentData(String sessionId, int minutes) {
-        LocalDateTime since = LocalDateTime.now().minusMinutes(minutes);
-        return gpsDataRepository.findRecentDataBySession(sessionId, since);
+        long since = System.currentTimeMillis() - minutes * 60_000L;
+        return gpsDataStore.findRecentDataBySession(sessionId, since);
     }
     
     public List<GpsData> getPlayerDataInRange(String playerId, LocalDateTime start, LocalDateTime end) {
-        return gpsDataRepository.findByPlayerIdAndTimestampBetween(playerId, start, end);
+        return gpsDataStore.findByPlayerIdAndTimestampBetween(playerId, EpochTime.toMillis(start), EpochTime.toMillis(end));
     }
     
     public void deleteSessionData(String sessionId) {
-        gpsDataRepository.deleteBySessionId(sessionId);
+        // Buffered fixes are discarded rather than written after the delete
+        fixReorderBuffer.releaseSession(sessionId, fixes -> { });
+        gpsDataStore.deleteBySessionId(sessionId);
+        splitMetricsService.deleteSession(sessionId);
+        dataVersionTracker.recordWrite(null, sessionId);
         log.info("Deleted GPS data for session {}", sessionId);
     }
+    
+    // A fix accepted just before its session ended can be buffered after the final flush;
+    // it is dropped here rather than stored and fed to live state that has been released
+    private void processRunningFixes(List<GpsData> fixes) {
+        String sessionId = fixes.get(0).getSessionId();
+        if (!deviceRegistry.isRunning(sessionId)) {
+            log.debug("Dropped {} GPS fixes released after session {} ended", fixes.size(), sessionId);
+            return;
+        }
+        processFixes(fixes);
+    }
+    
+    // One player's released fixes, in timestamp order. Only a failed write is thrown, so the
+    // reorder buffer keeps the fixes for a retry; the store does not write a fix twice, and
+    // nothing is streamed until the whole batch is stored.
+    private void processFixes(List<GpsData> fixes) {
+        List<GpsData> saved = gpsDataStore.saveAll(fixes);
+        GpsData last = saved.get(saved.size() - 1);
+        try {
+            streamSaved(saved, last);
+        } catch (RuntimeException e) {
+            log.error("Error streaming {} saved GPS fixes for player {} in session {}",
+                     saved.size(), last.getPlayerId(), last.getSessionId(), e);
+        }
+    }
+    
+    private void streamSaved(List<GpsData> saved, GpsData last) {
+        dataVersionTracker.recordWrite(last.getPlayerId(), last.getSessionId());
+        
+        for (GpsData fix : saved) {
+            // Send real-time update to connected clients
+            messagingTemplate.convertAndSend("/topic/gps/" + fix.getSessionId(), fix);
+            
+            // Update in-memory fatigue statistics; pushes to /topic/fatigue/{sessionId} on change
+            liveFatigueService.onFix(fix);
+            
+            // Rolling formation windows; pushes to /topic/formation/{sessionId} on change
+            liveFormationService.onFix(fix);
+            
+            // Latest position for the 10 Hz proximity frames
+            liveProximityService.onFix(fix);
+            
+            // Pending per-minute split increments, flushed to player_splits on a schedule
+            splitMetricsService.onFix(fix);
+        }
+        
+        // Trigger metrics calculation asynchronously, once for the batch
+        metricsCalculationService.calculateRealTimeMetrics(last);
+        
+        log.debug("{} GPS fixes saved for player {} in session {}",
+                 saved.size(), last.getPlayerId(), last.getSessionId());
+    }
 }
@@ -1,11 +1,24 @@
 package com.footballgps.service;
 
+import com.footballgps.analysis.EffortSegmentation;
+import com.footballgps.analysis.EffortSegmenter;
+import com.footballgps.analysis.MovementEvent;
+import com.footballgps.analysis.MovementEventExtractor;
+import com.footballgps.ml.service.LiveProximityService;
 import com.footballgps.model.GpsData;
 import com.footballgps.model.PlayerMetrics;
-import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.model.SessionEventIndex;
 import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.storage.GpsDataStore;
+import com.footballgps.storage.GpsSessionSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -18,25 +31,38 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MetricsCalculationService {
     
-    private final GpsDataRepository gpsDataRepository;
+    private final GpsDataStore gpsDataStore;
     private final PlayerMetricsRepository playerMetricsRepository;
+    private final DataVersionTracker dataVersionTracker;
+    private final LiveProximityService liveProximityService;
+    private final MovementEventService movementEventService;
+    private final MongoTemplate mongoTemplate;
     
     private static final double SPRINT_THRESHOLD = 24.0; // km/h
     private static final double HIGH_INTENSITY_THRESHOLD = 19.8; // km/h
-    private static final double ACCELERATION_THRESHOLD = 3.0; // m/s²
+    private static final String PIPELINE_MODE = "pipeline";
+    
+    // jvm = fetch the fixes and aggregate here; pipeline = aggregate in Mongo where the layout supports it
+    @Value("${metrics.summary.mode:jvm}")
+    private String summaryMode;
     
     @Async
     public void calculateRealTimeMetrics(GpsData gpsData) {
         try {
-            // Get recent data for context (last 5 minutes)
-            LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-            List<GpsData> recentData = gpsDataRepository.findByPlayerIdAndTimestampBetween(
-                gpsData.getPlayerId(), fiveMinutesAgo, LocalDateTime.now());
+            // Get recent data for context (the 5 minutes up to this fix, in device time)
+            long fiveMinutesAgo = gpsData.getTimestamp() - 5 * 60_000L;
+            List<GpsData> recentData = gpsDataStore.findByPlayerIdAndTimestampBetween(
+                gpsData.getPlayerId(), fiveMinutesAgo, gpsData.getTimestamp());
             
             if (recentData.size() < 2) return; // Need at least 2 points for calculations
             
             PlayerMetrics metrics = calculateMetricsFromData(recentData, gpsData.getSessionId());
-            playerMetricsRepository.save(metrics);
+            if (!saveRealTimeMetrics(metrics)) {
+                log.debug("Real-time metrics for player {} skipped: session {} has ended",
+                         gpsData.getPlayerId(), gpsData.getSessionId());
+                return;
+            }
+            dataVersionTracker.recordWrite(metrics.getPlayerId(), metrics.getSessionId());
             
             log.debug("Real-time metrics calculated for player {}", gpsData.getPlayerId());
         } catch (Exception e) {
@@ -44,8 +70,39 @@ public class MetricsCalculationService {
         }
     }
     
+    /**
+     * Replaces the player's session document unless it holds the final metrics, in one
+     * write, so a calculation still running when the session ends cannot overwrite them.
+     * Returns false if the final metrics are stored. An upsert that loses a first insert to
+     * another writer is retried once as a replace; a second duplicate key is the final
+     * document, which the filter excludes.
+     */
+    private boolean saveRealTimeMetrics(PlayerMetrics metrics) {
+        Query query = Query.query(Criteria.where("playerId").is(metrics.getPlayerId())
+                .and("sessionId").is(metrics.getSessionId())
+                .and("finalized").ne(true));
+        for (int attempt = 0; ; attempt++) {
+            try {
+                mongoTemplate.findAndReplace(query, metrics, FindAndReplaceOptions.options().upsert());
+                return true;
+            } catch (DuplicateKeyException e) {
+                if (attempt > 0) {
+                    return false;
+                }
+            }
+        }
+    }
+    
     public PlayerMetrics calculateSessionMetrics(String playerId, String sessionId) {
-        List<GpsData> sessionData = gpsDataRepository.findByPlayerIdAndSessionId(playerId, sessionId);
+        if (PIPELINE_MODE.equals(summaryMode)) {
+            Optional<GpsSessionSummary> summary = gpsDataStore.summarize(playerId, sessionId);
+            if (summary.isPresent()) {
+                return calculateMetricsFromSummary(playerId, sessionId, summary.get());
+            }
+            // Bucket storage has no pipeline, and an empty session ends up as null below either way
+        }
+        
+        List<GpsData> sessionData = gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId);
         
         if (sessionData.isEmpty()) {
             return null;
@@ -54,10 +111,12 @@ public class MetricsCalculationService {
         return calculateMetricsFromData(sessionData, sessionId);
     }
     
+    public EffortSegmentation calculateEffortSegmentation(String playerId, String sessionId) {
+        return EffortSegmenter.segment(gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId));
+    }
+    
+    // Expects one player's fixes in timestamp order, as the GPS stores return them
     private PlayerMetrics calculateMetricsFromData(List<GpsData> data, String sessionId) {
-        // Sort data by timestamp
-        data.sort(Comparator.comparing(GpsData::getTimestamp));
-        
         PlayerMetrics metrics = new PlayerMetrics();
         metrics.setPlayerId(data.get(0).getPlayerId());
         metrics.setSessionId(sessionId);
@@ -68,7 +127,7 @@ public class MetricsCalculationService {
         metrics.setMovement(movementMetrics);
         
         // Calculate performance metrics
-        PlayerMetrics.PerformanceMetrics performanceMetrics = calculatePerformanceMetrics(data);
+        PlayerMetrics.PerformanceMetrics performanceMetrics = calculatePerformanceMetrics(data, EffortSegmenter.segment(data));
         metrics.setPerformance(performanceMetrics);
         
         // Calculate tactical metrics
@@ -76,21 +135,61 @@ public class MetricsCalculationService {
         metrics.setTactical(tacticalMetrics);
         
         // Calculate load metrics
-        PlayerMetrics.LoadMetrics loadMetrics = calculateLoadMetrics(data);
+        PlayerMetrics.LoadMetrics loadMetrics = calculateLoadMetrics(data.size());
         metrics.setLoad(loadMetrics);
         
         return metrics;
     }
     
+    // Same metrics as calculateMetricsFromData, from aggregates computed by the database
+    private PlayerMetrics calculateMetricsFromSummary(String playerId, String sessionId, GpsSessionSummary summary) {
+        PlayerMetrics metrics = new PlayerMetrics();
+        metrics.setPlayerId(playerId);
+        metrics.setSessionId(sessionId);
+        metrics.setCalculatedAt(LocalDateTime.now());
+        
+        // Event counts come from the session's event index rather than the raw fixes
+        Optional<SessionEventIndex> events = movementEventService.getIndex(playerId, sessionId);
+        PlayerMetrics.MovementMetrics movement = new PlayerMetrics.MovementMetrics();
+        movement.setTotalDistance(summary.totalDistance());
+        movement.setSprintDistance(summary.speedZones().get("sprinting"));
+        movement.setHighIntensityDistance(summary.speedZones().get("high_intensity"));
+        movement.setSprintCount(events.map(SessionEventIndex::getSprintCount).orElse(0));
+        movement.setAccelerationCount(events.map(SessionEventIndex::getAccelerationCount).orElse(0));
+        movement.setDecelerationCount(events.map(SessionEventIndex::getDecelerationCount).orElse(0));
+        movement.setMaxSpeed(Math.max(0, summary.maxSpeed()));
+        movement.setAverageSpeed(summary.steps() > 0 ? summary.speedSum() / summary.steps() : 0);
+        movement.setJumpCount(summary.jumpCount());
+        movement.setPlayerLoad(summary.playerLoad());
+        movement.setSpeedZones(new HashMap<>(summary.speedZones()));
+        metrics.setMovement(movement);
+        
+        PlayerMetrics.PerformanceMetrics performance = new PlayerMetrics.PerformanceMetrics();
+        performance.setMaxHeartRate(summary.maxHeartRate());
+        performance.setAverageHeartRate(summary.heartRateReadings() > 0
+                ? (int) (summary.heartRateSum() / summary.heartRateReadings()) : 0);
+        performance.setIntensityScore(summary.fixes() > 0 ? summary.intensitySum() / summary.fixes() : 0);
+        setEstimatedPerformance(performance, summary.recoveries() > 0
+                ? summary.recoverySecondsSum() / summary.recoveries() : 120.0);
+        metrics.setPerformance(performance);
+        
+        PlayerMetrics.TacticalMetrics tactical = new PlayerMetrics.TacticalMetrics();
+        tactical.setAveragePositionX(summary.fixes() > 0 ? summary.fieldXSum() / summary.fixes() : 0);
+        tactical.setAveragePositionY(summary.fixes() > 0 ? summary.fieldYSum() / summary.fixes() : 0);
+        tactical.setHeatMap(new HashMap<>(summary.heatMap()));
+        setEstimatedTactical(tactical, sessionId, playerId);
+        metrics.setTactical(tactical);
+        
+        metrics.setLoad(calculateLoadMetrics(summary.fixes()));
+        return metrics;
+    }
+    
     private PlayerMetrics.MovementMetrics calculateMovementMetrics(List<GpsData> data) {
         PlayerMetrics.MovementMetrics metrics = new PlayerMetrics.MovementMetrics();
         
         double totalDistance = 0;
         double sprintDistance = 0;
         double highIntensityDistance = 0;
-        int sprintCount = 0;
-        int accelerationCount = 0;
-        int decelerationCount = 0;
         double maxSpeed = 0;
         double totalSpeed = 0;
         int jumpCount = 0;
@@ -115,15 +214,11 @@ public class MetricsCalculationService {
             
             totalDistance += distance;
             double speed = current.getMovement().getSpeed();
-            double acceleration = current.getMovement().getAcceleration();
             
             // Speed zone classification
             if (speed > SPRINT_THRESHOLD) {
                 sprintDistance += distance;
                 speedZones.put("sprinting", speedZones.get("sprinting") + distance);
-                if (previous.getMovement().getSpeed() <= SPRINT_THRESHOLD) {
-                    sprintCount++;
-                }
             } else if (speed > HIGH_INTENSITY_THRESHOLD) {
                 highIntensityDistance += distance;
                 speedZones.put("high_intensity", speedZones.get("high_intensity") + distance);
@@ -135,13 +230,6 @@ public class MetricsCalculationService {
                 speedZones.put("walking", speedZones.get("walking") + distance);
             }
             
-            // Acceleration/deceleration events
-            if (acceleration > ACCELERATION_THRESHOLD) {
-                accelerationCount++;
-            } else if (acceleration < -ACCELERATION_THRESHOLD) {
-                decelerationCount++;
-            }
-            
             // Max speed tracking
             if (speed > maxSpeed) {
                 maxSpeed = speed;
@@ -166,12 +254,15 @@ public class MetricsCalculationService {
             }
         }
         
+        // Sprint and acceleration events with hysteresis and minimum durations
+        List<MovementEvent> events = MovementEventExtractor.extract(data);
+        
         metrics.setTotalDistance(totalDistance);
         metrics.setSprintDistance(sprintDistance);
         metrics.setHighIntensityDistance(highIntensityDistance);
-        metrics.setSprintCount(sprintCount);
-        metrics.setAccelerationCount(accelerationCount);
-        metrics.setDecelerationCount(decelerationCount);
+        metrics.setSprintCount(countEvents(events, SessionEventIndex.EventType.SPRINT));
+        metrics.setAccelerationCount(countEvents(events, SessionEventIndex.EventType.ACCELERATION));
+        metrics.setDecelerationCount(countEvents(events, SessionEventIndex.EventType.DECELERATION));
         metrics.setMaxSpeed(maxSpeed);
         metrics.setAverageSpeed(data.size() > 1 ? totalSpeed / (data.size() - 1) : 0);
         metrics.setJumpCount(jumpCount);
@@ -181,7 +272,11 @@ public class MetricsCalculationService {
         return metrics;
     }
     
-    private PlayerMetrics.PerformanceMetrics calculatePerformanceMetrics(List<GpsData> data) {
+    private int countEvents(List<MovementEvent> events, SessionEventIndex.EventType type) {
+        return (int) events.stream().filter(event -> event.type() == type).count();
+    }
+    
+    private PlayerMetrics.PerformanceMetrics calculatePerformanceMetrics(List<GpsData> data, EffortSegmentation efforts) {
         PlayerMetrics.PerformanceMetrics metrics = new PlayerMetrics.PerformanceMetrics();
         
         int totalHeartRate = 0;
@@ -210,14 +305,18 @@ public class MetricsCalculationService {
         metrics.setMaxHeartRate(maxHeartRate);
         metrics.setAverageHeartRate(validHeartRateReadings > 0 ? totalHeartRate / validHeartRateReadings : 0);
         metrics.setIntensityScore(data.size() > 0 ? totalIntensity / data.size() : 0);
+        // Average recovery between high-intensity efforts; 120s when there were fewer than two efforts
+        setEstimatedPerformance(metrics, efforts.recoveryTimes().length > 0 ? efforts.averageRecoverySeconds() : 120.0);
         
+        return metrics;
+    }
+    
+    private void setEstimatedPerformance(PlayerMetrics.PerformanceMetrics metrics, double recoveryTime) {
         // Simplified calculations for other metrics
         metrics.setWorkRate(85.0); // Would be calculated based on expected vs actual performance
         metrics.setFatigueIndex(5.0); // Would be calculated based on performance decline
-        metrics.setRecoveryTime(120.0); // Would be calculated based on heart rate recovery
+        metrics.setRecoveryTime(recoveryTime);
         metrics.setVo2Max(45.0); // Would be estimated from performance data
-        
-        return metrics;
     }
     
     private PlayerMetrics.TacticalMetrics calculateTacticalMetrics(List<GpsData> data) {
@@ -244,20 +343,33 @@ public class MetricsCalculationService {
         metrics.setAveragePositionY(data.size() > 0 ? totalY / data.size() : 0);
         metrics.setHeatMap(heatMap);
         
+        GpsData first = data.get(0);
+        setEstimatedTactical(metrics, first.getSessionId(), first.getPlayerId());
+        
+        return metrics;
+    }
+    
+    private void setEstimatedTactical(PlayerMetrics.TacticalMetrics metrics, String sessionId, String playerId) {
         // Simplified calculations for other tactical metrics
         metrics.setFieldCoverage(75.0); // Would be calculated based on area covered
         metrics.setFormationAdherence(80.0); // Would be calculated based on expected position
         metrics.setTeamSynchronization(70.0); // Would be calculated based on team movement
-        metrics.setPassingNetworkConnections(5); // Would be calculated from game events
-        
-        return metrics;
+        // Teammates at passable distance, averaged over the live proximity frames. Without live
+        // state (the session was released, or the service restarted) the stored value is kept
+        OptionalDouble passingOptions = liveProximityService.getAveragePassingOptions(sessionId, playerId);
+        metrics.setPassingNetworkConnections(passingOptions.isPresent()
+                ? (int) Math.round(passingOptions.getAsDouble())
+                : playerMetricsRepository.findByPlayerIdAndSessionId(playerId, sessionId)
+                        .map(PlayerMetrics::getTactical)
+                        .map(PlayerMetrics.TacticalMetrics::getPassingNetworkConnections)
+                        .orElse(0));
     }
     
-    private PlayerMetrics.LoadMetrics calculateLoadMetrics(List<GpsData> data) {
+    private PlayerMetrics.LoadMetrics calculateLoadMetrics(long fixCount) {
         PlayerMetrics.LoadMetrics metrics = new PlayerMetrics.LoadMetrics();
         
         // Simplified load calculations
-        double sessionLoad = data.size() * 0.1; // Based on data points and intensity
+        double sessionLoad = fixCount * 0.1; // Based on data points and intensity
         
         metrics.setAcuteLoad(sessionLoad); // Would be 7-day rolling average
         metrics.setChronicLoad(sessionLoad * 0.8); // Would be 28-day rolling average
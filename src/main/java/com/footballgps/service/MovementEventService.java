@@ -0,0 +1,204 @@
+package com.footballgps.service;
+
+import com.footballgps.analysis.MovementEvent;
+import com.footballgps.analysis.MovementEventExtractor;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.SessionEventIndex;
+import com.footballgps.repository.SessionEventIndexRepository;
+import com.footballgps.storage.GpsDataStore;
+import com.footballgps.util.EpochTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Per-session sprint and acceleration event indexes in session_event_index. An index is
+ * built from the raw fixes the first time it is needed and rebuilt only when the number
+ * of stored fixes has changed, so queries such as "sprints over 30 m in the last 15
+ * minutes" read one small document per player instead of rescanning the session.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovementEventService {
+    
+    private final SessionEventIndexRepository sessionEventIndexRepository;
+    private final GpsDataStore gpsDataStore;
+    private final MongoTemplate mongoTemplate;
+    
+    public Optional<SessionEventIndex> getIndex(String playerId, String sessionId) {
+        long fixes = gpsDataStore.countByPlayerIdAndSessionId(playerId, sessionId);
+        Optional<SessionEventIndex> stored = sessionEventIndexRepository.findByPlayerIdAndSessionId(playerId, sessionId);
+        if (stored.isPresent() && stored.get().getFixCount() == fixes) {
+            return stored;
+        }
+        if (fixes == 0) {
+            return Optional.empty();
+        }
+        
+        SessionEventIndex index;
+        try (Stream<GpsData> session = gpsDataStore.streamByPlayerIdAndSessionId(playerId, sessionId)) {
+            index = buildIndex(playerId, sessionId, session.iterator());
+        }
+        return Optional.of(upsert(index));
+    }
+    
+    /** Indexes of every player in the session, rebuilding them all if any fixes were added. */
+    public List<SessionEventIndex> getSessionIndexes(String sessionId) {
+        long fixes = gpsDataStore.countBySessionId(sessionId);
+        List<SessionEventIndex> stored = sessionEventIndexRepository.findBySessionId(sessionId);
+        long indexed = stored.stream().mapToLong(SessionEventIndex::getFixCount).sum();
+        if (!stored.isEmpty() && indexed == fixes) {
+            return stored;
+        }
+        if (fixes == 0) {
+            return Collections.emptyList();
+        }
+        
+        Map<String, List<GpsData>> byPlayer = gpsDataStore.findBySessionId(sessionId).stream()
+                .filter(data -> data.getPlayerId() != null)
+                .collect(Collectors.groupingBy(GpsData::getPlayerId));
+        List<SessionEventIndex> saved = byPlayer.entrySet().stream()
+                .map(entry -> upsert(buildIndex(entry.getKey(), sessionId, entry.getValue().iterator())))
+                .collect(Collectors.toList());
+        sessionEventIndexRepository.deleteBySessionIdAndPlayerIdNotIn(sessionId, byPlayer.keySet());
+        log.info("Indexed movement events for {} players in session {}", saved.size(), sessionId);
+        return saved;
+    }
+    
+    /**
+     * Events of one player matching the filters. {@code type} may be null for all types;
+     * {@code lastMinutes} counts back from the player's latest fix and may be null.
+     */
+    public List<SessionEventIndex.Event> findEvents(String playerId, String sessionId, SessionEventIndex.EventType type,
+                                                    double minDistance, double minDurationSeconds, Integer lastMinutes) {
+        return getIndex(playerId, sessionId)
+                .map(index -> filter(index, type, minDistance, minDurationSeconds, since(index.getLastFix(), lastMinutes)))
+                .orElse(Collections.emptyList());
+    }
+    
+    /** Matching events per player; {@code lastMinutes} counts back from the session's latest fix. */
+    public Map<String, List<SessionEventIndex.Event>> findSessionEvents(String sessionId, SessionEventIndex.EventType type,
+                                                                        double minDistance, double minDurationSeconds,
+                                                                        Integer lastMinutes) {
+        List<SessionEventIndex> indexes = getSessionIndexes(sessionId);
+        LocalDateTime lastFix = indexes.stream()
+                .map(SessionEventIndex::getLastFix)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        LocalDateTime since = since(lastFix, lastMinutes);
+        
+        Map<String, List<SessionEventIndex.Event>> events = new TreeMap<>();
+        for (SessionEventIndex index : indexes) {
+            List<SessionEventIndex.Event> matching = filter(index, type, minDistance, minDurationSeconds, since);
+            if (!matching.isEmpty()) {
+                events.put(index.getPlayerId(), matching);
+            }
+        }
+        return events;
+    }
+    
+    /**
+     * Replaces the pair's index, or inserts it, in one write, so a concurrent rebuild of the
+     * same pair cannot trip the unique (sessionId, playerId) index. Two first inserts can
+     * still race; the loser is retried and replaces the winner's document.
+     */
+    private SessionEventIndex upsert(SessionEventIndex index) {
+        Query query = Query.query(Criteria.where("sessionId").is(index.getSessionId())
+                .and("playerId").is(index.getPlayerId()));
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return mongoTemplate.findAndReplace(query, index, FindAndReplaceOptions.options().upsert().returnNew());
+            } catch (DuplicateKeyException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    // Single pass over time-ordered fixes, so a lazily unpacked session is never held in memory
+    private SessionEventIndex buildIndex(String playerId, String sessionId, Iterator<GpsData> fixes) {
+        List<MovementEvent> extracted = new ArrayList<>();
+        MovementEventExtractor extractor = new MovementEventExtractor(extracted::add);
+        long fixCount = 0;
+        LocalDateTime firstFix = null;
+        long lastMillis = 0;
+        while (fixes.hasNext()) {
+            GpsData data = fixes.next();
+            // All fixes, including unusable ones, so the count matches the stored data
+            fixCount++;
+            if (data.getTimestamp() == 0 || data.getPosition() == null || data.getMovement() == null) {
+                continue;
+            }
+            if (firstFix == null) {
+                firstFix = EpochTime.toLocalDateTime(data.getTimestamp());
+            }
+            lastMillis = data.getTimestamp();
+            extractor.accept(data.getTimestamp(),
+                    data.getPosition().getLatitude(), data.getPosition().getLongitude(),
+                    data.getMovement().getSpeed(), data.getMovement().getAcceleration());
+        }
+        extractor.finish();
+        
+        List<SessionEventIndex.Event> events = extracted.stream()
+                .sorted(Comparator.comparingLong(MovementEvent::startMillis))
+                .map(this::toEvent)
+                .collect(Collectors.toList());
+        
+        SessionEventIndex index = new SessionEventIndex();
+        index.setPlayerId(playerId);
+        index.setSessionId(sessionId);
+        index.setBuiltAt(LocalDateTime.now());
+        index.setFixCount(fixCount);
+        index.setFirstFix(firstFix);
+        index.setLastFix(firstFix != null ? EpochTime.toLocalDateTime(lastMillis) : null);
+        index.setSprintCount(count(events, SessionEventIndex.EventType.SPRINT));
+        index.setAccelerationCount(count(events, SessionEventIndex.EventType.ACCELERATION));
+        index.setDecelerationCount(count(events, SessionEventIndex.EventType.DECELERATION));
+        index.setEvents(events);
+        return index;
+    }
+    
+    private SessionEventIndex.Event toEvent(MovementEvent event) {
+        return new SessionEventIndex.Event(
+                event.type(),
+                EpochTime.toLocalDateTime(event.startMillis()),
+                event.durationSeconds(),
+                event.distance(),
+                event.peakSpeed(),
+                event.peakAcceleration(),
+                event.startLatitude(),
+                event.startLongitude(),
+                event.endLatitude(),
+                event.endLongitude());
+    }
+    
+    private List<SessionEventIndex.Event> filter(SessionEventIndex index, SessionEventIndex.EventType type,
+                                                 double minDistance, double minDurationSeconds, LocalDateTime since) {
+        return index.getEvents().stream()
+                .filter(event -> type == null || event.getType() == type)
+                .filter(event -> event.getDistance() >= minDistance)
+                .filter(event -> event.getDurationSeconds() >= minDurationSeconds)
+                .filter(event -> since == null || !event.getStart().isBefore(since))
+                .collect(Collectors.toList());
+    }
+    
+    private LocalDateTime since(LocalDateTime lastFix, Integer lastMinutes) {
+        return lastFix != null && lastMinutes != null ? lastFix.minusMinutes(lastMinutes) : null;
+    }
+    
+    private int count(List<SessionEventIndex.Event> events, SessionEventIndex.EventType type) {
+        return (int) events.stream().filter(event -> event.getType() == type).count();
+    }
+}
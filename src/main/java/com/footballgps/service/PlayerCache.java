@@ -0,0 +1,149 @@
+package com.footballgps.service;
+
+import com.footballgps.model.Player;
+import com.footballgps.repository.PlayerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of the whole players collection, which changes a few times a
+ * season. A miss loads every player once and builds an immutable snapshot with lookups
+ * by id and device and the active roster per team; hits read that snapshot without
+ * locking. Player writes through PlayerService invalidate it, and the TTL picks up
+ * writes made outside the application. Cached players are shared, so callers must not
+ * modify them.
+ */
+@Component
+@Slf4j
+public class PlayerCache {
+    
+    private record Snapshot(Map<String, Player> byId,
+                            Map<String, Player> byDevice,
+                            Map<String, List<Player>> activeByTeam,
+                            List<Player> all,
+                            List<Player> active,
+                            long expiresAtMillis) {
+        
+        static Snapshot of(List<Player> players, long expiresAtMillis) {
+            Map<String, Player> byId = new HashMap<>();
+            Map<String, Player> byDevice = new HashMap<>();
+            Map<String, List<Player>> activeByTeam = new HashMap<>();
+            List<Player> active = new ArrayList<>();
+            for (Player player : players) {
+                byId.put(player.getId(), player);
+                // An active player wins a device shared with a retired one
+                if (player.getDeviceId() != null && (player.isActive() || !byDevice.containsKey(player.getDeviceId()))) {
+                    byDevice.put(player.getDeviceId(), player);
+                }
+                if (player.isActive()) {
+                    active.add(player);
+                    if (player.getTeamId() != null) {
+                        activeByTeam.computeIfAbsent(player.getTeamId(), team -> new ArrayList<>()).add(player);
+                    }
+                }
+            }
+            activeByTeam.replaceAll((team, roster) -> List.copyOf(roster));
+            return new Snapshot(byId, byDevice, activeByTeam, List.copyOf(players), List.copyOf(active), expiresAtMillis);
+        }
+    }
+    
+    private final PlayerRepository playerRepository;
+    private final long ttlMillis;
+    
+    private volatile Snapshot snapshot;
+    // Bumped by every invalidation, so a load that overlapped a write is not published
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loads;
+    
+    public PlayerCache(PlayerRepository playerRepository,
+                       @Value("${players.cache.ttl-seconds:300}") long ttlSeconds,
+                       MeterRegistry meterRegistry) {
+        this.playerRepository = playerRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        
+        this.hits = meterRegistry.counter("players.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("players.cache.requests", "result", "miss");
+        this.loads = meterRegistry.counter("players.cache.loads");
+        meterRegistry.gauge("players.cache.size", this, PlayerCache::size);
+    }
+    
+    public Optional<Player> get(String playerId) {
+        return Optional.ofNullable(current().byId().get(playerId));
+    }
+    
+    /** The players with the given ids that exist, in the order of {@code playerIds}. */
+    public List<Player> getAll(Collection<String> playerIds) {
+        Map<String, Player> byId = current().byId();
+        List<Player> players = new ArrayList<>(playerIds.size());
+        for (String playerId : playerIds) {
+            Player player = byId.get(playerId);
+            if (player != null) {
+                players.add(player);
+            }
+        }
+        return players;
+    }
+    
+    public List<Player> getAll() {
+        return current().all();
+    }
+    
+    public List<Player> getActive() {
+        return current().active();
+    }
+    
+    /** Active roster of a team, as of the current snapshot. */
+    public List<Player> getTeamRoster(String teamId) {
+        return current().activeByTeam().getOrDefault(teamId, List.of());
+    }
+    
+    public Optional<Player> getByDevice(String deviceId) {
+        return Optional.ofNullable(current().byDevice().get(deviceId));
+    }
+    
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        snapshot = null;
+    }
+    
+    public int size() {
+        Snapshot current = snapshot;
+        return current != null ? current.byId().size() : 0;
+    }
+    
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAtMillis()) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return load();
+    }
+    
+    private synchronized Snapshot load() {
+        // Another thread may have loaded while this one waited
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAtMillis()) {
+            return current;
+        }
+        
+        long version = invalidations.get();
+        Snapshot loaded = Snapshot.of(playerRepository.findAll(), System.currentTimeMillis() + ttlMillis);
+        if (invalidations.get() == version) {
+            snapshot = loaded;
+        }
+        loads.increment();
+        log.debug("Loaded {} players into the player cache", loaded.byId().size());
+        return loaded;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Optional;
 public class PlayerMetricsService {
     
     private final PlayerMetricsRepository playerMetricsRepository;
+    private final DataVersionTracker dataVersionTracker;
     
     public List<PlayerMetrics> getPlayerMetrics(String playerId) {
         return playerMetricsRepository.findByPlayerId(playerId);
@@ -35,6 +36,7 @@ public class PlayerMetricsService {
     
     public PlayerMetrics saveMetrics(PlayerMetrics metrics) {
         PlayerMetrics saved = playerMetricsRepository.save(metrics);
+        dataVersionTracker.recordWrite(saved.getPlayerId(), saved.getSessionId());
         log.debug("Saved metrics for player {} in session {}", 
                  metrics.getPlayerId(), metrics.getSessionId());
         return saved;
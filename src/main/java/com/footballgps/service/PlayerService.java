@@ -15,42 +15,55 @@ import java.util.Optional;
 public class PlayerService {
     
     private final PlayerRepository playerRepository;
+    private final PlayerCache playerCache;
+    private final DataVersionTracker dataVersionTracker;
+    private final DeviceRegistry deviceRegistry;
     
     public List<Player> getAllPlayers() {
-        return playerRepository.findAll();
+        return playerCache.getAll();
     }
     
     public Optional<Player> getPlayerById(String id) {
-        return playerRepository.findById(id);
+        return playerCache.get(id);
     }
     
     public List<Player> getPlayersByTeam(String teamId) {
-        return playerRepository.findActivePlayersByTeam(teamId);
+        return playerCache.getTeamRoster(teamId);
     }
     
     public List<Player> getActivePlayers() {
-        return playerRepository.findByActiveTrue();
+        return playerCache.getActive();
     }
     
     public Player createPlayer(Player player) {
         player.setActive(true);
         Player saved = playerRepository.save(player);
+        playerCache.invalidate();
+        dataVersionTracker.recordWrite(saved.getId(), null);
+        // A new player on the roster of a running session is bound to it like an updated one
+        deviceRegistry.onPlayerUpdated(saved);
         log.info("Created new player: {} (ID: {})", saved.getName(), saved.getId());
         return saved;
     }
     
     public Player updatePlayer(Player player) {
         Player updated = playerRepository.save(player);
+        playerCache.invalidate();
+        dataVersionTracker.recordWrite(updated.getId(), null);
+        deviceRegistry.onPlayerUpdated(updated);
         log.info("Updated player: {} (ID: {})", updated.getName(), updated.getId());
         return updated;
     }
     
     public void deletePlayer(String id) {
         playerRepository.deleteById(id);
+        playerCache.invalidate();
+        dataVersionTracker.recordWrite(id, null);
+        deviceRegistry.onPlayerDeleted(id);
         log.info("Deleted player with ID: {}", id);
     }
     
     public Optional<Player> getPlayerByDeviceId(String deviceId) {
-        return playerRepository.findByDeviceId(deviceId);
+        return playerCache.getByDevice(deviceId);
     }
 }
@@ -0,0 +1,274 @@
+package com.footballgps.service;
+
+import com.footballgps.analysis.GeoMath;
+import com.footballgps.analysis.MovementEventExtractor;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.PlayerSplit;
+import com.footballgps.model.SessionEventIndex;
+import com.footballgps.repository.PlayerSplitRepository;
+import com.footballgps.util.EpochTime;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-minute split metrics maintained during ingest. Each fix adds its step distance,
+ * speed band and heart rate to the pending increments of its minute; a scheduled flush
+ * writes all pending minutes to player_splits as one unordered bulk of {@code $inc}
+ * upserts. Coarser splits are summed from the stored minutes, so serving them never
+ * touches raw fixes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SplitMetricsService {
+    
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final double HIGH_SPEED_RUNNING_THRESHOLD = 19.8; // km/h
+    private static final double SPRINT_THRESHOLD = 24.0; // km/h
+    
+    private final PlayerSplitRepository playerSplitRepository;
+    private final MongoTemplate mongoTemplate;
+    
+    private record PlayerKey(String sessionId, String playerId) {}
+    
+    private record SplitKey(String sessionId, String playerId, long startMillis) {}
+    
+    /** Unflushed increments for one minute; only touched inside the pending map's compute calls. */
+    private static final class Delta {
+        long fixes;
+        double distance;
+        double highSpeedRunningDistance;
+        double sprintDistance;
+        int sprintCount;
+        long heartRateSum;
+        long heartRateReadings;
+        
+        void addTo(PlayerSplit split) {
+            split.setFixes(split.getFixes() + fixes);
+            split.setDistance(split.getDistance() + distance);
+            split.setHighSpeedRunningDistance(split.getHighSpeedRunningDistance() + highSpeedRunningDistance);
+            split.setSprintDistance(split.getSprintDistance() + sprintDistance);
+            split.setSprintCount(split.getSprintCount() + sprintCount);
+            split.setHeartRateSum(split.getHeartRateSum() + heartRateSum);
+            split.setHeartRateReadings(split.getHeartRateReadings() + heartRateReadings);
+        }
+    }
+    
+    /** Stream state of one player; guarded by its own monitor. */
+    private final class PlayerState {
+        private final MovementEventExtractor sprints;
+        private boolean hasPrevious;
+        private double previousLatitude;
+        private double previousLongitude;
+        
+        PlayerState(PlayerKey key) {
+            // Sprints use the same hysteresis as the event index and count in the minute they started
+            this.sprints = new MovementEventExtractor(event -> {
+                if (event.type() == SessionEventIndex.EventType.SPRINT) {
+                    add(key, event.startMillis(), delta -> delta.sprintCount++);
+                }
+            });
+        }
+    }
+    
+    private final Map<PlayerKey, PlayerState> players = new ConcurrentHashMap<>();
+    private final Map<SplitKey, Delta> pending = new ConcurrentHashMap<>();
+    
+    public void onFix(GpsData fix) {
+        if (fix.getPlayerId() == null || fix.getSessionId() == null || fix.getTimestamp() == 0
+                || fix.getPosition() == null || fix.getMovement() == null) {
+            return;
+        }
+        PlayerKey key = new PlayerKey(fix.getSessionId(), fix.getPlayerId());
+        PlayerState state = players.computeIfAbsent(key, PlayerState::new);
+        long millis = fix.getTimestamp();
+        double latitude = fix.getPosition().getLatitude();
+        double longitude = fix.getPosition().getLongitude();
+        double speed = fix.getMovement().getSpeed();
+        int heartRate = fix.getBiometrics() != null ? fix.getBiometrics().getHeartRate() : 0;
+        
+        synchronized (state) {
+            double step = state.hasPrevious
+                    ? GeoMath.distanceMeters(state.previousLatitude, state.previousLongitude, latitude, longitude)
+                    : 0.0;
+            add(key, millis, delta -> {
+                delta.fixes++;
+                delta.distance += step;
+                if (speed > HIGH_SPEED_RUNNING_THRESHOLD) {
+                    delta.highSpeedRunningDistance += step;
+                }
+                if (speed > SPRINT_THRESHOLD) {
+                    delta.sprintDistance += step;
+                }
+                if (heartRate > 0) {
+                    delta.heartRateSum += heartRate;
+                    delta.heartRateReadings++;
+                }
+            });
+            state.sprints.accept(millis, latitude, longitude, speed, fix.getMovement().getAcceleration());
+            state.hasPrevious = true;
+            state.previousLatitude = latitude;
+            state.previousLongitude = longitude;
+        }
+    }
+    
+    /**
+     * Writes the pending increments. Runs from the scheduler and from {@link #releaseSession},
+     * one at a time, so a minute is never upserted by two bulks at once.
+     */
+    @Scheduled(fixedDelayString = "${metrics.splits.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<SplitKey> keys = new ArrayList<>();
+        List<Delta> deltas = new ArrayList<>();
+        for (SplitKey key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null) {
+                keys.add(key);
+                deltas.add(delta);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PlayerSplit.class);
+        for (int i = 0; i < keys.size(); i++) {
+            SplitKey key = keys.get(i);
+            Delta delta = deltas.get(i);
+            bulk.upsert(new Query(Criteria.where("sessionId").is(key.sessionId())
+                            .and("playerId").is(key.playerId())
+                            .and("start").is(EpochTime.toLocalDateTime(key.startMillis()))),
+                    new Update()
+                            .setOnInsert("minutes", 1)
+                            .inc("fixes", delta.fixes)
+                            .inc("distance", delta.distance)
+                            .inc("highSpeedRunningDistance", delta.highSpeedRunningDistance)
+                            .inc("sprintDistance", delta.sprintDistance)
+                            .inc("sprintCount", delta.sprintCount)
+                            .inc("heartRateSum", delta.heartRateSum)
+                            .inc("heartRateReadings", delta.heartRateReadings));
+        }
+        try {
+            bulk.execute();
+            log.debug("Flushed {} minute splits", keys.size());
+        } catch (BulkOperationException e) {
+            // The bulk is unordered, so every upsert not listed as failed has been applied
+            for (BulkWriteError error : e.getErrors()) {
+                pending.merge(keys.get(error.getIndex()), deltas.get(error.getIndex()), SplitMetricsService::combine);
+            }
+            log.error("Error flushing {} of {} minute splits", e.getErrors().size(), keys.size(), e);
+        } catch (Exception e) {
+            // Nothing is known to have been applied; put the increments back for the next flush
+            for (int i = 0; i < keys.size(); i++) {
+                pending.merge(keys.get(i), deltas.get(i), SplitMetricsService::combine);
+            }
+            log.error("Error flushing {} minute splits", keys.size(), e);
+        }
+    }
+    
+    /**
+     * Splits of {@code granularityMinutes} each, counted from the player's first minute in
+     * the session. Increments not yet flushed are included.
+     */
+    public List<PlayerSplit> getSplits(String playerId, String sessionId, int granularityMinutes) {
+        TreeMap<Long, PlayerSplit> minutes = new TreeMap<>();
+        for (PlayerSplit split : playerSplitRepository.findByPlayerIdAndSessionIdOrderByStartAsc(playerId, sessionId)) {
+            minutes.put(EpochTime.toMillis(split.getStart()), split);
+        }
+        for (SplitKey key : pending.keySet()) {
+            if (!key.sessionId().equals(sessionId) || !key.playerId().equals(playerId)) {
+                continue;
+            }
+            pending.computeIfPresent(key, (k, delta) -> {
+                delta.addTo(minutes.computeIfAbsent(k.startMillis(), start -> emptySplit(playerId, sessionId, start, 1)));
+                return delta;
+            });
+        }
+        if (minutes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        long origin = minutes.firstKey();
+        long windowMillis = granularityMinutes * MINUTE_MILLIS;
+        TreeMap<Long, PlayerSplit> windows = new TreeMap<>();
+        for (Map.Entry<Long, PlayerSplit> minute : minutes.entrySet()) {
+            long start = origin + (minute.getKey() - origin) / windowMillis * windowMillis;
+            PlayerSplit window = windows.computeIfAbsent(start,
+                    s -> emptySplit(playerId, sessionId, s, granularityMinutes));
+            PlayerSplit split = minute.getValue();
+            window.setFixes(window.getFixes() + split.getFixes());
+            window.setDistance(window.getDistance() + split.getDistance());
+            window.setHighSpeedRunningDistance(window.getHighSpeedRunningDistance() + split.getHighSpeedRunningDistance());
+            window.setSprintDistance(window.getSprintDistance() + split.getSprintDistance());
+            window.setSprintCount(window.getSprintCount() + split.getSprintCount());
+            window.setHeartRateSum(window.getHeartRateSum() + split.getHeartRateSum());
+            window.setHeartRateReadings(window.getHeartRateReadings() + split.getHeartRateReadings());
+        }
+        return new ArrayList<>(windows.values());
+    }
+    
+    /** Closes sprints still running, drops the session's stream state and flushes. */
+    public void releaseSession(String sessionId) {
+        players.entrySet().removeIf(entry -> {
+            if (!entry.getKey().sessionId().equals(sessionId)) {
+                return false;
+            }
+            synchronized (entry.getValue()) {
+                entry.getValue().sprints.finish();
+            }
+            return true;
+        });
+        flush();
+    }
+    
+    public void deleteSession(String sessionId) {
+        players.keySet().removeIf(key -> key.sessionId().equals(sessionId));
+        pending.keySet().removeIf(key -> key.sessionId().equals(sessionId));
+        playerSplitRepository.deleteBySessionId(sessionId);
+    }
+    
+    private void add(PlayerKey player, long millis, Consumer<Delta> update) {
+        long start = millis - Math.floorMod(millis, MINUTE_MILLIS);
+        pending.compute(new SplitKey(player.sessionId(), player.playerId(), start), (key, delta) -> {
+            Delta current = delta != null ? delta : new Delta();
+            update.accept(current);
+            return current;
+        });
+    }
+    
+    private static Delta combine(Delta a, Delta b) {
+        a.fixes += b.fixes;
+        a.distance += b.distance;
+        a.highSpeedRunningDistance += b.highSpeedRunningDistance;
+        a.sprintDistance += b.sprintDistance;
+        a.sprintCount += b.sprintCount;
+        a.heartRateSum += b.heartRateSum;
+        a.heartRateReadings += b.heartRateReadings;
+        return a;
+    }
+    
+    private static PlayerSplit emptySplit(String playerId, String sessionId, long startMillis, int minutes) {
+        PlayerSplit split = new PlayerSplit();
+        split.setPlayerId(playerId);
+        split.setSessionId(sessionId);
+        split.setStart(EpochTime.toLocalDateTime(startMillis));
+        split.setMinutes(minutes);
+        return split;
+    }
+}
@@ -0,0 +1,155 @@
+package com.footballgps.service;
+
+import com.footballgps.ml.service.LiveFatigueService;
+import com.footballgps.ml.service.LiveFormationService;
+import com.footballgps.ml.service.LiveProximityService;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.model.SessionEventIndex;
+import com.footballgps.model.TrainingSession;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.repository.TrainingSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Start and end of training sessions. Ending a session is the single point where
+ * post-session work happens, in a fixed order: buffered fixes and pending split
+ * increments are flushed, the event indexes are rebuilt once from the complete data,
+ * final player metrics and the team's session metrics are stored, and only then is the
+ * live per-session state released. Final player metrics are marked as such, so a
+ * real-time calculation that finishes after them does not replace them. The final passing-network metric is the last one read
+ * from that state; recalculations after the release keep the stored value.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrainingSessionService {
+    
+    private final TrainingSessionRepository trainingSessionRepository;
+    private final PlayerMetricsRepository playerMetricsRepository;
+    private final MetricsCalculationService metricsCalculationService;
+    private final MovementEventService movementEventService;
+    private final SplitMetricsService splitMetricsService;
+    private final LiveFatigueService liveFatigueService;
+    private final LiveFormationService liveFormationService;
+    private final LiveProximityService liveProximityService;
+    private final DataVersionTracker dataVersionTracker;
+    private final DeviceRegistry deviceRegistry;
+    private final GpsDataService gpsDataService;
+    
+    // Sessions whose end is being processed, so a repeated end request does not finalize twice
+    private final Set<String> finalizing = ConcurrentHashMap.newKeySet();
+    
+    public Optional<TrainingSession> getSession(String sessionId) {
+        return trainingSessionRepository.findById(sessionId);
+    }
+    
+    public List<TrainingSession> getActiveSessions() {
+        return trainingSessionRepository.findByActiveTrue();
+    }
+    
+    public List<TrainingSession> getTeamSessions(String teamId) {
+        return trainingSessionRepository.findByTeamIdOrderByStartTimeDesc(teamId);
+    }
+    
+    public TrainingSession startSession(TrainingSession session) {
+        session.setStartTime(LocalDateTime.now());
+        session.setEndTime(null);
+        session.setMetrics(null);
+        session.setActive(true);
+        TrainingSession saved = trainingSessionRepository.save(session);
+        deviceRegistry.registerSession(saved);
+        log.info("Started session {} ({})", saved.getId(), saved.getName());
+        return saved;
+    }
+    
+    /** Ends an active session and finalizes it; a session that has already ended is returned unchanged. */
+    public Optional<TrainingSession> endSession(String sessionId) {
+        Optional<TrainingSession> found = trainingSessionRepository.findById(sessionId);
+        if (found.isEmpty() || !found.get().isActive() || !finalizing.add(sessionId)) {
+            return found;
+        }
+        
+        TrainingSession session = found.get();
+        try {
+            session.setEndTime(LocalDateTime.now());
+            
+            // Devices stop resolving to the session before its buffers are flushed
+            deviceRegistry.releaseSession(sessionId);
+            gpsDataService.flushSession(sessionId);
+            
+            // Close open sprints and write the last split increments
+            splitMetricsService.releaseSession(sessionId);
+            
+            // One rebuild from the complete session; metric calculations below reuse the stored indexes
+            List<SessionEventIndex> indexes = movementEventService.getSessionIndexes(sessionId);
+            Set<String> playerIds = new TreeSet<>();
+            if (session.getPlayerIds() != null) {
+                playerIds.addAll(session.getPlayerIds());
+            }
+            indexes.forEach(index -> playerIds.add(index.getPlayerId()));
+            
+            List<PlayerMetrics> finalMetrics = new ArrayList<>();
+            for (String playerId : playerIds) {
+                try {
+                    PlayerMetrics metrics = metricsCalculationService.calculateSessionMetrics(playerId, sessionId);
+                    if (metrics != null) {
+                        metrics.setFinalized(true);
+                        finalMetrics.add(playerMetricsRepository.saveForSession(metrics));
+                        dataVersionTracker.recordWrite(playerId, sessionId);
+                    }
+                } catch (Exception e) {
+                    log.error("Error calculating final metrics for player {} in session {}", playerId, sessionId, e);
+                }
+            }
+            session.setMetrics(calculateSessionMetrics(finalMetrics, session.getMetrics()));
+            
+            session.setActive(false);
+            TrainingSession saved = trainingSessionRepository.save(session);
+            log.info("Ended session {}: final metrics for {} players", sessionId, finalMetrics.size());
+            return Optional.of(saved);
+        } finally {
+            liveFatigueService.releaseSession(sessionId);
+            liveFormationService.releaseSession(sessionId);
+            liveProximityService.releaseSession(sessionId);
+            finalizing.remove(sessionId);
+        }
+    }
+    
+    private TrainingSession.SessionMetrics calculateSessionMetrics(List<PlayerMetrics> players,
+                                                                   TrainingSession.SessionMetrics previous) {
+        double totalDistance = 0;
+        int totalSprints = 0;
+        double intensitySum = 0;
+        int intensityCount = 0;
+        double heartRateSum = 0;
+        int heartRateCount = 0;
+        
+        for (PlayerMetrics metrics : players) {
+            if (metrics.getMovement() != null) {
+                totalDistance += metrics.getMovement().getTotalDistance();
+                totalSprints += metrics.getMovement().getSprintCount();
+            }
+            if (metrics.getPerformance() != null) {
+                intensitySum += metrics.getPerformance().getIntensityScore();
+                intensityCount++;
+                if (metrics.getPerformance().getAverageHeartRate() > 0) {
+                    heartRateSum += metrics.getPerformance().getAverageHeartRate();
+                    heartRateCount++;
+                }
+            }
+        }
+        
+        return new TrainingSession.SessionMetrics(
+                intensityCount > 0 ? intensitySum / intensityCount : 0,
+                totalDistance,
+                totalSprints,
+                heartRateCount > 0 ? heartRateSum / heartRateCount : 0,
+                previous != null ? previous.getInjuries() : 0); // injuries are recorded by staff, not measured
+    }
+}
@@ -0,0 +1,422 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Fixes appended to one gps_buckets document per player, session and minute. Each bucket
+ * holds parallel primitive arrays (one element per fix) and is written with a
+ * {@code $push} upsert, so a 10 Hz player-match is about 90 documents and index entries
+ * instead of about 54,000. Readers unpack buckets lazily, one at a time, as they iterate.
+ * Fixes get a synthetic id of session, player, epoch millis and position in the bucket,
+ * which the append learns from the bucket's previous count, so fixes in the same
+ * millisecond stay distinct; absent values are stored as NaN and come back as null objects.
+ */
+@Component
+@ConditionalOnProperty(name = "gps.storage.mode", havingValue = "bucket")
+@RequiredArgsConstructor
+@Slf4j
+public class BucketGpsDataStore implements GpsDataStore {
+    
+    public static final String COLLECTION = "gps_buckets";
+    public static final long BUCKET_MILLIS = 60_000;
+    
+    private static final String TIMES = "t";
+    private static final String[] FIELDS = {
+            "lat", "lon", "alt", "acc", "sat",
+            "speed", "accel", "dir",
+            "ax", "ay", "az", "gx", "gy", "gz", "mx", "my", "mz",
+            "hr", "bodyTemp", "stress",
+            "temp", "pressure", "humidity"};
+    // First column of each group in FIELDS
+    private static final int POSITION = 0;
+    private static final int MOVEMENT = 5;
+    private static final int IMU = 8;
+    private static final int BIOMETRICS = 17;
+    private static final int ENVIRONMENTAL = 20;
+    
+    private static final int DUPLICATE_KEY = 11000;
+    private static final FindOneAndUpdateOptions APPEND = new FindOneAndUpdateOptions()
+            .upsert(true)
+            .returnDocument(ReturnDocument.BEFORE)
+            .projection(new Document("count", 1));
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                .on("sessionId", Sort.Direction.ASC)
+                .on("playerId", Sort.Direction.ASC)
+                .on("minute", Sort.Direction.ASC)
+                .unique());
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                .on("playerId", Sort.Direction.ASC)
+                .on("minute", Sort.Direction.ASC));
+    }
+    
+    @Override
+    public GpsData save(GpsData gpsData) {
+        saveAll(List.of(gpsData));
+        return gpsData;
+    }
+    
+    /**
+     * One {@code $push $each} upsert per bucket touched by the batch. Ingest batches are one
+     * player's released fixes, so this is usually a single round trip. Fixes get their ids
+     * as their bucket is written and fixes that have one are skipped, so a retry of a call
+     * that failed part-way stores only the buckets it did not reach.
+     */
+    @Override
+    public List<GpsData> saveAll(List<GpsData> gpsData) {
+        Map<Document, List<GpsData>> buckets = new LinkedHashMap<>();
+        for (GpsData data : gpsData) {
+            if (data.getId() != null) {
+                continue;
+            }
+            buckets.computeIfAbsent(bucketFilter(data, data.getTimestamp()), key -> new ArrayList<>()).add(data);
+        }
+        
+        for (Map.Entry<Document, List<GpsData>> bucket : buckets.entrySet()) {
+            List<GpsData> fixes = bucket.getValue();
+            List<Long> times = new ArrayList<>(fixes.size());
+            List<List<Double>> columns = new ArrayList<>(FIELDS.length);
+            for (int c = 0; c < FIELDS.length; c++) {
+                columns.add(new ArrayList<>(fixes.size()));
+            }
+            for (GpsData data : fixes) {
+                times.add(data.getTimestamp());
+                double[] values = pack(data);
+                for (int c = 0; c < FIELDS.length; c++) {
+                    columns.get(c).add(values[c]);
+                }
+            }
+            Document push = new Document(TIMES, new Document("$each", times));
+            for (int c = 0; c < FIELDS.length; c++) {
+                push.append(FIELDS[c], new Document("$each", columns.get(c)));
+            }
+            long first = append(bucket.getKey(), appendUpdate(push, fixes.size()));
+            for (int i = 0; i < fixes.size(); i++) {
+                GpsData data = fixes.get(i);
+                data.setId(fixId(data.getSessionId(), data.getPlayerId(), data.getTimestamp(), first + i));
+            }
+        }
+        return gpsData;
+    }
+    
+    @Override
+    public Stream<GpsData> streamByPlayerIdAndSessionId(String playerId, String sessionId) {
+        BucketIterator fixes = iterate(new Document("sessionId", sessionId).append("playerId", playerId),
+                Long.MIN_VALUE, Long.MAX_VALUE);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(fixes, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(fixes::close);
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return drain(iterate(new Document("sessionId", sessionId).append("playerId", playerId), Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Override
+    public List<GpsData> findBySessionId(String sessionId) {
+        return drain(iterate(new Document("sessionId", sessionId), Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Override
+    public long countByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return countFixes(new Document("sessionId", sessionId).append("playerId", playerId));
+    }
+    
+    @Override
+    public long countBySessionId(String sessionId) {
+        return countFixes(new Document("sessionId", sessionId));
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, long startMillis, long endMillis) {
+        Document filter = new Document("playerId", playerId)
+                .append("minute", new Document("$gte", new Date(bucketStart(startMillis))).append("$lte", new Date(endMillis)));
+        return drain(iterate(filter, startMillis, endMillis));
+    }
+    
+    @Override
+    public List<GpsData> findRecentDataBySession(String sessionId, long sinceMillis) {
+        Document filter = new Document("sessionId", sessionId)
+                .append("minute", new Document("$gte", new Date(bucketStart(sinceMillis))));
+        return drain(iterate(filter, sinceMillis, Long.MAX_VALUE));
+    }
+    
+    @Override
+    public void deleteBySessionId(String sessionId) {
+        collection().deleteMany(new Document("sessionId", sessionId));
+    }
+    
+    /**
+     * Appends to one bucket and returns its fix count before the append, the array position
+     * of the first appended fix. Concurrent first writes to a new bucket can both try to
+     * insert it; the loser is retried as an update.
+     */
+    private long append(Document filter, Document update) {
+        Document before;
+        try {
+            before = collection().findOneAndUpdate(filter, update, APPEND);
+        } catch (MongoException e) {
+            if (e.getCode() != DUPLICATE_KEY) {
+                throw e;
+            }
+            log.debug("Retrying a bucket upsert that raced with another writer");
+            before = collection().findOneAndUpdate(filter, update, APPEND);
+        }
+        return before != null ? before.get("count", Number.class).longValue() : 0;
+    }
+    
+    private long countFixes(Document filter) {
+        Document total = collection().aggregate(List.of(
+                new Document("$match", filter),
+                new Document("$group", new Document("_id", null).append("fixes", new Document("$sum", "$count")))))
+                .first();
+        return total != null ? total.get("fixes", Number.class).longValue() : 0;
+    }
+    
+    private BucketIterator iterate(Document filter, long fromMillis, long toMillis) {
+        MongoCursor<Document> cursor = collection().find(filter)
+                .sort(new Document("minute", 1).append("playerId", 1))
+                .iterator();
+        return new BucketIterator(cursor, fromMillis, toMillis);
+    }
+    
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(COLLECTION);
+    }
+    
+    private static Document appendUpdate(Document push, int fixes) {
+        return new Document("$push", push).append("$inc", new Document("count", fixes));
+    }
+    
+    private static Document bucketFilter(GpsData data, long millis) {
+        return new Document("sessionId", data.getSessionId())
+                .append("playerId", data.getPlayerId())
+                .append("minute", new Date(bucketStart(millis)));
+    }
+    
+    private static long bucketStart(long millis) {
+        return millis - Math.floorMod(millis, BUCKET_MILLIS);
+    }
+    
+    private static String fixId(String sessionId, String playerId, long millis, long position) {
+        return sessionId + ":" + playerId + ":" + millis + ":" + position;
+    }
+    
+    private static List<GpsData> drain(BucketIterator fixes) {
+        try (fixes) {
+            List<GpsData> list = new ArrayList<>();
+            fixes.forEachRemaining(list::add);
+            return list;
+        }
+    }
+    
+    private static double[] pack(GpsData data) {
+        double[] values = new double[FIELDS.length];
+        Arrays.fill(values, Double.NaN);
+        GpsData.Position position = data.getPosition();
+        if (position != null) {
+            values[POSITION] = position.getLatitude();
+            values[POSITION + 1] = position.getLongitude();
+            values[POSITION + 2] = position.getAltitude();
+            values[POSITION + 3] = position.getAccuracy();
+            values[POSITION + 4] = position.getSatellites();
+        }
+        GpsData.Movement movement = data.getMovement();
+        if (movement != null) {
+            values[MOVEMENT] = movement.getSpeed();
+            values[MOVEMENT + 1] = movement.getAcceleration();
+            values[MOVEMENT + 2] = movement.getDirection();
+            GpsData.Movement.ImuData imu = movement.getImu();
+            if (imu != null) {
+                packVector(values, IMU, imu.getAccelerometer());
+                packVector(values, IMU + 3, imu.getGyroscope());
+                packVector(values, IMU + 6, imu.getMagnetometer());
+            }
+        }
+        GpsData.Biometrics biometrics = data.getBiometrics();
+        if (biometrics != null) {
+            values[BIOMETRICS] = biometrics.getHeartRate();
+            values[BIOMETRICS + 1] = biometrics.getBodyTemperature();
+            values[BIOMETRICS + 2] = biometrics.getStressLevel();
+        }
+        GpsData.Environmental environmental = data.getEnvironmental();
+        if (environmental != null) {
+            values[ENVIRONMENTAL] = environmental.getTemperature();
+            values[ENVIRONMENTAL + 1] = environmental.getPressure();
+            values[ENVIRONMENTAL + 2] = environmental.getHumidity();
+        }
+        return values;
+    }
+    
+    private static void packVector(double[] values, int column, GpsData.Vector3D vector) {
+        if (vector != null) {
+            values[column] = vector.getX();
+            values[column + 1] = vector.getY();
+            values[column + 2] = vector.getZ();
+        }
+    }
+    
+    /**
+     * Walks the cursor's buckets, unpacking the next bucket only when the current one is used
+     * up. Callers close it, as one that is not drained still holds the server cursor.
+     */
+    private static final class BucketIterator implements Iterator<GpsData>, Closeable {
+        
+        private final MongoCursor<Document> cursor;
+        private final long fromMillis;
+        private final long toMillis;
+        private final double[][] columns = new double[FIELDS.length][];
+        
+        private String sessionId;
+        private String playerId;
+        private long[] times = new long[0];
+        private int[] order = new int[0];
+        private int position;
+        private GpsData next;
+        
+        BucketIterator(MongoCursor<Document> cursor, long fromMillis, long toMillis) {
+            this.cursor = cursor;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (position < order.length) {
+                    int i = order[position++];
+                    if (times[i] >= fromMillis && times[i] <= toMillis) {
+                        next = unpack(i);
+                    }
+                } else if (cursor.hasNext()) {
+                    load(cursor.next());
+                } else {
+                    cursor.close();
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public GpsData next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            GpsData fix = next;
+            next = null;
+            return fix;
+        }
+        
+        @Override
+        public void close() {
+            cursor.close();
+        }
+        
+        private void load(Document bucket) {
+            sessionId = bucket.getString("sessionId");
+            playerId = bucket.getString("playerId");
+            List<Number> bucketTimes = bucket.getList(TIMES, Number.class, List.of());
+            int size = bucketTimes.size();
+            times = new long[size];
+            for (int i = 0; i < size; i++) {
+                times[i] = bucketTimes.get(i).longValue();
+            }
+            for (int c = 0; c < FIELDS.length; c++) {
+                List<Number> values = bucket.getList(FIELDS[c], Number.class, List.of());
+                double[] column = new double[size];
+                for (int i = 0; i < size; i++) {
+                    column[i] = i < values.size() ? values.get(i).doubleValue() : Double.NaN;
+                }
+                columns[c] = column;
+            }
+            
+            // Fixes are pushed in release order, which ingest keeps in time order; data written
+            // before that may still need sorting
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = times[i - 1] <= times[i];
+            }
+            order = new int[size];
+            if (sorted) {
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+            } else {
+                long[] bucketOrder = times;
+                order = IntStream.range(0, size).boxed()
+                        .sorted(Comparator.comparingLong(i -> bucketOrder[i]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+            position = 0;
+        }
+        
+        private GpsData unpack(int i) {
+            GpsData data = new GpsData();
+            data.setId(fixId(sessionId, playerId, times[i], i));
+            data.setPlayerId(playerId);
+            data.setSessionId(sessionId);
+            data.setTimestamp(times[i]);
+            if (present(POSITION, i)) {
+                data.setPosition(new GpsData.Position(value(POSITION, i), value(POSITION + 1, i),
+                        value(POSITION + 2, i), value(POSITION + 3, i), (int) value(POSITION + 4, i)));
+            }
+            if (present(MOVEMENT, i)) {
+                GpsData.Movement.ImuData imu = null;
+                if (present(IMU, i) || present(IMU + 3, i) || present(IMU + 6, i)) {
+                    imu = new GpsData.Movement.ImuData(vector(IMU, i), vector(IMU + 3, i), vector(IMU + 6, i));
+                }
+                data.setMovement(new GpsData.Movement(value(MOVEMENT, i), value(MOVEMENT + 1, i),
+                        value(MOVEMENT + 2, i), imu));
+            }
+            if (present(BIOMETRICS, i)) {
+                data.setBiometrics(new GpsData.Biometrics((int) value(BIOMETRICS, i),
+                        value(BIOMETRICS + 1, i), (int) value(BIOMETRICS + 2, i)));
+            }
+            if (present(ENVIRONMENTAL, i)) {
+                data.setEnvironmental(new GpsData.Environmental(value(ENVIRONMENTAL, i),
+                        value(ENVIRONMENTAL + 1, i), value(ENVIRONMENTAL + 2, i)));
+            }
+            return data;
+        }
+        
+        private GpsData.Vector3D vector(int column, int i) {
+            return present(column, i)
+                    ? new GpsData.Vector3D(value(column, i), value(column + 1, i), value(column + 2, i))
+                    : null;
+        }
+        
+        private boolean present(int column, int i) {
+            return !Double.isNaN(columns[column][i]);
+        }
+        
+        private double value(int column, int i) {
+            return columns[column][i];
+        }
+    }
+}
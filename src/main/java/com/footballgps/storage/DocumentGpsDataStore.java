@@ -0,0 +1,100 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.repository.GpsDataRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/** One gps_data document per fix, through {@link GpsDataRepository}. */
+@Component
+@ConditionalOnProperty(name = "gps.storage.mode", havingValue = "document", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DocumentGpsDataStore implements GpsDataStore {
+    
+    private static final int DUPLICATE_KEY = 11000;
+    
+    private final GpsDataRepository gpsDataRepository;
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public GpsData save(GpsData gpsData) {
+        return gpsDataRepository.save(gpsData);
+    }
+    
+    /**
+     * One unordered bulk insert. Fixes get their ids before the first attempt, so a retry
+     * of a call that stored some of them before failing skips those as duplicates.
+     */
+    @Override
+    public List<GpsData> saveAll(List<GpsData> gpsData) {
+        if (gpsData.isEmpty()) {
+            return gpsData;
+        }
+        for (GpsData data : gpsData) {
+            if (data.getId() == null) {
+                data.setId(new ObjectId().toHexString());
+            }
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GpsData.class).insert(gpsData).execute();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+        return gpsData;
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return gpsDataRepository.findByPlayerIdAndSessionIdOrderByTimestampAsc(playerId, sessionId);
+    }
+    
+    @Override
+    public List<GpsData> findBySessionId(String sessionId) {
+        return gpsDataRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+    }
+    
+    @Override
+    public long countByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return gpsDataRepository.countByPlayerIdAndSessionId(playerId, sessionId);
+    }
+    
+    @Override
+    public long countBySessionId(String sessionId) {
+        return gpsDataRepository.countBySessionId(sessionId);
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, long startMillis, long endMillis) {
+        return gpsDataRepository.findByPlayerIdAndTimestampBetween(playerId, startMillis, endMillis);
+    }
+    
+    @Override
+    public List<GpsData> findRecentDataBySession(String sessionId, long sinceMillis) {
+        return gpsDataRepository.findRecentDataBySession(sessionId, sinceMillis);
+    }
+    
+    @Override
+    public void deleteBySessionId(String sessionId) {
+        gpsDataRepository.deleteBySessionId(sessionId);
+    }
+    
+    @Override
+    public Optional<GpsSessionSummary> summarize(String playerId, String sessionId) {
+        Document match = new Document("playerId", playerId).append("sessionId", sessionId);
+        return SessionSummaryPipeline.read(mongoTemplate.getCollection(mongoTemplate.getCollectionName(GpsData.class))
+                .aggregate(SessionSummaryPipeline.stages(match))
+                .allowDiskUse(true)
+                .first());
+    }
+}
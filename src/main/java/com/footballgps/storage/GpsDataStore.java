@@ -0,0 +1,59 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of raw GPS fixes. Services read and write fixes only through this interface,
+ * so the physical layout can be chosen with {@code gps.storage.mode} without touching
+ * them: {@code document} (the default, one gps_data document per fix),
+ * {@code timeseries} (a MongoDB time-series collection) or {@code bucket} (per-minute
+ * bucket documents of primitive arrays).
+ * <p>
+ * Every read returns each player's fixes in timestamp order, so callers never sort.
+ * Times are epoch milliseconds, as on {@link GpsData#getTimestamp()}.
+ */
+public interface GpsDataStore {
+    
+    GpsData save(GpsData gpsData);
+    
+    /**
+     * Stores the fixes and sets their ids. A call that throws may be retried with the same
+     * fixes, and the retry does not store again the ones the failed call already stored.
+     */
+    List<GpsData> saveAll(List<GpsData> gpsData);
+    
+    List<GpsData> findByPlayerIdAndSessionId(String playerId, String sessionId);
+    
+    List<GpsData> findBySessionId(String sessionId);
+    
+    /**
+     * One player's session in timestamp order. Stores that can unpack fixes lazily do so,
+     * so single-pass readers never hold the whole session in memory. The stream may hold a
+     * server cursor, so callers close it, with try-with-resources, even when they stop early.
+     */
+    default Stream<GpsData> streamByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return findByPlayerIdAndSessionId(playerId, sessionId).stream();
+    }
+    
+    long countByPlayerIdAndSessionId(String playerId, String sessionId);
+    
+    long countBySessionId(String sessionId);
+    
+    List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, long startMillis, long endMillis);
+    
+    List<GpsData> findRecentDataBySession(String sessionId, long sinceMillis);
+    
+    void deleteBySessionId(String sessionId);
+    
+    /**
+     * Session aggregates computed by the database, without transferring the fixes. Empty
+     * when the session has no fixes or the layout cannot summarise server-side.
+     */
+    default Optional<GpsSessionSummary> summarize(String playerId, String sessionId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.footballgps.storage;
+
+import java.util.Map;
+
+/**
+ * Aggregates of one player's session, computed where the fixes are stored. "Step" values
+ * cover each fix after the first, with the distance from the previous fix; the others
+ * cover every fix. Field-coordinate sums and heat-map zones use the same simplified
+ * conversion as MetricsCalculationService.
+ */
+public record GpsSessionSummary(
+        long fixes,
+        long steps,
+        double totalDistance,
+        Map<String, Double> speedZones,
+        double maxSpeed,
+        double speedSum,
+        int maxHeartRate,
+        long heartRateSum,
+        long heartRateReadings,
+        double intensitySum,
+        int jumpCount,
+        double playerLoad,
+        double fieldXSum,
+        double fieldYSum,
+        Map<String, Double> heatMap,
+        long recoveries,
+        double recoverySecondsSum) {
+}
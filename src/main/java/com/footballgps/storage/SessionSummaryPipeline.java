@@ -0,0 +1,200 @@
+package com.footballgps.storage;
+
+import com.footballgps.analysis.EffortSegmenter;
+import org.bson.Document;
+
+import java.util.*;
+
+/**
+ * Aggregation pipeline that reduces one player's session to a {@link GpsSessionSummary}
+ * inside Mongo. {@code $setWindowFields} with {@code $shift} pairs each fix with the one
+ * before it for haversine step distances and effort boundaries; a {@code $facet} then
+ * groups the steps and times the recoveries between high-intensity efforts, so only
+ * one small document crosses the wire. The arithmetic mirrors MetricsCalculationService
+ * and EffortSegmenter, which a parity test checks.
+ */
+public final class SessionSummaryPipeline {
+    
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double FIELD_SCALE = 100_000.0;
+    private static final double ZONE_SIZE = 33.33;
+    private static final List<String> SPEED_ZONES = List.of("walking", "jogging", "running", "high_intensity", "sprinting");
+    
+    private SessionSummaryPipeline() {
+    }
+    
+    /** Stages for the fixes selected by {@code match}, whose ids may be nested (as in time-series mode). */
+    public static List<Document> stages(Document match) {
+        String speed = "$movement.speed";
+        Document hasPrevious = op("$ne", "$previousLatitude", null);
+        
+        Document highIntensity = op("$or",
+                op("$gt", speed, EffortSegmenter.DEFAULT_SPEED_THRESHOLD),
+                op("$gt", op("$abs", "$movement.acceleration"), EffortSegmenter.DEFAULT_ACCELERATION_THRESHOLD));
+        
+        Document window = new Document("$setWindowFields", new Document("sortBy", new Document("timestamp", 1))
+                .append("output", new Document()
+                        .append("previousLatitude", shift("$position.latitude", null))
+                        .append("previousLongitude", shift("$position.longitude", null))
+                        .append("previousHighIntensity", shift("$highIntensity", false))));
+        
+        Document steps = new Document("$set", new Document()
+                .append("step", op("$cond", hasPrevious, haversine(), null))
+                .append("speedZone", new Document("$switch", new Document()
+                        .append("branches", List.of(
+                                branch(op("$gt", speed, 24.0), "sprinting"),
+                                branch(op("$gt", speed, 19.8), "high_intensity"),
+                                branch(op("$gt", speed, 14.0), "running"),
+                                branch(op("$gt", speed, 7.0), "jogging")))
+                        .append("default", "walking")))
+                .append("heatZone", op("$concat", "zone_",
+                        zoneIndex("$position.longitude"), "_", zoneIndex("$position.latitude"))));
+        
+        Document byZone = new Document("_id", "$heatZone")
+                .append("fixes", sum(1))
+                .append("steps", sum(op("$cond", hasPrevious, 1, 0)))
+                .append("totalDistance", sum("$step"))
+                .append("maxSpeed", new Document("$max", op("$cond", hasPrevious, speed, null)))
+                .append("speedSum", sum(op("$cond", hasPrevious, speed, 0)))
+                .append("maxHeartRate", new Document("$max", op("$cond", validHeartRate(), "$biometrics.heartRate", 0)))
+                .append("heartRateSum", sum(op("$cond", validHeartRate(), "$biometrics.heartRate", 0)))
+                .append("heartRateReadings", sum(op("$cond", validHeartRate(), 1, 0)))
+                .append("intensitySum", sum(op("$min", op("$add",
+                        op("$divide", speed, 30.0),
+                        op("$divide", op("$abs", "$movement.acceleration"), 5.0)), 10.0)))
+                .append("jumpCount", sum(op("$cond",
+                        op("$and", hasPrevious, op("$gt", "$movement.imu.accelerometer.z", 15.0)), 1, 0)))
+                .append("playerLoad", sum(op("$cond",
+                        op("$and", hasPrevious, op("$eq", op("$type", "$movement.imu"), "object")),
+                        op("$divide", op("$sqrt", op("$add",
+                                op("$pow", "$movement.imu.accelerometer.x", 2),
+                                op("$pow", "$movement.imu.accelerometer.y", 2),
+                                op("$pow", "$movement.imu.accelerometer.z", 2))), 100.0),
+                        0)))
+                .append("fieldXSum", sum(op("$multiply", "$position.longitude", FIELD_SCALE)))
+                .append("fieldYSum", sum(op("$multiply", "$position.latitude", FIELD_SCALE)));
+        for (String zone : SPEED_ZONES) {
+            byZone.append(zone, sum(op("$cond", op("$eq", "$speedZone", zone), "$step", 0)));
+        }
+        
+        Document total = new Document("_id", null)
+                .append("maxSpeed", new Document("$max", "$maxSpeed"))
+                .append("maxHeartRate", new Document("$max", "$maxHeartRate"))
+                .append("heatMap", new Document("$push", new Document("k", "$_id").append("v", "$fixes")));
+        for (String field : List.of("fixes", "steps", "totalDistance", "speedSum", "heartRateSum", "heartRateReadings",
+                "intensitySum", "jumpCount", "playerLoad", "fieldXSum", "fieldYSum")) {
+            total.append(field, sum("$" + field));
+        }
+        for (String zone : SPEED_ZONES) {
+            total.append(zone, sum("$" + zone));
+        }
+        
+        // Effort starts and ends alternate, so each start's previous boundary is the end of the last effort
+        List<Document> recoveries = List.of(
+                new Document("$match", new Document("$expr", op("$ne", "$highIntensity", "$previousHighIntensity"))),
+                new Document("$setWindowFields", new Document("sortBy", new Document("timestamp", 1))
+                        .append("output", new Document("previousBoundary", shift("$timestamp", null)))),
+                new Document("$match", new Document("highIntensity", true).append("previousBoundary", new Document("$ne", null))),
+                new Document("$group", new Document("_id", null)
+                        .append("recoveries", sum(1))
+                        .append("recoverySecondsSum", sum(op("$floor", op("$divide",
+                                op("$subtract", "$timestamp", "$previousBoundary"), 1000))))));
+        
+        return List.of(
+                new Document("$match", match),
+                new Document("$set", new Document("highIntensity", highIntensity)),
+                window,
+                steps,
+                new Document("$facet", new Document()
+                        .append("summary", List.of(new Document("$group", byZone), new Document("$group", total)))
+                        .append("recoveries", recoveries)));
+    }
+    
+    /** Reads the pipeline's single output document; empty when no fixes matched. */
+    public static Optional<GpsSessionSummary> read(Document result) {
+        if (result == null) {
+            return Optional.empty();
+        }
+        List<Document> summaries = result.getList("summary", Document.class, List.of());
+        if (summaries.isEmpty()) {
+            return Optional.empty();
+        }
+        Document summary = summaries.get(0);
+        List<Document> recoveryGroups = result.getList("recoveries", Document.class, List.of());
+        Document recoveries = recoveryGroups.isEmpty() ? new Document() : recoveryGroups.get(0);
+        
+        Map<String, Double> speedZones = new HashMap<>();
+        for (String zone : SPEED_ZONES) {
+            speedZones.put(zone, number(summary, zone));
+        }
+        Map<String, Double> heatMap = new HashMap<>();
+        for (Document zone : summary.getList("heatMap", Document.class, List.of())) {
+            heatMap.put(zone.getString("k"), number(zone, "v"));
+        }
+        
+        return Optional.of(new GpsSessionSummary(
+                (long) number(summary, "fixes"),
+                (long) number(summary, "steps"),
+                number(summary, "totalDistance"),
+                speedZones,
+                number(summary, "maxSpeed"),
+                number(summary, "speedSum"),
+                (int) number(summary, "maxHeartRate"),
+                (long) number(summary, "heartRateSum"),
+                (long) number(summary, "heartRateReadings"),
+                number(summary, "intensitySum"),
+                (int) number(summary, "jumpCount"),
+                number(summary, "playerLoad"),
+                number(summary, "fieldXSum"),
+                number(summary, "fieldYSum"),
+                heatMap,
+                (long) number(recoveries, "recoveries"),
+                number(recoveries, "recoverySecondsSum")));
+    }
+    
+    // Same formula as MetricsCalculationService.calculateDistance
+    private static Document haversine() {
+        Document halfLat = op("$divide", op("$degreesToRadians", op("$subtract", "$position.latitude", "$previousLatitude")), 2);
+        Document halfLon = op("$divide", op("$degreesToRadians", op("$subtract", "$position.longitude", "$previousLongitude")), 2);
+        Document a = op("$add",
+                op("$multiply", op("$sin", halfLat), op("$sin", halfLat)),
+                op("$multiply",
+                        op("$cos", op("$degreesToRadians", "$previousLatitude")),
+                        op("$cos", op("$degreesToRadians", "$position.latitude")),
+                        op("$sin", halfLon), op("$sin", halfLon)));
+        Document c = op("$multiply", 2, op("$atan2", op("$sqrt", a), op("$sqrt", op("$subtract", 1, a))));
+        return op("$multiply", EARTH_RADIUS_METERS, c);
+    }
+    
+    // (int) (coordinate * 100000 / 33.33) + 1, capped at 3, as in MetricsCalculationService.getFieldZone
+    private static Document zoneIndex(String coordinate) {
+        Document index = op("$add", op("$toLong", op("$trunc",
+                op("$divide", op("$multiply", coordinate, FIELD_SCALE), ZONE_SIZE))), 1L);
+        return op("$toString", op("$min", index, 3L));
+    }
+    
+    private static Document validHeartRate() {
+        return op("$gt", "$biometrics.heartRate", 0);
+    }
+    
+    private static Document shift(String field, Object defaultValue) {
+        return new Document("$shift", new Document("output", field).append("by", -1).append("default", defaultValue));
+    }
+    
+    private static Document branch(Document condition, String value) {
+        return new Document("case", condition).append("then", value);
+    }
+    
+    private static Document sum(Object value) {
+        return new Document("$sum", value);
+    }
+    
+    private static Document op(String operator, Object... arguments) {
+        return new Document(operator, arguments.length == 1 ? arguments[0] : Arrays.asList(arguments));
+    }
+    
+    private static double number(Document document, String field) {
+        Number value = document.get(field, Number.class);
+        return value != null ? value.doubleValue() : 0.0;
+    }
+}
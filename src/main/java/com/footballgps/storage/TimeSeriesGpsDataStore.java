@@ -0,0 +1,191 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.mongodb.MongoBulkWriteException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fixes in a MongoDB time-series collection, with {@code timestamp} as the time field and
+ * {playerId, sessionId} as the meta field. Mongo groups each player-session's fixes into
+ * compressed buckets, so the per-fix ObjectId and repeated id strings are stored once per
+ * bucket rather than once per fix. Fixes keep the GpsData shape in Java; only the two ids
+ * move into {@code meta} on the way in and back out on the way out. The time field must be a
+ * BSON date, so the epoch-millisecond timestamp is converted at the same boundary.
+ */
+@Component
+@ConditionalOnProperty(name = "gps.storage.mode", havingValue = "timeseries")
+@RequiredArgsConstructor
+@Slf4j
+public class TimeSeriesGpsDataStore implements GpsDataStore {
+    
+    public static final String COLLECTION = "gps_data_ts";
+    
+    private static final String META = "meta";
+    private static final String PLAYER_ID = META + ".playerId";
+    private static final String SESSION_ID = META + ".sessionId";
+    private static final Sort BY_TIMESTAMP = Sort.by(Sort.Direction.ASC, "timestamp");
+    
+    private final MongoTemplate mongoTemplate;
+    
+    // Before the first insert: Mongo would otherwise create a plain collection on demand
+    @PostConstruct
+    public void ensureCollection() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty()
+                    .timeSeries(CollectionOptions.TimeSeriesOptions.timeSeries("timestamp")
+                            .metaField(META)
+                            .granularity(Granularity.SECONDS)));
+            log.info("Created time-series collection {}", COLLECTION);
+        } else {
+            Document info = mongoTemplate.getDb().listCollections()
+                    .filter(new Document("name", COLLECTION))
+                    .first();
+            if (info != null && !"timeseries".equals(info.getString("type"))) {
+                log.error("{} exists but is not a time-series collection; drop it to use gps.storage.mode=timeseries",
+                        COLLECTION);
+            }
+        }
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                .on(SESSION_ID, Sort.Direction.ASC)
+                .on(PLAYER_ID, Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC));
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                .on(PLAYER_ID, Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC));
+    }
+    
+    @Override
+    public GpsData save(GpsData gpsData) {
+        Document document = toDocument(gpsData);
+        mongoTemplate.getCollection(COLLECTION).insertOne(document);
+        gpsData.setId(document.getObjectId("_id").toHexString());
+        return gpsData;
+    }
+    
+    /**
+     * One ordered insert of the fixes without an id. Time-series collections have no unique
+     * index to reject a repeated fix, so ids are set only on the fixes actually written,
+     * including the prefix an ordered insert wrote before failing, and a retry skips them.
+     */
+    @Override
+    public List<GpsData> saveAll(List<GpsData> gpsData) {
+        List<GpsData> pending = gpsData.stream().filter(data -> data.getId() == null).toList();
+        if (pending.isEmpty()) {
+            return gpsData;
+        }
+        List<Document> documents = new ArrayList<>(pending.size());
+        for (GpsData data : pending) {
+            documents.add(toDocument(data));
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertMany(documents);
+        } catch (MongoBulkWriteException e) {
+            setIds(pending, documents, e.getWriteResult().getInsertedCount());
+            throw e;
+        }
+        setIds(pending, documents, documents.size());
+        return gpsData;
+    }
+    
+    private static void setIds(List<GpsData> gpsData, List<Document> documents, int written) {
+        for (int i = 0; i < written; i++) {
+            gpsData.get(i).setId(documents.get(i).getObjectId("_id").toHexString());
+        }
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return find(new Query(Criteria.where(SESSION_ID).is(sessionId).and(PLAYER_ID).is(playerId)));
+    }
+    
+    @Override
+    public List<GpsData> findBySessionId(String sessionId) {
+        return find(new Query(Criteria.where(SESSION_ID).is(sessionId)));
+    }
+    
+    @Override
+    public long countByPlayerIdAndSessionId(String playerId, String sessionId) {
+        return mongoTemplate.count(new Query(Criteria.where(SESSION_ID).is(sessionId).and(PLAYER_ID).is(playerId)),
+                COLLECTION);
+    }
+    
+    @Override
+    public long countBySessionId(String sessionId) {
+        return mongoTemplate.count(new Query(Criteria.where(SESSION_ID).is(sessionId)), COLLECTION);
+    }
+    
+    @Override
+    public List<GpsData> findByPlayerIdAndTimestampBetween(String playerId, long startMillis, long endMillis) {
+        return find(new Query(Criteria.where(PLAYER_ID).is(playerId).and("timestamp")
+                .gte(new Date(startMillis)).lte(new Date(endMillis))));
+    }
+    
+    @Override
+    public List<GpsData> findRecentDataBySession(String sessionId, long sinceMillis) {
+        return find(new Query(Criteria.where(SESSION_ID).is(sessionId).and("timestamp").gte(new Date(sinceMillis))));
+    }
+    
+    // Time-series collections only allow deletes that filter on the meta field
+    @Override
+    public void deleteBySessionId(String sessionId) {
+        mongoTemplate.remove(new Query(Criteria.where(SESSION_ID).is(sessionId)), COLLECTION);
+    }
+    
+    @Override
+    public Optional<GpsSessionSummary> summarize(String playerId, String sessionId) {
+        Document match = new Document(SESSION_ID, sessionId).append(PLAYER_ID, playerId);
+        return SessionSummaryPipeline.read(mongoTemplate.getCollection(COLLECTION)
+                .aggregate(SessionSummaryPipeline.stages(match))
+                .allowDiskUse(true)
+                .first());
+    }
+    
+    // Bucket unpacking does not preserve insertion order, so reads are sorted explicitly
+    private List<GpsData> find(Query query) {
+        List<Document> documents = mongoTemplate.find(query.with(BY_TIMESTAMP), Document.class, COLLECTION);
+        List<GpsData> fixes = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            fixes.add(fromDocument(document));
+        }
+        return fixes;
+    }
+    
+    private Document toDocument(GpsData gpsData) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(gpsData, document);
+        document.remove("_class");
+        document.put(META, new Document("playerId", document.remove("playerId"))
+                .append("sessionId", document.remove("sessionId")));
+        document.put("timestamp", new Date(gpsData.getTimestamp()));
+        return document;
+    }
+    
+    private GpsData fromDocument(Document document) {
+        Object meta = document.remove(META);
+        if (meta instanceof Document metaDocument) {
+            document.put("playerId", metaDocument.get("playerId"));
+            document.put("sessionId", metaDocument.get("sessionId"));
+        }
+        if (document.get("timestamp") instanceof Date timestamp) {
+            document.put("timestamp", timestamp.getTime());
+        }
+        return mongoTemplate.getConverter().read(GpsData.class, document);
+    }
+}
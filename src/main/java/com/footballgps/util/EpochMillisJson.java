@@ -0,0 +1,73 @@
+package com.footballgps.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * JSON form of epoch-millisecond fields, so the conversion happens only at the API edge.
+ * Values are written as ISO local date-times in the system zone, exactly as the former
+ * LocalDateTime fields were, and read from that form, from an ISO date-time with an
+ * offset, or from a plain number of epoch milliseconds.
+ */
+public final class EpochMillisJson {
+    
+    private EpochMillisJson() {
+    }
+    
+    public static class Serializer extends StdSerializer<Long> {
+        
+        public Serializer() {
+            super(Long.class);
+        }
+        
+        @Override
+        public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(EpochTime.toLocalDateTime(value)));
+        }
+    }
+    
+    public static class Deserializer extends StdDeserializer<Long> {
+        
+        public Deserializer() {
+            super(Long.class);
+        }
+        
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return parser.getLongValue();
+            }
+            if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                return (Long) context.handleUnexpectedToken(Long.class, parser);
+            }
+            String text = parser.getText().trim();
+            try {
+                TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text,
+                        OffsetDateTime::from, LocalDateTime::from);
+                return parsed instanceof OffsetDateTime offset
+                        ? offset.toInstant().toEpochMilli()
+                        : EpochTime.toMillis((LocalDateTime) parsed);
+            } catch (DateTimeParseException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, text, "not an ISO date-time");
+            }
+        }
+        
+        // Absent or null means no timestamp
+        @Override
+        public Long getNullValue(DeserializationContext context) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.footballgps.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversions between the LocalDateTime values used by the models and the epoch
+ * milliseconds used by hot-path analysis code. Uses the system zone, which is what
+ * Spring Data uses when it stores a LocalDateTime as a BSON date.
+ */
+public final class EpochTime {
+    
+    private EpochTime() {
+    }
+    
+    public static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -59,9 +59,9 @@ export default function MLDashboard() {
   const fetchPlayerPredictions = async (playerId: string) => {
     try {
       setLoading(true)
-      const response = await fetch(`/api/ml/predictions/player/${playerId}`)
-      const data = await response.json()
-      setPredictions(data)
+      const response = await fetch(`/api/ml/predictions/player/${playerId}?limit=50`)
+      const page = await response.json()
+      setPredictions(page.items)
     } catch (error) {
       console.error("Error fetching predictions:", error)
       setError("Failed to fetch predictions")
@@ -0,0 +1,161 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffortSegmenterTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    @Test
+    void testSegmentsEffortsAndRecoveries() {
+        // Given: 1 Hz fixes - jog, sprint 3s, jog 10s, sprint 2s until the end
+        double[] speeds = {10, 10, 25, 26, 25, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 22, 23};
+        List<GpsData> data = createSession(speeds, 1000);
+
+        // When
+        EffortSegmentation result = EffortSegmenter.segment(data);
+
+        // Then
+        assertEquals(2, result.episodes().size());
+
+        EffortEpisode first = result.episodes().get(0);
+        assertEquals(2, first.startIndex());
+        assertEquals(5, first.endIndex());
+        assertEquals(26.0, first.peakSpeed());
+        assertTrue(first.distance() > 0);
+        assertFalse(first.hasRecoveryBefore());
+
+        EffortEpisode second = result.episodes().get(1);
+        assertEquals(15, second.startIndex());
+        assertEquals(17, second.endIndex());
+        assertEquals(10, second.recoveryBeforeSeconds());
+
+        assertArrayEquals(new double[]{10.0}, result.recoveryTimes());
+    }
+
+    @Test
+    void testMatchesQuadraticRecoveryScan() {
+        // Given
+        List<GpsData> data = createRandomSession(5_000, 42L);
+
+        // When
+        double[] recoveries = EffortSegmenter.segment(data).recoveryTimes();
+
+        // Then
+        List<Double> expected = quadraticRecoveryTimes(data);
+        assertEquals(expected.size(), recoveries.length);
+        for (int i = 0; i < recoveries.length; i++) {
+            assertEquals(expected.get(i), recoveries[i], 1e-9);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkFullMatchSession() {
+        // 90 minutes at 10 Hz
+        List<GpsData> data = createRandomSession(54_000, 7L);
+
+        for (int i = 0; i < 5; i++) {
+            EffortSegmenter.segment(data); // warm-up
+        }
+
+        long start = System.nanoTime();
+        int iterations = 20;
+        int episodes = 0;
+        for (int i = 0; i < iterations; i++) {
+            episodes = EffortSegmenter.segment(data).episodes().size();
+        }
+        double singlePassMs = (System.nanoTime() - start) / 1e6 / iterations;
+
+        start = System.nanoTime();
+        List<Double> quadratic = quadraticRecoveryTimes(data);
+        double quadraticMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("54k-point session: %d efforts, single pass %.2f ms, indexOf scan %.2f ms%n",
+                episodes, singlePassMs, quadraticMs);
+
+        assertEquals(quadratic.size(), EffortSegmenter.segment(data).recoveryTimes().length);
+        assertTrue(singlePassMs < quadraticMs);
+    }
+
+    /** The recovery scan FatigueDetectionService used before the segmenter, kept as a reference. */
+    private List<Double> quadraticRecoveryTimes(List<GpsData> sessionData) {
+        List<Double> recoveryTimes = new ArrayList<>();
+        boolean inHighIntensity = false;
+
+        for (GpsData data : sessionData) {
+            boolean isHighIntensity = isHighIntensity(data);
+
+            if (isHighIntensity && !inHighIntensity) {
+                inHighIntensity = true;
+            } else if (!isHighIntensity && inHighIntensity) {
+                inHighIntensity = false;
+                for (int i = sessionData.indexOf(data) + 1; i < sessionData.size(); i++) {
+                    GpsData nextData = sessionData.get(i);
+                    if (isHighIntensity(nextData)) {
+                        recoveryTimes.add((double) ((nextData.getTimestamp() - data.getTimestamp()) / 1000));
+                        break;
+                    }
+                }
+            }
+        }
+
+        return recoveryTimes;
+    }
+
+    private boolean isHighIntensity(GpsData data) {
+        return data.getMovement().getSpeed() > 20.0 || Math.abs(data.getMovement().getAcceleration()) > 3.0;
+    }
+
+    private List<GpsData> createRandomSession(int points, long seed) {
+        Random random = new Random(seed);
+        double[] speeds = new double[points];
+        double speed = 8.0;
+        for (int i = 0; i < points; i++) {
+            // Mostly low-intensity movement with occasional bursts
+            if (random.nextDouble() < 0.004) {
+                speed = 21 + random.nextDouble() * 10;
+            } else if (random.nextDouble() < 0.05) {
+                speed = Math.max(0, 4 + random.nextGaussian() * 4);
+            }
+            speeds[i] = speed;
+        }
+        return createSession(speeds, 100);
+    }
+
+    private List<GpsData> createSession(double[] speeds, long intervalMillis) {
+        List<GpsData> data = new ArrayList<>(speeds.length);
+        double latitude = 53.4631;
+        for (int i = 0; i < speeds.length; i++) {
+            GpsData point = new GpsData();
+            point.setPlayerId("player_001");
+            point.setSessionId("session_001");
+            point.setTimestamp(KICK_OFF + i * intervalMillis);
+
+            // Move north at the current speed
+            latitude += speeds[i] / 3.6 * intervalMillis / 1000.0 / 111_320.0;
+            GpsData.Position position = new GpsData.Position();
+            position.setLatitude(latitude);
+            position.setLongitude(-2.2914);
+            point.setPosition(position);
+
+            GpsData.Movement movement = new GpsData.Movement();
+            movement.setSpeed(speeds[i]);
+            movement.setAcceleration(0.5);
+            point.setMovement(movement);
+
+            data.add(point);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,187 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormationDetectorTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+    private static final double LATITUDE = 53.4631;
+    private static final double LONGITUDE = -2.2914;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+
+    // (depth, width) in metres, goalkeeper first
+    private static final double[][] FOUR_FOUR_TWO = {
+            {0, 0},
+            {18, -24}, {15, -8}, {15, 8}, {18, 24},
+            {38, -26}, {35, -9}, {35, 9}, {38, 26},
+            {55, -7}, {55, 7}};
+    private static final double[][] FOUR_THREE_THREE = {
+            {0, 0},
+            {18, -24}, {15, -8}, {15, 8}, {18, 24},
+            {33, -14}, {30, 0}, {33, 14},
+            {55, -22}, {58, 0}, {55, 22}};
+    private static final double[][] THREE_FIVE_TWO = {
+            {0, 0},
+            {15, -16}, {13, 0}, {15, 16},
+            {36, -28}, {33, -13}, {31, 0}, {33, 13}, {36, 28},
+            {55, -7}, {55, 7}};
+
+    @Test
+    void testDetectsFormationsAndRoles() {
+        FormationDetector detector = new FormationDetector();
+
+        // When
+        FormationMatch fourFourTwo = detect(detector, FOUR_FOUR_TWO);
+        FormationMatch fourThreeThree = detect(detector, FOUR_THREE_THREE);
+        FormationMatch threeFiveTwo = detect(detector, THREE_FIVE_TWO);
+
+        // Then
+        assertEquals("4-4-2", fourFourTwo.formation());
+        assertEquals("4-3-3", fourThreeThree.formation());
+        assertEquals("3-5-2", threeFiveTwo.formation());
+
+        assertEquals("GK", fourFourTwo.roles().get("player_00"));
+        assertEquals("D1", fourFourTwo.roles().get("player_01"));
+        assertEquals("F2", fourFourTwo.roles().get("player_10"));
+        assertTrue(fourFourTwo.confidence() > 0);
+    }
+
+    @Test
+    void testUsesElevenMostTrackedPlayers() {
+        // Given: a 4-4-2 plus three substitutes seen only briefly, placed up front
+        int n = 14;
+        String[] ids = new String[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        long[] samples = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = String.format("player_%02d", i);
+            x[i] = i < 11 ? FOUR_FOUR_TWO[i][0] : 70;
+            y[i] = i < 11 ? FOUR_FOUR_TWO[i][1] : 0;
+            samples[i] = i < 11 ? 300 : 20;
+        }
+
+        // When
+        FormationMatch match = new FormationDetector().detect(ids, x, y, samples, n);
+
+        // Then
+        assertEquals("4-4-2", match.formation());
+        assertEquals(11, match.roles().size());
+        assertNull(match.roles().get("player_12"));
+        assertNull(new FormationDetector().detect(ids, x, y, samples, 7));
+    }
+
+    @Test
+    void testHungarianMatchesBruteForce() {
+        Random random = new Random(3L);
+        HungarianAssignment hungarian = new HungarianAssignment(7);
+        for (int trial = 0; trial < 200; trial++) {
+            // Given
+            int rows = 1 + random.nextInt(6);
+            int columns = rows + random.nextInt(2);
+            double[][] cost = new double[rows][columns];
+            for (double[] row : cost) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextDouble() * 10;
+                }
+            }
+
+            // When
+            int[] assignment = new int[rows];
+            double total = hungarian.solve(cost, rows, columns, assignment);
+
+            // Then
+            assertEquals(bruteForce(cost, 0, new boolean[columns]), total, 1e-9);
+            double check = 0;
+            boolean[] taken = new boolean[columns];
+            for (int i = 0; i < rows; i++) {
+                assertFalse(taken[assignment[i]]);
+                taken[assignment[i]] = true;
+                check += cost[i][assignment[i]];
+            }
+            assertEquals(total, check, 1e-9);
+        }
+    }
+
+    @Test
+    void testDetectsFormationChangeAcrossWindows() {
+        // Given: ten minutes of 4-4-2 then ten of 3-5-2 at 1 Hz, with jitter
+        Random random = new Random(5L);
+        List<GpsData> data = new ArrayList<>();
+        addFixes(data, FOUR_FOUR_TWO, 0, 600, random);
+        addFixes(data, THREE_FIVE_TWO, 600, 1200, random);
+
+        // When
+        List<FormationSpan> spans = new FormationDetector()
+                .detectWindows(TeamFrames.align(data), FormationDetector.DEFAULT_WINDOW_MILLIS);
+
+        // Then
+        assertEquals(4, spans.size());
+        assertEquals("4-4-2", spans.get(0).match().formation());
+        assertEquals("4-4-2", spans.get(1).match().formation());
+        assertEquals("3-5-2", spans.get(2).match().formation());
+        assertEquals("3-5-2", spans.get(3).match().formation());
+        assertEquals(300_000, spans.get(0).endMillis() - spans.get(0).startMillis());
+        assertEquals(11, spans.get(0).players());
+    }
+
+    private FormationMatch detect(FormationDetector detector, double[][] formation) {
+        int n = formation.length;
+        String[] ids = new String[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        long[] samples = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = String.format("player_%02d", i);
+            x[i] = formation[i][0];
+            y[i] = formation[i][1];
+            samples[i] = 300;
+        }
+        return detector.detect(ids, x, y, samples, n);
+    }
+
+    private double bruteForce(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < taken.length; j++) {
+            if (!taken[j]) {
+                taken[j] = true;
+                best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, taken));
+                taken[j] = false;
+            }
+        }
+        return best;
+    }
+
+    private void addFixes(List<GpsData> data, double[][] formation, int fromSecond, int toSecond, Random random) {
+        for (int s = fromSecond; s < toSecond; s++) {
+            double shift = 15 * Math.sin(2 * Math.PI * s / 240);
+            for (int p = 0; p < formation.length; p++) {
+                double north = formation[p][0] + shift + random.nextGaussian();
+                double east = formation[p][1] + random.nextGaussian();
+
+                GpsData point = new GpsData();
+                point.setPlayerId(String.format("player_%02d", p));
+                point.setSessionId("session_001");
+                point.setTimestamp(KICK_OFF + s * 1000L);
+
+                GpsData.Position position = new GpsData.Position();
+                position.setLatitude(LATITUDE + north / METERS_PER_DEGREE);
+                position.setLongitude(LONGITUDE + east / (METERS_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE))));
+                point.setPosition(position);
+                data.add(point);
+            }
+        }
+    }
+}
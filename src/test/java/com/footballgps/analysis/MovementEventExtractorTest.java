@@ -0,0 +1,109 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.SessionEventIndex.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovementEventExtractorTest {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+
+    @Test
+    void testSprintHysteresis() {
+        // Given: 1 Hz, a sprint dipping to 22 km/h (inside the exit band) before dropping to a jog
+        double[] speeds = {10, 25, 28, 22, 26, 25, 15, 10, 30, 10};
+
+        // When
+        List<MovementEvent> events = run(speeds, new double[speeds.length], 1000);
+
+        // Then: one sprint from t=1 to t=6, then a one-second sprint from t=8
+        List<MovementEvent> sprints = ofType(events, EventType.SPRINT);
+        assertEquals(2, sprints.size());
+        MovementEvent first = sprints.get(0);
+        assertEquals(1000, first.startMillis());
+        assertEquals(6000, first.endMillis());
+        assertEquals(28.0, first.peakSpeed());
+        // Distance runs up to the fix that ended the sprint
+        double expected = (28 + 22 + 26 + 25 + 15) / 3.6;
+        assertEquals(expected, first.distance(), 0.05);
+        assertEquals(1.0, sprints.get(1).durationSeconds());
+    }
+
+    @Test
+    void testMinimumDurationAndGaps() {
+        // Given: 10 Hz, a 0.5 s spike above sprint speed, then a sprint cut off by a 5 s gap
+        int n = 45;
+        double[] speeds = new double[n];
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++) {
+            speeds[i] = i >= 5 && i < 10 ? 26 : i >= 15 ? 27 : 12;
+            times[i] = i < 30 ? i * 100L : 5_000 + i * 100L;
+        }
+
+        // When
+        List<MovementEvent> events = new ArrayList<>();
+        MovementEventExtractor extractor = new MovementEventExtractor(events::add);
+        double latitude = 53.0;
+        for (int i = 0; i < n; i++) {
+            extractor.accept(times[i], latitude, -2.0, speeds[i], 0.0);
+            latitude += speeds[i] / 3.6 * 0.1 / METERS_PER_DEGREE;
+        }
+        extractor.finish();
+
+        // Then: the spike is dropped; the sprint closes at the last fix before the gap and a new one
+        // runs from after the gap to the end
+        List<MovementEvent> sprints = ofType(events, EventType.SPRINT);
+        assertEquals(2, sprints.size());
+        assertEquals(1500, sprints.get(0).startMillis());
+        assertEquals(2900, sprints.get(0).endMillis());
+        assertEquals(8000, sprints.get(1).startMillis());
+        assertEquals(9400, sprints.get(1).endMillis());
+    }
+
+    @Test
+    void testAccelerationAndDeceleration() {
+        // Given: 2 Hz, an acceleration above 3 m/s² held at 2.5 m/s², then a hard stop
+        double[] accelerations = {0, 3.5, 2.5, 4.0, 1.0, 0, -3.2, -5.0, -2.1, -1.0, 0};
+        double[] speeds = {5, 10, 15, 20, 22, 22, 18, 10, 5, 3, 3};
+
+        // When
+        List<MovementEvent> events = run(speeds, accelerations, 500);
+
+        // Then
+        List<MovementEvent> accelerationEvents = ofType(events, EventType.ACCELERATION);
+        assertEquals(1, accelerationEvents.size());
+        assertEquals(500, accelerationEvents.get(0).startMillis());
+        assertEquals(2000, accelerationEvents.get(0).endMillis());
+        assertEquals(4.0, accelerationEvents.get(0).peakAcceleration());
+
+        List<MovementEvent> decelerations = ofType(events, EventType.DECELERATION);
+        assertEquals(1, decelerations.size());
+        assertEquals(3000, decelerations.get(0).startMillis());
+        assertEquals(4500, decelerations.get(0).endMillis());
+        assertEquals(-5.0, decelerations.get(0).peakAcceleration());
+        assertTrue(ofType(events, EventType.SPRINT).isEmpty());
+    }
+
+    private List<MovementEvent> run(double[] speeds, double[] accelerations, long intervalMillis) {
+        List<MovementEvent> events = new ArrayList<>();
+        MovementEventExtractor extractor = new MovementEventExtractor(events::add);
+        double latitude = 53.0;
+        for (int i = 0; i < speeds.length; i++) {
+            extractor.accept(i * intervalMillis, latitude, -2.0, speeds[i], accelerations[i]);
+            // Move north at the next fix's speed, so each step covers speed x interval
+            if (i + 1 < speeds.length) {
+                latitude += speeds[i + 1] / 3.6 * intervalMillis / 1000.0 / METERS_PER_DEGREE;
+            }
+        }
+        extractor.finish();
+        return events;
+    }
+
+    private List<MovementEvent> ofType(List<MovementEvent> events, EventType type) {
+        return events.stream().filter(event -> event.type() == type).toList();
+    }
+}
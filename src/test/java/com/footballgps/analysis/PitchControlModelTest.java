@@ -0,0 +1,123 @@
+package com.footballgps.analysis;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PitchControlModelTest {
+
+    // 21 x 17 cells of 5 x 4 metres
+    private final PitchControlModel model = new PitchControlModel(21, 17, 105, 68);
+
+    @Test
+    void testMirroredTeamsAndRunningPlayer() {
+        // Given: two players standing level either side of halfway, then one of them sprinting forwards
+        double[] x = {40, 65, 40, 65};
+        double[] y = {0, 0, 0, 0};
+        double[] vx = {0, 0, 7, 0};
+        double[] vy = {0, 0, 0, 0};
+        TeamFrames frames = new TeamFrames(new String[]{"home", "away"}, 0, 1000, 2, x, y, vx, vy);
+
+        // When
+        float[][] surfaces = model.compute(frames, new boolean[]{true, false}, 0, 2, ForkJoinPool.commonPool());
+
+        // Then: halfway is shared, each side controls its own half
+        float[] standing = surfaces[0];
+        assertEquals(0.5, cell(standing, 52.5, 0), 1e-6);
+        assertTrue(cell(standing, 40, 0) > 0.99);
+        assertTrue(cell(standing, 65, 0) < 0.01);
+        assertEquals(cell(standing, 30, 20), 1 - cell(standing, 70, 20), 1e-6);
+
+        // The running player reaches halfway first
+        assertTrue(cell(surfaces[1], 52.5, 0) > 0.8);
+    }
+
+    @Test
+    void testUntrackedOpponentAndEmptyFrame() {
+        // Given: one team only, with nobody tracked in the second frame
+        double[] x = {20, 20, Double.NaN, Double.NaN};
+        double[] y = {-10, 10, Double.NaN, Double.NaN};
+        double[] v = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        TeamFrames frames = new TeamFrames(new String[]{"a", "b"}, 0, 1000, 2, x, y, v, v);
+
+        // When
+        float[][] surfaces = model.compute(frames, new boolean[]{true, true}, 0, 2, ForkJoinPool.commonPool());
+
+        // Then: space near the players is occupied, far space is not
+        assertTrue(cell(surfaces[0], 20, 10) > 0.9);
+        assertTrue(cell(surfaces[0], 100, 30) < 0.01);
+        assertNull(surfaces[1]);
+    }
+
+    @Test
+    void testParallelMatchesSingleThread() {
+        // Given
+        TeamFrames frames = randomFrames(22, 300, new Random(5L));
+        boolean[] team = new boolean[22];
+        for (int p = 0; p < 11; p++) {
+            team[p] = true;
+        }
+
+        // When
+        float[][] single = model.compute(frames, team, 10, 290, new ForkJoinPool(1));
+        float[][] parallel = model.compute(frames, team, 10, 290, new ForkJoinPool(4));
+
+        // Then
+        assertEquals(280, parallel.length);
+        for (int f = 0; f < single.length; f++) {
+            assertArrayEquals(single[f], parallel[f]);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkFullMatchTwentyTwoPlayers() {
+        // 22 players, 90 minutes at 1 Hz on a 32 x 20 grid
+        PitchControlModel grid = new PitchControlModel(32, 20, 105, 68);
+        TeamFrames frames = randomFrames(22, 5_400, new Random(9L));
+        boolean[] team = new boolean[22];
+        for (int p = 0; p < 11; p++) {
+            team[p] = true;
+        }
+        grid.compute(frames, team, 0, 1_000, ForkJoinPool.commonPool()); // warm-up
+
+        long start = System.nanoTime();
+        float[][] surfaces = grid.compute(frames, team, 0, frames.frameCount(), ForkJoinPool.commonPool());
+        double totalMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d frames of %d cells: %.1f ms, %.1f us per frame on %d threads%n",
+                surfaces.length, 32 * 20, totalMs, totalMs * 1000 / surfaces.length,
+                ForkJoinPool.commonPool().getParallelism());
+
+        assertEquals(5_400, surfaces.length);
+        assertTrue(totalMs < 5_000.0);
+    }
+
+    private double cell(float[] surface, double x, double y) {
+        int column = (int) (x / (105.0 / model.columns()));
+        int row = (int) ((y + 34) / (68.0 / model.rows()));
+        return surface[row * model.columns() + column];
+    }
+
+    private static TeamFrames randomFrames(int players, int frameCount, Random random) {
+        int size = players * frameCount;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        double[] vx = new double[size];
+        double[] vy = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextDouble() * 105;
+            y[i] = random.nextDouble() * 68 - 34;
+            vx[i] = random.nextGaussian() * 3;
+            vy[i] = random.nextGaussian() * 3;
+        }
+        String[] ids = new String[players];
+        for (int p = 0; p < players; p++) {
+            ids[p] = "player_" + p;
+        }
+        return new TeamFrames(ids, 0, 1000, frameCount, x, y, vx, vy);
+    }
+}
@@ -0,0 +1,159 @@
+package com.footballgps.analysis;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialGridTest {
+
+    @Test
+    void testQueriesMatchBruteForce() {
+        // Given: 44 objects on a pitch, a few of them absent
+        Random random = new Random(3L);
+        int n = 44;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] found = new int[n];
+        SpatialGrid grid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, n);
+
+        for (int frame = 0; frame < 200; frame++) {
+            fillFrame(x, y, random);
+            x[frame % n] = Double.NaN;
+            y[frame % n] = Double.NaN;
+
+            // When
+            grid.rebuild(x, y, n);
+
+            // Then
+            for (int p = 0; p < n; p++) {
+                double qx = Double.isNaN(x[p]) ? 52.5 : x[p];
+                double qy = Double.isNaN(y[p]) ? 34.0 : y[p];
+
+                int nearest = grid.nearest(qx, qy, p);
+                assertEquals(bruteNearestDistance(x, y, n, qx, qy, p),
+                        Math.hypot(x[nearest] - qx, y[nearest] - qy), 1e-9);
+
+                for (double radius : new double[]{5.0, 10.0, 30.0}) {
+                    int count = grid.withinRadius(qx, qy, radius, p, found);
+                    int[] expected = bruteWithin(x, y, n, qx, qy, radius, p);
+                    int[] actual = Arrays.copyOf(found, count);
+                    Arrays.sort(actual);
+                    assertArrayEquals(expected, actual);
+                    assertEquals(expected.length, grid.countWithin(qx, qy, radius, p));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSpreadOutPositionsAndEmptyFrame() {
+        // Given: positions far apart enough to exceed the cell budget at the default size
+        double[] x = {0, 5_000, 10_000, Double.NaN};
+        double[] y = {0, 5_000, 10_000, Double.NaN};
+        SpatialGrid grid = new SpatialGrid(SpatialGrid.DEFAULT_CELL_SIZE, 4);
+
+        // When
+        grid.rebuild(x, y, 4);
+
+        // Then
+        assertEquals(1, grid.nearest(0, 0, 0));
+        assertEquals(1, grid.nearest(10_000, 10_000, 2));
+        assertEquals(3, grid.countWithin(5_000, 5_000, 7_100, -1));
+        assertEquals(1, grid.countWithin(5_000, 5_000, 7_000, -1));
+
+        grid.rebuild(new double[]{Double.NaN}, new double[]{Double.NaN}, 1);
+        assertEquals(-1, grid.nearest(0, 0, -1));
+        assertEquals(0, grid.countWithin(0, 0, 100, -1));
+    }
+
+    @Test
+    void testProximityMetrics() {
+        // Given: three players pressing towards higher x close together, one teammate
+        // ahead of them, one behind and one far away
+        double[] x = {50, 53, 50, 60, 40, 100};
+        double[] y = {30, 30, 38, 30, 30, 30};
+        double[] vx = {5, 5, 5, 0, 0, 0};
+        double[] vy = {0, 0, 0, 0, 0, 0};
+        ProximityAnalyzer analyzer = new ProximityAnalyzer(6);
+
+        // When
+        analyzer.analyseFrame(x, y, vx, vy, 6);
+
+        // Then
+        assertEquals(3.0, analyzer.supportDistance(0), 1e-9);
+        assertEquals(3, analyzer.passingOptions(0)); // 3 m is too close, 50 m too far
+        assertTrue(analyzer.isPressing(0));
+        assertFalse(analyzer.isPressing(3));
+        assertTrue(analyzer.isCoordinated(0)); // players 1 and 2 pressing within 10 m
+        assertTrue(analyzer.isCovered(0)); // player 4 is 10 m deeper
+        assertFalse(analyzer.isCovered(3));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkFortyFourObjectsAtTenHertz() {
+        // 44 tracked objects, 90 minutes at 10 Hz
+        int n = 44;
+        int frames = 54_000;
+        Random random = new Random(11L);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] vx = new double[n];
+        double[] vy = new double[n];
+        ProximityAnalyzer analyzer = new ProximityAnalyzer(n);
+
+        for (int i = 0; i < 5_000; i++) {
+            fillFrame(x, y, random);
+            analyzer.analyseFrame(x, y, vx, vy, n); // warm-up
+        }
+
+        double checksum = 0;
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            fillFrame(x, y, random);
+            for (int p = 0; p < n; p++) {
+                vx[p] = 8 * random.nextDouble() - 4;
+                vy[p] = 8 * random.nextDouble() - 4;
+            }
+            analyzer.analyseFrame(x, y, vx, vy, n);
+            checksum += analyzer.passingOptions(f % n);
+        }
+        double totalMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d frames of %d objects: %.1f ms total, %.2f us per frame%n",
+                frames, n, totalMs, totalMs * 1000 / frames);
+
+        assertTrue(checksum > 0);
+        // A 10 Hz tick has 100 ms; one frame must take a small fraction of it
+        assertTrue(totalMs / frames < 1.0);
+    }
+
+    private static void fillFrame(double[] x, double[] y, Random random) {
+        for (int p = 0; p < x.length; p++) {
+            x[p] = random.nextDouble() * 105;
+            y[p] = random.nextDouble() * 68;
+        }
+    }
+
+    private static double bruteNearestDistance(double[] x, double[] y, int n, double qx, double qy, int exclude) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i != exclude && !Double.isNaN(x[i])) {
+                best = Math.min(best, Math.hypot(x[i] - qx, y[i] - qy));
+            }
+        }
+        return best;
+    }
+
+    private static int[] bruteWithin(double[] x, double[] y, int n, double qx, double qy,
+                                     double radius, int exclude) {
+        return IntStream.range(0, n)
+                .filter(i -> i != exclude && !Double.isNaN(x[i]))
+                .filter(i -> (x[i] - qx) * (x[i] - qx) + (y[i] - qy) * (y[i] - qy) <= radius * radius)
+                .toArray();
+    }
+}
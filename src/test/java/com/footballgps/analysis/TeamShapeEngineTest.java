@@ -0,0 +1,164 @@
+package com.footballgps.analysis;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeamShapeEngineTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+    private static final double LATITUDE = 53.4631;
+    private static final double LONGITUDE = -2.2914;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+
+    // 3-4-3 as (depth, width) in metres: goalkeeper, then lines 15 m apart
+    private static final double[][] FORMATION = {
+            {0, 0},
+            {20, -15}, {20, 0}, {20, 15},
+            {35, -20}, {35, -7}, {35, 7}, {35, 20},
+            {50, -15}, {50, 0}, {50, 15}};
+
+    @Test
+    void testRigidFormationShape() {
+        // Given: the whole block shifting up and down the pitch for 10 minutes at 1 Hz
+        List<GpsData> data = createSession(FORMATION, 600, 1000, 0.0, new Random(1L));
+        Collections.shuffle(data, new Random(2L));
+
+        // When
+        TeamShape shape = TeamShapeEngine.analyse(TeamFrames.align(data));
+        TeamShapeSummary summary = shape.summarize();
+
+        // Then
+        assertEquals(11, summary.players());
+        assertEquals(600, summary.frames());
+        assertEquals(600, summary.analysedFrames());
+        assertEquals(15.0, summary.averageDefenceToMidfield(), 0.01);
+        assertEquals(15.0, summary.averageMidfieldToAttack(), 0.01);
+        assertEquals(50.0, summary.averageLength(), 0.01);
+        assertEquals(40.0, summary.averageWidth(), 0.01);
+        assertEquals(meanPairwiseDistance(FORMATION), summary.averagePairwiseDistance(), 0.01);
+        assertEquals(0.0, summary.positionalDeviation(), 0.01);
+        assertEquals(1.0, summary.structuredShare(), 1e-9);
+
+        // The goalkeeper ends up at the low end of the pitch axis
+        int goalkeeper = shape.frames().playerIds().indexOf("player_00");
+        assertTrue(shape.playerMeanOffsetX()[goalkeeper] < -30.0);
+    }
+
+    @Test
+    void testAlignmentInterpolatesButDoesNotBridgeGaps() {
+        // Given: player_00 every 2 s, player_01 with a 10 s hole
+        List<GpsData> data = new ArrayList<>();
+        for (int s = 0; s <= 20; s += 2) {
+            data.add(createFix("player_00", s * 1000L, s * 3.0, 0.0));
+        }
+        for (int s : new int[]{0, 1, 2, 12, 13}) {
+            data.add(createFix("player_01", s * 1000L, 10.0, s * 1.0));
+        }
+
+        // When
+        TeamFrames frames = TeamFrames.align(data);
+
+        // Then
+        assertEquals(21, frames.frameCount());
+        double step1 = distance(frames, 0, 0, 1);
+        double step2 = distance(frames, 0, 1, 2);
+        assertEquals(3.0, step1, 0.01);
+        assertEquals(3.0, step2, 0.01);
+        assertFalse(Double.isNaN(frames.x(2, 1)));
+        assertTrue(Double.isNaN(frames.x(5, 1)));
+        assertFalse(Double.isNaN(frames.x(12, 1)));
+        assertTrue(Double.isNaN(frames.x(20, 1)));
+
+        // Too few players for a shape
+        assertEquals(0, TeamShapeEngine.analyse(frames).summarize().analysedFrames());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkFullMatchTwentyTwoPlayers() {
+        // 22 players, 90 minutes at 10 Hz
+        double[][] twoSides = new double[22][];
+        for (int p = 0; p < 11; p++) {
+            twoSides[p] = FORMATION[p];
+            twoSides[p + 11] = new double[]{100 - FORMATION[p][0], FORMATION[p][1] + 3};
+        }
+        List<GpsData> data = createSession(twoSides, 54_000, 100, 1.5, new Random(7L));
+
+        for (int i = 0; i < 3; i++) {
+            TeamShapeEngine.analyse(TeamFrames.align(data)).summarize(); // warm-up
+        }
+
+        long start = System.nanoTime();
+        TeamFrames frames = TeamFrames.align(data);
+        long aligned = System.nanoTime();
+        TeamShapeSummary summary = TeamShapeEngine.analyse(frames).summarize();
+        long end = System.nanoTime();
+
+        double alignMs = (aligned - start) / 1e6;
+        double analyseMs = (end - aligned) / 1e6;
+        System.out.printf("%d fixes, %d players x %d frames: align %.1f ms, shape %.1f ms%n",
+                data.size(), summary.players(), summary.frames(), alignMs, analyseMs);
+
+        assertEquals(5_400, summary.frames());
+        assertEquals(5_400, summary.analysedFrames());
+        assertTrue(alignMs + analyseMs < 1000.0);
+    }
+
+    private List<GpsData> createSession(double[][] formation, int ticks, long intervalMillis,
+                                        double jitter, Random random) {
+        List<GpsData> data = new ArrayList<>(formation.length * ticks);
+        for (int t = 0; t < ticks; t++) {
+            double seconds = t * intervalMillis / 1000.0;
+            double shiftDepth = 10 * Math.sin(2 * Math.PI * seconds / 300);
+            double shiftWidth = 5 * Math.sin(2 * Math.PI * seconds / 120);
+            for (int p = 0; p < formation.length; p++) {
+                double depth = formation[p][0] + shiftDepth + jitter * random.nextGaussian();
+                double across = formation[p][1] + shiftWidth + jitter * random.nextGaussian();
+                data.add(createFix(String.format("player_%02d", p), t * intervalMillis, depth, across));
+            }
+        }
+        return data;
+    }
+
+    /** Pitch laid out north-south: depth is metres north, width metres east. */
+    private GpsData createFix(String playerId, long offsetMillis, double north, double east) {
+        GpsData point = new GpsData();
+        point.setPlayerId(playerId);
+        point.setSessionId("session_001");
+        point.setTimestamp(KICK_OFF + offsetMillis);
+
+        GpsData.Position position = new GpsData.Position();
+        position.setLatitude(LATITUDE + north / METERS_PER_DEGREE);
+        position.setLongitude(LONGITUDE + east / (METERS_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE))));
+        point.setPosition(position);
+        return point;
+    }
+
+    private double distance(TeamFrames frames, int player, int fromFrame, int toFrame) {
+        double dx = frames.x(toFrame, player) - frames.x(fromFrame, player);
+        double dy = frames.y(toFrame, player) - frames.y(fromFrame, player);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private double meanPairwiseDistance(double[][] formation) {
+        double sum = 0;
+        int pairs = 0;
+        for (int i = 0; i < formation.length; i++) {
+            for (int j = i + 1; j < formation.length; j++) {
+                sum += Math.hypot(formation[i][0] - formation[j][0], formation[i][1] - formation[j][1]);
+                pairs++;
+            }
+        }
+        return sum / pairs;
+    }
+}
@@ -0,0 +1,105 @@
+package com.footballgps.ingest;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFixCodecTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    @Test
+    void testRoundTripKeepsFieldsToTheirResolution() {
+        // Given
+        GpsData[] sent = new DeviceSimulator(1, 3L, KICK_OFF).tick();
+        GpsData bare = new GpsData();
+        bare.setPosition(new GpsData.Position(53.4631, -2.2914, 40.0, 1.5, 12));
+        bare.setMovement(new GpsData.Movement(0.0, -3.25, 359.99, null));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        BinaryFixCodec.encode("device_00", sent[0], buffer);
+        int withBlocks = buffer.position();
+        BinaryFixCodec.encode("device_01", bare, buffer);
+        buffer.flip();
+
+        // When
+        List<String> deviceIds = new ArrayList<>();
+        List<GpsData> decoded = new ArrayList<>();
+        int count = new BinaryFixCodec.Decoder().decode(buffer, (deviceId, fix) -> {
+            deviceIds.add(deviceId);
+            decoded.add(fix);
+        });
+
+        // Then
+        assertEquals(2, count);
+        assertFalse(buffer.hasRemaining());
+        // Length prefix, 30 fixed bytes and the 9-byte id, then the IMU and biometrics blocks
+        assertEquals(2 + 30 + 9 + 36 + 4, withBlocks);
+        assertEquals(List.of("device_00", "device_01"), deviceIds);
+
+        GpsData fix = decoded.get(0);
+        assertEquals(KICK_OFF, fix.getTimestamp());
+        assertEquals(sent[0].getPosition().getLatitude(), fix.getPosition().getLatitude(), 1e-7);
+        assertEquals(sent[0].getPosition().getLongitude(), fix.getPosition().getLongitude(), 1e-7);
+        assertEquals(12, fix.getPosition().getSatellites());
+        assertEquals(sent[0].getMovement().getSpeed(), fix.getMovement().getSpeed(), 0.005);
+        assertEquals(sent[0].getMovement().getAcceleration(), fix.getMovement().getAcceleration(), 0.005);
+        assertEquals(sent[0].getMovement().getImu().getAccelerometer().getZ(),
+                fix.getMovement().getImu().getAccelerometer().getZ(), 1e-5);
+        assertEquals(sent[0].getBiometrics().getHeartRate(), fix.getBiometrics().getHeartRate());
+        assertEquals(37.4, fix.getBiometrics().getBodyTemperature(), 1e-9);
+
+        GpsData plain = decoded.get(1);
+        assertEquals(0, plain.getTimestamp());
+        assertEquals(-3.25, plain.getMovement().getAcceleration(), 1e-9);
+        assertEquals(359.99, plain.getMovement().getDirection(), 1e-9);
+        assertNull(plain.getMovement().getImu());
+        assertNull(plain.getBiometrics());
+    }
+
+    @Test
+    void testPartialFrameIsLeftForTheNextRead() {
+        // Given: two frames with the second cut short
+        GpsData[] fixes = new DeviceSimulator(2, 5L, KICK_OFF).tick();
+        ByteBuffer whole = ByteBuffer.allocate(256);
+        BinaryFixCodec.encode("device_00", fixes[0], whole);
+        int firstFrame = whole.position();
+        BinaryFixCodec.encode("device_01", fixes[1], whole);
+        whole.flip();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put(whole.array(), 0, firstFrame + 10).flip();
+        BinaryFixCodec.Decoder decoder = new BinaryFixCodec.Decoder();
+        List<GpsData> decoded = new ArrayList<>();
+
+        // When
+        int first = decoder.decode(buffer, (deviceId, fix) -> decoded.add(fix));
+        buffer.compact().put(whole.array(), firstFrame + 10, whole.limit() - firstFrame - 10).flip();
+        int second = decoder.decode(buffer, (deviceId, fix) -> decoded.add(fix));
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(1, second);
+        assertEquals(fixes[1].getPosition().getLatitude(), decoded.get(1).getPosition().getLatitude(), 1e-7);
+    }
+
+    @Test
+    void testMalformedFramesAreRejected() {
+        // Given
+        ByteBuffer unknownVersion = ByteBuffer.allocate(8).putShort((short) 3).put((byte) 9).put((byte) 0).put((byte) 0);
+        ByteBuffer truncated = ByteBuffer.allocate(8).putShort((short) 4).put((byte) 1).put((byte) 0).put((byte) 0).put((byte) 0);
+        ByteBuffer oversized = ByteBuffer.allocate(8).putShort((short) (BinaryFixCodec.MAX_FRAME_LENGTH + 1));
+        BinaryFixCodec.Decoder decoder = new BinaryFixCodec.Decoder();
+
+        // When / Then
+        for (ByteBuffer buffer : List.of(unknownVersion, truncated, oversized)) {
+            buffer.flip();
+            assertThrows(IllegalArgumentException.class, () -> decoder.decode(buffer, (deviceId, fix) -> fail()));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.footballgps.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.footballgps.model.GpsData;
+import com.footballgps.service.GpsDataService;
+import com.footballgps.util.EpochTime;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BinaryIngestListenerTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    @Mock
+    private GpsDataService gpsDataService;
+
+    private MeterRegistry meterRegistry;
+    private BinaryIngestListener listener;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new BinaryIngestListener(gpsDataService, meterRegistry, 0, 0, 2, 10_000);
+        listener.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        listener.stop();
+    }
+
+    @Test
+    void testTcpFramesSplitAcrossReadsAreIngestedInOrder() throws Exception {
+        // Given: 50 fixes from one device, written a few bytes at a time
+        List<GpsData> received = Collections.synchronizedList(new ArrayList<>());
+        when(gpsDataService.saveDeviceData(eq("device_00"), any(GpsData.class))).thenAnswer(invocation -> {
+            received.add(invocation.getArgument(1));
+            return Optional.of(invocation.getArgument(1));
+        });
+        DeviceSimulator simulator = new DeviceSimulator(1, 7L, KICK_OFF);
+        ByteBuffer frames = ByteBuffer.allocate(8 * 1024);
+        List<GpsData> sent = new ArrayList<>();
+        for (int t = 0; t < 50; t++) {
+            GpsData fix = simulator.tick()[0];
+            sent.add(fix);
+            BinaryFixCodec.encode("device_00", fix, frames);
+        }
+        frames.flip();
+
+        // When
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", listener.getTcpPort()))) {
+            for (int chunk = 0; frames.hasRemaining(); chunk++) {
+                ByteBuffer piece = frames.slice();
+                piece.limit(Math.min(7, piece.remaining()));
+                frames.position(frames.position() + channel.write(piece));
+                if (chunk % 16 == 0) {
+                    Thread.sleep(1);
+                }
+            }
+        }
+        awaitCalls(50);
+        listener.stop();
+
+        // Then
+        assertEquals(50, received.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(sent.get(i).getTimestamp(), received.get(i).getTimestamp());
+            assertEquals(sent.get(i).getPosition().getLatitude(), received.get(i).getPosition().getLatitude(), 1e-7);
+            assertEquals(sent.get(i).getMovement().getSpeed(), received.get(i).getMovement().getSpeed(), 0.005);
+        }
+        assertEquals(50.0, meterRegistry.counter("gps.ingest.binary.frames", "transport", "tcp").count());
+    }
+
+    @Test
+    void testUdpFixesFromUnknownDevicesAreCounted() throws Exception {
+        // Given: device_00 is in a running session and device_01 is not
+        when(gpsDataService.saveDeviceData(eq("device_00"), any(GpsData.class)))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(1)));
+        when(gpsDataService.saveDeviceData(eq("device_01"), any(GpsData.class))).thenReturn(Optional.empty());
+
+        // When: ten ticks, one datagram each
+        new DeviceSimulator(2, 11L, KICK_OFF).sendUdp(listener.getUdpPort(), 10);
+        awaitCalls(20);
+        listener.stop();
+
+        // Then
+        verify(gpsDataService, times(10)).saveDeviceData(eq("device_00"), any(GpsData.class));
+        assertEquals(20.0, meterRegistry.counter("gps.ingest.binary.frames", "transport", "udp").count());
+        assertEquals(10.0, meterRegistry.counter("gps.ingest.binary.rejected", "reason", "unknown_device").count());
+    }
+
+    @Test
+    void testMalformedFrameClosesConnection() throws Exception {
+        // Given: a frame with an unsupported version
+        try (Socket socket = new Socket("localhost", listener.getTcpPort())) {
+            socket.setSoTimeout(5_000);
+
+            // When
+            socket.getOutputStream().write(new byte[] {0, 3, 9, 0, 0});
+            InputStream in = socket.getInputStream();
+
+            // Then
+            assertEquals(-1, in.read());
+        }
+        assertEquals(1.0, meterRegistry.counter("gps.ingest.binary.rejected", "reason", "malformed").count());
+        verifyNoInteractions(gpsDataService);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkBinaryAgainstHttp() throws Exception {
+        // Both paths end in the same counting service. CPU time is the whole process's, simulator
+        // included, so fixes per CPU second compares complete device-to-pipeline paths on one core.
+        AtomicLong ingested = new AtomicLong();
+        GpsDataService counting = mock(GpsDataService.class, withSettings().stubOnly());
+        when(counting.saveDeviceData(anyString(), any(GpsData.class))).thenAnswer(invocation -> {
+            ingested.incrementAndGet();
+            return Optional.of(invocation.getArgument(1));
+        });
+        ObjectMapper objectMapper = new ObjectMapper();
+        BinaryIngestListener binary = new BinaryIngestListener(counting, new SimpleMeterRegistry(), 0, -1, 1, 100_000);
+        binary.start();
+        ExecutorService httpThreads = Executors.newFixedThreadPool(4);
+        HttpServer http = jsonDeviceEndpoint(counting, objectMapper, httpThreads);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI baseUri = URI.create("http://localhost:" + http.getAddress().getPort());
+        DeviceSimulator simulator = new DeviceSimulator(22, 13L, KICK_OFF);
+        try {
+            // Warm-up
+            fixesPerCpuSecond(ingested, 22 * 600, () -> simulator.sendTcp(binary.getTcpPort(), 600));
+            fixesPerCpuSecond(ingested, 22 * 100, () -> simulator.sendHttp(client, baseUri, objectMapper, 100));
+
+            // Nine minutes of a squad at 10 Hz over binary TCP, and a minute of it over HTTP
+            double binaryRate = fixesPerCpuSecond(ingested, 22 * 5_400,
+                    () -> simulator.sendTcp(binary.getTcpPort(), 5_400));
+            double httpRate = fixesPerCpuSecond(ingested, 22 * 600,
+                    () -> simulator.sendHttp(client, baseUri, objectMapper, 600));
+            System.out.printf("Device ingest per CPU second: binary tcp %.0f fixes, http json %.0f fixes (%.1fx)%n",
+                    binaryRate, httpRate, binaryRate / httpRate);
+
+            assertTrue(binaryRate > httpRate);
+        } finally {
+            binary.stop();
+            http.stop(0);
+            httpThreads.shutdownNow();
+        }
+    }
+
+    private interface Send {
+        void run() throws Exception;
+    }
+
+    private void awaitCalls(int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mockingDetails(gpsDataService).getInvocations().size() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static double fixesPerCpuSecond(AtomicLong ingested, long fixes, Send send) throws Exception {
+        long target = ingested.get() + fixes;
+        long cpuStart = processCpuNanos();
+        send.run();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (ingested.get() < target && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(target, ingested.get());
+        return fixes / ((processCpuNanos() - cpuStart) / 1e9);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    // What GpsDataController.receiveDeviceData does per request: parse JSON, ingest, write JSON back
+    private static HttpServer jsonDeviceEndpoint(GpsDataService service, ObjectMapper objectMapper,
+                                                 ExecutorService executor) throws Exception {
+        String prefix = "/api/gps/device/";
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(prefix, exchange -> {
+            String deviceId = exchange.getRequestURI().getPath().substring(prefix.length());
+            GpsData fix = objectMapper.readValue(exchange.getRequestBody(), GpsData.class);
+            byte[] body = objectMapper.writeValueAsBytes(service.saveDeviceData(deviceId, fix).orElseThrow());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+}
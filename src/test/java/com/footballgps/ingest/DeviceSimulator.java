@@ -0,0 +1,137 @@
+package com.footballgps.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.footballgps.model.GpsData;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Local stand-in for a squad of wearables. Each tick is one 10 Hz fix per device, with
+ * positions and speeds drifting as in a match; the fixes can be sent as binary frames
+ * over TCP or UDP, or as JSON to the HTTP device endpoint.
+ */
+class DeviceSimulator {
+
+    private static final long TICK_MILLIS = 100;
+
+    private final List<String> deviceIds = new ArrayList<>();
+    private final Random random;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] speed;
+    private long clock;
+
+    DeviceSimulator(int devices, long seed, long startMillis) {
+        this.random = new Random(seed);
+        this.latitude = new double[devices];
+        this.longitude = new double[devices];
+        this.speed = new double[devices];
+        this.clock = startMillis;
+        for (int d = 0; d < devices; d++) {
+            deviceIds.add(String.format("device_%02d", d));
+            latitude[d] = 53.4631 + random.nextDouble() * 6e-4;
+            longitude[d] = -2.2914 + random.nextDouble() * 9e-4;
+            speed[d] = 8.0;
+        }
+    }
+
+    List<String> deviceIds() {
+        return deviceIds;
+    }
+
+    /** One fix per device, in device order. */
+    GpsData[] tick() {
+        GpsData[] fixes = new GpsData[deviceIds.size()];
+        for (int d = 0; d < fixes.length; d++) {
+            speed[d] = Math.max(0, Math.min(34, speed[d] + random.nextGaussian() * 1.5));
+            double heading = random.nextDouble() * 2 * Math.PI;
+            double step = speed[d] / 3.6 * TICK_MILLIS / 1000.0;
+            latitude[d] += step * Math.cos(heading) / 111_320.0;
+            longitude[d] += step * Math.sin(heading) / 66_500.0;
+
+            GpsData fix = new GpsData();
+            fix.setTimestamp(clock);
+            fix.setPosition(new GpsData.Position(latitude[d], longitude[d], 40.0, 1.5, 12));
+            fix.setMovement(new GpsData.Movement(speed[d], random.nextGaussian() * 1.6, Math.toDegrees(heading),
+                    new GpsData.Movement.ImuData(
+                            new GpsData.Vector3D(random.nextGaussian(), random.nextGaussian(), 9.8 + random.nextGaussian()),
+                            new GpsData.Vector3D(0.1, 0.1, 0.1),
+                            new GpsData.Vector3D(25, 30, 45))));
+            fix.setBiometrics(new GpsData.Biometrics(120 + random.nextInt(70), 37.4, 5));
+            fixes[d] = fix;
+        }
+        clock += TICK_MILLIS;
+        return fixes;
+    }
+
+    /** Streams {@code ticks} ticks of frames over one connection, as a pitch-side gateway would. */
+    void sendTcp(int port, int ticks) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            for (int t = 0; t < ticks; t++) {
+                GpsData[] fixes = tick();
+                for (int d = 0; d < fixes.length; d++) {
+                    if (buffer.remaining() < BinaryFixCodec.MAX_FRAME_LENGTH + 2) {
+                        write(channel, buffer);
+                    }
+                    BinaryFixCodec.encode(deviceIds.get(d), fixes[d], buffer);
+                }
+            }
+            write(channel, buffer);
+        }
+    }
+
+    /** Sends each tick as one datagram holding every device's frame. */
+    void sendUdp(int port, int ticks) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        InetSocketAddress target = new InetSocketAddress("localhost", port);
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            for (int t = 0; t < ticks; t++) {
+                GpsData[] fixes = tick();
+                for (int d = 0; d < fixes.length; d++) {
+                    BinaryFixCodec.encode(deviceIds.get(d), fixes[d], buffer);
+                }
+                buffer.flip();
+                channel.send(buffer, target);
+                buffer.clear();
+            }
+        }
+    }
+
+    /** Posts every fix as its own JSON request to {@code /api/gps/device/{deviceId}} under {@code baseUri}. */
+    void sendHttp(HttpClient client, URI baseUri, ObjectMapper objectMapper, int ticks)
+            throws IOException, InterruptedException {
+        for (int t = 0; t < ticks; t++) {
+            GpsData[] fixes = tick();
+            for (int d = 0; d < fixes.length; d++) {
+                HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/gps/device/" + deviceIds.get(d)))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(fixes[d])))
+                        .build();
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode() + " for " + deviceIds.get(d));
+                }
+            }
+        }
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,173 @@
+package com.footballgps.ml.runtime;
+
+import com.footballgps.ml.feature.InjuryRiskFeatures;
+import com.footballgps.ml.model.MLModel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledScorerTest {
+
+    @Test
+    void testLogisticRegressionFoldsStandardisation() {
+        // Given
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("algorithm", ModelCompiler.LOGISTIC_REGRESSION);
+        parameters.put("weights", List.of(0.5, -1.0));
+        parameters.put("intercept", 0.25);
+        parameters.put("means", List.of(1.0, 2.0));
+        parameters.put("scales", List.of(2.0, 4.0));
+        MLModel model = createModel(MLModel.ModelType.LOAD_MANAGEMENT, parameters);
+
+        // When
+        CompiledScorer scorer = ModelCompiler.compile(model, parameters);
+        double score = scorer.score(new double[]{3.0, 10.0}, 0);
+
+        // Then
+        double z = 0.25 + 0.5 * (3.0 - 1.0) / 2.0 - 1.0 * (10.0 - 2.0) / 4.0;
+        assertEquals(1.0 / (1.0 + Math.exp(-z)), score, 1e-12);
+        assertEquals(2, scorer.dimension());
+    }
+
+    @Test
+    void testGradientBoostedTreesWalksFlatArrays() {
+        // Given: two stumps on features 0 and 1
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("algorithm", ModelCompiler.GRADIENT_BOOSTED_TREES);
+        parameters.put("treeRoots", List.of(0, 3));
+        parameters.put("nodeFeature", List.of(0, -1, -1, 1, -1, -1));
+        parameters.put("nodeThreshold", List.of(1.0, 0.0, 0.0, 5.0, 0.0, 0.0));
+        parameters.put("nodeLeft", List.of(1, 0, 0, 4, 0, 0));
+        parameters.put("nodeRight", List.of(2, 0, 0, 5, 0, 0));
+        parameters.put("nodeValue", List.of(0.0, -1.0, 1.0, 0.0, -0.5, 0.5));
+        parameters.put("baseScore", 0.1);
+        parameters.put("learningRate", 0.5);
+        parameters.put("link", "identity");
+        MLModel model = createModel(MLModel.ModelType.LOAD_MANAGEMENT, parameters);
+
+        // When
+        CompiledScorer scorer = ModelCompiler.compile(model, parameters);
+
+        // Then
+        assertEquals(0.1 - 0.5 - 0.25, scorer.score(new double[]{0.5, 4.0}, 0), 1e-12);
+        assertEquals(0.1 + 0.5 + 0.25, scorer.score(new double[]{2.0, 6.0}, 0), 1e-12);
+        assertEquals(0.1 + 0.5 - 0.25, scorer.score(new double[]{9.0, 9.0, 2.0, 1.0}, 2), 1e-12);
+    }
+
+    @Test
+    void testRejectsModelsThatDoNotMatchTheFeatureVector() {
+        // Given: an injury model trained on the wrong number of features
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("algorithm", ModelCompiler.LOGISTIC_REGRESSION);
+        parameters.put("weights", List.of(0.5, -1.0));
+        MLModel model = createModel(MLModel.ModelType.INJURY_PREDICTION, parameters);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> ModelCompiler.compile(model, parameters));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkScoringLatency() {
+        InjuryRiskFeatures features = new InjuryRiskFeatures(1.1, 1.6, 0.2, 420, 3.5, true, 18, -0.4,
+                4.2, 1.3, 4, 2, 0.3, 0.08, false);
+
+        Map<String, Object> logistic = new HashMap<>();
+        logistic.put("algorithm", ModelCompiler.LOGISTIC_REGRESSION);
+        logistic.put("featureNames", InjuryRiskFeatures.FEATURE_NAMES);
+        logistic.put("weights", randomList(InjuryRiskFeatures.DIMENSION, new Random(1)));
+        logistic.put("intercept", -1.0);
+
+        Map<String, Object> trees = randomForestOfDepth(200, 6, InjuryRiskFeatures.DIMENSION);
+
+        CompiledScorer lr = ModelCompiler.compile(createModel(MLModel.ModelType.INJURY_PREDICTION, logistic), logistic);
+        CompiledScorer gbt = ModelCompiler.compile(createModel(MLModel.ModelType.INJURY_PREDICTION, trees), trees);
+
+        for (CompiledScorer scorer : List.of(lr, gbt)) {
+            int iterations = 1_000_000;
+            double sink = 0;
+            for (int i = 0; i < iterations; i++) {
+                sink += scorer.score(features); // warm-up
+            }
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += scorer.score(features);
+            }
+            double nanosPerScore = (System.nanoTime() - start) / (double) iterations;
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+            System.out.printf("%s: %.1f ns/score, %d bytes allocated over %d scores (checksum %.3f)%n",
+                    scorer.getClass().getSimpleName(), nanosPerScore, allocated, iterations, sink);
+
+            // Far less than one byte per score: the scoring loop itself does not allocate
+            assertTrue(allocated < iterations / 10);
+        }
+    }
+
+    private MLModel createModel(MLModel.ModelType type, Map<String, Object> parameters) {
+        MLModel model = new MLModel();
+        model.setId("model_" + type.name().toLowerCase());
+        model.setName(type.name());
+        model.setType(type);
+        model.setVersion("1");
+        model.setStatus(MLModel.ModelStatus.READY);
+        model.setParameters(parameters);
+        model.setTrainedAt(LocalDateTime.now());
+        return model;
+    }
+
+    /** Complete binary trees laid out breadth-first, with random splits. */
+    private Map<String, Object> randomForestOfDepth(int trees, int depth, int dimension) {
+        Random random = new Random(7);
+        int nodesPerTree = (1 << (depth + 1)) - 1;
+        int internalPerTree = (1 << depth) - 1;
+
+        List<Integer> roots = new ArrayList<>();
+        List<Integer> feature = new ArrayList<>();
+        List<Double> threshold = new ArrayList<>();
+        List<Integer> left = new ArrayList<>();
+        List<Integer> right = new ArrayList<>();
+        List<Double> value = new ArrayList<>();
+
+        for (int t = 0; t < trees; t++) {
+            int base = t * nodesPerTree;
+            roots.add(base);
+            for (int n = 0; n < nodesPerTree; n++) {
+                boolean internal = n < internalPerTree;
+                feature.add(internal ? random.nextInt(dimension) : -1);
+                threshold.add(internal ? random.nextDouble() * 5 : 0.0);
+                left.add(internal ? base + 2 * n + 1 : 0);
+                right.add(internal ? base + 2 * n + 2 : 0);
+                value.add(internal ? 0.0 : random.nextGaussian() * 0.1);
+            }
+        }
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("algorithm", ModelCompiler.GRADIENT_BOOSTED_TREES);
+        parameters.put("featureNames", InjuryRiskFeatures.FEATURE_NAMES);
+        parameters.put("treeRoots", roots);
+        parameters.put("nodeFeature", feature);
+        parameters.put("nodeThreshold", threshold);
+        parameters.put("nodeLeft", left);
+        parameters.put("nodeRight", right);
+        parameters.put("nodeValue", value);
+        parameters.put("learningRate", 0.1);
+        return parameters;
+    }
+
+    private List<Double> randomList(int size, Random random) {
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextGaussian());
+        }
+        return values;
+    }
+}
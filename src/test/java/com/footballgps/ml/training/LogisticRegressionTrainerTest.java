@@ -0,0 +1,51 @@
+package com.footballgps.ml.training;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogisticRegressionTrainerTest {
+
+    @Test
+    void testRecoversGeneratingCoefficients() {
+        // Given: y ~ Bernoulli(sigmoid(-0.5 + 2 * x0 - 1 * x1)), plus a constant feature
+        Random random = new Random(11);
+        List<TrainingExample> examples = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            double x0 = random.nextGaussian();
+            double x1 = random.nextGaussian();
+            double p = 1.0 / (1.0 + Math.exp(-(-0.5 + 2 * x0 - x1)));
+            examples.add(new TrainingExample(new double[]{x0, x1, 3.0}, random.nextDouble() < p, "player_" + (i % 25)));
+        }
+
+        // When
+        LogisticRegressionTrainer.Fit fit = new LogisticRegressionTrainer(1e-6).fit(examples);
+
+        // Then: coefficients on the original scale are w / scale
+        assertEquals(2.0, fit.weights()[0] / fit.scales()[0], 0.1);
+        assertEquals(-1.0, fit.weights()[1] / fit.scales()[1], 0.1);
+        assertEquals(0.0, fit.weights()[2], 1e-6);
+        assertTrue(fit.iterations() < 20);
+    }
+
+    @Test
+    void testMetricsForPerfectAndTiedScores() {
+        // Given
+        boolean[] labels = {false, false, true, true};
+
+        // When
+        Map<String, Double> perfect = BinaryClassificationMetrics.evaluate(new double[]{0.1, 0.2, 0.8, 0.9}, labels);
+        double tied = BinaryClassificationMetrics.auc(new double[]{0.5, 0.5, 0.5, 0.5}, labels);
+
+        // Then
+        assertEquals(1.0, perfect.get("auc").doubleValue());
+        assertEquals(1.0, perfect.get("accuracy").doubleValue());
+        assertEquals(1.0, perfect.get("f1").doubleValue());
+        assertEquals(0.5, tied);
+    }
+}
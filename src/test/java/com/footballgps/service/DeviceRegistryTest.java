@@ -0,0 +1,133 @@
+package com.footballgps.service;
+
+import com.footballgps.model.Player;
+import com.footballgps.model.TrainingSession;
+import com.footballgps.repository.TrainingSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceRegistryTest {
+
+    @Mock
+    private PlayerCache playerCache;
+
+    @Mock
+    private TrainingSessionRepository trainingSessionRepository;
+
+    @InjectMocks
+    private DeviceRegistry deviceRegistry;
+
+    @Test
+    void testSessionDevicesResolveUntilReleased() {
+        // Given
+        when(playerCache.getAll(List.of("player_001", "player_002")))
+                .thenReturn(List.of(player("player_001", "device_A"), player("player_002", null)));
+
+        // When
+        deviceRegistry.registerSession(session("session_001", List.of("player_001", "player_002")));
+
+        // Then
+        DeviceRegistry.DeviceBinding binding = deviceRegistry.resolve("device_A").orElseThrow();
+        assertEquals("player_001", binding.playerId());
+        assertEquals("session_001", binding.sessionId());
+        assertTrue(deviceRegistry.resolve("device_B").isEmpty());
+        assertTrue(deviceRegistry.isRunning("session_001"));
+
+        deviceRegistry.releaseSession("session_001");
+        assertTrue(deviceRegistry.resolve("device_A").isEmpty());
+        assertFalse(deviceRegistry.isRunning("session_001"));
+    }
+
+    @Test
+    void testTeamRosterIsUsedWhenNoPlayersAreListed() {
+        // Given
+        TrainingSession session = session("session_002", null);
+        session.setTeamId("team_001");
+        when(playerCache.getTeamRoster("team_001"))
+                .thenReturn(List.of(player("player_003", "device_C")));
+
+        // When
+        deviceRegistry.registerSession(session);
+
+        // Then
+        assertEquals("player_003", deviceRegistry.resolve("device_C").orElseThrow().playerId());
+    }
+
+    @Test
+    void testPlayerUpdatesFollowDeviceSwaps() {
+        // Given
+        when(playerCache.getAll(List.of("player_001")))
+                .thenReturn(List.of(player("player_001", "device_A")));
+        deviceRegistry.registerSession(session("session_001", List.of("player_001")));
+
+        // When: the player's vest is swapped mid-session
+        deviceRegistry.onPlayerUpdated(player("player_001", "device_Z"));
+
+        // Then
+        assertTrue(deviceRegistry.resolve("device_A").isEmpty());
+        assertEquals("session_001", deviceRegistry.resolve("device_Z").orElseThrow().sessionId());
+
+        // Players outside running sessions are not bound by an update
+        deviceRegistry.onPlayerUpdated(player("player_009", "device_Y"));
+        assertTrue(deviceRegistry.resolve("device_Y").isEmpty());
+
+        deviceRegistry.onPlayerDeleted("player_001");
+        assertTrue(deviceRegistry.resolve("device_Z").isEmpty());
+    }
+
+    @Test
+    void testPlayerUpdatesFollowTeamRosters() {
+        // Given: a team session whose roster has no devices yet
+        TrainingSession session = session("session_002", null);
+        session.setTeamId("team_001");
+        when(playerCache.getTeamRoster("team_001")).thenReturn(List.of(player("player_003", null)));
+        deviceRegistry.registerSession(session);
+
+        // When: the player is given a vest, and another player joins the team mid-session
+        Player issued = player("player_003", "device_C");
+        issued.setTeamId("team_001");
+        deviceRegistry.onPlayerUpdated(issued);
+        Player joined = player("player_004", "device_D");
+        joined.setTeamId("team_001");
+        deviceRegistry.onPlayerUpdated(joined);
+
+        // Then
+        assertEquals("session_002", deviceRegistry.resolve("device_C").orElseThrow().sessionId());
+        assertEquals("player_004", deviceRegistry.resolve("device_D").orElseThrow().playerId());
+
+        // Leaving the team unbinds the device
+        joined.setTeamId("team_002");
+        deviceRegistry.onPlayerUpdated(joined);
+        assertTrue(deviceRegistry.resolve("device_D").isEmpty());
+
+        // Nothing is bound once the session has ended
+        deviceRegistry.releaseSession("session_002");
+        deviceRegistry.onPlayerUpdated(issued);
+        assertTrue(deviceRegistry.resolve("device_C").isEmpty());
+    }
+
+    private Player player(String id, String deviceId) {
+        Player player = new Player();
+        player.setId(id);
+        player.setDeviceId(deviceId);
+        player.setActive(true);
+        return player;
+    }
+
+    private TrainingSession session(String id, List<String> playerIds) {
+        TrainingSession session = new TrainingSession();
+        session.setId(id);
+        session.setPlayerIds(playerIds);
+        session.setActive(true);
+        return session;
+    }
+}
@@ -0,0 +1,144 @@
+package com.footballgps.service;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixReorderBufferTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    private MeterRegistry meterRegistry;
+    private FixReorderBuffer buffer;
+    private List<GpsData> released;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new FixReorderBuffer(500, 5_000, meterRegistry);
+        released = new ArrayList<>();
+    }
+
+    @Test
+    void testJitteredFixesAreReleasedInOrder() {
+        // Given: 10 Hz fixes where every other pair arrives swapped
+        int[] arrival = {0, 2, 1, 3, 5, 4, 6, 8, 7, 9, 11, 10, 12, 13, 14, 15, 16, 17, 18, 19};
+
+        // When
+        for (int i : arrival) {
+            assertTrue(buffer.offer(fix("player_001", i * 100), released::addAll));
+        }
+
+        // Then: everything more than the window behind the newest fix is out, in order
+        assertEquals(15, released.size());
+        for (int i = 0; i < released.size(); i++) {
+            assertEquals(KICK_OFF + i * 100L, released.get(i).getTimestamp());
+        }
+        assertEquals(5, buffer.size());
+        assertEquals(4.0, meterRegistry.counter("gps.ingest.fixes", "arrival", "reordered").count());
+
+        buffer.releaseSession("session_001", released::addAll);
+        assertEquals(20, released.size());
+        assertEquals(KICK_OFF + 1_900, released.get(19).getTimestamp());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void testFixesBehindTheWatermarkAreDroppedAndCounted() {
+        // Given
+        buffer.offer(fix("player_001", 0), released::addAll);
+        buffer.offer(fix("player_001", 2_000), released::addAll);
+        assertEquals(1, released.size());
+
+        // When: a fix older than the one already released
+        boolean accepted = buffer.offer(fix("player_001", -300), released::addAll);
+
+        // Then
+        assertFalse(accepted);
+        assertEquals(1, released.size());
+        assertEquals(1.0, meterRegistry.counter("gps.ingest.fixes", "arrival", "late").count());
+        assertEquals(300.0, meterRegistry.summary("gps.ingest.late.lateness").totalAmount());
+
+        // Other players have their own watermark
+        assertTrue(buffer.offer(fix("player_002", -300), released::addAll));
+    }
+
+    @Test
+    void testIdlePlayersAreReleased() throws InterruptedException {
+        // Given
+        FixReorderBuffer shortWindow = new FixReorderBuffer(20, 5_000, meterRegistry);
+        shortWindow.offer(fix("player_001", 0), released::addAll);
+        shortWindow.offer(fix("player_001", 10), released::addAll);
+
+        // When
+        Thread.sleep(50);
+        shortWindow.releaseIdle(released::addAll);
+
+        // Then
+        assertEquals(2, released.size());
+        assertEquals(0, shortWindow.size());
+    }
+
+    @Test
+    void testFailedReleaseKeepsTheFixesForARetry() throws InterruptedException {
+        // Given: a consumer whose first write fails
+        FixReorderBuffer shortWindow = new FixReorderBuffer(20, 5_000, meterRegistry);
+        shortWindow.offer(fix("player_001", 0), released::addAll);
+        shortWindow.offer(fix("player_001", 10), released::addAll);
+
+        // When
+        boolean accepted = shortWindow.offer(fix("player_001", 100), fixes -> {
+            throw new IllegalStateException("storage unavailable");
+        });
+        boolean straggler = shortWindow.offer(fix("player_001", 5), released::addAll);
+        Thread.sleep(50);
+        shortWindow.releaseIdle(released::addAll);
+
+        // Then: nothing was lost, and the retry did not make the straggler late
+        assertTrue(accepted);
+        assertTrue(straggler);
+        assertEquals(2.0, meterRegistry.counter("gps.ingest.release.retried").count());
+        assertEquals(4, released.size());
+        assertEquals(KICK_OFF + 5, released.get(1).getTimestamp());
+        assertEquals(KICK_OFF + 100, released.get(3).getTimestamp());
+        assertEquals(0, shortWindow.size());
+    }
+
+    @Test
+    void testFixesStampedAheadOfTheClockAreDropped() {
+        // Given: a device clock an hour fast, then a correct one
+        long now = System.currentTimeMillis();
+        GpsData future = fix("player_001", 0);
+        future.setTimestamp(now + 3_600_000);
+        GpsData present = fix("player_001", 0);
+        present.setTimestamp(now);
+
+        // When
+        boolean futureAccepted = buffer.offer(future, released::addAll);
+        boolean presentAccepted = buffer.offer(present, released::addAll);
+
+        // Then: the watermark did not move, so the correct fix is still buffered in order
+        assertFalse(futureAccepted);
+        assertTrue(presentAccepted);
+        assertEquals(1.0, meterRegistry.counter("gps.ingest.fixes", "arrival", "ahead").count());
+        assertEquals(1, buffer.size());
+        assertTrue(released.isEmpty());
+    }
+
+    private GpsData fix(String playerId, long offsetMillis) {
+        GpsData data = new GpsData();
+        data.setPlayerId(playerId);
+        data.setSessionId("session_001");
+        data.setTimestamp(KICK_OFF + offsetMillis);
+        return data;
+    }
+}
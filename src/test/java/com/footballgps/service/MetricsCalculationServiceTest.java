@@ -1,19 +1,24 @@
 package com.footballgps.service;
 
+import com.footballgps.ml.service.LiveProximityService;
 import com.footballgps.model.GpsData;
 import com.footballgps.model.PlayerMetrics;
-import com.footballgps.repository.GpsDataRepository;
 import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.storage.GpsDataStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 
-import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -23,11 +28,20 @@ import static org.mockito.Mockito.*;
 class MetricsCalculationServiceTest {
 
     @Mock
-    private GpsDataRepository gpsDataRepository;
+    private GpsDataStore gpsDataStore;
 
     @Mock
     private PlayerMetricsRepository playerMetricsRepository;
 
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private LiveProximityService liveProximityService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private MetricsCalculationService metricsCalculationService;
 
@@ -44,7 +58,7 @@ class MetricsCalculationServiceTest {
         String playerId = "player_001";
         String sessionId = "session_001";
         
-        when(gpsDataRepository.findByPlayerIdAndSessionId(playerId, sessionId))
+        when(gpsDataStore.findByPlayerIdAndSessionId(playerId, sessionId))
                 .thenReturn(sampleGpsData);
 
         // When
@@ -65,30 +79,46 @@ class MetricsCalculationServiceTest {
         assertNotNull(result.getMovement().getSpeedZones());
     }
 
+    @Test
+    void testPassingNetworkIsKeptWithoutLiveState() {
+        // Given: the session's live state has been released, and its final metrics are stored
+        PlayerMetrics stored = new PlayerMetrics();
+        stored.setTactical(new PlayerMetrics.TacticalMetrics());
+        stored.getTactical().setPassingNetworkConnections(4);
+        when(gpsDataStore.findByPlayerIdAndSessionId("player_001", "session_001")).thenReturn(sampleGpsData);
+        when(liveProximityService.getAveragePassingOptions("session_001", "player_001")).thenReturn(OptionalDouble.empty());
+        when(playerMetricsRepository.findByPlayerIdAndSessionId("player_001", "session_001")).thenReturn(Optional.of(stored));
+
+        // When
+        PlayerMetrics result = metricsCalculationService.calculateSessionMetrics("player_001", "session_001");
+
+        // Then
+        assertEquals(4, result.getTactical().getPassingNetworkConnections());
+    }
+
     @Test
     void testCalculateRealTimeMetrics() {
         // Given
         GpsData gpsData = sampleGpsData.get(0);
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        
-        when(gpsDataRepository.findByPlayerIdAndTimestampBetween(
-                eq(gpsData.getPlayerId()), any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(gpsDataStore.findByPlayerIdAndTimestampBetween(
+                eq(gpsData.getPlayerId()), anyLong(), anyLong()))
                 .thenReturn(sampleGpsData);
-        when(playerMetricsRepository.save(any(PlayerMetrics.class)))
-                .thenReturn(new PlayerMetrics());
+        when(mongoTemplate.findAndReplace(any(Query.class), any(PlayerMetrics.class), any(FindAndReplaceOptions.class)))
+                .thenReturn(null);
 
         // When
         metricsCalculationService.calculateRealTimeMetrics(gpsData);
 
         // Then
-        verify(playerMetricsRepository, times(1)).save(any(PlayerMetrics.class));
+        verify(mongoTemplate, times(1)).findAndReplace(any(Query.class), any(PlayerMetrics.class), any(FindAndReplaceOptions.class));
+        verify(dataVersionTracker).recordWrite("player_001", "session_001");
     }
 
     private List<GpsData> createSampleGpsData() {
         GpsData data1 = new GpsData();
         data1.setPlayerId("player_001");
         data1.setSessionId("session_001");
-        data1.setTimestamp(LocalDateTime.now().minusMinutes(10));
+        data1.setTimestamp(System.currentTimeMillis() - 10 * 60_000L);
         
         GpsData.Position position1 = new GpsData.Position();
         position1.setLatitude(53.4631);
@@ -120,7 +150,7 @@ class MetricsCalculationServiceTest {
         GpsData data2 = new GpsData();
         data2.setPlayerId("player_001");
         data2.setSessionId("session_001");
-        data2.setTimestamp(LocalDateTime.now().minusMinutes(9));
+        data2.setTimestamp(System.currentTimeMillis() - 9 * 60_000L);
         
         GpsData.Position position2 = new GpsData.Position();
         position2.setLatitude(53.4635);
@@ -0,0 +1,75 @@
+package com.footballgps.service;
+
+import com.footballgps.model.Player;
+import com.footballgps.repository.PlayerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PlayerCacheTest {
+
+    private PlayerRepository playerRepository;
+    private MeterRegistry meterRegistry;
+    private PlayerCache playerCache;
+
+    @BeforeEach
+    void setUp() {
+        playerRepository = mock(PlayerRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        playerCache = new PlayerCache(playerRepository, 300, meterRegistry);
+        when(playerRepository.findAll()).thenReturn(List.of(
+                player("player_001", "team_001", "device_A", true),
+                player("player_002", "team_001", "device_B", true),
+                player("player_003", "team_001", "device_B", false),
+                player("player_004", "team_002", null, true)));
+    }
+
+    @Test
+    void testLookupsShareOneLoad() {
+        // When
+        List<Player> roster = playerCache.getTeamRoster("team_001");
+        Player byDevice = playerCache.getByDevice("device_B").orElseThrow();
+        List<Player> selected = playerCache.getAll(List.of("player_004", "player_404", "player_001"));
+
+        // Then
+        assertEquals(List.of("player_001", "player_002"), roster.stream().map(Player::getId).toList());
+        assertEquals("player_002", byDevice.getId()); // the active player wins a shared device
+        assertEquals(List.of("player_004", "player_001"), selected.stream().map(Player::getId).toList());
+        assertEquals(3, playerCache.getActive().size());
+        assertTrue(playerCache.getTeamRoster("team_009").isEmpty());
+
+        verify(playerRepository, times(1)).findAll();
+        assertEquals(1.0, meterRegistry.counter("players.cache.requests", "result", "miss").count());
+        assertEquals(4.0, meterRegistry.counter("players.cache.requests", "result", "hit").count());
+    }
+
+    @Test
+    void testInvalidateReloadsOnNextRead() {
+        // Given
+        assertTrue(playerCache.get("player_005").isEmpty());
+        when(playerRepository.findAll()).thenReturn(List.of(player("player_005", "team_002", "device_E", true)));
+
+        // When
+        playerCache.invalidate();
+
+        // Then
+        assertEquals("player_005", playerCache.getByDevice("device_E").orElseThrow().getId());
+        verify(playerRepository, times(2)).findAll();
+        assertEquals(2.0, meterRegistry.counter("players.cache.loads").count());
+    }
+
+    private Player player(String id, String teamId, String deviceId, boolean active) {
+        Player player = new Player();
+        player.setId(id);
+        player.setTeamId(teamId);
+        player.setDeviceId(deviceId);
+        player.setActive(active);
+        return player;
+    }
+}
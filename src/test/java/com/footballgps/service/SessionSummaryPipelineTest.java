@@ -0,0 +1,176 @@
+package com.footballgps.service;
+
+import com.footballgps.ml.service.LiveProximityService;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.repository.SessionEventIndexRepository;
+import com.footballgps.storage.DocumentGpsDataStore;
+import com.footballgps.util.EpochTime;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SessionSummaryPipelineTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient client;
+    private static MongoTemplate template;
+    private static DocumentGpsDataStore gpsDataStore;
+    private static MetricsCalculationService metricsCalculationService;
+
+    @BeforeAll
+    static void startMongo() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        client = MongoClients.create("mongodb://" + mongod.current().getServerAddress());
+        template = new MongoTemplate(client, "summary_pipeline");
+        template.indexOps("gps_data").ensureIndex(new Index()
+                .on("playerId", Sort.Direction.ASC)
+                .on("sessionId", Sort.Direction.ASC));
+
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(template);
+        gpsDataStore = new DocumentGpsDataStore(repositories.getRepository(GpsDataRepository.class), template);
+        MovementEventService movementEventService = new MovementEventService(
+                repositories.getRepository(SessionEventIndexRepository.class), gpsDataStore, template);
+        metricsCalculationService = new MetricsCalculationService(gpsDataStore, mock(PlayerMetricsRepository.class),
+                mock(DataVersionTracker.class), mock(LiveProximityService.class), movementEventService, template);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        mongod.close();
+    }
+
+    @Test
+    void testPipelineMatchesInJvmMetrics() {
+        // Given: 20 minutes at 10 Hz with sprints, hard accelerations, IMU gaps and missing heart rates
+        gpsDataStore.saveAll(session("player_parity", "session_parity", 12_000, new Random(3L)));
+
+        // When
+        PlayerMetrics jvm = calculate("jvm", "player_parity", "session_parity");
+        PlayerMetrics pipeline = calculate("pipeline", "player_parity", "session_parity");
+
+        // Then
+        PlayerMetrics.MovementMetrics expected = jvm.getMovement();
+        PlayerMetrics.MovementMetrics actual = pipeline.getMovement();
+        assertClose(expected.getTotalDistance(), actual.getTotalDistance());
+        assertClose(expected.getSprintDistance(), actual.getSprintDistance());
+        assertClose(expected.getHighIntensityDistance(), actual.getHighIntensityDistance());
+        assertClose(expected.getMaxSpeed(), actual.getMaxSpeed());
+        assertClose(expected.getAverageSpeed(), actual.getAverageSpeed());
+        assertClose(expected.getPlayerLoad(), actual.getPlayerLoad());
+        assertEquals(expected.getJumpCount(), actual.getJumpCount());
+        assertTrue(expected.getSprintCount() > 0);
+        assertEquals(expected.getSprintCount(), actual.getSprintCount());
+        assertEquals(expected.getAccelerationCount(), actual.getAccelerationCount());
+        assertEquals(expected.getDecelerationCount(), actual.getDecelerationCount());
+        for (Map.Entry<String, Double> zone : expected.getSpeedZones().entrySet()) {
+            assertClose(zone.getValue(), actual.getSpeedZones().get(zone.getKey()));
+        }
+
+        assertEquals(jvm.getPerformance().getMaxHeartRate(), pipeline.getPerformance().getMaxHeartRate());
+        assertEquals(jvm.getPerformance().getAverageHeartRate(), pipeline.getPerformance().getAverageHeartRate());
+        assertClose(jvm.getPerformance().getIntensityScore(), pipeline.getPerformance().getIntensityScore());
+        assertClose(jvm.getPerformance().getRecoveryTime(), pipeline.getPerformance().getRecoveryTime());
+
+        assertClose(jvm.getTactical().getAveragePositionX(), pipeline.getTactical().getAveragePositionX());
+        assertClose(jvm.getTactical().getAveragePositionY(), pipeline.getTactical().getAveragePositionY());
+        assertEquals(jvm.getTactical().getHeatMap(), pipeline.getTactical().getHeatMap());
+        assertClose(jvm.getLoad().getTrainingStressScore(), pipeline.getLoad().getTrainingStressScore());
+    }
+
+    @Test
+    void testPipelineReturnsNullForEmptySession() {
+        assertNull(calculate("pipeline", "player_parity", "session_missing"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkPipelineAgainstJvm() {
+        // A full 90-minute match at 10 Hz
+        gpsDataStore.saveAll(session("player_bench", "session_bench", 54_000, new Random(17L)));
+        calculate("pipeline", "player_bench", "session_bench"); // builds the event index
+        for (int i = 0; i < 3; i++) {
+            calculate("jvm", "player_bench", "session_bench"); // warm-up
+            calculate("pipeline", "player_bench", "session_bench");
+        }
+
+        int runs = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            calculate("jvm", "player_bench", "session_bench");
+        }
+        double jvmMs = (System.nanoTime() - start) / 1e6 / runs;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            calculate("pipeline", "player_bench", "session_bench");
+        }
+        double pipelineMs = (System.nanoTime() - start) / 1e6 / runs;
+        System.out.printf("Session metrics for 54000 fixes: jvm %.1f ms, pipeline %.1f ms%n", jvmMs, pipelineMs);
+
+        assertTrue(pipelineMs < jvmMs);
+    }
+
+    private static PlayerMetrics calculate(String mode, String playerId, String sessionId) {
+        ReflectionTestUtils.setField(metricsCalculationService, "summaryMode", mode);
+        return metricsCalculationService.calculateSessionMetrics(playerId, sessionId);
+    }
+
+    private static List<GpsData> session(String playerId, String sessionId, int fixes, Random random) {
+        List<GpsData> data = new ArrayList<>(fixes);
+        double latitude = 53.4631;
+        double longitude = -2.2914;
+        double speed = 8.0;
+        for (int i = 0; i < fixes; i++) {
+            // Speed drifts between walking and sprinting; position follows at that speed
+            speed = Math.max(0, Math.min(34, speed + random.nextGaussian() * 1.5));
+            double heading = random.nextDouble() * 2 * Math.PI;
+            double step = speed / 3.6 * 0.1;
+            latitude += step * Math.cos(heading) / 111_320.0;
+            longitude += step * Math.sin(heading) / 66_500.0;
+
+            GpsData fix = new GpsData();
+            fix.setPlayerId(playerId);
+            fix.setSessionId(sessionId);
+            fix.setTimestamp(KICK_OFF + i * 100L);
+            fix.setPosition(new GpsData.Position(latitude, longitude, 40.0, 1.5, 12));
+            GpsData.Movement.ImuData imu = i % 7 == 0 ? null : new GpsData.Movement.ImuData(
+                    new GpsData.Vector3D(random.nextGaussian(), random.nextGaussian(), 9.8 + random.nextGaussian() * 3),
+                    new GpsData.Vector3D(0.1, 0.1, 0.1),
+                    new GpsData.Vector3D(25, 30, 45));
+            fix.setMovement(new GpsData.Movement(speed, random.nextGaussian() * 1.6, Math.toDegrees(heading), imu));
+            fix.setBiometrics(new GpsData.Biometrics(i % 11 == 0 ? 0 : 120 + random.nextInt(70), 37.4, 5));
+            data.add(fix);
+        }
+        return data;
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, Math.max(1e-9, Math.abs(expected) * 1e-9));
+    }
+}
@@ -0,0 +1,166 @@
+package com.footballgps.service;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.model.PlayerSplit;
+import com.footballgps.repository.PlayerSplitRepository;
+import com.footballgps.util.EpochTime;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SplitMetricsServiceTest {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_000.0;
+    private static final LocalDateTime KICK_OFF = LocalDateTime.of(2024, 3, 2, 15, 0);
+
+    @Mock
+    private PlayerSplitRepository playerSplitRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private SplitMetricsService splitMetricsService;
+
+    @Test
+    void testSplitsFromPendingIncrements() {
+        // Given: three minutes at 1 Hz running north at 18 km/h, with a 10 s sprint at 27 km/h from 1:30
+        double latitude = 53.0;
+        for (int s = 0; s < 180; s++) {
+            double speed = s >= 90 && s < 100 ? 27.0 : 18.0;
+            splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(s), latitude, speed, 150));
+            latitude += speed / 3.6 / METERS_PER_DEGREE;
+        }
+        when(playerSplitRepository.findByPlayerIdAndSessionIdOrderByStartAsc("player_001", "session_001"))
+                .thenReturn(List.of());
+
+        // When
+        List<PlayerSplit> minutes = splitMetricsService.getSplits("player_001", "session_001", 1);
+        List<PlayerSplit> whole = splitMetricsService.getSplits("player_001", "session_001", 5);
+
+        // Then
+        assertEquals(3, minutes.size());
+        assertEquals(KICK_OFF.plusMinutes(1), minutes.get(1).getStart());
+        assertEquals(60, minutes.get(0).getFixes());
+        assertEquals(0, minutes.get(0).getSprintCount());
+        assertEquals(1, minutes.get(1).getSprintCount());
+        assertEquals(0, minutes.get(2).getSprintCount());
+
+        assertEquals(1, whole.size());
+        PlayerSplit split = whole.get(0);
+        assertEquals(5, split.getMinutes());
+        assertEquals(180, split.getFixes());
+        // 169 steps at 18 km/h and 10 at 27 km/h
+        assertEquals((169 * 18 + 10 * 27) / 3.6, split.getDistance(), 0.5);
+        // Steps into the sprinting fixes: one from an 18 km/h fix, nine from 27 km/h fixes
+        assertEquals(5.0 + 9 * 7.5, split.getHighSpeedRunningDistance(), 0.1);
+        assertEquals(split.getHighSpeedRunningDistance(), split.getSprintDistance(), 1e-9);
+        assertEquals(150.0, split.getAverageHeartRate());
+    }
+
+    @Test
+    void testStoredMinutesAreRolledUpWithPending() {
+        // Given: seven flushed minutes and one unflushed fix in the last of them
+        List<PlayerSplit> stored = new ArrayList<>();
+        for (int m = 0; m < 7; m++) {
+            stored.add(new PlayerSplit(null, "player_001", "session_001", KICK_OFF.plusMinutes(m), 1,
+                    600, 100.0, 20.0, 5.0, 1, 600 * 150, 600));
+        }
+        when(playerSplitRepository.findByPlayerIdAndSessionIdOrderByStartAsc("player_001", "session_001"))
+                .thenReturn(stored);
+        splitMetricsService.onFix(fix(KICK_OFF.plusMinutes(6).plusSeconds(30), 53.0, 10.0, 160));
+
+        // When
+        List<PlayerSplit> splits = splitMetricsService.getSplits("player_001", "session_001", 5);
+
+        // Then
+        assertEquals(2, splits.size());
+        assertEquals(KICK_OFF, splits.get(0).getStart());
+        assertEquals(3000, splits.get(0).getFixes());
+        assertEquals(500.0, splits.get(0).getDistance(), 1e-9);
+        assertEquals(5, splits.get(0).getSprintCount());
+        assertEquals(KICK_OFF.plusMinutes(5), splits.get(1).getStart());
+        assertEquals(1201, splits.get(1).getFixes());
+        assertEquals(200.0, splits.get(1).getDistance(), 1e-9);
+        assertEquals((1200 * 150 + 160) / 1201.0, splits.get(1).getAverageHeartRate(), 1e-9);
+    }
+
+    @Test
+    void testFlushWritesOneUpsertPerMinute() {
+        // Given
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(PlayerSplit.class))).thenReturn(bulk);
+        splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(10), 53.0, 12.0, 140));
+        splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(20), 53.0001, 12.0, 141));
+        splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(70), 53.0002, 12.0, 142));
+
+        // When
+        splitMetricsService.flush();
+        splitMetricsService.flush();
+
+        // Then: two minutes in one bulk, and nothing left for the second flush
+        verify(bulk, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(PlayerSplit.class));
+    }
+
+    @Test
+    void testFailedFlushRequeuesOnlyTheFailedUpserts() {
+        // Given: two minutes, of which the bulk rejects the second upsert
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(PlayerSplit.class))).thenReturn(bulk);
+        when(bulk.execute())
+                .thenThrow(new BulkOperationException("E11000 duplicate key", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(),
+                        List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+                        null, new ServerAddress(), Set.of())))
+                .thenReturn(BulkWriteResult.unacknowledged());
+        splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(10), 53.0, 12.0, 140));
+        splitMetricsService.onFix(fix(KICK_OFF.plusSeconds(70), 53.0002, 12.0, 142));
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+
+        // When
+        splitMetricsService.flush();
+        splitMetricsService.flush();
+
+        // Then: the retry holds only the rejected minute
+        verify(bulk, times(3)).upsert(queries.capture(), any(Update.class));
+        assertEquals(queries.getAllValues().get(1).getQueryObject(), queries.getAllValues().get(2).getQueryObject());
+        verify(bulk, times(2)).execute();
+    }
+
+    private GpsData fix(LocalDateTime timestamp, double latitude, double speed, int heartRate) {
+        GpsData data = new GpsData();
+        data.setPlayerId("player_001");
+        data.setSessionId("session_001");
+        data.setTimestamp(EpochTime.toMillis(timestamp));
+        data.setPosition(new GpsData.Position(latitude, -2.0, 40.0, 1.5, 12));
+        data.setMovement(new GpsData.Movement(speed, 0.0, 0.0, null));
+        data.setBiometrics(new GpsData.Biometrics(heartRate, 37.0, 4));
+        return data;
+    }
+}
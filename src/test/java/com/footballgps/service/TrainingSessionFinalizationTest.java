@@ -0,0 +1,146 @@
+package com.footballgps.service;
+
+import com.footballgps.ml.service.LiveFatigueService;
+import com.footballgps.ml.service.LiveFormationService;
+import com.footballgps.ml.service.LiveProximityService;
+import com.footballgps.model.GpsData;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.model.TrainingSession;
+import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.repository.SessionEventIndexRepository;
+import com.footballgps.repository.TrainingSessionRepository;
+import com.footballgps.storage.DocumentGpsDataStore;
+import com.footballgps.util.EpochTime;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TrainingSessionFinalizationTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient client;
+    private static DocumentGpsDataStore gpsDataStore;
+    private static PlayerMetricsRepository playerMetricsRepository;
+    private static TrainingSessionRepository trainingSessionRepository;
+    private static MetricsCalculationService metricsCalculationService;
+    private static TrainingSessionService trainingSessionService;
+
+    @BeforeAll
+    static void startMongo() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        client = MongoClients.create("mongodb://" + mongod.current().getServerAddress());
+        MongoTemplate template = new MongoTemplate(client, "session_finalization");
+        // As in scripts/create-indexes.sql
+        template.indexOps("player_metrics").ensureIndex(new Index()
+                .on("playerId", Sort.Direction.ASC)
+                .on("sessionId", Sort.Direction.ASC)
+                .unique());
+
+        MongoRepositoryFactory repositories = new MongoRepositoryFactory(template);
+        gpsDataStore = new DocumentGpsDataStore(repositories.getRepository(GpsDataRepository.class), template);
+        playerMetricsRepository = repositories.getRepository(PlayerMetricsRepository.class);
+        trainingSessionRepository = repositories.getRepository(TrainingSessionRepository.class);
+        MovementEventService movementEventService = new MovementEventService(
+                repositories.getRepository(SessionEventIndexRepository.class), gpsDataStore, template);
+        metricsCalculationService = new MetricsCalculationService(gpsDataStore, playerMetricsRepository,
+                mock(DataVersionTracker.class), mock(LiveProximityService.class), movementEventService, template);
+        ReflectionTestUtils.setField(metricsCalculationService, "summaryMode", "jvm");
+        trainingSessionService = new TrainingSessionService(trainingSessionRepository, playerMetricsRepository,
+                metricsCalculationService, movementEventService, mock(SplitMetricsService.class),
+                mock(LiveFatigueService.class), mock(LiveFormationService.class), mock(LiveProximityService.class),
+                mock(DataVersionTracker.class), mock(DeviceRegistry.class), mock(GpsDataService.class));
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        mongod.close();
+    }
+
+    @Test
+    void testEndSessionReplacesRealTimeMetrics() {
+        // Given: a running session whose first minute already has real-time metrics stored
+        trainingSessionRepository.save(new TrainingSession("session_001", "team_001", "Match day",
+                TrainingSession.SessionType.MATCH, LocalDateTime.now().minusMinutes(3), null,
+                List.of("player_001"), "coach_001", null, true));
+        List<GpsData> fixes = fixes("player_001", "session_001", 1_800);
+        gpsDataStore.saveAll(fixes.subList(0, 600));
+        metricsCalculationService.calculateRealTimeMetrics(fixes.get(599));
+        PlayerMetrics realTime = playerMetricsRepository.findByPlayerIdAndSessionId("player_001", "session_001").orElseThrow();
+        gpsDataStore.saveAll(fixes.subList(600, fixes.size()));
+
+        // When
+        TrainingSession ended = trainingSessionService.endSession("session_001").orElseThrow();
+
+        // Then: the same document now holds the whole session
+        List<PlayerMetrics> stored = playerMetricsRepository.findBySessionId("session_001");
+        assertEquals(1, stored.size());
+        PlayerMetrics last = stored.get(0);
+        assertEquals(realTime.getId(), last.getId());
+        assertTrue(last.getMovement().getTotalDistance() > 2 * realTime.getMovement().getTotalDistance());
+        assertFalse(ended.isActive());
+        assertEquals(last.getMovement().getTotalDistance(), ended.getMetrics().getTotalDistance(), 1e-6);
+        assertFalse(trainingSessionRepository.findById("session_001").orElseThrow().isActive());
+    }
+
+    @Test
+    void testLateRealTimeMetricsDoNotReplaceFinalMetrics() {
+        // Given: an ended session
+        trainingSessionRepository.save(new TrainingSession("session_002", "team_001", "Training",
+                TrainingSession.SessionType.TRAINING, LocalDateTime.now().minusMinutes(3), null,
+                List.of("player_002"), "coach_001", null, true));
+        List<GpsData> fixes = fixes("player_002", "session_002", 1_800);
+        gpsDataStore.saveAll(fixes);
+        trainingSessionService.endSession("session_002");
+        PlayerMetrics last = playerMetricsRepository.findByPlayerIdAndSessionId("player_002", "session_002").orElseThrow();
+
+        // When: a real-time calculation for an early fix finishes after the end
+        metricsCalculationService.calculateRealTimeMetrics(fixes.get(599));
+
+        // Then
+        PlayerMetrics stored = playerMetricsRepository.findByPlayerIdAndSessionId("player_002", "session_002").orElseThrow();
+        assertTrue(stored.isFinalized());
+        assertEquals(last.getId(), stored.getId());
+        assertEquals(last.getMovement().getTotalDistance(), stored.getMovement().getTotalDistance(), 1e-6);
+        assertEquals(1, playerMetricsRepository.findBySessionId("session_002").size());
+    }
+
+    // A steady 18 km/h run due north at 10 Hz
+    private static List<GpsData> fixes(String playerId, String sessionId, int count) {
+        List<GpsData> data = new ArrayList<>(count);
+        double latitude = 53.4631;
+        for (int i = 0; i < count; i++) {
+            latitude += 0.5 / 111_320.0;
+            GpsData fix = new GpsData();
+            fix.setPlayerId(playerId);
+            fix.setSessionId(sessionId);
+            fix.setTimestamp(KICK_OFF + i * 100L);
+            fix.setPosition(new GpsData.Position(latitude, -2.2914, 40.0, 1.5, 12));
+            fix.setMovement(new GpsData.Movement(18.0, 0.0, 0.0, null));
+            fix.setBiometrics(new GpsData.Biometrics(150, 37.4, 5));
+            data.add(fix);
+        }
+        return data;
+    }
+}
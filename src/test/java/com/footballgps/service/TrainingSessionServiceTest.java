@@ -0,0 +1,142 @@
+package com.footballgps.service;
+
+import com.footballgps.ml.service.LiveFatigueService;
+import com.footballgps.ml.service.LiveFormationService;
+import com.footballgps.ml.service.LiveProximityService;
+import com.footballgps.model.PlayerMetrics;
+import com.footballgps.model.SessionEventIndex;
+import com.footballgps.model.TrainingSession;
+import com.footballgps.repository.PlayerMetricsRepository;
+import com.footballgps.repository.TrainingSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingSessionServiceTest {
+
+    @Mock
+    private TrainingSessionRepository trainingSessionRepository;
+
+    @Mock
+    private PlayerMetricsRepository playerMetricsRepository;
+
+    @Mock
+    private MetricsCalculationService metricsCalculationService;
+
+    @Mock
+    private MovementEventService movementEventService;
+
+    @Mock
+    private SplitMetricsService splitMetricsService;
+
+    @Mock
+    private LiveFatigueService liveFatigueService;
+
+    @Mock
+    private LiveFormationService liveFormationService;
+
+    @Mock
+    private LiveProximityService liveProximityService;
+
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private DeviceRegistry deviceRegistry;
+
+    @Mock
+    private GpsDataService gpsDataService;
+
+    @InjectMocks
+    private TrainingSessionService trainingSessionService;
+
+    @Test
+    void testEndSessionFinalizesInOrder() {
+        // Given: one rostered player and one who only appears in the data
+        TrainingSession session = new TrainingSession("session_001", "team_001", "Match day", TrainingSession.SessionType.MATCH,
+                LocalDateTime.now().minusMinutes(95), null, List.of("player_001"), "coach_001", null, true);
+        when(trainingSessionRepository.findById("session_001")).thenReturn(Optional.of(session));
+        when(trainingSessionRepository.save(any(TrainingSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(playerMetricsRepository.saveForSession(any(PlayerMetrics.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(movementEventService.getSessionIndexes("session_001")).thenReturn(List.of(index("player_002")));
+        when(metricsCalculationService.calculateSessionMetrics("player_001", "session_001"))
+                .thenReturn(metrics("player_001", 10_500, 22, 0.4, 151));
+        when(metricsCalculationService.calculateSessionMetrics("player_002", "session_001"))
+                .thenReturn(metrics("player_002", 9_500, 18, 0.6, 0));
+
+        // When
+        TrainingSession ended = trainingSessionService.endSession("session_001").orElseThrow();
+
+        // Then
+        assertFalse(ended.isActive());
+        assertNotNull(ended.getEndTime());
+        TrainingSession.SessionMetrics team = ended.getMetrics();
+        assertEquals(20_000, team.getTotalDistance(), 1e-9);
+        assertEquals(40, team.getTotalSprints());
+        assertEquals(0.5, team.getAverageIntensity(), 1e-9);
+        assertEquals(151.0, team.getAverageHeartRate(), 1e-9); // players without heart rate are left out
+
+        InOrder order = inOrder(deviceRegistry, gpsDataService, splitMetricsService, movementEventService, metricsCalculationService, liveProximityService);
+        order.verify(deviceRegistry).releaseSession("session_001");
+        order.verify(gpsDataService).flushSession("session_001");
+        order.verify(splitMetricsService).releaseSession("session_001");
+        order.verify(movementEventService).getSessionIndexes("session_001");
+        order.verify(metricsCalculationService).calculateSessionMetrics("player_001", "session_001");
+        order.verify(metricsCalculationService).calculateSessionMetrics("player_002", "session_001");
+        order.verify(liveProximityService).releaseSession("session_001");
+        verify(liveFatigueService).releaseSession("session_001");
+        verify(liveFormationService).releaseSession("session_001");
+        verify(playerMetricsRepository, times(2)).saveForSession(argThat(PlayerMetrics::isFinalized));
+    }
+
+    @Test
+    void testEndingAnEndedSessionDoesNothing() {
+        // Given
+        TrainingSession session = new TrainingSession();
+        session.setId("session_001");
+        session.setActive(false);
+        when(trainingSessionRepository.findById("session_001")).thenReturn(Optional.of(session));
+
+        // When
+        Optional<TrainingSession> result = trainingSessionService.endSession("session_001");
+
+        // Then
+        assertSame(session, result.orElseThrow());
+        verifyNoInteractions(splitMetricsService, metricsCalculationService, liveFatigueService);
+        verify(trainingSessionRepository, never()).save(any());
+    }
+
+    private SessionEventIndex index(String playerId) {
+        SessionEventIndex index = new SessionEventIndex();
+        index.setPlayerId(playerId);
+        index.setSessionId("session_001");
+        return index;
+    }
+
+    private PlayerMetrics metrics(String playerId, double distance, int sprints, double intensity, int heartRate) {
+        PlayerMetrics metrics = new PlayerMetrics();
+        metrics.setPlayerId(playerId);
+        metrics.setSessionId("session_001");
+        PlayerMetrics.MovementMetrics movement = new PlayerMetrics.MovementMetrics();
+        movement.setTotalDistance(distance);
+        movement.setSprintCount(sprints);
+        metrics.setMovement(movement);
+        PlayerMetrics.PerformanceMetrics performance = new PlayerMetrics.PerformanceMetrics();
+        performance.setIntensityScore(intensity);
+        performance.setAverageHeartRate(heartRate);
+        metrics.setPerformance(performance);
+        return metrics;
+    }
+}
@@ -0,0 +1,112 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.util.EpochTime;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketGpsDataStoreTest {
+
+    private static final long KICK_OFF = EpochTime.toMillis(LocalDateTime.of(2024, 3, 2, 15, 0));
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient client;
+    private static MongoTemplate template;
+    private static BucketGpsDataStore store;
+
+    @BeforeAll
+    static void startMongo() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        client = MongoClients.create("mongodb://" + mongod.current().getServerAddress());
+        template = new MongoTemplate(client, "bucket_store");
+        store = new BucketGpsDataStore(template);
+        store.ensureIndexes();
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        mongod.close();
+    }
+
+    @Test
+    void testFixesInTheSameMillisecondGetDistinctIds() {
+        // Given: three fixes stamped in one millisecond, written by separate calls
+        List<GpsData> saved = new ArrayList<>(store.saveAll(List.of(fix("session_ids", 0), fix("session_ids", 0))));
+        saved.add(store.save(fix("session_ids", 0)));
+
+        // When
+        List<GpsData> read = store.findByPlayerIdAndSessionId("player_001", "session_ids");
+
+        // Then
+        assertEquals(3, new HashSet<>(saved.stream().map(GpsData::getId).toList()).size());
+        assertEquals(saved.stream().map(GpsData::getId).toList(), read.stream().map(GpsData::getId).toList());
+    }
+
+    @Test
+    void testRetriedSaveDoesNotStoreFixesTwice() {
+        // Given: a batch over two minutes, already stored by an attempt that then failed
+        List<GpsData> fixes = List.of(fix("session_retry", 0), fix("session_retry", 30_000), fix("session_retry", 60_000));
+        store.saveAll(fixes);
+        List<String> ids = fixes.stream().map(GpsData::getId).toList();
+
+        // When
+        store.saveAll(fixes);
+
+        // Then
+        assertEquals(3, store.countByPlayerIdAndSessionId("player_001", "session_retry"));
+        assertEquals(ids, fixes.stream().map(GpsData::getId).toList());
+    }
+
+    @Test
+    void testStreamStoppedEarlyReleasesItsCursor() {
+        // Given: more one-fix buckets than the cursor's first batch of 101 documents
+        List<GpsData> fixes = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            fixes.add(fix("session_cursor", i * 60_000L));
+        }
+        store.saveAll(fixes);
+        long openBefore = openCursors();
+
+        // When: a reader that stops at the first fix
+        try (Stream<GpsData> session = store.streamByPlayerIdAndSessionId("player_001", "session_cursor")) {
+            assertEquals(KICK_OFF, session.findFirst().orElseThrow().getTimestamp());
+        }
+
+        // Then
+        assertEquals(openBefore, openCursors());
+    }
+
+    private static long openCursors() {
+        Document status = template.getDb().runCommand(new Document("serverStatus", 1));
+        return status.get("metrics", Document.class).get("cursor", Document.class)
+                .get("open", Document.class).get("total", Number.class).longValue();
+    }
+
+    private static GpsData fix(String sessionId, long offsetMillis) {
+        GpsData data = new GpsData();
+        data.setPlayerId("player_001");
+        data.setSessionId(sessionId);
+        data.setTimestamp(KICK_OFF + offsetMillis);
+        data.setPosition(new GpsData.Position(53.4631, -2.2914, 40.0, 1.5, 12));
+        data.setMovement(new GpsData.Movement(18.0, 0.0, 0.0, null));
+        return data;
+    }
+}
@@ -0,0 +1,67 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.repository.GpsDataRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentGpsDataStoreTest {
+
+    @Mock
+    private GpsDataRepository gpsDataRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private DocumentGpsDataStore documentGpsDataStore;
+
+    @Test
+    void testRetriedSaveSkipsFixesAlreadyStored() {
+        // Given: a first attempt that failed on the second fix, and a retry that finds the first stored
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(GpsData.class))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute())
+                .thenThrow(bulkFailure(new BulkWriteError(91, "shutdown in progress", new BsonDocument(), 1)))
+                .thenThrow(bulkFailure(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0)));
+        List<GpsData> fixes = List.of(new GpsData(), new GpsData());
+
+        // When
+        assertThrows(BulkOperationException.class, () -> documentGpsDataStore.saveAll(fixes));
+        List<String> ids = fixes.stream().map(GpsData::getId).toList();
+        List<GpsData> saved = documentGpsDataStore.saveAll(fixes);
+
+        // Then: both attempts insert the fixes under the ids assigned before the first
+        assertEquals(fixes, saved);
+        assertEquals(2, Set.copyOf(ids).size());
+        assertEquals(ids, fixes.stream().map(GpsData::getId).toList());
+        verify(bulk, times(2)).insert(fixes);
+    }
+
+    private static BulkOperationException bulkFailure(BulkWriteError error) {
+        return new BulkOperationException(error.getMessage(), new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of()));
+    }
+}
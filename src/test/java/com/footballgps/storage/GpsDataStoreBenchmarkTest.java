@@ -0,0 +1,147 @@
+package com.footballgps.storage;
+
+import com.footballgps.model.GpsData;
+import com.footballgps.repository.GpsDataRepository;
+import com.footballgps.util.EpochTime;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.Document;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GpsDataStoreBenchmarkTest {
+
+    private static final int PLAYERS = 22;
+    private static final int FIXES_PER_PLAYER = 6_000; // 10 minutes at 10 Hz
+    private static final int RANGE_QUERIES = 200;
+    private static final LocalDateTime KICK_OFF = LocalDateTime.of(2024, 3, 2, 15, 0);
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkStorageLayouts() {
+        try (TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V6_0);
+             MongoClient client = MongoClients.create("mongodb://" + mongod.current().getServerAddress())) {
+            MongoTemplate template = new MongoTemplate(client, "gps_benchmark");
+
+            GpsDataStore documentStore = new DocumentGpsDataStore(
+                    new MongoRepositoryFactory(template).getRepository(GpsDataRepository.class), template);
+            TimeSeriesGpsDataStore timeSeriesStore = new TimeSeriesGpsDataStore(template);
+            timeSeriesStore.ensureCollection();
+            BucketGpsDataStore bucketStore = new BucketGpsDataStore(template);
+            bucketStore.ensureIndexes();
+            // The gps_data indexes from scripts/create-indexes.sql
+            IndexOperations documentIndexes = template.indexOps("gps_data");
+            documentIndexes.ensureIndex(new Index().on("playerId", Sort.Direction.ASC).on("sessionId", Sort.Direction.ASC));
+            documentIndexes.ensureIndex(new Index().on("sessionId", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+            documentIndexes.ensureIndex(new Index().on("playerId", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+            documentIndexes.ensureIndex(new Index().on("timestamp", Sort.Direction.ASC));
+
+            // Given: the same session in both layouts
+            load(documentStore);
+            load(timeSeriesStore);
+            load(bucketStore);
+
+            // When / Then
+            Document documentStats = template.getDb().runCommand(new Document("collStats", "gps_data"));
+            Document timeSeriesStats = template.getDb().runCommand(
+                    new Document("collStats", TimeSeriesGpsDataStore.COLLECTION));
+            report("document", documentStats);
+            report("timeseries", timeSeriesStats);
+            Document bucketStats = template.getDb().runCommand(new Document("collStats", BucketGpsDataStore.COLLECTION));
+            report("bucket", bucketStats);
+
+            double documentMs = rangeQueries(documentStore);
+            double timeSeriesMs = rangeQueries(timeSeriesStore);
+            double bucketMs = rangeQueries(bucketStore);
+            System.out.printf("%d one-minute range queries: document %.1f ms, timeseries %.1f ms, bucket %.1f ms%n",
+                    RANGE_QUERIES, documentMs, timeSeriesMs, bucketMs);
+
+            assertEquals(documentStore.countBySessionId("session_bench"), timeSeriesStore.countBySessionId("session_bench"));
+            List<GpsData> fromTimeSeries = timeSeriesStore.findByPlayerIdAndSessionId("player_07", "session_bench");
+            assertEquals(FIXES_PER_PLAYER, fromTimeSeries.size());
+            assertEquals("player_07", fromTimeSeries.get(0).getPlayerId());
+            assertEquals(EpochTime.toMillis(KICK_OFF), fromTimeSeries.get(0).getTimestamp());
+
+            // One bucket per player-minute, and fixes come back as they went in
+            assertEquals(PLAYERS * 10, bucketStats.get("count", Number.class).longValue());
+            assertEquals(documentStore.countBySessionId("session_bench"), bucketStore.countBySessionId("session_bench"));
+            List<GpsData> fromBuckets = bucketStore.findByPlayerIdAndSessionId("player_07", "session_bench");
+            List<GpsData> fromDocuments = documentStore.findByPlayerIdAndSessionId("player_07", "session_bench");
+            assertEquals(FIXES_PER_PLAYER, fromBuckets.size());
+            for (int i = 0; i < FIXES_PER_PLAYER; i += 997) {
+                assertEquals(fromDocuments.get(i).getTimestamp(), fromBuckets.get(i).getTimestamp());
+                assertEquals(fromDocuments.get(i).getPosition(), fromBuckets.get(i).getPosition());
+                assertEquals(fromDocuments.get(i).getMovement(), fromBuckets.get(i).getMovement());
+                assertEquals(fromDocuments.get(i).getBiometrics(), fromBuckets.get(i).getBiometrics());
+                assertNull(fromBuckets.get(i).getEnvironmental());
+            }
+        }
+    }
+
+    private static void load(GpsDataStore store) {
+        Random random = new Random(5L);
+        long start = System.nanoTime();
+        List<GpsData> batch = new ArrayList<>(1_000);
+        for (int i = 0; i < FIXES_PER_PLAYER; i++) {
+            long timestamp = EpochTime.toMillis(KICK_OFF) + i * 100L;
+            for (int p = 0; p < PLAYERS; p++) {
+                batch.add(fix(String.format("player_%02d", p), timestamp, random));
+                if (batch.size() == 1_000) {
+                    store.saveAll(batch);
+                    batch = new ArrayList<>(1_000);
+                }
+            }
+        }
+        store.saveAll(batch);
+        System.out.printf("%s: inserted %d fixes in %.1f ms%n", store.getClass().getSimpleName(),
+                PLAYERS * FIXES_PER_PLAYER, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static double rangeQueries(GpsDataStore store) {
+        Random random = new Random(9L);
+        long start = System.nanoTime();
+        int fixes = 0;
+        for (int q = 0; q < RANGE_QUERIES; q++) {
+            String playerId = String.format("player_%02d", random.nextInt(PLAYERS));
+            long from = EpochTime.toMillis(KICK_OFF) + random.nextInt(540) * 1000L;
+            fixes += store.findByPlayerIdAndTimestampBetween(playerId, from, from + 60_000).size();
+        }
+        assertTrue(fixes >= RANGE_QUERIES * 600);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static void report(String layout, Document stats) {
+        System.out.printf("%s: storageSize %d bytes, totalIndexSize %d bytes%n", layout,
+                stats.get("storageSize", Number.class).longValue(),
+                stats.get("totalIndexSize", Number.class).longValue());
+    }
+
+    private static GpsData fix(String playerId, long timestamp, Random random) {
+        GpsData data = new GpsData();
+        data.setPlayerId(playerId);
+        data.setSessionId("session_bench");
+        data.setTimestamp(timestamp);
+        data.setPosition(new GpsData.Position(53.46 + random.nextDouble() * 1e-3, -2.29 + random.nextDouble() * 1e-3,
+                38.0, 1.5, 12));
+        data.setMovement(new GpsData.Movement(random.nextDouble() * 30, random.nextGaussian(),
+                random.nextDouble() * 360, null));
+        data.setBiometrics(new GpsData.Biometrics(140 + random.nextInt(40), 37.5, 4));
+        return data;
+    }
+}